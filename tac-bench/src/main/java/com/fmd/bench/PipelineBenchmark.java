@@ -0,0 +1,151 @@
+package com.fmd.bench;
+
+import com.fmd.CompiscriptLexer;
+import com.fmd.CompiscriptParsing;
+import com.fmd.CompiscriptParser;
+import com.fmd.SemanticVisitor;
+import com.fmd.SyntheticProgramGenerator;
+import com.fmd.TACVisitor;
+import com.fmd.modules.TACInstruction;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de cada etapa del pipeline por separado:
+ * - lexAndParse: CompiscriptLexer + CompiscriptParser.program() (LL)
+ * - lexAndParseTwoStage: lo mismo con CompiscriptParsing (SLL y fallback a LL)
+ * - semantic:    SemanticVisitor sobre un árbol ya construido
+ * - tac:         TACVisitor.visit sobre el árbol y las tablas de símbolos ya construidas
+ * - render:      TACInstruction.toString de todas las instrucciones ya generadas
+ *
+ * Cada etapa parte de la salida de la anterior, preparada en setup, para que
+ * su costo no se mezcle con el de las demás. Con -prof gc se obtiene además
+ * la tasa de asignación (gc.alloc.rate.norm = bytes por operación).
+ *
+ * Los programas vienen de SyntheticProgramGenerator con semilla fija, así que
+ * el mismo "size" mide el mismo programa en cada versión. Con -p classes=false
+ * se generan programas sin clases (sin asignaciones a propiedades), que
+ * CompiscriptParsing puede parsear completos con SLL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class PipelineBenchmark {
+
+    @Param({"1KB", "10KB", "100KB", "1MB", "10MB"})
+    public String size;
+
+    @Param({"42"})
+    public long seed;
+
+    @Param({"true"})
+    public boolean classes;
+
+    private String code;
+    private ParseTree tree;
+    private Map<String, SemanticVisitor.Entorno> scopes;
+    private List<TACInstruction> instructions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Algunas etapas escriben en consola; no medir la consola
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        SyntheticProgramGenerator generator = new SyntheticProgramGenerator(seed);
+        if (!classes) {
+            generator.weights(4, 0, 2, 2, 2);
+        }
+        code = generator.generate(parseSize(size));
+        tree = parse(code);
+
+        SemanticVisitor semantic = new SemanticVisitor();
+        semantic.visit(tree);
+        if (!semantic.getErrores().isEmpty()) {
+            throw new IllegalStateException("El programa sintético tiene errores semánticos: "
+                    + semantic.getErrores());
+        }
+        scopes = semantic.getExistingScopes();
+
+        TACVisitor visitor = new TACVisitor(scopes);
+        visitor.visit(tree);
+        instructions = visitor.getGenerator().getInstructions();
+    }
+
+    @Benchmark
+    public ParseTree lexAndParse() {
+        return parse(code);
+    }
+
+    @Benchmark
+    public ParseTree lexAndParseTwoStage() {
+        return CompiscriptParsing.parse(code).tree();
+    }
+
+    @Benchmark
+    public SemanticVisitor semantic() {
+        SemanticVisitor semantic = new SemanticVisitor();
+        semantic.visit(tree);
+        return semantic;
+    }
+
+    /**
+     * Reutiliza las tablas de símbolos del setup: TACVisitor solo reasigna
+     * offsets y tamaños, con el mismo resultado en cada invocación.
+     */
+    @Benchmark
+    public TACVisitor tac() {
+        TACVisitor visitor = new TACVisitor(scopes);
+        visitor.visit(tree);
+        return visitor;
+    }
+
+    @Benchmark
+    public void render(Blackhole bh) {
+        for (TACInstruction instr : instructions) {
+            bh.consume(instr.toString());
+        }
+    }
+
+    /**
+     * @param size tamaño con sufijo: "512", "1KB", "10MB"
+     */
+    static long parseSize(String size) {
+        String s = size.trim().toUpperCase();
+        if (s.endsWith("MB")) {
+            return Long.parseLong(s.substring(0, s.length() - 2)) * 1024 * 1024;
+        }
+        if (s.endsWith("KB")) {
+            return Long.parseLong(s.substring(0, s.length() - 2)) * 1024;
+        }
+        return Long.parseLong(s);
+    }
+
+    private static ParseTree parse(String code) {
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
+        CompiscriptParser parser = new CompiscriptParser(new CommonTokenStream(lexer));
+        return parser.program();
+    }
+}
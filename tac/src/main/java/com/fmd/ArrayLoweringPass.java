@@ -0,0 +1,375 @@
+package com.fmd;
+
+import com.fmd.modules.ArrayLayout;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accesos a arreglos como aritmética de direcciones
+ *
+ * El generador deja cada acceso como texto ("t2 = m[i]", "t3 = t2[j]",
+ * "m[0][1] = t1"): quien lo ejecute tiene que buscar las dimensiones del
+ * arreglo y calcular la dirección en cada acceso. Con la forma de cada
+ * arreglo (ArrayLayout, ver TACGenerator.recordArrayLayout) esta pasada
+ * escribe ese cálculo en el TAC. Para integer m[2][3]:
+ *
+ *   t2 = m[i]           t4 = &m
+ *   t3 = t2[j]    →     bounds_check i, 2
+ *                       t5 = i * 12
+ *                       t2 = t4 + t5
+ *                       bounds_check j, 3
+ *                       t6 = j * 4
+ *                       t7 = t2 + t6
+ *                       t3 = [t7]
+ *
+ * "tN = &m" (UNARY_OP "&") es la dirección del primer elemento de m y
+ * "[t7]" lo que está en la dirección t7, como carga o como destino de un
+ * store. Cada índice se revisa contra su dimensión (BOUNDS_CHECK) igual que
+ * el acceso sin bajar: m[0][5] de una matriz 2x3 cae dentro del arreglo
+ * (en m[1][2]) y solo la dimensión lo detecta. Un índice constante
+ * (literal, o temporal con una constante conocida en el bloque) no se
+ * revisa si está en rango y se junta en un solo desplazamiento. Con las
+ * multiplicaciones a la vista, ValueNumberingPass comparte &m y las filas
+ * de un bloque, LoopInvariantCodeMotionPass saca la fila m[i] de un ciclo
+ * interno y StrengthReductionPass cambia j * 4 por un puntero que avanza.
+ *
+ * Solo se bajan los accesos a un nombre con forma conocida que el programa
+ * nunca reasigna completo ("m = otra"), con índices temporales, variables o
+ * enteros, y con a lo sumo tantos índices como dimensiones. Una fila (menos
+ * índices que dimensiones) se baja solo si va a un temporal escrito una
+ * sola vez y todos sus usos son accesos que también se bajan: si se pasa a
+ * una función o se copia a una variable queda como estaba, y con ella las
+ * filas que salen de ella. El TAC puede mezclar ambas formas sobre el mismo
+ * arreglo.
+ */
+public class ArrayLoweringPass implements TACPass {
+
+    private Map<String, ArrayLayout> layouts = Map.of();
+
+    @Override
+    public String name() {
+        return "array-lowering";
+    }
+
+    /**
+     * Formas de los arreglos del programa (TACGenerator.getArrayLayouts);
+     * sin formas la pasada no cambia nada
+     */
+    public void setLayouts(Map<String, ArrayLayout> layouts) {
+        this.layouts = layouts;
+    }
+
+    /**
+     * Acceso "base[i][j]": base es una variable o un temporal (una fila) y
+     * cada índice un temporal, una variable o un entero
+     */
+    record Access(TACOperand base, List<TACOperand> indices) {
+    }
+
+    /**
+     * Arreglo al que apunta un temporal: su forma y cuántos índices ya se aplicaron
+     */
+    private record Row(ArrayLayout layout, int depth) {
+    }
+
+    /**
+     * Lee "m[t1][2]"; null si el operando no es un elemento con esa forma
+     * ("[t7]", "p.x[1]", un índice que es un campo)
+     */
+    static Access parse(TACOperand operand) {
+        if (operand == null || !operand.isElement()) {
+            return null;
+        }
+        TACOperand base = operand.getBase();
+        if (!base.isTemp() && !CopyPropagationPass.isVariable(base)) {
+            return null;
+        }
+        for (TACOperand index : operand.getIndices()) {
+            if (!index.isTemp() && !index.isInt() && !CopyPropagationPass.isVariable(index)) {
+                return null;
+            }
+        }
+        return new Access(base, operand.getIndices());
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        if (layouts.isEmpty()) {
+            return new ArrayList<>(instructions);
+        }
+        return new Lowering(instructions).run();
+    }
+
+    /**
+     * Estado de una ejecución de la pasada
+     */
+    private final class Lowering {
+        final List<TACInstruction> instructions;
+        final List<TACInstruction> out;
+        // Variables escritas completas en algún lugar del programa
+        final Set<String> reassigned = new HashSet<>();
+        // Escrituras por temporal
+        final Map<Integer, Integer> tempDefs = new HashMap<>();
+        // Filas que se bajan: temporal → arreglo al que apunta
+        final Map<Integer, Row> rows = new HashMap<>();
+        // Temporales con una constante conocida en el bloque actual
+        final Map<TACOperand, Long> known = new HashMap<>();
+        int nextTemp = 1;
+
+        Lowering(List<TACInstruction> instructions) {
+            this.instructions = instructions;
+            this.out = new ArrayList<>(instructions.size() + instructions.size() / 4);
+        }
+
+        List<TACInstruction> run() {
+            scan();
+            findRows();
+            for (TACInstruction instr : instructions) {
+                switch (instr.getOp()) {
+                    case LABEL, LABEL_FUNCTION, LABEL_CLASS, END, END_CLASS, TRY_BEGIN, TRY_END -> {
+                        // Varios caminos llegan aquí, o empieza otra función
+                        known.clear();
+                        out.add(instr);
+                    }
+                    case ASSIGN -> lower(instr);
+                    default -> out.add(instr);
+                }
+                TACOperand written = instr.getWritten();
+                if (written != null && written.isTemp()) {
+                    TACOperand value = instr.getOp() == OpType.ASSIGN ? instr.getArg1Operand() : null;
+                    if (value != null && value.isInt()) {
+                        known.put(written, value.getValue());
+                    } else {
+                        known.remove(written);
+                    }
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Nombres reasignados, escrituras por temporal y primer temporal libre
+         */
+        void scan() {
+            for (TACInstruction instr : instructions) {
+                TACOperand written = instr.getWritten();
+                if (written != null) {
+                    if (written.isTemp()) {
+                        tempDefs.merge(written.getId(), 1, Integer::sum);
+                        nextTemp = Math.max(nextTemp, written.getId() + 1);
+                    } else {
+                        reassigned.add(written.toString());
+                    }
+                }
+                instr.forEachRead(operand -> operand.forEachTemp(id -> nextTemp = Math.max(nextTemp, id + 1)));
+            }
+        }
+
+        /**
+         * Arreglo al que apunta la base de un acceso (null si no se conoce)
+         */
+        Row rowOf(TACOperand base) {
+            if (base.isTemp()) {
+                return rows.get(base.getId());
+            }
+            ArrayLayout layout = layouts.get(base.toString());
+            return layout == null || reassigned.contains(base.toString()) ? null : new Row(layout, 0);
+        }
+
+        /**
+         * Filas candidatas ("tN = m[i]" con tN escrito una vez) y descarte de
+         * las que se usan de otra forma
+         */
+        void findRows() {
+            // temporal → fila de la que sale (si sale de otra fila)
+            Map<Integer, Integer> parent = new HashMap<>();
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (TACInstruction instr : instructions) {
+                    TACOperand written = instr.getWritten();
+                    if (instr.getOp() != OpType.ASSIGN || written == null || !written.isTemp()
+                            || rows.containsKey(written.getId()) || tempDefs.get(written.getId()) != 1) {
+                        continue;
+                    }
+                    Access access = parse(instr.getArg1Operand());
+                    Row base = access == null ? null : rowOf(access.base());
+                    if (base != null && base.depth() + access.indices().size() < base.layout().rank()) {
+                        rows.put(written.getId(), new Row(base.layout(), base.depth() + access.indices().size()));
+                        if (access.base().isTemp()) {
+                            parent.put(written.getId(), access.base().getId());
+                        }
+                        changed = true;
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            Set<Integer> rejected = new HashSet<>();
+            for (TACInstruction instr : instructions) {
+                instr.forEachRead(operand -> {
+                    Access access = instr.getOp() == OpType.ASSIGN ? parse(operand) : null;
+                    operand.forEachTemp(id -> {
+                        if (rows.containsKey(id) && !isRowAccess(access, id)) {
+                            rejected.add(id);
+                        }
+                    });
+                });
+            }
+
+            // Una fila y las que salen de ella se bajan todas o ninguna
+            changed = !rejected.isEmpty();
+            while (changed) {
+                changed = false;
+                for (Map.Entry<Integer, Integer> link : parent.entrySet()) {
+                    boolean child = rejected.contains(link.getKey());
+                    boolean base = rejected.contains(link.getValue());
+                    if (child != base) {
+                        rejected.add(link.getKey());
+                        rejected.add(link.getValue());
+                        changed = true;
+                    }
+                }
+            }
+            rows.keySet().removeAll(rejected);
+        }
+
+        /**
+         * true si el acceso usa la fila id solo como base y no se pasa de sus dimensiones
+         */
+        private boolean isRowAccess(Access access, int id) {
+            if (access == null || !access.base().isTemp() || access.base().getId() != id) {
+                return false;
+            }
+            for (TACOperand index : access.indices()) {
+                if (index.isTemp() && index.getId() == id) {
+                    return false;
+                }
+            }
+            Row row = rows.get(id);
+            return row.depth() + access.indices().size() <= row.layout().rank();
+        }
+
+        /**
+         * Acceso a un elemento que se puede bajar: todos los índices de su arreglo
+         */
+        Access element(TACOperand operand) {
+            Access access = parse(operand);
+            if (access == null) {
+                return null;
+            }
+            Row row = rowOf(access.base());
+            return row != null && row.depth() + access.indices().size() == row.layout().rank() ? access : null;
+        }
+
+        void lower(TACInstruction instr) {
+            TACOperand value = instr.getArg1Operand();
+            Access load = element(value);
+            if (instr.isStore()) {
+                Access store = element(instr.getResultOperand());
+                if (store == null && load == null) {
+                    out.add(instr);
+                    return;
+                }
+                if (load != null) {
+                    TACOperand temp = newTemp();
+                    emit(OpType.ASSIGN, temp, memory(address(load)), null, null);
+                    value = temp;
+                }
+                TACOperand dest = store != null ? memory(address(store)) : instr.getResultOperand();
+                emit(OpType.ASSIGN, dest, value, null, null);
+                return;
+            }
+
+            TACOperand written = instr.getWritten();
+            if (written != null && written.isTemp() && rows.containsKey(written.getId())) {
+                int start = out.size();
+                TACOperand address = address(parse(value));
+                TACInstruction last = out.size() > start ? out.get(out.size() - 1) : null;
+                if (last != null && address.equals(last.getResultOperand())) {
+                    last.setResult(written);    // la instrucción es nuestra: escribe la fila directamente
+                } else {
+                    emit(OpType.ASSIGN, written, address, null, null);
+                }
+                return;
+            }
+            if (load != null) {
+                emit(OpType.ASSIGN, instr.getResultOperand(), memory(address(load)), null, null);
+                return;
+            }
+            out.add(instr);
+        }
+
+        /**
+         * Calcula la dirección de un acceso en out
+         * @return temporal con la dirección, o la fila misma si no hay que sumar nada
+         */
+        TACOperand address(Access access) {
+            Row row = rowOf(access.base());
+            TACOperand address = access.base();
+            if (!address.isTemp()) {
+                TACOperand base = newTemp();
+                emit(OpType.UNARY_OP, base, access.base(), "&", null);
+                address = base;
+            }
+            long offset = 0;
+            for (int q = 0; q < access.indices().size(); q++) {
+                TACOperand index = access.indices().get(q);
+                int stride = row.layout().stride(row.depth() + q);
+                int dimension = row.layout().dimensions().get(row.depth() + q);
+                Long constant = index.isInt() ? Long.valueOf(index.getValue()) : known.get(index);
+                if (constant == null || constant < 0 || constant >= dimension) {
+                    emit(OpType.BOUNDS_CHECK, null, index, null, TACOperand.integer(dimension));
+                }
+                if (constant != null) {
+                    offset += constant * stride;
+                    continue;
+                }
+                TACOperand scaled = index;
+                if (stride != 1) {
+                    scaled = newTemp();
+                    emit(OpType.BINARY_OP, scaled, index, "*", TACOperand.integer(stride));
+                }
+                TACOperand sum = newTemp();
+                emit(OpType.BINARY_OP, sum, address, "+", scaled);
+                address = sum;
+            }
+            if (offset != 0) {
+                TACOperand sum = newTemp();
+                emit(OpType.BINARY_OP, sum, address, "+", TACOperand.integer(offset));
+                address = sum;
+            }
+            return address;
+        }
+
+        TACOperand newTemp() {
+            return TACOperand.temp(nextTemp++);
+        }
+
+        void emit(OpType op, TACOperand result, TACOperand arg1, String operator, TACOperand arg2) {
+            TACInstruction instr = new TACInstruction(op);
+            instr.setResult(result);
+            instr.setArg1(arg1);
+            instr.setOperator(operator);
+            instr.setArg2(arg2);
+            out.add(instr);
+        }
+    }
+
+    /**
+     * Lo que está en la dirección: "[t7]"
+     */
+    static TACOperand memory(TACOperand address) {
+        return TACOperand.address(address);
+    }
+}
@@ -0,0 +1,291 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.tree.Trees;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Renderizador del AST dentro de la JVM
+ *
+ * RESPONSABILIDADES:
+ * - Recorrer el ParseTree de ANTLR directamente (sin pasar por toStringTree)
+ * - Calcular un layout de árbol: cada subárbol ocupa el ancho de sus hijos
+ *   o de su propia etiqueta, el que sea mayor
+ * - Dibujar nodos y aristas en un PNG en memoria y devolverlo en Base64
+ *
+ * Reemplaza al script additions/AstTreeGenerator.py: no crea procesos ni
+ * archivos temporales, por lo que peticiones concurrentes no comparten estado.
+ */
+public final class AstImageRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(AstImageRenderer.class);
+
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+    private static final int H_GAP = 12;        // separación horizontal entre subárboles
+    private static final int V_GAP = 40;        // separación vertical entre niveles
+    private static final int PADDING_X = 8;     // margen interno de cada nodo
+    private static final int NODE_HEIGHT = 22;
+    private static final int MARGIN = 16;
+
+    // Límite de píxeles: el costo está dominado por la codificación PNG, así que
+    // árboles más grandes se escalan en lugar de agrandar la imagen
+    private static final long MAX_PIXELS = 16_000_000L;
+
+    // Nivel de compresión rápido (deflate bajo); la imagen en escala de grises
+    // ya es 3 veces más pequeña que en RGB antes de comprimir
+    private static final float PNG_COMPRESSION_QUALITY = 0.8f;
+
+    private static final Color RULE_FILL = new Color(0xEE, 0xEE, 0xEE);
+    private static final Color RULE_BORDER = new Color(0x44, 0x44, 0x44);
+    private static final Color TOKEN_COLOR = new Color(0x22, 0x22, 0x22);
+    private static final Color EDGE_COLOR = new Color(0x99, 0x99, 0x99);
+
+    private AstImageRenderer() {
+    }
+
+    /**
+     * Genera la imagen PNG del árbol y la devuelve codificada en Base64
+     * @param tree árbol producido por el parser
+     * @param parser parser que generó el árbol (para los nombres de reglas)
+     * @return imagen en Base64, o null si no se pudo generar
+     */
+    public static String renderBase64(ParseTree tree, Parser parser) {
+        try {
+            return Base64.getEncoder().encodeToString(renderPng(tree, parser));
+        } catch (IOException e) {
+            log.warn("No se pudo generar la imagen del AST: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Genera la imagen PNG del árbol
+     * @return bytes del PNG
+     */
+    public static byte[] renderPng(ParseTree tree, Parser parser) throws IOException {
+        List<String> ruleNames = parser != null ? Arrays.asList(parser.getRuleNames()) : null;
+        Layout layout = new Layout(tree, ruleNames);
+
+        int width = layout.totalWidth + 2 * MARGIN;
+        int height = (layout.maxDepth + 1) * (NODE_HEIGHT + V_GAP) - V_GAP + 2 * MARGIN;
+
+        double scale = 1.0;
+        long pixels = (long) width * height;
+        if (pixels > MAX_PIXELS) {
+            scale = Math.sqrt((double) MAX_PIXELS / pixels);
+        }
+
+        BufferedImage image = new BufferedImage(
+                Math.max(1, (int) Math.ceil(width * scale)),
+                Math.max(1, (int) Math.ceil(height * scale)),
+                BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.scale(scale, scale);
+            g.translate(MARGIN, MARGIN);
+            g.setFont(FONT);
+            layout.paint(g);
+        } finally {
+            g.dispose();
+        }
+
+        return encodePng(image);
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(PNG_COMPRESSION_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Layout del árbol en arreglos paralelos (un índice por nodo, en preorden).
+     * Se recorre de forma iterativa para soportar árboles profundos.
+     */
+    private static final class Layout {
+        private final List<String> labels = new ArrayList<>();
+        private final List<Boolean> isRule = new ArrayList<>();
+        private final List<int[]> children = new ArrayList<>();
+        private int[] depth;
+        private int[] labelWidth;
+        private int[] subtreeWidth;
+        private int[] x;                    // centro horizontal de cada nodo
+        private final FontMetrics metrics;
+        private int maxDepth;
+        private int totalWidth;
+
+        Layout(ParseTree root, List<String> ruleNames) {
+            BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = scratch.createGraphics();
+            this.metrics = g.getFontMetrics(FONT);
+            g.dispose();
+
+            collect(root, ruleNames);
+            measure();
+            place();
+        }
+
+        /**
+         * Numera los nodos en preorden y guarda etiqueta, profundidad e hijos
+         */
+        private void collect(ParseTree root, List<String> ruleNames) {
+            List<Integer> depths = new ArrayList<>();
+            List<ParseTree> stack = new ArrayList<>();
+            List<Integer> stackDepth = new ArrayList<>();
+            List<Integer> stackParent = new ArrayList<>();
+            List<List<Integer>> childLists = new ArrayList<>();
+
+            stack.add(root);
+            stackDepth.add(0);
+            stackParent.add(-1);
+
+            while (!stack.isEmpty()) {
+                int last = stack.size() - 1;
+                ParseTree node = stack.remove(last);
+                int d = stackDepth.remove(last);
+                int parent = stackParent.remove(last);
+
+                int id = labels.size();
+                labels.add(Trees.getNodeText(node, ruleNames));
+                isRule.add(node instanceof RuleContext);
+                depths.add(d);
+                childLists.add(new ArrayList<>());
+                if (parent >= 0) {
+                    childLists.get(parent).add(id);
+                }
+                maxDepth = Math.max(maxDepth, d);
+
+                // Apilar en orden inverso para conservar el orden de los hijos
+                for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                    ParseTree child = node.getChild(i);
+                    if (child instanceof TerminalNode
+                            && ((TerminalNode) child).getSymbol().getType() == Token.EOF) {
+                        continue; // <EOF> no aporta nada a la imagen
+                    }
+                    stack.add(child);
+                    stackDepth.add(d + 1);
+                    stackParent.add(id);
+                }
+            }
+
+            int n = labels.size();
+            depth = new int[n];
+            for (int i = 0; i < n; i++) {
+                depth[i] = depths.get(i);
+                children.add(childLists.get(i).stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        /**
+         * Calcula el ancho de cada subárbol (postorden: los hijos tienen índice mayor)
+         */
+        private void measure() {
+            int n = labels.size();
+            labelWidth = new int[n];
+            subtreeWidth = new int[n];
+            for (int i = n - 1; i >= 0; i--) {
+                labelWidth[i] = metrics.stringWidth(labels.get(i)) + 2 * PADDING_X;
+                int childrenWidth = 0;
+                for (int c : children.get(i)) {
+                    childrenWidth += subtreeWidth[c];
+                }
+                childrenWidth += Math.max(0, children.get(i).length - 1) * H_GAP;
+                subtreeWidth[i] = Math.max(labelWidth[i], childrenWidth);
+            }
+            totalWidth = n > 0 ? subtreeWidth[0] : 0;
+        }
+
+        /**
+         * Asigna la posición horizontal de cada nodo (preorden)
+         */
+        private void place() {
+            int n = labels.size();
+            x = new int[n];
+            int[] left = new int[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = left[i] + subtreeWidth[i] / 2;
+
+                int childrenWidth = 0;
+                for (int c : children.get(i)) {
+                    childrenWidth += subtreeWidth[c];
+                }
+                childrenWidth += Math.max(0, children.get(i).length - 1) * H_GAP;
+
+                int cursor = left[i] + (subtreeWidth[i] - childrenWidth) / 2;
+                for (int c : children.get(i)) {
+                    left[c] = cursor;
+                    cursor += subtreeWidth[c] + H_GAP;
+                }
+            }
+        }
+
+        private int top(int node) {
+            return depth[node] * (NODE_HEIGHT + V_GAP);
+        }
+
+        void paint(Graphics2D g) {
+            int n = labels.size();
+
+            // Aristas primero para que los nodos queden encima
+            g.setColor(EDGE_COLOR);
+            g.setStroke(new BasicStroke(1f));
+            for (int i = 0; i < n; i++) {
+                for (int c : children.get(i)) {
+                    g.drawLine(x[i], top(i) + NODE_HEIGHT, x[c], top(c));
+                }
+            }
+
+            int baseline = (NODE_HEIGHT - metrics.getHeight()) / 2 + metrics.getAscent();
+            for (int i = 0; i < n; i++) {
+                int left = x[i] - labelWidth[i] / 2;
+                int y = top(i);
+                if (isRule.get(i)) {
+                    g.setColor(RULE_FILL);
+                    g.fillRoundRect(left, y, labelWidth[i], NODE_HEIGHT, 10, 10);
+                    g.setColor(RULE_BORDER);
+                    g.drawRoundRect(left, y, labelWidth[i], NODE_HEIGHT, 10, 10);
+                } else {
+                    g.setColor(TOKEN_COLOR);
+                }
+                g.drawString(labels.get(i), left + PADDING_X, y + baseline);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.fmd;
+
+import jakarta.annotation.PreDestroy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Generación asíncrona de la imagen del AST
+ *
+ * RESPONSABILIDADES:
+ * - Renderizar imágenes en un pool acotado (hilos y cola configurables)
+ * - Entregar un ticket inmediatamente para consultar la imagen después
+ * - Descartar resultados viejos para que los tickets no crezcan sin límite
+ *
+ * Configuración (application.properties):
+ *   tac.ast.threads      hilos de renderizado
+ *   tac.ast.queue        renders pendientes antes de rechazar
+ *   tac.ast.ttl-seconds  tiempo que se conserva una imagen lista
+ *   tac.ast.max-results  imágenes listas que se conservan como máximo
+ */
+@Service
+public class AstImageService {
+
+    /** Estado de un ticket consultado */
+    public enum Status { PENDING, DONE, FAILED, UNKNOWN }
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    // Tickets terminados en orden de finalización: el primero es siempre el más viejo
+    private final ConcurrentLinkedQueue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+    private final long ttlNanos;
+    private final int maxResults;
+
+    public AstImageService(@Value("${tac.ast.threads:2}") int threads,
+                           @Value("${tac.ast.queue:64}") int queueCapacity,
+                           @Value("${tac.ast.ttl-seconds:300}") long ttlSeconds,
+                           @Value("${tac.ast.max-results:1024}") int maxResults) {
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "ast-render-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Encola el renderizado del árbol
+     * @return ticket para consultar la imagen, o null si la cola está llena
+     */
+    public String submit(ParseTree tree, Parser parser) {
+        return submit(tree, parser, image -> { });
+    }
+
+    /**
+     * @param onImage recibe la imagen cuando el renderizado termina bien
+     *                (en el hilo del pool, antes de que el ticket quede DONE)
+     */
+    public String submit(ParseTree tree, Parser parser, Consumer<String> onImage) {
+        purgeExpired();
+
+        String id = UUID.randomUUID().toString();
+        Ticket ticket = new Ticket();
+        tickets.put(id, ticket);
+        try {
+            ticket.image = CompletableFuture.supplyAsync(() -> {
+                String image = AstImageRenderer.renderBase64(tree, parser);
+                if (image == null) {
+                    throw new IllegalStateException("No se pudo generar la imagen del AST");
+                }
+                onImage.accept(image);
+                return image;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            tickets.remove(id);
+            return null;
+        }
+        ticket.image.whenComplete((img, err) -> {
+            ticket.finishedAt = System.nanoTime();
+            finished.add(id);
+            finishedCount.incrementAndGet();
+        });
+        return id;
+    }
+
+    /**
+     * Estado actual de un ticket
+     */
+    public Status status(String id) {
+        return statusOf(tickets.get(id));
+    }
+
+    /**
+     * Imagen en Base64 de un ticket terminado
+     * @return imagen o null si no está disponible
+     */
+    public String image(String id) {
+        Ticket ticket = tickets.get(id);
+        return statusOf(ticket) == Status.DONE ? ticket.image.join() : null;
+    }
+
+    private static Status statusOf(Ticket ticket) {
+        if (ticket == null || ticket.image == null) {
+            return Status.UNKNOWN;
+        }
+        if (!ticket.image.isDone()) {
+            return Status.PENDING;
+        }
+        return ticket.image.isCompletedExceptionally() ? Status.FAILED : Status.DONE;
+    }
+
+    /**
+     * Elimina los tickets vencidos (o los más viejos si se supera tac.ast.max-results).
+     * Solo revisa la cabeza de la cola, por lo que el costo amortizado es constante.
+     */
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        String head;
+        while ((head = finished.peek()) != null) {
+            Ticket ticket = tickets.get(head);
+            boolean expired = ticket == null || now - ticket.finishedAt > ttlNanos;
+            if (!expired && finishedCount.get() <= maxResults) {
+                break;
+            }
+            if (finished.remove(head)) {
+                finishedCount.decrementAndGet();
+                tickets.remove(head);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Ticket {
+        volatile CompletableFuture<String> image;
+        volatile long finishedAt;
+    }
+}
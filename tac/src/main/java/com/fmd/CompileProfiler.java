@@ -0,0 +1,228 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentación de una compilación
+ *
+ * RESPONSABILIDADES:
+ * - Medir tiempo de pared, tiempo de CPU y bytes asignados de cada fase
+ *   (lexer, parser, semántico, TAC)
+ * - Medir los métodos visit* de los visitors de TAC (llamadas, tiempo total y propio)
+ * - Entregar los resultados como tabla (Main) o como mapa (TACCompilationService)
+ *
+ * Una instancia mide una sola compilación en un solo hilo: CPU y asignación
+ * se leen del hilo actual con ThreadMXBean. Los visitors solo registran
+ * hotspots si el TACGenerator tiene un profiler con hotspots activos.
+ *
+ * Uso:
+ *   CompileProfiler profiler = new CompileProfiler(true);
+ *   ParseTree tree = profiler.phase(CompileProfiler.Phase.PARSE, parser::program);
+ *   System.out.println(profiler.report());
+ */
+public class CompileProfiler {
+
+    /** Fases del pipeline en orden de ejecución */
+    public enum Phase { LEX, PARSE, SEMANTIC, TAC }
+
+    /**
+     * Medición de una fase
+     * @param wallNanos tiempo de pared
+     * @param cpuNanos tiempo de CPU del hilo (-1 si la JVM no lo soporta)
+     * @param allocatedBytes bytes asignados por el hilo (-1 si la JVM no lo soporta)
+     */
+    public record PhaseStats(long wallNanos, long cpuNanos, long allocatedBytes) {
+    }
+
+    /**
+     * Acumulado de un método visit*
+     * @param totalNanos tiempo incluyendo los nodos hijos
+     * @param selfNanos tiempo sin contar los nodos hijos medidos
+     */
+    public record Hotspot(String method, long calls, long totalNanos, long selfNanos) {
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean SUN_THREADS =
+            THREADS instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()
+                    ? sun : null;
+
+    private final Map<Phase, PhaseStats> phases = new EnumMap<>(Phase.class);
+    private final boolean hotspots;
+
+    // visitor -> clase del nodo -> acumulado; la clave es la clase para no armar strings por visita
+    private final Map<String, Map<Class<?>, long[]>> visits = new HashMap<>();
+
+    // Pila de visitas en curso: inicio y tiempo de hijos de cada nivel
+    private long[] startStack = new long[64];
+    private long[] childStack = new long[64];
+    private int depth;
+
+    /**
+     * @param hotspots true para medir también cada método visit* (más costoso)
+     */
+    public CompileProfiler(boolean hotspots) {
+        this.hotspots = hotspots;
+    }
+
+    public boolean isHotspotsEnabled() {
+        return hotspots;
+    }
+
+    // FASES
+    /**
+     * Ejecuta una fase y guarda su medición
+     */
+    public <T> T phase(Phase phase, Supplier<T> work) {
+        long cpu = cpuTime();
+        long alloc = allocatedBytes();
+        long wall = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            long wallEnd = System.nanoTime();
+            long cpuEnd = cpuTime();
+            long allocEnd = allocatedBytes();
+            phases.put(phase, new PhaseStats(
+                    wallEnd - wall,
+                    cpu < 0 ? -1 : cpuEnd - cpu,
+                    alloc < 0 ? -1 : allocEnd - alloc));
+        }
+    }
+
+    public void phase(Phase phase, Runnable work) {
+        phase(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public Map<Phase, PhaseStats> getPhases() {
+        return phases;
+    }
+
+    // HOTSPOTS
+    /**
+     * Marca el inicio de un visit; se cierra siempre con exitVisit
+     */
+    public void enterVisit() {
+        if (depth == startStack.length) {
+            startStack = Arrays.copyOf(startStack, depth * 2);
+            childStack = Arrays.copyOf(childStack, depth * 2);
+        }
+        childStack[depth] = 0;
+        startStack[depth++] = System.nanoTime();
+    }
+
+    /**
+     * Marca el fin de un visit y lo acumula bajo visitor.visitRegla
+     * @param visitor nombre del visitor (constante de cada clase)
+     * @param node nodo visitado
+     */
+    public void exitVisit(String visitor, ParseTree node) {
+        long elapsed = System.nanoTime() - startStack[--depth];
+        if (depth > 0) {
+            childStack[depth - 1] += elapsed;
+        }
+        long[] acc = visits.computeIfAbsent(visitor, v -> new HashMap<>())
+                .computeIfAbsent(node.getClass(), c -> new long[3]);
+        acc[0]++;
+        acc[1] += elapsed;
+        acc[2] += elapsed - childStack[depth];
+    }
+
+    /**
+     * Hotspots ordenados por tiempo propio, de mayor a menor
+     */
+    public List<Hotspot> getHotspots() {
+        List<Hotspot> list = new ArrayList<>();
+        for (Map.Entry<String, Map<Class<?>, long[]>> byVisitor : visits.entrySet()) {
+            for (Map.Entry<Class<?>, long[]> byNode : byVisitor.getValue().entrySet()) {
+                long[] acc = byNode.getValue();
+                list.add(new Hotspot(byVisitor.getKey() + "." + methodName(byNode.getKey()),
+                        acc[0], acc[1], acc[2]));
+            }
+        }
+        list.sort(Comparator.comparingLong(Hotspot::selfNanos).reversed());
+        return list;
+    }
+
+    /**
+     * CompiscriptParser.AdditiveExprContext -> visitAdditiveExpr
+     */
+    private static String methodName(Class<?> node) {
+        String name = node.getSimpleName();
+        if (name.endsWith("Context")) {
+            name = name.substring(0, name.length() - "Context".length());
+        }
+        return "visit" + name;
+    }
+
+    // REPORTES
+    /**
+     * Resultados como mapa, para respuestas JSON
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        Map<String, Object> phaseMap = new LinkedHashMap<>();
+        for (Map.Entry<Phase, PhaseStats> entry : phases.entrySet()) {
+            PhaseStats stats = entry.getValue();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("wallNanos", stats.wallNanos());
+            values.put("cpuNanos", stats.cpuNanos());
+            values.put("allocatedBytes", stats.allocatedBytes());
+            phaseMap.put(entry.getKey().name().toLowerCase(), values);
+        }
+        map.put("phases", phaseMap);
+        if (hotspots) {
+            map.put("hotspots", getHotspots());
+        }
+        return map;
+    }
+
+    /**
+     * Resultados como tabla legible (los 20 métodos con más tiempo propio)
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-10s %12s %12s %14s%n", "fase", "pared (ms)", "CPU (ms)", "asignado (KB)"));
+        for (Map.Entry<Phase, PhaseStats> entry : phases.entrySet()) {
+            PhaseStats s = entry.getValue();
+            sb.append(String.format("%-10s %12.3f %12.3f %14s%n",
+                    entry.getKey().name().toLowerCase(),
+                    s.wallNanos() / 1e6,
+                    s.cpuNanos() < 0 ? Double.NaN : s.cpuNanos() / 1e6,
+                    s.allocatedBytes() < 0 ? "n/d" : String.valueOf(s.allocatedBytes() / 1024)));
+        }
+
+        if (hotspots) {
+            sb.append(String.format("%n%-50s %10s %12s %12s%n", "método", "llamadas", "total (ms)", "propio (ms)"));
+            List<Hotspot> list = getHotspots();
+            for (Hotspot h : list.subList(0, Math.min(20, list.size()))) {
+                sb.append(String.format("%-50s %10d %12.3f %12.3f%n",
+                        h.method(), h.calls(), h.totalNanos() / 1e6, h.selfNanos() / 1e6));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        return SUN_THREADS != null ? SUN_THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
@@ -0,0 +1,353 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Punto de entrada común para parsear Compiscript
+ *
+ * ESTRATEGIA (dos etapas):
+ * 1. PredictionMode.SLL con BailErrorStrategy y sin listeners de error:
+ *    rápido y suficiente para casi todo programa válido
+ * 2. Si SLL falla (error real o ambigüedad que SLL no resuelve), se rebobinan
+ *    los tokens y se repite con PredictionMode.LL y la estrategia por defecto,
+ *    que recupera y reporta los errores igual que antes
+ *
+ * Los errores de lexer y parser no se escriben en consola: se juntan en
+ * Result.syntaxMessages (una petición no debe llenar stderr).
+ *
+ * Excepción conocida: una asignación a propiedad ("obj.x = y;") obliga a decidir
+ * si el bucle de sufijos de leftHandSide consume ".x"; eso depende de la regla
+ * que llamó (assignment vs expressionStatement) y SLL, que no mira ese contexto,
+ * siempre se equivoca. Por eso, si los tokens contienen '.' Identifier '=',
+ * se va directo a LL sin gastar el intento SLL.
+ *
+ * El árbol resultante es el mismo que con LL directo; solo cambia el costo de
+ * la predicción. Los contadores son globales.
+ *
+ * Lexer y parser salen de ParserPool y vuelven a él al terminar. Los DFA de
+ * predicción son estáticos (compartidos por todos los parsers) pero arrancan
+ * vacíos en cada proceso: warmUp parsea el corpus de src/main/resources/warmup
+ * y algunos programas sintéticos para que las primeras peticiones no paguen la
+ * predicción completa. predictionStats toma una foto de esos DFA.
+ */
+public final class CompiscriptParsing {
+
+    /**
+     * Resultado del parseo
+     * @param tree árbol de program()
+     * @param parser parser usado; ya volvió al pool y puede estar parseando otro
+     *               programa, así que solo sirve para nombres de reglas y vocabulario
+     *               (imagen del AST, toStringTree)
+     * @param fallback true si hizo falta la segunda etapa (LL)
+     * @param syntaxMessages errores de lexer y parser ("línea 3:7 ..."), en orden
+     */
+    public record Result(ParseTree tree, CompiscriptParser parser, boolean fallback, List<String> syntaxMessages) {
+
+        /**
+         * Errores de sintaxis reportados
+         */
+        public int syntaxErrors() {
+            return syntaxMessages.size();
+        }
+    }
+
+    /**
+     * Junta los errores de sintaxis con el formato de ConsoleErrorListener
+     */
+    private static final class SyntaxErrorCollector extends BaseErrorListener {
+        private final List<String> messages = new ArrayList<>();
+
+        List<String> messages() {
+            return List.copyOf(messages);
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            messages.add("línea " + line + ":" + charPositionInLine + " " + msg);
+        }
+    }
+
+    /**
+     * Contadores acumulados
+     * @param inputs programas parseados
+     * @param fallbacks programas en que SLL falló y se repitió con LL
+     * @param direct programas que fueron directo a LL por tener asignaciones a propiedades
+     */
+    public record Stats(long inputs, long fallbacks, long direct) {
+    }
+
+    /**
+     * Resultado de warmUp
+     * @param programs programas parseados
+     * @param millis duración total
+     * @param dfaStatesBefore estados DFA del parser antes de empezar
+     * @param dfaStatesAfter estados DFA del parser al terminar
+     */
+    public record Warmup(int programs, long millis, int dfaStatesBefore, int dfaStatesAfter) {
+    }
+
+    /**
+     * Estados DFA de una decisión del parser
+     * @param decision número de decisión en el ATN
+     * @param rule regla a la que pertenece
+     * @param states estados DFA acumulados
+     */
+    public record DecisionStats(int decision, String rule, int states) {
+    }
+
+    /**
+     * Foto de la caché de predicción
+     * @param parserDecisions decisiones del parser
+     * @param parserDecisionsUsed decisiones con al menos un estado DFA
+     * @param parserDfaStates estados DFA del parser (todas las decisiones)
+     * @param lexerDfaStates estados DFA del lexer (todos los modos)
+     * @param sharedContexts contextos de predicción compartidos
+     * @param topDecisions decisiones con más estados, de mayor a menor
+     * @param parsing contadores de parseo (ver stats)
+     * @param pool contadores del pool de lexers y parsers
+     */
+    public record PredictionStats(int parserDecisions, int parserDecisionsUsed, int parserDfaStates,
+                                  int lexerDfaStates, int sharedContexts, List<DecisionStats> topDecisions,
+                                  Stats parsing, ParserPool.Stats pool) {
+    }
+
+    // Corpus embebido para warmUp (src/main/resources/warmup)
+    private static final String[] WARMUP_CORPUS = { "program.cps", "expresiones.cps", "clases.cps" };
+    private static final long[] WARMUP_SEEDS = { 1, 2, 3 };
+    private static final int WARMUP_SYNTHETIC_BYTES = 32 * 1024;
+    private static final int TOP_DECISIONS = 10;
+
+    private static final AtomicLong INPUTS = new AtomicLong();
+    private static final AtomicLong FALLBACKS = new AtomicLong();
+    private static final AtomicLong DIRECT = new AtomicLong();
+
+    private static final int DOT = tokenType("'.'");
+    private static final int ASSIGN = tokenType("'='");
+
+    private CompiscriptParsing() {
+    }
+
+    public static Result parse(String code) {
+        return parse(code, null);
+    }
+
+    /**
+     * Parsea con un lexer y un parser del pool
+     * @param profiler si no es null, mide el lexer (LEX: se leen todos los tokens
+     *                 de una vez) y el parser (PARSE) por separado
+     */
+    public static Result parse(String code, CompileProfiler profiler) {
+        return parse(code, profiler, true);
+    }
+
+    private static Result parse(String code, CompileProfiler profiler, boolean count) {
+        ParserPool.Instance instance = ParserPool.SHARED.acquire(CharStreams.fromString(code));
+        SyntaxErrorCollector errors = new SyntaxErrorCollector();
+        instance.lexer.removeErrorListeners();
+        instance.lexer.addErrorListener(errors);
+        try {
+            CommonTokenStream tokens = instance.tokens;
+            if (profiler != null) {
+                profiler.phase(CompileProfiler.Phase.LEX, tokens::fill);
+                return profiler.phase(CompileProfiler.Phase.PARSE,
+                        () -> parse(instance.parser, tokens, count, errors));
+            }
+            tokens.fill();
+            return parse(instance.parser, tokens, count, errors);
+        } finally {
+            ParserPool.SHARED.release(instance);
+        }
+    }
+
+    private static Result parse(CompiscriptParser parser, CommonTokenStream tokens, boolean count,
+                                SyntaxErrorCollector errors) {
+        if (count) {
+            INPUTS.incrementAndGet();
+        }
+
+        // 0. SLL fallaría seguro: directo a LL
+        if (hasPropertyAssignment(tokens)) {
+            if (count) {
+                DIRECT.incrementAndGet();
+            }
+            useLL(parser, errors);
+            return new Result(parser.program(), parser, true, errors.messages());
+        }
+
+        // 1. SLL: abortar al primer problema, sin reportar nada
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.removeErrorListeners();
+        try {
+            return new Result(parser.program(), parser, false, errors.messages());
+        } catch (ParseCancellationException e) {
+            if (count) {
+                FALLBACKS.incrementAndGet();
+            }
+        }
+
+        // 2. LL completo con reporte de errores normal
+        tokens.seek(0);
+        parser.reset();
+        useLL(parser, errors);
+        return new Result(parser.program(), parser, true, errors.messages());
+    }
+
+    /**
+     * Configuración por defecto de ANTLR (la instancia puede venir de un intento
+     * SLL), con los errores hacia errors en lugar de la consola
+     */
+    private static void useLL(CompiscriptParser parser, SyntaxErrorCollector errors) {
+        parser.removeErrorListeners();
+        parser.addErrorListener(errors);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+    }
+
+    public static Stats stats() {
+        return new Stats(INPUTS.get(), FALLBACKS.get(), DIRECT.get());
+    }
+
+    /**
+     * Tamaño máximo del pool de lexers y parsers libres
+     */
+    public static void setPoolSize(int maxIdle) {
+        ParserPool.SHARED.setMaxIdle(maxIdle);
+    }
+
+    /**
+     * Llena los DFA de predicción parseando el corpus embebido y programas
+     * sintéticos con y sin clases (no cuenta en stats)
+     */
+    public static Warmup warmUp() {
+        long start = System.nanoTime();
+        int before = parserDfaStates();
+        int programs = 0;
+
+        for (String name : WARMUP_CORPUS) {
+            parse(readCorpus(name), null, false);
+            programs++;
+        }
+        for (long seed : WARMUP_SEEDS) {
+            parse(new SyntheticProgramGenerator(seed).generate(WARMUP_SYNTHETIC_BYTES), null, false);
+            parse(new SyntheticProgramGenerator(seed).weights(4, 0, 2, 2, 2)
+                    .generate(WARMUP_SYNTHETIC_BYTES), null, false);
+            programs += 2;
+        }
+
+        return new Warmup(programs, (System.nanoTime() - start) / 1_000_000, before, parserDfaStates());
+    }
+
+    /**
+     * Foto de los DFA compartidos de lexer y parser y de los contadores
+     */
+    public static PredictionStats predictionStats() {
+        DFA[] decisions = CompiscriptParser._decisionToDFA;
+        List<DecisionStats> used = new ArrayList<>();
+        int parserStates = 0;
+        for (DFA dfa : decisions) {
+            int states = size(dfa);
+            if (states > 0) {
+                parserStates += states;
+                used.add(new DecisionStats(dfa.decision,
+                        CompiscriptParser.ruleNames[dfa.atnStartState.ruleIndex], states));
+            }
+        }
+        used.sort(Comparator.comparingInt(DecisionStats::states).reversed());
+
+        int lexerStates = 0;
+        for (DFA dfa : CompiscriptLexer._decisionToDFA) {
+            lexerStates += size(dfa);
+        }
+
+        PredictionContextCache contexts = CompiscriptParser._sharedContextCache;
+        int sharedContexts;
+        synchronized (contexts) {
+            sharedContexts = contexts.size();
+        }
+
+        return new PredictionStats(decisions.length, used.size(), parserStates, lexerStates, sharedContexts,
+                List.copyOf(used.subList(0, Math.min(TOP_DECISIONS, used.size()))),
+                stats(), ParserPool.SHARED.stats());
+    }
+
+    private static int parserDfaStates() {
+        int states = 0;
+        for (DFA dfa : CompiscriptParser._decisionToDFA) {
+            states += size(dfa);
+        }
+        return states;
+    }
+
+    /**
+     * Estados de un DFA; ANTLR agrega estados sincronizando sobre el mismo mapa
+     */
+    private static int size(DFA dfa) {
+        synchronized (dfa.states) {
+            return dfa.states.size();
+        }
+    }
+
+    private static String readCorpus(String name) {
+        try (InputStream in = CompiscriptParsing.class.getResourceAsStream("/warmup/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Corpus de calentamiento no encontrado: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Busca la secuencia '.' Identifier '=' (lee todos los tokens si hacía falta)
+     */
+    private static boolean hasPropertyAssignment(CommonTokenStream tokens) {
+        tokens.fill();
+        List<Token> list = tokens.getTokens();
+        for (int i = 2; i < list.size(); i++) {
+            if (list.get(i).getType() == ASSIGN
+                    && list.get(i - 1).getType() == CompiscriptLexer.Identifier
+                    && list.get(i - 2).getType() == DOT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tipo de token de un literal de la gramática (p. ej. "'='")
+     */
+    private static int tokenType(String literal) {
+        Vocabulary vocabulary = CompiscriptLexer.VOCABULARY;
+        for (int type = 1; type <= vocabulary.getMaxTokenType(); type++) {
+            if (literal.equals(vocabulary.getLiteralName(type))) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("Token no encontrado en la gramática: " + literal);
+    }
+}
@@ -0,0 +1,274 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plegado y propagación de constantes enteras (y booleanas, que el generador
+ * representa como 0/1)
+ *
+ * Recorre cada bloque básico recordando qué temporales y variables tienen un
+ * valor constante conocido:
+ * - ASSIGN de una constante la registra; las cadenas de ASSIGN la propagan
+ * - los usos de un operando conocido se reemplazan por la constante
+ * - BINARY_OP/UNARY_OP con operandos constantes se convierten en ASSIGN
+ * - IF_GOTO con operandos constantes se convierte en GOTO o desaparece
+ * - JUMP_TABLE con índice constante se convierte en GOTO a su entrada
+ * - una carga "tN = c" que ya nadie lee se elimina: tN se redefine antes de
+ *   usarse en el mismo bloque, o el bloque termina en el fin del programa o en
+ *   un límite de función o clase (los temporales no cruzan esos límites)
+ *
+ * Lo conocido se olvida en cada etiqueta (varios caminos llegan ahí) y en los
+ * límites de función y clase. Una llamada o un store a un campo pueden
+ * cambiar variables, así que también olvidan las variables (no los temporales).
+ * La división y el módulo por cero no se pliegan: el error queda para la ejecución.
+ * La aritmética es la de integer (32 bits con desborde).
+ */
+public class ConstantFoldingPass implements TACPass {
+
+    @Override
+    public String name() {
+        return "constant-folding";
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        List<TACInstruction> out = new ArrayList<>(instructions.size());
+        Map<TACOperand, Long> known = new HashMap<>();
+        // Cargas constantes a temporales aún no leídas: id del temporal → posición en out
+        Map<Integer, Integer> pendingLoads = new HashMap<>();
+
+        for (TACInstruction original : instructions) {
+            TACInstruction instr = fold(original, known);
+
+            if (instr == null) {
+                // IF_GOTO que nunca salta: el bloque sigue igual
+                continue;
+            }
+
+            switch (instr.getOp()) {
+                case LABEL_FUNCTION, LABEL_CLASS, END, END_CLASS:
+                    // Ningún temporal sigue vivo al empezar o terminar una función o clase
+                    dropAll(out, pendingLoads);
+                    known.clear();
+                    out.add(instr);
+                    continue;
+                case LABEL, TRY_BEGIN, TRY_END:
+                    known.clear();
+                    pendingLoads.clear();
+                    out.add(instr);
+                    continue;
+                case GOTO, IF_GOTO, RETURN, JUMP_TABLE:
+                    // El temporal puede leerse en el destino del salto
+                    instr.forEachRead(operand -> operand.forEachTemp(pendingLoads::remove));
+                    pendingLoads.clear();
+                    out.add(instr);
+                    continue;
+                default:
+                    break;
+            }
+
+            // Lecturas antes que escrituras ("t1 = t1 + 1")
+            instr.forEachRead(operand -> operand.forEachTemp(pendingLoads::remove));
+
+            TACOperand written = instr.getWritten();
+            if (written != null && written.isTemp()) {
+                Integer dead = pendingLoads.remove(written.getId());
+                if (dead != null) {
+                    out.set(dead, null);
+                }
+            }
+
+            // Actualizar lo conocido
+            if (written != null) {
+                if (instr.getOp() == OpType.ASSIGN && instr.getArg1Operand() != null && instr.getArg1Operand().isInt()) {
+                    known.put(written, instr.getArg1Operand().getValue());
+                    if (written.isTemp()) {
+                        pendingLoads.put(written.getId(), out.size());
+                    }
+                } else {
+                    known.remove(written);
+                }
+            }
+            if (instr.getOp() == OpType.CALL || instr.getOp() == OpType.ASSIGN_CALL || instr.getOp() == OpType.NEW
+                    || (instr.isStore() && instr.getResultOperand().isField())) {
+                known.keySet().removeIf(operand -> !operand.isTemp());
+            }
+
+            out.add(instr);
+        }
+
+        dropAll(out, pendingLoads);
+        out.removeIf(instr -> instr == null);
+        return out;
+    }
+
+    private static void dropAll(List<TACInstruction> out, Map<Integer, Integer> pendingLoads) {
+        for (int index : pendingLoads.values()) {
+            out.set(index, null);
+        }
+        pendingLoads.clear();
+    }
+
+    /**
+     * Reemplaza los operandos conocidos y pliega la instrucción si se puede
+     * @return la misma instrucción si no cambia, una copia si cambia, o null si desaparece
+     */
+    private static TACInstruction fold(TACInstruction instr, Map<TACOperand, Long> known) {
+        switch (instr.getOp()) {
+            case ASSIGN, RETURN: {
+                TACOperand arg1 = constant(instr.getArg1Operand(), known);
+                if (arg1 == instr.getArg1Operand()) {
+                    return instr;
+                }
+                TACInstruction copy = instr.copy();
+                copy.setArg1(arg1);
+                return copy;
+            }
+            case UNARY_OP: {
+                TACOperand arg1 = constant(instr.getArg1Operand(), known);
+                if (arg1 != null && arg1.isInt()) {
+                    Long value = unary(instr.getOperator(), arg1.getValue());
+                    if (value != null) {
+                        return assign(instr.getResultOperand(), value);
+                    }
+                }
+                if (arg1 == instr.getArg1Operand()) {
+                    return instr;
+                }
+                TACInstruction copy = instr.copy();
+                copy.setArg1(arg1);
+                return copy;
+            }
+            case BINARY_OP: {
+                TACOperand arg1 = constant(instr.getArg1Operand(), known);
+                TACOperand arg2 = constant(instr.getArg2Operand(), known);
+                if (arg1 != null && arg2 != null && arg1.isInt() && arg2.isInt()) {
+                    Long value = binary(instr.getOperator(), arg1.getValue(), arg2.getValue());
+                    if (value != null) {
+                        return assign(instr.getResultOperand(), value);
+                    }
+                }
+                if (arg1 == instr.getArg1Operand() && arg2 == instr.getArg2Operand()) {
+                    return instr;
+                }
+                TACInstruction copy = instr.copy();
+                copy.setArg1(arg1);
+                copy.setArg2(arg2);
+                return copy;
+            }
+            case IF_GOTO: {
+                TACOperand arg1 = constant(instr.getArg1Operand(), known);
+                TACOperand arg2 = constant(instr.getArg2Operand(), known);
+                if (arg1 != null && arg2 != null && arg1.isInt() && arg2.isInt()) {
+                    Long taken = binary(instr.getRelop(), arg1.getValue(), arg2.getValue());
+                    if (taken != null) {
+                        if (taken == 0) {
+                            return null;
+                        }
+                        TACInstruction jump = new TACInstruction(OpType.GOTO);
+                        jump.setLabel(instr.getLabelOperand());
+                        return jump;
+                    }
+                }
+                if (arg1 == instr.getArg1Operand() && arg2 == instr.getArg2Operand()) {
+                    return instr;
+                }
+                TACInstruction copy = instr.copy();
+                copy.setArg1(arg1);
+                copy.setArg2(arg2);
+                return copy;
+            }
+            case JUMP_TABLE: {
+                TACOperand index = constant(instr.getArg1Operand(), known);
+                if (index == null || !index.isInt()) {
+                    return instr;
+                }
+                long entry = index.getValue() - instr.getArg2Operand().getValue();
+                List<TACOperand> targets = instr.getParamOperands();
+                TACInstruction jump = new TACInstruction(OpType.GOTO);
+                jump.setLabel(entry >= 0 && entry < targets.size() ? targets.get((int) entry) : instr.getLabelOperand());
+                return jump;
+            }
+            case CALL, ASSIGN_CALL, NEW: {
+                List<TACOperand> params = instr.getParamOperands();
+                boolean changed = false;
+                for (TACOperand param : params) {
+                    changed |= constant(param, known) != param;
+                }
+                if (!changed) {
+                    return instr;
+                }
+                TACInstruction copy = new TACInstruction(instr.getOp());
+                copy.setResult(instr.getResultOperand());
+                copy.setArg1(instr.getArg1Operand());
+                copy.setLabel(instr.getLabelOperand());
+                for (TACOperand param : params) {
+                    copy.addParam(constant(param, known));
+                }
+                return copy;
+            }
+            default:
+                return instr;
+        }
+    }
+
+    /**
+     * Constante conocida para el operando, o el mismo operando
+     */
+    private static TACOperand constant(TACOperand operand, Map<TACOperand, Long> known) {
+        if (operand == null) {
+            return null;
+        }
+        Long value = known.get(operand);
+        return value != null ? TACOperand.integer(value) : operand;
+    }
+
+    private static TACInstruction assign(TACOperand result, long value) {
+        TACInstruction instr = new TACInstruction(OpType.ASSIGN);
+        instr.setResult(result);
+        instr.setArg1(TACOperand.integer(value));
+        return instr;
+    }
+
+    /**
+     * Resultado de "a op b" con aritmética de integer, o null si no se puede plegar
+     */
+    static Long binary(String op, long a, long b) {
+        int x = (int) a;
+        int y = (int) b;
+        switch (op) {
+            case "+": return (long) (x + y);
+            case "-": return (long) (x - y);
+            case "*": return (long) (x * y);
+            case "/": return y == 0 ? null : (long) (x / y);
+            case "%": return y == 0 ? null : (long) (x % y);
+            case "<": return x < y ? 1L : 0L;
+            case "<=": return x <= y ? 1L : 0L;
+            case ">": return x > y ? 1L : 0L;
+            case ">=": return x >= y ? 1L : 0L;
+            case "==": return x == y ? 1L : 0L;
+            case "!=": return x != y ? 1L : 0L;
+            case "&&": return x != 0 && y != 0 ? 1L : 0L;
+            case "||": return x != 0 || y != 0 ? 1L : 0L;
+            default: return null;
+        }
+    }
+
+    /**
+     * Resultado de "op a", o null si no se puede plegar
+     */
+    static Long unary(String op, long a) {
+        switch (op) {
+            case "-": return (long) (-(int) a);
+            case "!": return a == 0 ? 1L : 0L;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Grafo de flujo de control de una función (o del código global)
+ *
+ * CONSTRUCCIÓN (build, tiempo lineal en el número de instrucciones):
+ * 1. Separar la lista plana en grafos: cada LABEL_FUNCTION ... END es un grafo
+ *    propio; el resto (código global, clases y sus campos) es el grafo principal
+ * 2. Partir cada grafo en bloques básicos. Empiezan bloque: la primera
+ *    instrucción, cada LABEL, TRY_END, la instrucción siguiente a GOTO, IF_GOTO,
+ *    RETURN, TRY_BEGIN o JUMP_TABLE, y la instrucción siguiente a una función anidada
+ * 3. Aristas normales: GOTO → destino; IF_GOTO → destino y bloque siguiente;
+ *    JUMP_TABLE → cada entrada y el default;
+ *    RETURN y END → ninguna (salida); el resto → bloque siguiente
+ * 4. Aristas excepcionales: cada bloque entre TRY_BEGIN Lc y su TRY_END (en el
+ *    orden de la lista, con try anidados) tiene una arista al bloque de Lc,
+ *    el catch más interno. El bloque que contiene TRY_BEGIN no está protegido.
+ *
+ * Las funciones anidadas (métodos dentro de "Class X: ... end Class X") quedan
+ * ancladas al bloque del grafo padre que las sigue, de modo que toInstructions
+ * reconstruye la lista plana en el mismo orden aunque se hayan quitado bloques.
+ *
+ * El orden de blocks es el de las instrucciones: el "bloque siguiente" de una
+ * caída (fallthrough) es blocks.get(id + 1).
+ */
+public class ControlFlowGraph {
+
+    private final String name;
+    private final List<BasicBlock> blocks = new ArrayList<>();
+    private final Map<TACOperand, BasicBlock> labels = new HashMap<>();
+
+    // Funciones anidadas: se emiten antes del bloque ancla (o al final si es null)
+    private final List<ControlFlowGraph> nested = new ArrayList<>();
+    private final Map<ControlFlowGraph, BasicBlock> anchors = new IdentityHashMap<>();
+
+    private ControlFlowGraph(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Construye el grafo principal y los de cada función
+     * @param instructions TAC plano (no se modifica)
+     * @return grafo del código global; las funciones están en getFunctions()
+     */
+    public static ControlFlowGraph build(List<TACInstruction> instructions) {
+        ControlFlowGraph main = new ControlFlowGraph(null);
+        Builder root = new Builder(main);
+        Deque<Builder> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        for (TACInstruction instr : instructions) {
+            if (instr.getOp() == OpType.LABEL_FUNCTION) {
+                Builder parent = stack.peek();
+                Builder child = new Builder(new ControlFlowGraph(instr.getLabel()));
+                parent.graph.nested.add(child.graph);
+                // La instrucción siguiente del padre empieza bloque y será el ancla
+                parent.pendingAnchors.add(child.graph);
+                parent.forceLeader = true;
+                stack.push(child);
+                child.add(instr);
+            } else if (instr.getOp() == OpType.END && stack.size() > 1) {
+                stack.pop().add(instr);
+            } else {
+                stack.peek().add(instr);
+            }
+        }
+        if (stack.size() > 1) {
+            throw new IllegalStateException("Función sin END: " + stack.peek().graph.name);
+        }
+
+        root.finish();
+        return main;
+    }
+
+    /**
+     * Arma los bloques de un grafo a medida que llegan sus instrucciones
+     */
+    private static final class Builder {
+        final ControlFlowGraph graph;
+        final List<ControlFlowGraph> pendingAnchors = new ArrayList<>(0);
+        List<TACInstruction> current;
+        boolean forceLeader = true;
+
+        Builder(ControlFlowGraph graph) {
+            this.graph = graph;
+        }
+
+        void add(TACInstruction instr) {
+            OpType op = instr.getOp();
+            if (forceLeader || current == null || op == OpType.LABEL || op == OpType.TRY_END) {
+                startBlock();
+            }
+            current.add(instr);
+            if (op == OpType.LABEL) {
+                graph.labels.put(instr.getLabelOperand(), graph.blocks.get(graph.blocks.size() - 1));
+            }
+            forceLeader = op == OpType.GOTO || op == OpType.IF_GOTO || op == OpType.RETURN || op == OpType.TRY_BEGIN
+                    || op == OpType.JUMP_TABLE;
+        }
+
+        void startBlock() {
+            BasicBlock block;
+            if (current != null && current.isEmpty()) {
+                block = graph.blocks.get(graph.blocks.size() - 1);
+            } else {
+                current = new ArrayList<>();
+                block = new BasicBlock(graph.blocks.size(), current);
+                graph.blocks.add(block);
+            }
+            for (ControlFlowGraph child : pendingAnchors) {
+                graph.anchors.put(child, block);
+            }
+            pendingAnchors.clear();
+            forceLeader = false;
+        }
+
+        void finish() {
+            // Funciones al final del padre: sin ancla (se emiten al final)
+            pendingAnchors.clear();
+            graph.link();
+            for (ControlFlowGraph child : graph.nested) {
+                // Los hijos ya tienen sus bloques; solo falta enlazarlos
+                child.linkAll();
+            }
+        }
+    }
+
+    private void linkAll() {
+        link();
+        for (ControlFlowGraph child : nested) {
+            child.linkAll();
+        }
+    }
+
+    /**
+     * Aristas normales y excepcionales de todos los bloques
+     */
+    private void link() {
+        Deque<BasicBlock> handlers = new ArrayDeque<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            BasicBlock block = blocks.get(i);
+            TACInstruction first = block.first();
+            if (first != null && first.getOp() == OpType.TRY_END && !handlers.isEmpty()) {
+                handlers.pop();
+            }
+            if (!handlers.isEmpty()) {
+                block.setHandler(handlers.peek());
+            }
+
+            BasicBlock next = i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+            TACInstruction last = block.last();
+            switch (last.getOp()) {
+                case GOTO:
+                    block.addSuccessor(target(last));
+                    break;
+                case IF_GOTO:
+                    block.addSuccessor(target(last));
+                    if (next != null) {
+                        block.addSuccessor(next);
+                    }
+                    break;
+                case JUMP_TABLE:
+                    last.forEachTarget(label -> block.addSuccessor(target(label, last)));
+                    break;
+                case RETURN:
+                case END:
+                    break;
+                case TRY_BEGIN:
+                    handlers.push(target(last));
+                    if (next != null) {
+                        block.addSuccessor(next);
+                    }
+                    break;
+                default:
+                    if (next != null) {
+                        block.addSuccessor(next);
+                    }
+            }
+            if (block.getHandler() != null) {
+                block.addSuccessor(block.getHandler());
+            }
+        }
+    }
+
+    private BasicBlock target(TACInstruction jump) {
+        return target(jump.getLabelOperand(), jump);
+    }
+
+    private BasicBlock target(TACOperand label, TACInstruction jump) {
+        BasicBlock target = labels.get(label);
+        if (target == null) {
+            throw new IllegalStateException("Etiqueta sin definir en " + (name != null ? name : "el código global")
+                    + ": " + jump);
+        }
+        return target;
+    }
+
+    /**
+     * Nombre de la función (null para el código global)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Bloques en el orden de las instrucciones; el primero es la entrada
+     */
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.isEmpty() ? null : blocks.get(0);
+    }
+
+    /**
+     * Bloque que empieza con la etiqueta (null si no existe en este grafo)
+     */
+    public BasicBlock getBlock(TACOperand label) {
+        return labels.get(label);
+    }
+
+    /**
+     * Funciones definidas directamente dentro de este grafo, en orden
+     */
+    public List<ControlFlowGraph> getFunctions() {
+        return nested;
+    }
+
+    /**
+     * Este grafo y todos los anidados, en preorden
+     */
+    public List<ControlFlowGraph> allGraphs() {
+        List<ControlFlowGraph> all = new ArrayList<>();
+        Deque<ControlFlowGraph> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            ControlFlowGraph graph = pending.pop();
+            all.add(graph);
+            for (int i = graph.nested.size() - 1; i >= 0; i--) {
+                pending.push(graph.nested.get(i));
+            }
+        }
+        return all;
+    }
+
+    public int instructionCount() {
+        int count = 0;
+        for (BasicBlock block : blocks) {
+            count += block.getInstructions().size();
+        }
+        return count;
+    }
+
+    /**
+     * Quita los bloques marcados: sus aristas desaparecen y las funciones
+     * ancladas a ellos pasan al siguiente bloque que queda. Renumera los ids.
+     * El llamador debe asegurarse de que ningún bloque restante caiga
+     * (fallthrough) a uno quitado.
+     */
+    public void removeBlocks(Predicate<BasicBlock> remove) {
+        Map<BasicBlock, BasicBlock> moved = new IdentityHashMap<>();
+        List<BasicBlock> kept = new ArrayList<>(blocks.size());
+        List<BasicBlock> removed = new ArrayList<>();
+        for (BasicBlock block : blocks) {
+            if (remove.test(block)) {
+                removed.add(block);
+            } else {
+                for (BasicBlock gone : removed) {
+                    moved.put(gone, block);
+                }
+                removed.clear();
+                kept.add(block);
+            }
+        }
+        for (BasicBlock gone : removed) {
+            moved.put(gone, null);
+        }
+
+        for (BasicBlock gone : moved.keySet()) {
+            for (BasicBlock succ : new ArrayList<>(gone.getSuccessors())) {
+                gone.removeSuccessor(succ);
+            }
+            for (BasicBlock pred : new ArrayList<>(gone.getPredecessors())) {
+                pred.removeSuccessor(gone);
+            }
+            TACOperand label = gone.getLabel();
+            if (label != null) {
+                labels.remove(label);
+            }
+        }
+        for (Map.Entry<ControlFlowGraph, BasicBlock> anchor : anchors.entrySet()) {
+            if (moved.containsKey(anchor.getValue())) {
+                anchor.setValue(moved.get(anchor.getValue()));
+            }
+        }
+
+        blocks.clear();
+        blocks.addAll(kept);
+        for (int i = 0; i < blocks.size(); i++) {
+            blocks.get(i).setId(i);
+        }
+    }
+
+    /**
+     * Lista plana de este grafo y sus funciones anidadas, en el orden original
+     */
+    public List<TACInstruction> toInstructions() {
+        List<TACInstruction> out = new ArrayList<>();
+        appendTo(out);
+        return out;
+    }
+
+    private void appendTo(List<TACInstruction> out) {
+        Map<BasicBlock, List<ControlFlowGraph>> before = new IdentityHashMap<>();
+        List<ControlFlowGraph> atEnd = new ArrayList<>();
+        for (ControlFlowGraph child : nested) {
+            BasicBlock anchor = anchors.get(child);
+            if (anchor == null) {
+                atEnd.add(child);
+            } else {
+                before.computeIfAbsent(anchor, b -> new ArrayList<>()).add(child);
+            }
+        }
+        for (BasicBlock block : blocks) {
+            List<ControlFlowGraph> children = before.get(block);
+            if (children != null) {
+                for (ControlFlowGraph child : children) {
+                    child.appendTo(out);
+                }
+            }
+            out.addAll(block.getInstructions());
+        }
+        for (ControlFlowGraph child : atEnd) {
+            child.appendTo(out);
+        }
+    }
+
+    /**
+     * Bloques con sus instrucciones y aristas (para depurar)
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (ControlFlowGraph graph : allGraphs()) {
+            sb.append("== ").append(graph.name != null ? graph.name : "<global>").append(" ==\n");
+            for (BasicBlock block : graph.blocks) {
+                sb.append(block).append(" →");
+                for (BasicBlock succ : block.getSuccessors()) {
+                    sb.append(' ').append(succ);
+                    if (succ == block.getHandler()) {
+                        sb.append('!');
+                    }
+                }
+                sb.append('\n');
+                for (TACInstruction instr : block.getInstructions()) {
+                    sb.append("    ").append(instr).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,219 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propagación de copias y fusión de movimientos
+ *
+ * El generador evalúa casi todo a un temporal y después lo copia
+ * ("t1 = 5; x = t1", "t2 = x; call print(t2)"). Dos pasos por bloque básico:
+ *
+ * 1. FUSIÓN: "tN = expr" seguido de "x = tN", con tN muerto después (ver
+ *    Liveness), se vuelve "x = expr". Va primero para que la propagación no
+ *    alargue la vida de tN reemplazando los usos de x.
+ * 2. PROPAGACIÓN: tras "a = b" (b temporal, variable simple, literal o
+ *    constante) los usos de a se reemplazan por b hasta que a o b se
+ *    redefinen. Dentro de un NAME ("v[t1]") solo se reemplazan temporales
+ *    por temporales. Una llamada, new o un store a un campo pueden cambiar
+ *    variables: olvidan las copias que involucran variables.
+ *
+ * Las copias que quedan sin lectores las quita DeadCodeEliminationPass.
+ */
+public class CopyPropagationPass implements TACPass {
+
+    @Override
+    public String name() {
+        return "copy-propagation";
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(instructions);
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            Liveness liveness = Liveness.compute(graph);
+            for (BasicBlock block : graph.getBlocks()) {
+                coalesce(block.getInstructions(), liveness.liveOut(block));
+                propagate(block.getInstructions());
+            }
+        }
+        return cfg.toInstructions();
+    }
+
+    /**
+     * Copias disponibles en un punto del bloque
+     */
+    private static final class Copies {
+        // destino → fuente
+        final Map<TACOperand, TACOperand> source = new HashMap<>();
+        // fuente → destinos que la copian
+        final Map<TACOperand, Set<TACOperand>> copiedTo = new HashMap<>();
+        // destinos cuya copia involucra una variable
+        final Set<TACOperand> withVariables = new HashSet<>();
+
+        TACOperand get(TACOperand operand) {
+            return source.get(operand);
+        }
+
+        void put(TACOperand dest, TACOperand src) {
+            source.put(dest, src);
+            copiedTo.computeIfAbsent(src, s -> new HashSet<>(2)).add(dest);
+            if (isVariable(dest) || isVariable(src)) {
+                withVariables.add(dest);
+            }
+        }
+
+        /**
+         * dest se redefine: su copia y las copias de dest dejan de valer
+         */
+        void kill(TACOperand dest) {
+            remove(dest);
+            Set<TACOperand> dests = copiedTo.remove(dest);
+            if (dests != null) {
+                for (TACOperand copy : dests) {
+                    source.remove(copy);
+                    withVariables.remove(copy);
+                }
+            }
+        }
+
+        void killVariables() {
+            for (TACOperand dest : new ArrayList<>(withVariables)) {
+                kill(dest);
+            }
+        }
+
+        private void remove(TACOperand dest) {
+            TACOperand src = source.remove(dest);
+            if (src != null) {
+                Set<TACOperand> dests = copiedTo.get(src);
+                if (dests != null) {
+                    dests.remove(dest);
+                }
+                withVariables.remove(dest);
+            }
+        }
+    }
+
+    private static void propagate(List<TACInstruction> block) {
+        Copies copies = new Copies();
+        for (int i = 0; i < block.size(); i++) {
+            TACInstruction instr = block.get(i).mapReads(operand -> replace(operand, copies));
+            block.set(i, instr);
+
+            TACOperand written = instr.getWritten();
+            if (written != null) {
+                copies.kill(written);
+                TACOperand arg1 = instr.getArg1Operand();
+                if (instr.getOp() == OpType.ASSIGN && copyable(arg1) && !arg1.equals(written)
+                        && (written.isTemp() || isVariable(written))) {
+                    copies.put(written, arg1);
+                }
+            }
+            if (instr.getOp() == OpType.CALL || instr.getOp() == OpType.ASSIGN_CALL || instr.getOp() == OpType.NEW
+                    || (instr.isStore() && instr.getResultOperand().isField())) {
+                copies.killVariables();
+            }
+        }
+    }
+
+    private static TACOperand replace(TACOperand operand, Copies copies) {
+        TACOperand src = copies.get(operand);
+        if (src != null) {
+            return src;
+        }
+        if (operand.getKind() == TACOperand.Kind.NAME) {
+            return operand.mapTemps(id -> {
+                TACOperand temp = copies.get(TACOperand.temp(id));
+                return temp != null && temp.isTemp() ? temp.getId() : id;
+            });
+        }
+        return operand;
+    }
+
+    /**
+     * Fusiona "tN = expr; x = tN" cuando tN no se lee después
+     */
+    private static void coalesce(List<TACInstruction> block, Set<Integer> liveOut) {
+        // Temporales vivos después de cada instrucción, de atrás hacia adelante
+        Set<Integer> live = new HashSet<>(liveOut);
+        boolean[] deadAfter = new boolean[block.size()];
+        for (int j = block.size() - 1; j >= 0; j--) {
+            TACInstruction instr = block.get(j);
+            TACOperand arg1 = instr.getArg1Operand();
+            if (instr.getOp() == OpType.ASSIGN && arg1 != null && arg1.isTemp()) {
+                deadAfter[j] = !live.contains(arg1.getId());
+            }
+            TACOperand written = instr.getWritten();
+            if (written != null && written.isTemp()) {
+                live.remove(written.getId());
+            }
+            for (int temp : Liveness.reads(instr)) {
+                live.add(temp);
+            }
+        }
+
+        List<TACInstruction> out = new ArrayList<>(block.size());
+        for (int j = 0; j < block.size(); j++) {
+            TACInstruction instr = block.get(j);
+            TACOperand written = instr.getWritten();
+            if (deadAfter[j] && written != null && (written.isTemp() || isVariable(written)) && !out.isEmpty()) {
+                TACInstruction previous = out.get(out.size() - 1);
+                TACOperand temp = instr.getArg1Operand();
+                if (temp.equals(previous.getWritten()) && !temp.equals(written)) {
+                    TACInstruction merged = previous.copy();
+                    merged.setResult(written);
+                    out.set(out.size() - 1, merged);
+                    continue;
+                }
+            }
+            out.add(instr);
+        }
+        if (out.size() != block.size()) {
+            block.clear();
+            block.addAll(out);
+        }
+    }
+
+    /**
+     * Fuente válida para una copia: no cambia sin una escritura explícita
+     */
+    private static boolean copyable(TACOperand operand) {
+        if (operand == null) {
+            return false;
+        }
+        if (operand.isTemp() || operand.isInt()) {
+            return true;
+        }
+        String text = operand.toString();
+        return isVariable(operand) || text.startsWith("\"") || text.matches("-?\\d+(\\.\\d+)?");
+    }
+
+    /**
+     * Variable simple ("x"): no temporal, campo, elemento ni literal
+     */
+    static boolean isVariable(TACOperand operand) {
+        if (operand.getKind() != TACOperand.Kind.NAME || operand.isAccess()) {
+            return false;
+        }
+        String text = operand.toString();
+        if (text.isEmpty() || !Character.isJavaIdentifierStart(text.charAt(0)) || text.equals("exception")) {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
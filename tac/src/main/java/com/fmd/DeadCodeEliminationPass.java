@@ -0,0 +1,210 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+
+/**
+ * Eliminación de código muerto
+ *
+ * Tres limpiezas, en este orden:
+ * 1. Bloques inalcanzables desde la entrada de su función (o del código
+ *    global): código después de un return o de un ciclo infinito, ramas de un
+ *    if constante. Se conservan las marcas de estructura (inicio y fin de
+ *    función y clase, try_end de un try alcanzable) y el cuerpo de las clases.
+ * 2. Saltos a la instrucción siguiente ("goto L1" seguido de "L1:", aunque haya
+ *    otras etiquetas en medio) y después las etiquetas que ningún salto,
+ *    jump_table ni try_begin usa.
+ * 3. Asignaciones a temporales que no están vivos (ver Liveness). Se repite por
+ *    función hasta que no cambia nada, porque quitar una lectura puede matar
+ *    la definición anterior. Un "tN = call f()" muerto queda como "call f()";
+ *    new, las cargas de un elemento o campo que no es de this ("v[5];") y la
+ *    división o el módulo entre algo que no es una constante distinta de
+ *    cero se conservan (pueden ejecutar código o lanzar un error, ver
+ *    ProgramNames.mayFail).
+ */
+public class DeadCodeEliminationPass implements TACPass {
+
+    @Override
+    public String name() {
+        return "dead-code";
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        // 1. Bloques inalcanzables
+        ControlFlowGraph cfg = ControlFlowGraph.build(instructions);
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            removeUnreachable(graph);
+        }
+
+        // 2. Saltos a la siguiente y etiquetas sin uso
+        List<TACInstruction> code = removeLabels(removeJumpsToNext(cfg.toInstructions()));
+
+        // 3. Temporales muertos
+        cfg = ControlFlowGraph.build(code);
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            while (removeDeadTemps(graph, Liveness.compute(graph))) {
+                // Otra vuelta con la vida recalculada
+            }
+        }
+        return cfg.toInstructions();
+    }
+
+    private static void removeUnreachable(ControlFlowGraph graph) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        if (blocks.isEmpty()) {
+            return;
+        }
+        BitSet reachable = new BitSet(blocks.size());
+        Deque<BasicBlock> pending = new ArrayDeque<>();
+        reachable.set(0);
+        pending.push(blocks.get(0));
+        while (!pending.isEmpty()) {
+            for (BasicBlock succ : pending.pop().getSuccessors()) {
+                if (!reachable.get(succ.getId())) {
+                    reachable.set(succ.getId());
+                    pending.push(succ);
+                }
+            }
+        }
+        if (reachable.cardinality() == blocks.size()) {
+            return;
+        }
+
+        // try_begin alcanzados, para conservar su try_end; profundidad de clase
+        Deque<Boolean> tries = new ArrayDeque<>();
+        int classDepth = 0;
+        for (BasicBlock block : blocks) {
+            boolean live = reachable.get(block.getId());
+            ListIterator<TACInstruction> it = block.getInstructions().listIterator();
+            while (it.hasNext()) {
+                TACInstruction instr = it.next();
+                boolean keep = live || classDepth > 0;
+                switch (instr.getOp()) {
+                    case TRY_BEGIN -> tries.push(live);
+                    case TRY_END -> keep = !tries.isEmpty() && tries.pop();
+                    case LABEL_CLASS -> {
+                        classDepth++;
+                        keep = true;
+                    }
+                    case END_CLASS -> {
+                        classDepth--;
+                        keep = true;
+                    }
+                    case LABEL_FUNCTION, END -> keep = true;
+                    default -> {
+                    }
+                }
+                if (!keep) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Quita los GOTO e IF_GOTO cuyo destino está entre las etiquetas que los siguen
+     */
+    private static List<TACInstruction> removeJumpsToNext(List<TACInstruction> code) {
+        List<TACInstruction> out = new ArrayList<>(code.size());
+        for (int i = 0; i < code.size(); i++) {
+            TACInstruction instr = code.get(i);
+            if (instr.getOp() == OpType.GOTO || instr.getOp() == OpType.IF_GOTO) {
+                boolean toNext = false;
+                for (int j = i + 1; j < code.size() && code.get(j).getOp() == OpType.LABEL; j++) {
+                    if (code.get(j).getLabelOperand().equals(instr.getLabelOperand())) {
+                        toNext = true;
+                        break;
+                    }
+                }
+                if (toNext) {
+                    continue;
+                }
+            }
+            out.add(instr);
+        }
+        return out;
+    }
+
+    private static List<TACInstruction> removeLabels(List<TACInstruction> code) {
+        Set<TACOperand> used = new HashSet<>();
+        for (TACInstruction instr : code) {
+            instr.forEachTarget(used::add);
+        }
+        List<TACInstruction> out = new ArrayList<>(code.size());
+        for (TACInstruction instr : code) {
+            if (instr.getOp() != OpType.LABEL || used.contains(instr.getLabelOperand())) {
+                out.add(instr);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Recorre cada bloque de atrás hacia adelante con los temporales vivos
+     * @return true si quitó o cambió alguna instrucción
+     */
+    private static boolean removeDeadTemps(ControlFlowGraph graph, Liveness liveness) {
+        boolean changed = false;
+        for (BasicBlock block : graph.getBlocks()) {
+            Set<Integer> live = new HashSet<>(liveness.liveOut(block));
+            List<TACInstruction> instructions = block.getInstructions();
+            for (int i = instructions.size() - 1; i >= 0; i--) {
+                TACInstruction instr = instructions.get(i);
+                TACOperand written = instr.getWritten();
+                if (written != null && written.isTemp() && !live.contains(written.getId())) {
+                    TACInstruction replacement = withoutResult(instr);
+                    if (replacement != instr) {
+                        changed = true;
+                        if (replacement == null) {
+                            instructions.remove(i);
+                            continue;
+                        }
+                        instructions.set(i, replacement);
+                        instr = replacement;
+                    }
+                }
+                if (written != null && written.isTemp()) {
+                    live.remove(written.getId());
+                }
+                for (int temp : Liveness.reads(instr)) {
+                    live.add(temp);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Instrucción sin su resultado muerto: null si se puede quitar, una CALL
+     * si era ASSIGN_CALL, o la misma si hay que conservarla
+     */
+    private static TACInstruction withoutResult(TACInstruction instr) {
+        switch (instr.getOp()) {
+            case ASSIGN, UNARY_OP, BINARY_OP:
+                return ProgramNames.mayFail(instr) ? instr : null;
+            case ASSIGN_CALL: {
+                TACInstruction call = new TACInstruction(OpType.CALL);
+                call.setArg1(instr.getArg1Operand());
+                call.setLabel(instr.getLabelOperand());
+                for (TACOperand param : instr.getParamOperands()) {
+                    call.addParam(param);
+                }
+                return call;
+            }
+            default:
+                return instr;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Árbol de dominadores y fronteras de dominancia de un ControlFlowGraph
+ *
+ * Un bloque A domina a B si todo camino desde la entrada hasta B pasa por A;
+ * el dominador inmediato (idom) de B es el dominador estricto más cercano.
+ * La frontera de dominancia de A son los bloques donde deja de dominar: B
+ * está en DF(A) si A domina a un predecesor de B pero no domina
+ * estrictamente a B. Ahí se colocan las funciones phi (ver SSAForm).
+ *
+ * ALGORITMO (Cooper, Harvey y Kennedy): se recorre el grafo en postorden
+ * inverso intersectando los dominadores de los predecesores ya procesados
+ * hasta que nada cambia; en grafos reducibles basta con dos vueltas. Las
+ * aristas excepcionales cuentan como las normales. Los bloques inalcanzables
+ * desde la entrada no tienen idom ni aparecen en el árbol.
+ */
+public final class DominatorTree {
+
+    private final ControlFlowGraph graph;
+    // Por id de bloque; -1 si no tiene (entrada o inalcanzable)
+    private final int[] idom;
+    // Bloques alcanzables en postorden inverso
+    private final List<BasicBlock> reversePostorder;
+    // Números de entrada y salida en un recorrido del árbol (para dominates)
+    private final int[] enter;
+    private final int[] exit;
+    private final List<BasicBlock>[] children;
+    private List<Set<BasicBlock>> frontiers;
+
+    @SuppressWarnings("unchecked")
+    private DominatorTree(ControlFlowGraph graph) {
+        this.graph = graph;
+        int n = graph.getBlocks().size();
+        this.idom = new int[n];
+        this.enter = new int[n];
+        this.exit = new int[n];
+        this.children = new List[n];
+        this.reversePostorder = reversePostorder(graph);
+    }
+
+    public static DominatorTree compute(ControlFlowGraph graph) {
+        DominatorTree tree = new DominatorTree(graph);
+        tree.computeIdoms();
+        tree.number();
+        return tree;
+    }
+
+    private static List<BasicBlock> reversePostorder(ControlFlowGraph graph) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        List<BasicBlock> order = new ArrayList<>(blocks.size());
+        if (blocks.isEmpty()) {
+            return order;
+        }
+        // DFS iterativo: bloque y próximo sucesor a visitar
+        boolean[] seen = new boolean[blocks.size()];
+        BasicBlock[] stack = new BasicBlock[blocks.size()];
+        int[] next = new int[blocks.size()];
+        int top = 0;
+        stack[0] = blocks.get(0);
+        seen[0] = true;
+        while (top >= 0) {
+            BasicBlock block = stack[top];
+            List<BasicBlock> succs = block.getSuccessors();
+            if (next[top] < succs.size()) {
+                BasicBlock succ = succs.get(next[top]++);
+                if (!seen[succ.getId()]) {
+                    seen[succ.getId()] = true;
+                    stack[++top] = succ;
+                    next[top] = 0;
+                }
+            } else {
+                order.add(block);
+                top--;
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    private void computeIdoms() {
+        Arrays.fill(idom, -1);
+        if (reversePostorder.isEmpty()) {
+            return;
+        }
+        int[] rank = new int[idom.length];
+        Arrays.fill(rank, -1);
+        for (int i = 0; i < reversePostorder.size(); i++) {
+            rank[reversePostorder.get(i).getId()] = i;
+        }
+        int entry = reversePostorder.get(0).getId();
+        idom[entry] = entry;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < reversePostorder.size(); i++) {
+                BasicBlock block = reversePostorder.get(i);
+                int newIdom = -1;
+                for (BasicBlock pred : block.getPredecessors()) {
+                    int p = pred.getId();
+                    if (rank[p] < 0 || idom[p] < 0) {
+                        continue;   // inalcanzable o aún sin procesar
+                    }
+                    newIdom = newIdom < 0 ? p : intersect(p, newIdom, rank);
+                }
+                if (idom[block.getId()] != newIdom) {
+                    idom[block.getId()] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        idom[entry] = -1;
+    }
+
+    private int intersect(int a, int b, int[] rank) {
+        while (a != b) {
+            while (rank[a] > rank[b]) {
+                a = idom[a];
+            }
+            while (rank[b] > rank[a]) {
+                b = idom[b];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Hijos de cada bloque y números de entrada/salida del recorrido del árbol
+     */
+    private void number() {
+        List<BasicBlock> blocks = graph.getBlocks();
+        for (BasicBlock block : reversePostorder) {
+            int parent = idom[block.getId()];
+            if (parent >= 0) {
+                if (children[parent] == null) {
+                    children[parent] = new ArrayList<>(2);
+                }
+                children[parent].add(block);
+            }
+        }
+        Arrays.fill(enter, -1);
+        Arrays.fill(exit, -1);
+        if (reversePostorder.isEmpty()) {
+            return;
+        }
+        int counter = 0;
+        BasicBlock[] stack = new BasicBlock[blocks.size()];
+        int[] next = new int[blocks.size()];
+        int top = 0;
+        stack[0] = reversePostorder.get(0);
+        enter[stack[0].getId()] = counter++;
+        while (top >= 0) {
+            BasicBlock block = stack[top];
+            List<BasicBlock> kids = getChildren(block);
+            if (next[top] < kids.size()) {
+                BasicBlock child = kids.get(next[top]++);
+                enter[child.getId()] = counter++;
+                stack[++top] = child;
+                next[top] = 0;
+            } else {
+                exit[block.getId()] = counter++;
+                top--;
+            }
+        }
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Dominador inmediato (null para la entrada y los bloques inalcanzables)
+     */
+    public BasicBlock getIdom(BasicBlock block) {
+        int parent = idom[block.getId()];
+        return parent < 0 ? null : graph.getBlocks().get(parent);
+    }
+
+    /**
+     * Bloques cuyo dominador inmediato es block, en postorden inverso
+     */
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        List<BasicBlock> kids = children[block.getId()];
+        return kids == null ? Collections.emptyList() : Collections.unmodifiableList(kids);
+    }
+
+    /**
+     * Bloques alcanzables en postorden inverso (la entrada primero)
+     */
+    public List<BasicBlock> getReversePostorder() {
+        return Collections.unmodifiableList(reversePostorder);
+    }
+
+    public boolean isReachable(BasicBlock block) {
+        return enter[block.getId()] >= 0;
+    }
+
+    /**
+     * true si a domina a b (todo bloque alcanzable se domina a sí mismo)
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        int x = a.getId();
+        int y = b.getId();
+        return enter[x] >= 0 && enter[y] >= 0 && enter[x] <= enter[y] && exit[y] <= exit[x];
+    }
+
+    /**
+     * Frontera de dominancia del bloque (se calcula la primera vez que se pide)
+     */
+    public Set<BasicBlock> getFrontier(BasicBlock block) {
+        if (frontiers == null) {
+            computeFrontiers();
+        }
+        return Collections.unmodifiableSet(frontiers.get(block.getId()));
+    }
+
+    private void computeFrontiers() {
+        List<BasicBlock> blocks = graph.getBlocks();
+        frontiers = new ArrayList<>(blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            frontiers.add(new LinkedHashSet<>(2));
+        }
+        for (BasicBlock block : reversePostorder) {
+            if (block.getPredecessors().size() < 2) {
+                continue;
+            }
+            int stop = idom[block.getId()];
+            for (BasicBlock pred : block.getPredecessors()) {
+                int runner = pred.getId();
+                if (!isReachable(pred)) {
+                    continue;
+                }
+                while (runner != stop && runner >= 0) {
+                    frontiers.get(runner).add(block);
+                    runner = idom[runner];
+                }
+            }
+        }
+    }
+}
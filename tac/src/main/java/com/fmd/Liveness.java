@@ -0,0 +1,151 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACOperand;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Temporales vivos a la entrada y a la salida de cada bloque de un grafo
+ *
+ * Solo se analizan temporales: las variables viven en memoria y cualquier
+ * llamada puede leerlas. Un temporal está vivo en un punto si algún camino
+ * desde ahí lo lee antes de redefinirlo.
+ *
+ * ALGORITMO (disperso, por temporal):
+ * 1. Por bloque: temporales leídos antes de escribirse (expuestos) y escritos
+ * 2. Cada temporal expuesto en un bloque está vivo a su entrada; desde ahí se
+ *    propaga hacia los predecesores hasta llegar a bloques que lo escriben
+ * El costo es proporcional a la suma de los rangos vivos, no a
+ * bloques × temporales, así que escala a programas de millones de
+ * instrucciones donde casi todos los temporales mueren en su propio bloque.
+ *
+ * Aristas excepcionales: una excepción puede saltar al catch antes de que el
+ * bloque protegido escriba el temporal, así que lo vivo en el catch también
+ * está vivo a la entrada de cada bloque protegido aunque éste lo escriba.
+ */
+public final class Liveness {
+
+    private final Set<Integer>[] liveIn;
+    private final Set<Integer>[] liveOut;
+
+    @SuppressWarnings("unchecked")
+    private Liveness(int blocks) {
+        liveIn = new Set[blocks];
+        liveOut = new Set[blocks];
+    }
+
+    public static Liveness compute(ControlFlowGraph graph) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        Liveness liveness = new Liveness(blocks.size());
+        @SuppressWarnings("unchecked")
+        Set<Integer>[] written = new Set[blocks.size()];
+
+        // Pendientes de propagar: pares (bloque, temporal) recién vivos a la entrada
+        int[] pendingBlocks = new int[64];
+        int[] pendingTemps = new int[64];
+        int pending = 0;
+
+        // 1. Expuestos y escritos de cada bloque
+        for (BasicBlock block : blocks) {
+            int id = block.getId();
+            Set<Integer> kills = new HashSet<>();
+            for (TACInstruction instr : block.getInstructions()) {
+                int[] reads = reads(instr);
+                for (int temp : reads) {
+                    if (!kills.contains(temp) && liveness.addIn(id, temp)) {
+                        if (pending == pendingBlocks.length) {
+                            pendingBlocks = Arrays.copyOf(pendingBlocks, pending * 2);
+                            pendingTemps = Arrays.copyOf(pendingTemps, pending * 2);
+                        }
+                        pendingBlocks[pending] = id;
+                        pendingTemps[pending++] = temp;
+                    }
+                }
+                TACOperand out = instr.getWritten();
+                if (out != null && out.isTemp()) {
+                    kills.add(out.getId());
+                }
+            }
+            written[id] = kills.isEmpty() ? Collections.emptySet() : kills;
+        }
+
+        // 2. Propagar hacia atrás
+        while (pending > 0) {
+            pending--;
+            BasicBlock block = blocks.get(pendingBlocks[pending]);
+            int temp = pendingTemps[pending];
+            for (BasicBlock pred : block.getPredecessors()) {
+                int id = pred.getId();
+                if (!liveness.addOut(id, temp)) {
+                    continue;
+                }
+                boolean exceptional = pred.getHandler() == block;
+                if ((exceptional || !written[id].contains(temp)) && liveness.addIn(id, temp)) {
+                    if (pending == pendingBlocks.length) {
+                        pendingBlocks = Arrays.copyOf(pendingBlocks, pending * 2);
+                        pendingTemps = Arrays.copyOf(pendingTemps, pending * 2);
+                    }
+                    pendingBlocks[pending] = id;
+                    pendingTemps[pending++] = temp;
+                }
+            }
+        }
+        return liveness;
+    }
+
+    /**
+     * Temporales que lee la instrucción (incluye los de "a[t1]")
+     */
+    static int[] reads(TACInstruction instr) {
+        int[][] holder = { new int[2] };
+        int[] count = { 0 };
+        instr.forEachRead(operand -> operand.forEachTemp(temp -> {
+            if (count[0] == holder[0].length) {
+                holder[0] = Arrays.copyOf(holder[0], count[0] * 2);
+            }
+            holder[0][count[0]++] = temp;
+        }));
+        return count[0] == holder[0].length ? holder[0] : Arrays.copyOf(holder[0], count[0]);
+    }
+
+    private boolean addIn(int block, int temp) {
+        if (liveIn[block] == null) {
+            liveIn[block] = new HashSet<>(4);
+        }
+        return liveIn[block].add(temp);
+    }
+
+    private boolean addOut(int block, int temp) {
+        if (liveOut[block] == null) {
+            liveOut[block] = new HashSet<>(4);
+        }
+        return liveOut[block].add(temp);
+    }
+
+    /**
+     * Temporales vivos al entrar al bloque (solo lectura)
+     */
+    public Set<Integer> liveIn(BasicBlock block) {
+        Set<Integer> set = liveIn[block.getId()];
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Temporales vivos al salir del bloque (solo lectura)
+     */
+    public Set<Integer> liveOut(BasicBlock block) {
+        Set<Integer> set = liveOut[block.getId()];
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    public boolean isLiveOut(BasicBlock block, int temp) {
+        Set<Integer> set = liveOut[block.getId()];
+        return set != null && set.contains(temp);
+    }
+}
@@ -0,0 +1,445 @@
+package com.fmd;
+
+import com.fmd.NaturalLoops.Loop;
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Movimiento de código invariante fuera de los ciclos (LICM)
+ *
+ * Los while, for, do-while y foreach recalculan en cada vuelta lo que no
+ * cambia dentro del ciclo: "n * 2" de la condición, "p.x" o la fila "m[i]"
+ * de un ciclo interno. Con los ciclos naturales (ver NaturalLoops), cada
+ * instrucción "tN = a op b", "tN = op a" o "tN = carga" del ciclo cuyos
+ * operandos no cambian adentro se mueve a un preencabezado: código nuevo
+ * justo antes del encabezado por el que se entra una sola vez. Los saltos
+ * de afuera al encabezado pasan a una etiqueta nueva del preencabezado.
+ *
+ * Un operando es invariante si es una constante, un temporal sin escrituras
+ * en el ciclo o escrito por una instrucción ya movida, o una variable sin
+ * escrituras en el ciclo. Mismo modelo de memoria que las otras pasadas: un
+ * store a un campo puede cambiar variables, y una llamada o new (salvo el
+ * print del lenguaje) las globales y las que usan otras funciones. Una carga
+ * ("a[i]", "p.x") es invariante si además el ciclo no tiene stores, llamadas
+ * ni new.
+ *
+ * Solo se mueven escrituras a temporales. Si el temporal tiene otras
+ * escrituras en el ciclo (el generador recicla temporales) se renombra a uno
+ * nuevo cuando todos sus usos están en el mismo bloque.
+ *
+ * Lo que puede fallar (cargas salvo los campos de this, "/" y "%" sin
+ * divisor constante distinto de cero) solo se mueve si se habría ejecutado
+ * en la primera vuelta antes de cualquier efecto: llamada, store, new,
+ * return, escritura de una variable que no es local u otra instrucción que
+ * puede fallar. En un while la condición está en el encabezado y el cuerpo puede
+ * no ejecutarse: si el encabezado es solo la condición, el preencabezado la
+ * repite (guarda) y sale antes de calcular nada.
+ *
+ * Se procesan primero los ciclos internos: lo que sale de uno puede salir
+ * también del que lo contiene en la vuelta siguiente. Los ciclos con
+ * bloques dentro de un try no se tocan.
+ */
+public class LoopInvariantCodeMotionPass implements TACPass {
+
+    @Override
+    public String name() {
+        return "loop-invariant";
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(instructions);
+        ProgramNames program = ProgramNames.scan(cfg);
+        Set<TACOperand> done = new HashSet<>();
+        boolean pending = true;
+        while (pending) {
+            pending = false;
+            for (ControlFlowGraph graph : cfg.allGraphs()) {
+                DominatorTree dominators = DominatorTree.compute(graph);
+                Liveness liveness = null;
+                for (Loop loop : NaturalLoops.find(graph, dominators).getLoops()) {
+                    if (isDone(loop, done)) {
+                        continue;
+                    }
+                    boolean ready = true;
+                    for (Loop child : loop.getChildren()) {
+                        ready &= isDone(child, done);
+                    }
+                    if (!ready) {
+                        pending = true;
+                        continue;
+                    }
+                    done.add(loop.getHeader().getLabel());
+                    if (liveness == null) {
+                        liveness = Liveness.compute(graph);
+                    }
+                    new Hoist(program, graph, loop, dominators, liveness).run();
+                }
+            }
+            if (pending) {
+                cfg = ControlFlowGraph.build(cfg.toInstructions());
+            }
+        }
+        return cfg.toInstructions();
+    }
+
+    private static boolean isDone(Loop loop, Set<TACOperand> done) {
+        TACOperand label = loop.getHeader().getLabel();
+        return label == null || done.contains(label);
+    }
+
+    /**
+     * Análisis y movimiento de un ciclo
+     */
+    private static final class Hoist {
+        final ProgramNames program;
+        final ControlFlowGraph graph;
+        final Loop loop;
+        final DominatorTree dominators;
+        final Liveness liveness;
+        final List<BasicBlock> blocks;
+        final Set<Integer> liveAtHeader;
+
+        // Escrituras en el ciclo por temporal o variable
+        final Map<TACOperand, Integer> defs = new HashMap<>();
+        // Única escritura de un temporal (bloque, índice)
+        final Map<TACOperand, int[]> singleDef = new HashMap<>();
+        boolean stores;
+        boolean fieldStores;
+        boolean calls;
+        // [bloque][índice] → se mueve
+        boolean[][] marked;
+        boolean guard;
+
+        Hoist(ProgramNames program, ControlFlowGraph graph, Loop loop, DominatorTree dominators, Liveness liveness) {
+            this.program = program;
+            this.graph = graph;
+            this.loop = loop;
+            this.dominators = dominators;
+            this.liveness = liveness;
+            this.blocks = loop.getBlocks();
+            this.liveAtHeader = liveness.liveIn(loop.getHeader());
+        }
+
+        void run() {
+            if (!collect()) {
+                return;
+            }
+            boolean changed = true;
+            boolean any = false;
+            while (changed) {
+                changed = false;
+                long barrier = firstBarrier();
+                for (int b = 0; b < blocks.size(); b++) {
+                    List<TACInstruction> instructions = blocks.get(b).getInstructions();
+                    Map<TACOperand, Integer> lastDef = new HashMap<>();
+                    for (int i = 0; i < instructions.size(); i++) {
+                        TACInstruction instr = instructions.get(i);
+                        if (!marked[b][i] && canHoist(instr, b, i, lastDef, barrier)) {
+                            marked[b][i] = true;
+                            changed = any = true;
+                        }
+                        TACOperand written = instr.getWritten();
+                        if (written != null && written.isTemp()) {
+                            lastDef.put(written, i);
+                        }
+                    }
+                }
+            }
+            if (any) {
+                move();
+            }
+        }
+
+        /**
+         * Escrituras y efectos del ciclo
+         * @return false si el ciclo no se puede tocar
+         */
+        boolean collect() {
+            BasicBlock header = loop.getHeader();
+            boolean outside = header == graph.getEntry();
+            for (BasicBlock pred : header.getPredecessors()) {
+                if (pred.getHandler() == header) {
+                    return false;   // el encabezado es un catch
+                }
+                outside |= !loop.contains(pred);
+            }
+            if (!outside) {
+                return false;
+            }
+            marked = new boolean[blocks.size()][];
+            for (int b = 0; b < blocks.size(); b++) {
+                BasicBlock block = blocks.get(b);
+                if (block.getHandler() != null) {
+                    return false;
+                }
+                List<TACInstruction> instructions = block.getInstructions();
+                marked[b] = new boolean[instructions.size()];
+                for (int i = 0; i < instructions.size(); i++) {
+                    TACInstruction instr = instructions.get(i);
+                    switch (instr.getOp()) {
+                        case TRY_BEGIN, TRY_END -> {
+                            return false;
+                        }
+                        case CALL, ASSIGN_CALL, NEW -> calls |= !isPrint(instr);
+                        default -> {
+                        }
+                    }
+                    if (instr.isStore()) {
+                        stores = true;
+                        fieldStores |= instr.getResultOperand().isField();
+                    }
+                    TACOperand written = instr.getWritten();
+                    if (written != null) {
+                        int count = defs.merge(written, 1, Integer::sum);
+                        if (count == 1) {
+                            singleDef.put(written, new int[]{b, i});
+                        } else {
+                            singleDef.remove(written);
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean isPrint(TACInstruction instr) {
+            return instr.getOp() == OpType.CALL && "print".equals(instr.getArg1())
+                    && program.isBuiltinPrint();
+        }
+
+        /**
+         * Posición (bloque, índice) del primer efecto o instrucción que puede
+         * fallar y no se mueve; Long.MAX_VALUE si no hay
+         */
+        long firstBarrier() {
+            for (int b = 0; b < blocks.size(); b++) {
+                List<TACInstruction> instructions = blocks.get(b).getInstructions();
+                for (int i = 0; i < instructions.size(); i++) {
+                    TACInstruction instr = instructions.get(i);
+                    TACOperand written = instr.getWritten();
+                    boolean effect = switch (instr.getOp()) {
+                        case CALL, ASSIGN_CALL, NEW, RETURN -> true;
+                        default -> instr.isStore() || (!marked[b][i] && ProgramNames.mayFail(instr))
+                                || (written != null && !written.isTemp() && !isLocal(written));
+                    };
+                    if (effect) {
+                        return position(b, i);
+                    }
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        private static long position(int block, int index) {
+            return ((long) block << 32) | index;
+        }
+
+        boolean canHoist(TACInstruction instr, int b, int i, Map<TACOperand, Integer> lastDef, long barrier) {
+            OpType op = instr.getOp();
+            TACOperand written = instr.getWritten();
+            if ((op != OpType.BINARY_OP && op != OpType.UNARY_OP && op != OpType.ASSIGN)
+                    || written == null || !written.isTemp()) {
+                return false;
+            }
+            boolean[] invariant = {true};
+            instr.forEachRead(operand -> invariant[0] &= isInvariant(operand, b, lastDef));
+            if (!invariant[0] || !(keepsName(written) || canRename(written, b, i))) {
+                return false;
+            }
+            if (!ProgramNames.mayFail(instr)) {
+                return true;
+            }
+            if (position(b, i) > barrier) {
+                return false;
+            }
+            BasicBlock block = blocks.get(b);
+            if (b == 0 || dominatesAll(block, loop.getExiting())) {
+                return true;
+            }
+            // Con guarda: alcanza con que se ejecute en toda vuelta que no sale por el encabezado
+            for (BasicBlock exiting : loop.getExiting()) {
+                if (exiting != loop.getHeader() && !dominators.dominates(block, exiting)) {
+                    return false;
+                }
+            }
+            if (!dominatesAll(block, loop.getLatches()) || !canGuard()) {
+                return false;
+            }
+            guard = true;
+            return true;
+        }
+
+        private boolean dominatesAll(BasicBlock block, List<BasicBlock> others) {
+            for (BasicBlock other : others) {
+                if (!dominators.dominates(block, other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * true si la variable es de esta función: ni una llamada ni quien
+         * atrape un error la pueden ver
+         */
+        private boolean isLocal(TACOperand variable) {
+            return graph.getName() != null && !program.isShared(variable);
+        }
+
+        boolean isInvariant(TACOperand operand, int b, Map<TACOperand, Integer> lastDef) {
+            if (operand.isInt()) {
+                return true;
+            }
+            if (operand.isTemp()) {
+                Integer def = lastDef.get(operand);
+                if (def != null) {
+                    return marked[b][def];
+                }
+                Integer count = defs.get(operand);
+                if (count == null) {
+                    return true;
+                }
+                int[] single = singleDef.get(operand);
+                return single != null && marked[single[0]][single[1]] && !liveAtHeader.contains(operand.getId());
+            }
+            if (CopyPropagationPass.isVariable(operand)) {
+                return !defs.containsKey(operand) && !fieldStores
+                        && !(calls && !isLocal(operand));
+            }
+            String text = operand.toString();
+            if (text.startsWith("\"")) {
+                return true;
+            }
+            if (!ProgramNames.isMemory(operand) || stores || calls) {
+                return false;
+            }
+            boolean[] invariant = {true};
+            SSAForm.mapNames(operand, name -> {
+                invariant[0] &= name == operand || isInvariant(name, b, lastDef);
+                return name;
+            });
+            return invariant[0];
+        }
+
+        /**
+         * true si el temporal se puede mover con su nombre: es su única
+         * escritura en el ciclo y no llega vivo al encabezado
+         */
+        boolean keepsName(TACOperand temp) {
+            return defs.get(temp) == 1 && !liveAtHeader.contains(temp.getId());
+        }
+
+        /**
+         * true si todos los usos de la escritura en (b, i) están en el mismo bloque
+         */
+        boolean canRename(TACOperand temp, int b, int i) {
+            List<TACInstruction> instructions = blocks.get(b).getInstructions();
+            for (int k = i + 1; k < instructions.size(); k++) {
+                if (temp.equals(instructions.get(k).getWritten())) {
+                    return true;
+                }
+            }
+            return !liveness.isLiveOut(blocks.get(b), temp.getId());
+        }
+
+        /**
+         * true si el encabezado es solo la condición de salida: se puede
+         * repetir antes del ciclo sin efectos
+         */
+        boolean canGuard() {
+            BasicBlock header = loop.getHeader();
+            TACInstruction last = header.last();
+            if (last == null || last.getOp() != OpType.IF_GOTO || header.getId() + 1 >= graph.getBlocks().size()
+                    || loop.contains(graph.getBlock(last.getLabelOperand()))
+                    || !loop.contains(graph.getBlocks().get(header.getId() + 1))) {
+                return false;
+            }
+            List<TACInstruction> instructions = header.getInstructions();
+            for (int i = 0; i < instructions.size() - 1; i++) {
+                TACInstruction instr = instructions.get(i);
+                OpType op = instr.getOp();
+                if (op == OpType.LABEL) {
+                    continue;
+                }
+                TACOperand written = instr.getWritten();
+                if ((op != OpType.BINARY_OP && op != OpType.UNARY_OP && op != OpType.ASSIGN)
+                        || written == null || !written.isTemp() || liveAtHeader.contains(written.getId())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Arma el preencabezado, renombra y quita las instrucciones movidas
+         */
+        void move() {
+            BasicBlock header = loop.getHeader();
+            List<TACInstruction> fromHeader = new ArrayList<>();
+            List<TACInstruction> fromBody = new ArrayList<>();
+            for (int b = 0; b < blocks.size(); b++) {
+                List<TACInstruction> instructions = blocks.get(b).getInstructions();
+                for (int i = 0; i < instructions.size(); i++) {
+                    if (!marked[b][i]) {
+                        continue;
+                    }
+                    TACInstruction instr = instructions.get(i);
+                    TACOperand written = instr.getWritten();
+                    if (!keepsName(written)) {
+                        TACOperand fresh = program.newTemp();
+                        rename(instructions, i, written, fresh);
+                        instr = instr.copy();
+                        instr.setResult(fresh);
+                    }
+                    (b == 0 ? fromHeader : fromBody).add(instr);
+                }
+            }
+
+            for (int b = 0; b < blocks.size(); b++) {
+                List<TACInstruction> instructions = blocks.get(b).getInstructions();
+                for (int i = marked[b].length - 1; i >= 0; i--) {
+                    if (marked[b][i]) {
+                        instructions.remove(i);
+                    }
+                }
+            }
+
+            // Movidas del encabezado, la guarda (lo que quedó en él) y las del cuerpo
+            List<TACInstruction> preheader = new ArrayList<>(fromHeader);
+            if (guard) {
+                for (TACInstruction instr : header.getInstructions()) {
+                    if (instr.getOp() != OpType.LABEL) {
+                        preheader.add(instr.copy());
+                    }
+                }
+            }
+            preheader.addAll(fromBody);
+            NaturalLoops.insertPreheader(graph, loop, preheader, program::newLabel);
+        }
+
+        /**
+         * Cambia los usos de la escritura en index por fresh, hasta la
+         * siguiente escritura del temporal en el bloque (incluida su lectura)
+         */
+        private void rename(List<TACInstruction> instructions, int index, TACOperand temp, TACOperand fresh) {
+            for (int k = index + 1; k < instructions.size(); k++) {
+                TACInstruction instr = instructions.get(k);
+                instructions.set(k, instr.mapReads(operand ->
+                        SSAForm.mapNames(operand, name -> name.equals(temp) ? fresh : name)));
+                if (temp.equals(instr.getWritten())) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -2,40 +2,75 @@ package com.fmd;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.fmd.modules.SemanticError;
+import com.fmd.modules.TACInstruction;
 
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 
-import com.fmd.CompiscriptLexer;
-import com.fmd.CompiscriptParser;
-
+/**
+ * Uso: Main [archivo.cps] [--profile] [--hotspots] [--cfg] [--run] [-O<n>]
+ *   --profile   imprime tiempo de pared, CPU y memoria asignada de cada fase
+ *   --hotspots  además mide cada método visit* de los visitors de TAC
+ *   --cfg       imprime los bloques básicos y sus aristas (ver ControlFlowGraph)
+ *   --run       ejecuta el TAC (el optimizado si hay -O<n>) con TACVirtualMachine
+ *   -O<n>       optimiza el TAC con el nivel n (ver TACOptimizer) y muestra el reporte
+ */
 public class Main {
     public static void main(String[] args) throws Exception {
+        // 0. Opciones
+        boolean profile = false;
+        boolean hotspots = false;
+        boolean cfg = false;
+        boolean run = false;
+        int optimize = 0;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            switch (arg) {
+                case "--profile" -> profile = true;
+                case "--hotspots" -> profile = hotspots = true;
+                case "--cfg" -> cfg = true;
+                case "--run" -> run = true;
+                default -> {
+                    if (!arg.startsWith("-O")) {
+                        files.add(arg);
+                    } else if (arg.matches("-O\\d") && arg.charAt(2) - '0' <= TACOptimizer.MAX_LEVEL) {
+                        optimize = arg.charAt(2) - '0';
+                    } else {
+                        // Igual que TACController.analizar con "optimize"
+                        System.err.println("Uso: Main [archivo.cps] [--profile] [--hotspots] [--cfg] [--run] [-O<n>]");
+                        System.err.println("-O<n> debe ser un nivel entre 0 y " + TACOptimizer.MAX_LEVEL
+                                + ", no " + arg);
+                        System.exit(2);
+                        return;
+                    }
+                }
+            }
+        }
+        TACOptimizer optimizer = new TACOptimizer(optimize);
+        CompileProfiler profiler = new CompileProfiler(hotspots);
+
         // 1. Leer archivo de entrada
-        String inputFile = args.length > 0 ? args[0] : "src\\main\\java\\com\\fmd\\program.cps";
+        String inputFile = !files.isEmpty() ? files.get(0) : "src\\main\\java\\com\\fmd\\program.cps";
         String code = Files.readString(Path.of(inputFile));
 
         System.out.println(" CÓDIGO FUENTE ");
         System.out.println(code);
         System.out.println();
 
-        // 2. Crear lexer
-        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-
-        // 3. Crear parser
-        CompiscriptParser parser = new CompiscriptParser(tokens);
-
-        // 4. Invocar la regla inicial
-        ParseTree tree = parser.program();
+        // 2-4. Lexer, parser e invocar la regla inicial: SLL y, solo si falla, LL (ver CompiscriptParsing)
+        CompiscriptParsing.Result parsed = CompiscriptParsing.parse(code, profiler);
+        ParseTree tree = parsed.tree();
+        for (String error : parsed.syntaxMessages()) {
+            System.err.println(error);
+        }
 
         // 5. Análisis semántico
         System.out.println("\n ANÁLISIS SEMÁNTICO \n");
         SemanticVisitor visitor = new SemanticVisitor();
-        visitor.visit(tree);
+        profiler.phase(CompileProfiler.Phase.SEMANTIC, () -> visitor.visit(tree));
 
         visitor.getAllSymbols();
 
@@ -46,6 +81,9 @@ public class Main {
                 System.out.println(err);
             }
             System.out.println("¡¡¡ No se puede continuar con el TAC !!!");
+            if (profile) {
+                System.out.print("\n" + profiler.report());
+            }
             return;
         }
         System.out.println("✓ No hay errores semánticos");
@@ -53,9 +91,53 @@ public class Main {
         // 7. Generar TAC
         System.out.println("\n GENERACIÓN DE TAC \n");
         TACVisitor visitor_tac = new TACVisitor(visitor.getExistingScopes());
-        visitor_tac.visit(tree);
+        visitor_tac.getGenerator().setProfiler(profiler);
+        optimizer.configure(visitor_tac.getGenerator());
+        profiler.phase(CompileProfiler.Phase.TAC, () -> visitor_tac.visit(tree));
+
+        System.out.println("TAC GENERADO\n");
+        visitor_tac.getGenerator().printInstructions();
+        for (String error : visitor_tac.getGenerator().getErrors()) {
+            System.out.println("Error de generación: " + error);
+        }
+
+        if (cfg) {
+            System.out.println("\n GRAFO DE FLUJO DE CONTROL \n");
+            System.out.print(ControlFlowGraph.build(visitor_tac.getGenerator().getInstructions()));
+        }
+
+        // 8. Optimizar (solo con -O1 o mayor)
+        List<TACInstruction> program = visitor_tac.getGenerator().getInstructions();
+        if (optimizer.getLevel() > 0) {
+            TACOptimizer.Result optimized = optimizer.optimize(visitor_tac.getGenerator().getInstructions());
+            program = optimized.instructions();
+            System.out.println("\n TAC OPTIMIZADO \n");
+            for (int i = 0; i < optimized.instructions().size(); i++) {
+                System.out.printf("%3d: %s\n", i, optimized.instructions().get(i));
+            }
+            System.out.println();
+            System.out.print(optimized.report());
+        }
+
+        // 9. Ejecutar
+        if (run) {
+            System.out.println("\n EJECUCIÓN \n");
+            TACVirtualMachine vm = TACVirtualMachine.of(program, visitor_tac.getGenerator());
+            vm.setEcho(System.out);
+            try {
+                vm.run();
+            } catch (TACVirtualMachine.RuntimeError e) {
+                System.out.println("Error de ejecución: " + e.getMessage());
+            }
+            System.out.println("(" + vm.getSteps() + " instrucciones ejecutadas)");
+        }
 
         System.out.println("\n TABLA DE SÍMBOLOS ACTUALIZADA \n");
         visitor_tac.printTable();
+
+        if (profile) {
+            System.out.println("\n PERFIL DE COMPILACIÓN \n");
+            System.out.print(profiler.report());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,274 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Ciclos naturales de un ControlFlowGraph
+ *
+ * Una arista de retorno (back edge) va de un bloque a otro que lo domina: el
+ * destino es el encabezado del ciclo. El ciclo natural de la arista u → h son
+ * h y los bloques que llegan a u sin pasar por h; las aristas de retorno con
+ * el mismo encabezado forman un solo ciclo. Los while, for, do-while y
+ * foreach del generador dan ciclos naturales; un ciclo con varias entradas
+ * (irreducible) no tiene arista de retorno y no aparece.
+ *
+ * Dos ciclos con encabezados distintos son disjuntos o uno contiene al otro:
+ * el padre de un ciclo es el más chico que lo contiene.
+ */
+public final class NaturalLoops {
+
+    /**
+     * Un ciclo: encabezado, bloques, bloques que saltan de vuelta al
+     * encabezado (latches) y bloques con una arista hacia afuera
+     */
+    public static final class Loop {
+        private final BasicBlock header;
+        private final BitSet body = new BitSet();
+        private final List<BasicBlock> blocks = new ArrayList<>();
+        private final List<BasicBlock> latches = new ArrayList<>(1);
+        private final List<BasicBlock> exiting = new ArrayList<>(1);
+        private final List<Loop> children = new ArrayList<>(0);
+        private Loop parent;
+
+        private Loop(BasicBlock header) {
+            this.header = header;
+        }
+
+        public BasicBlock getHeader() {
+            return header;
+        }
+
+        /**
+         * Bloques del ciclo en postorden inverso (el encabezado primero)
+         */
+        public List<BasicBlock> getBlocks() {
+            return Collections.unmodifiableList(blocks);
+        }
+
+        public boolean contains(BasicBlock block) {
+            return body.get(block.getId());
+        }
+
+        public List<BasicBlock> getLatches() {
+            return Collections.unmodifiableList(latches);
+        }
+
+        /**
+         * Bloques del ciclo con algún sucesor afuera (un return no tiene sucesores)
+         */
+        public List<BasicBlock> getExiting() {
+            return Collections.unmodifiableList(exiting);
+        }
+
+        /**
+         * Ciclo más chico que contiene a éste (null si es externo)
+         */
+        public Loop getParent() {
+            return parent;
+        }
+
+        public List<Loop> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * 1 para un ciclo externo, 2 para uno dentro de él, ...
+         */
+        public int getDepth() {
+            int depth = 1;
+            for (Loop loop = parent; loop != null; loop = loop.parent) {
+                depth++;
+            }
+            return depth;
+        }
+
+        @Override
+        public String toString() {
+            return "Loop" + header + blocks;
+        }
+    }
+
+    private final List<Loop> loops;
+
+    private NaturalLoops(List<Loop> loops) {
+        this.loops = loops;
+    }
+
+    public static NaturalLoops find(ControlFlowGraph graph, DominatorTree dominators) {
+        // 1. Aristas de retorno, agrupadas por encabezado
+        Map<BasicBlock, Loop> byHeader = new LinkedHashMap<>();
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            for (BasicBlock succ : block.getSuccessors()) {
+                if (dominators.dominates(succ, block)) {
+                    byHeader.computeIfAbsent(succ, Loop::new).latches.add(block);
+                }
+            }
+        }
+
+        // 2. Cuerpo: hacia atrás desde cada latch hasta el encabezado
+        Deque<BasicBlock> pending = new ArrayDeque<>();
+        for (Loop loop : byHeader.values()) {
+            loop.body.set(loop.header.getId());
+            for (BasicBlock latch : loop.latches) {
+                if (!loop.body.get(latch.getId())) {
+                    loop.body.set(latch.getId());
+                    pending.push(latch);
+                }
+            }
+            while (!pending.isEmpty()) {
+                for (BasicBlock pred : pending.pop().getPredecessors()) {
+                    if (dominators.isReachable(pred) && !loop.body.get(pred.getId())) {
+                        loop.body.set(pred.getId());
+                        pending.push(pred);
+                    }
+                }
+            }
+        }
+
+        // 3. Bloques en postorden inverso y salidas
+        List<BasicBlock> order = dominators.getReversePostorder();
+        int[] rank = new int[graph.getBlocks().size()];
+        for (int i = 0; i < order.size(); i++) {
+            rank[order.get(i).getId()] = i;
+        }
+        List<Loop> all = new ArrayList<>(byHeader.values());
+        for (Loop loop : all) {
+            List<Integer> ranks = new ArrayList<>(loop.body.cardinality());
+            for (int id = loop.body.nextSetBit(0); id >= 0; id = loop.body.nextSetBit(id + 1)) {
+                ranks.add(rank[id]);
+            }
+            Collections.sort(ranks);
+            for (int r : ranks) {
+                BasicBlock block = order.get(r);
+                loop.blocks.add(block);
+                for (BasicBlock succ : block.getSuccessors()) {
+                    if (!loop.contains(succ)) {
+                        loop.exiting.add(block);
+                        break;
+                    }
+                }
+            }
+        }
+
+        // 4. Anidamiento: con los encabezados más tardíos primero, un ciclo
+        //    anidado queda antes que su padre
+        all.sort((a, b) -> Integer.compare(rank[b.header.getId()], rank[a.header.getId()]));
+        for (int i = 0; i < all.size(); i++) {
+            Loop inner = all.get(i);
+            for (int j = i + 1; j < all.size(); j++) {
+                Loop outer = all.get(j);
+                if (outer.contains(inner.header)) {
+                    inner.parent = outer;
+                    outer.children.add(inner);
+                    break;
+                }
+            }
+        }
+        return new NaturalLoops(all);
+    }
+
+    /**
+     * Todos los ciclos, cada uno antes que los que lo contienen
+     */
+    public List<Loop> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    /**
+     * Ciclo más interno que contiene al bloque (null si no está en ninguno)
+     */
+    public Loop innermost(BasicBlock block) {
+        for (Loop loop : loops) {
+            if (loop.contains(block)) {
+                return loop;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pone code antes de la etiqueta del encabezado del ciclo (preencabezado:
+     * se ejecuta una vez al entrar) y lleva ahí los saltos de afuera al
+     * encabezado, con una etiqueta nueva de newLabel si hace falta. Cambia
+     * las instrucciones de los bloques: después hay que reconstruir el grafo
+     * desde toInstructions().
+     */
+    public static void insertPreheader(ControlFlowGraph graph, Loop loop, List<TACInstruction> code,
+                                       Supplier<TACOperand> newLabel) {
+        BasicBlock header = loop.getHeader();
+        TACOperand target = header.getLabel();
+        List<BasicBlock> all = graph.getBlocks();
+        BasicBlock previous = header.getId() > 0 ? all.get(header.getId() - 1) : null;
+
+        TACOperand entry = null;
+        for (BasicBlock pred : header.getPredecessors()) {
+            if (loop.contains(pred)) {
+                continue;
+            }
+            List<TACInstruction> instructions = pred.getInstructions();
+            TACInstruction last = instructions.get(instructions.size() - 1);
+            boolean[] jumps = {false};
+            last.forEachTarget(label -> jumps[0] |= label.equals(target));
+            if (jumps[0] && last.getOp() != OpType.TRY_BEGIN) {
+                if (entry == null) {
+                    entry = newLabel.get();
+                }
+                instructions.set(instructions.size() - 1, retarget(last, target, entry));
+            }
+        }
+
+        List<TACInstruction> preheader = new ArrayList<>(code.size() + 2);
+        if (previous != null && loop.contains(previous) && fallsThrough(previous)) {
+            TACInstruction jump = new TACInstruction(OpType.GOTO);
+            jump.setLabel(target);
+            preheader.add(jump);
+        }
+        if (entry != null) {
+            TACInstruction label = new TACInstruction(OpType.LABEL);
+            label.setLabel(entry);
+            preheader.add(label);
+        }
+        preheader.addAll(code);
+        header.getInstructions().addAll(0, preheader);
+    }
+
+    private static boolean fallsThrough(BasicBlock block) {
+        TACInstruction last = block.last();
+        if (last == null) {
+            return true;
+        }
+        return switch (last.getOp()) {
+            case GOTO, RETURN, JUMP_TABLE, END -> false;
+            default -> true;
+        };
+    }
+
+    private static TACInstruction retarget(TACInstruction jump, TACOperand from, TACOperand to) {
+        if (jump.getOp() == OpType.JUMP_TABLE) {
+            TACInstruction copy = new TACInstruction(OpType.JUMP_TABLE);
+            copy.setArg1(jump.getArg1Operand());
+            copy.setArg2(jump.getArg2Operand());
+            copy.setLabel(jump.getLabelOperand().equals(from) ? to : jump.getLabelOperand());
+            for (TACOperand entry : jump.getParamOperands()) {
+                copy.addParam(entry.equals(from) ? to : entry);
+            }
+            return copy;
+        }
+        TACInstruction copy = jump.copy();
+        copy.setLabel(to);
+        return copy;
+    }
+}
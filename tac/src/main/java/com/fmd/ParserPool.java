@@ -0,0 +1,110 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lexers y parsers de Compiscript reutilizables entre compilaciones
+ *
+ * Cada instancia agrupa lexer, stream de tokens y parser ya conectados. En
+ * lugar de crearlos por petición se toman del pool (acquire), se reinician con
+ * el nuevo código y se devuelven al terminar (release). Al devolverlos se
+ * conectan a una entrada vacía para no retener el programa anterior.
+ *
+ * Los DFA de predicción ya son estáticos en el código generado por ANTLR; lo
+ * que se ahorra aquí son los objetos por petición (simuladores, buffers, pila
+ * de contextos). Las instancias que sobran por encima de maxIdle se descartan.
+ */
+public final class ParserPool {
+
+    /**
+     * Pool usado por CompiscriptParsing
+     */
+    static final ParserPool SHARED = new ParserPool(2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Lexer, tokens y parser de una misma compilación
+     */
+    static final class Instance {
+        final CompiscriptLexer lexer;
+        final CommonTokenStream tokens;
+        final CompiscriptParser parser;
+
+        private Instance() {
+            lexer = new CompiscriptLexer(CharStreams.fromString(""));
+            tokens = new CommonTokenStream(lexer);
+            parser = new CompiscriptParser(tokens);
+        }
+
+        /**
+         * Conecta la instancia a una nueva entrada y borra todo estado previo
+         * (tokens, contexto, errores contados)
+         */
+        void reset(CharStream input) {
+            lexer.setInputStream(input);
+            tokens.setTokenSource(lexer);
+            parser.setTokenStream(tokens);
+        }
+    }
+
+    /**
+     * Contadores del pool
+     * @param created instancias creadas
+     * @param reused veces que se entregó una instancia ya usada
+     * @param idle instancias libres en este momento
+     */
+    public record Stats(long created, long reused, int idle) {
+    }
+
+    private final ConcurrentLinkedDeque<Instance> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private volatile int maxIdle;
+
+    ParserPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+        while (idleCount.get() > maxIdle && idle.pollLast() != null) {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Instancia conectada a input; hay que devolverla con release
+     */
+    Instance acquire(CharStream input) {
+        Instance instance = idle.pollFirst();
+        if (instance != null) {
+            idleCount.decrementAndGet();
+            reused.incrementAndGet();
+        } else {
+            instance = new Instance();
+            created.incrementAndGet();
+        }
+        instance.reset(input);
+        return instance;
+    }
+
+    void release(Instance instance) {
+        instance.reset(CharStreams.fromString(""));
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            // LIFO: la instancia más reciente es la que tiene los buffers "calientes"
+            idle.offerFirst(instance);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    Stats stats() {
+        return new Stats(created.get(), reused.get(), idleCount.get());
+    }
+}
@@ -0,0 +1,46 @@
+package com.fmd;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepara el parser al arrancar el servidor
+ *
+ * Se ejecuta al crear el contexto de Spring, antes de que Tomcat acepte
+ * conexiones: las primeras peticiones ya encuentran los DFA de predicción
+ * llenos (ver CompiscriptParsing.warmUp).
+ *
+ * Configuración (application.properties):
+ *   tac.parser.warmup     parsear el corpus de calentamiento al arrancar
+ *   tac.parser.pool-size  lexers/parsers libres que se conservan (0 = 2 por núcleo)
+ */
+@Component
+public class ParserWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(ParserWarmup.class);
+
+    private final boolean enabled;
+    private final int poolSize;
+
+    public ParserWarmup(@Value("${tac.parser.warmup:true}") boolean enabled,
+                        @Value("${tac.parser.pool-size:0}") int poolSize) {
+        this.enabled = enabled;
+        this.poolSize = poolSize;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (poolSize > 0) {
+            CompiscriptParsing.setPoolSize(poolSize);
+        }
+        if (!enabled) {
+            return;
+        }
+        CompiscriptParsing.Warmup warmup = CompiscriptParsing.warmUp();
+        log.info("Parser calentado: {} programas en {} ms, estados DFA {} → {}",
+                warmup.programs(), warmup.millis(), warmup.dfaStatesBefore(), warmup.dfaStatesAfter());
+    }
+}
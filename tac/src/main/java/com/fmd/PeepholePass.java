@@ -0,0 +1,249 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimización de mirilla
+ *
+ * Recorre el TAC con una ventana de pocas instrucciones seguidas y aplica la
+ * primera regla (PeepholeRule) cuyo patrón encaja. Después de un reemplazo
+ * retrocede lo suficiente para que las ventanas que incluyen lo nuevo se
+ * vuelvan a mirar, así que cada vuelta es lineal salvo por los reemplazos.
+ * Se repiten vueltas hasta que una no cambia nada: los datos de etiquetas
+ * (Context) se calculan al inicio de cada vuelta.
+ *
+ * Las reglas de PeepholeRules.defaults() limpian lo que dejan los visitors:
+ * el "if c == 1 goto Lv; goto Lf; Lv:" del operador ternario, el goto de un
+ * ciclo a una etiqueta que solo vuelve a saltar, el "goto Lfin" del switch
+ * justo después del goto de un break y las etiquetas repetidas o sin uso.
+ */
+public class PeepholePass implements TACPass {
+
+    private final List<PeepholeRule> rules;
+    private final int maxWindow;
+    // Reemplazos de la última ejecución por regla
+    private final Map<String, Integer> applied = new LinkedHashMap<>();
+
+    public PeepholePass() {
+        this(PeepholeRules.defaults());
+    }
+
+    /**
+     * @param rules reglas en orden de prioridad: en cada posición se aplica la primera que encaja
+     */
+    public PeepholePass(List<PeepholeRule> rules) {
+        this.rules = List.copyOf(rules);
+        this.maxWindow = this.rules.stream().mapToInt(PeepholeRule::size).max().orElse(1);
+    }
+
+    @Override
+    public String name() {
+        return "peephole";
+    }
+
+    /**
+     * Reemplazos por regla en la última ejecución
+     */
+    public Map<String, Integer> getApplied() {
+        return Collections.unmodifiableMap(applied);
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        applied.clear();
+        List<TACInstruction> code = instructions;
+        while (true) {
+            Context context = new Context(code);
+            List<TACInstruction> next = rewrite(code, context);
+            if (!context.changed) {
+                return next;
+            }
+            code = next;
+        }
+    }
+
+    /**
+     * Una vuelta sobre el código
+     */
+    private List<TACInstruction> rewrite(List<TACInstruction> code, Context context) {
+        // Instrucciones por mirar, la siguiente al final
+        List<TACInstruction> pending = new ArrayList<>(code);
+        Collections.reverse(pending);
+        List<TACInstruction> out = new ArrayList<>(code.size());
+        while (!pending.isEmpty()) {
+            OpType op = pending.get(pending.size() - 1).getOp();
+            boolean fired = false;
+            for (PeepholeRule rule : rules) {
+                if (rule.size() > pending.size() || !rule.pattern().get(0).contains(op)) {
+                    continue;
+                }
+                List<TACInstruction> window = new ArrayList<>(rule.size());
+                for (int k = 1; k <= rule.size(); k++) {
+                    window.add(pending.get(pending.size() - k));
+                }
+                if (!rule.matches(window)) {
+                    continue;
+                }
+                List<TACInstruction> replacement = rule.rewrite().apply(window, context);
+                if (replacement == null) {
+                    continue;
+                }
+                for (TACInstruction instr : window) {
+                    pending.remove(pending.size() - 1);
+                    instr.forEachTarget(context::release);
+                }
+                for (int k = replacement.size() - 1; k >= 0; k--) {
+                    pending.add(replacement.get(k));
+                    replacement.get(k).forEachTarget(context::acquire);
+                }
+                // Las ventanas que empiezan antes pueden encajar ahora
+                for (int k = 1; k < maxWindow && !out.isEmpty(); k++) {
+                    pending.add(out.remove(out.size() - 1));
+                }
+                applied.merge(rule.name(), 1, Integer::sum);
+                context.changed = true;
+                fired = true;
+                break;
+            }
+            if (!fired) {
+                out.add(pending.remove(pending.size() - 1));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Etiquetas del código al inicio de una vuelta
+     *
+     * uses se mantiene al día con cada reemplazo; resolve usa las posiciones
+     * del inicio de la vuelta, que siguen siendo correctas porque cada
+     * reemplazo conserva lo que hace el código.
+     */
+    public static final class Context {
+        private final List<TACInstruction> code;
+        // Posición de cada LABEL
+        private final Map<TACOperand, Integer> positions = new HashMap<>();
+        // Saltos, try_begin y entradas de jump_table por etiqueta
+        private final Map<TACOperand, Integer> uses = new HashMap<>();
+        private final Set<TACOperand> initiallyUsed;
+        private final Map<TACOperand, TACOperand> resolved = new HashMap<>();
+        // Destinos a los que resolve puede mover un salto en esta vuelta
+        private final Set<TACOperand> pinned = new HashSet<>();
+        boolean changed;
+
+        Context(List<TACInstruction> code) {
+            this.code = code;
+            for (int i = 0; i < code.size(); i++) {
+                TACInstruction instr = code.get(i);
+                if (instr.getOp() == OpType.LABEL) {
+                    positions.put(instr.getLabelOperand(), i);
+                }
+                instr.forEachTarget(this::acquire);
+            }
+            initiallyUsed = new HashSet<>(uses.keySet());
+            for (TACOperand label : initiallyUsed) {
+                TACOperand target = resolve(label);
+                if (!target.equals(label)) {
+                    pinned.add(target);
+                }
+            }
+        }
+
+        /**
+         * Instrucciones que pueden saltar a la etiqueta
+         */
+        public int uses(TACOperand label) {
+            return uses.getOrDefault(label, 0);
+        }
+
+        /**
+         * true si un salto puede pasar a esta etiqueta en esta vuelta (aunque hoy no la use nadie)
+         */
+        public boolean isPinned(TACOperand label) {
+            return pinned.contains(label);
+        }
+
+        /**
+         * Etiqueta a la que conviene saltar en lugar de label: la primera usada
+         * de las etiquetas seguidas donde está label y, si después viene un
+         * "goto L2", la de L2 (siguiendo la cadena). Una cadena que vuelve
+         * sobre sí misma no se sigue.
+         */
+        public TACOperand resolve(TACOperand label) {
+            TACOperand cached = resolved.get(label);
+            if (cached != null) {
+                return cached;
+            }
+            TACOperand target = canonical(label);
+            Set<TACOperand> seen = new HashSet<>();
+            while (true) {
+                if (!seen.add(target)) {
+                    target = canonical(label);    // ciclo de gotos: se deja como está
+                    break;
+                }
+                TACInstruction next = afterLabels(target);
+                if (next == null || next.getOp() != OpType.GOTO) {
+                    break;
+                }
+                target = canonical(next.getLabelOperand());
+            }
+            resolved.put(label, target);
+            return target;
+        }
+
+        /**
+         * Primera etiqueta usada (al inicio de la vuelta) de las etiquetas seguidas donde está label
+         */
+        private TACOperand canonical(TACOperand label) {
+            Integer position = positions.get(label);
+            if (position == null) {
+                return label;
+            }
+            int start = position;
+            while (start > 0 && code.get(start - 1).getOp() == OpType.LABEL) {
+                start--;
+            }
+            for (int i = start; i < position; i++) {
+                TACOperand candidate = code.get(i).getLabelOperand();
+                if (initiallyUsed.contains(candidate)) {
+                    return candidate;
+                }
+            }
+            return label;
+        }
+
+        /**
+         * Primera instrucción que no es LABEL después de la etiqueta
+         */
+        private TACInstruction afterLabels(TACOperand label) {
+            Integer position = positions.get(label);
+            if (position == null) {
+                return null;
+            }
+            int i = position + 1;
+            while (i < code.size() && code.get(i).getOp() == OpType.LABEL) {
+                i++;
+            }
+            return i < code.size() ? code.get(i) : null;
+        }
+
+        void acquire(TACOperand label) {
+            uses.merge(label, 1, Integer::sum);
+        }
+
+        void release(TACOperand label) {
+            uses.merge(label, -1, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Regla de la mirilla (ver PeepholePass)
+ *
+ * El patrón es la lista de operaciones que acepta cada instrucción de una
+ * ventana de instrucciones seguidas; si la ventana encaja, rewrite decide
+ * con qué se reemplaza. Por ejemplo, el salto sobre un goto:
+ *
+ *   new PeepholeRule("inverted-branch",
+ *           List.of(Set.of(OpType.IF_GOTO), Set.of(OpType.GOTO), Set.of(OpType.LABEL)),
+ *           (window, context) -> ...)
+ *
+ * @param name nombre corto para el conteo de la pasada
+ * @param pattern operaciones aceptadas en cada posición de la ventana
+ * @param rewrite reemplazo de la ventana
+ */
+public record PeepholeRule(String name, List<Set<OpType>> pattern, Rewrite rewrite) {
+
+    @FunctionalInterface
+    public interface Rewrite {
+
+        /**
+         * @param window instrucciones que encajan con el patrón (no se modifican: el
+         *               reemplazo usa copias, ver TACPass)
+         * @return instrucciones que reemplazan a la ventana, o null si la regla no aplica
+         */
+        List<TACInstruction> apply(List<TACInstruction> window, PeepholePass.Context context);
+    }
+
+    public PeepholeRule {
+        pattern = List.copyOf(pattern);
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("Regla sin patrón: " + name);
+        }
+    }
+
+    /**
+     * Instrucciones de la ventana
+     */
+    public int size() {
+        return pattern.size();
+    }
+
+    /**
+     * true si la operación de cada instrucción está en su posición del patrón
+     */
+    public boolean matches(List<TACInstruction> window) {
+        if (window.size() != pattern.size()) {
+            return false;
+        }
+        for (int i = 0; i < window.size(); i++) {
+            if (!pattern.get(i).contains(window.get(i).getOp())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,110 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reglas de la mirilla que trae PeepholePass
+ *
+ * - unreachable-after-jump: lo que sigue a un goto, return o jump_table sin
+ *   una etiqueta en medio no se ejecuta ("goto L1; goto Lfin" de un break
+ *   dentro de un switch)
+ * - jump-to-next: "goto L1" o "if ... goto L1" seguido de "L1:"
+ * - inverted-branch: "if a == b goto L1; goto L2; L1:" → "if a != b goto L2; L1:"
+ *   (el operador ternario sin condiciones como saltos)
+ * - jump-threading: un salto a una etiqueta seguida de "goto L2" va directo
+ *   a L2, y un salto a una de varias etiquetas seguidas va a la primera
+ *   usada (Context.resolve)
+ * - unused-label: etiquetas que nadie usa; con jump-threading quedan sin uso
+ *   las etiquetas repetidas
+ *
+ * Las marcas de estructura (Function, Class, end, try_begin, try_end) nunca
+ * se quitan ni se saltan.
+ */
+public final class PeepholeRules {
+
+    private PeepholeRules() {
+    }
+
+    // Instrucciones después de las cuales no se sigue a la siguiente
+    private static final Set<OpType> UNCONDITIONAL = EnumSet.of(OpType.GOTO, OpType.RETURN, OpType.JUMP_TABLE);
+
+    // Instrucciones que solo se ejecutan si se llega a ellas (no marcan estructura ni destinos)
+    private static final Set<OpType> PLAIN = EnumSet.of(OpType.ASSIGN, OpType.BINARY_OP, OpType.UNARY_OP,
+            OpType.GOTO, OpType.IF_GOTO, OpType.CALL, OpType.ASSIGN_CALL, OpType.NEW, OpType.RETURN,
+            OpType.JUMP_TABLE, OpType.PHI);
+
+    public static final PeepholeRule UNREACHABLE_AFTER_JUMP = new PeepholeRule("unreachable-after-jump",
+            List.of(UNCONDITIONAL, PLAIN),
+            (window, context) -> List.of(window.get(0)));
+
+    public static final PeepholeRule JUMP_TO_NEXT = new PeepholeRule("jump-to-next",
+            List.of(EnumSet.of(OpType.GOTO, OpType.IF_GOTO), EnumSet.of(OpType.LABEL)),
+            (window, context) -> window.get(0).getLabelOperand().equals(window.get(1).getLabelOperand())
+                    ? List.of(window.get(1))
+                    : null);
+
+    public static final PeepholeRule INVERTED_BRANCH = new PeepholeRule("inverted-branch",
+            List.of(EnumSet.of(OpType.IF_GOTO), EnumSet.of(OpType.GOTO), EnumSet.of(OpType.LABEL)),
+            (window, context) -> {
+                TACInstruction branch = window.get(0);
+                String relop = negate(branch.getRelop());
+                if (relop == null || !branch.getLabelOperand().equals(window.get(2).getLabelOperand())) {
+                    return null;
+                }
+                TACInstruction inverted = branch.copy();
+                inverted.setRelop(relop);
+                inverted.setLabel(window.get(1).getLabelOperand());
+                return List.of(inverted, window.get(2));
+            });
+
+    public static final PeepholeRule JUMP_THREADING = new PeepholeRule("jump-threading",
+            List.of(EnumSet.of(OpType.GOTO, OpType.IF_GOTO)),
+            (window, context) -> {
+                TACInstruction jump = window.get(0);
+                TACOperand target = context.resolve(jump.getLabelOperand());
+                if (target.equals(jump.getLabelOperand())) {
+                    return null;
+                }
+                TACInstruction threaded = jump.copy();
+                threaded.setLabel(target);
+                return List.of(threaded);
+            });
+
+    public static final PeepholeRule UNUSED_LABEL = new PeepholeRule("unused-label",
+            List.of(EnumSet.of(OpType.LABEL)),
+            (window, context) -> context.uses(window.get(0).getLabelOperand()) == 0
+                    && !context.isPinned(window.get(0).getLabelOperand())
+                    ? List.of()
+                    : null);
+
+    /**
+     * Reglas de PeepholePass(), en orden de prioridad
+     */
+    public static List<PeepholeRule> defaults() {
+        return List.of(UNREACHABLE_AFTER_JUMP, JUMP_TO_NEXT, INVERTED_BRANCH, JUMP_THREADING, UNUSED_LABEL);
+    }
+
+    /**
+     * Operador de la comparación contraria; null si no es una comparación
+     */
+    static String negate(String relop) {
+        if (relop == null) {
+            return null;
+        }
+        switch (relop) {
+            case "<": return ">=";
+            case "<=": return ">";
+            case ">": return "<=";
+            case ">=": return "<";
+            case "==": return "!=";
+            case "!=": return "==";
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Nombres de un programa que usan las pasadas de ciclos
+ * (LoopInvariantCodeMotionPass y StrengthReductionPass)
+ *
+ * - Temporales y etiquetas libres: los que crea una pasada no chocan con los
+ *   del programa
+ * - Nombres compartidos: aparecen (leídos o escritos) en más de un grafo, así
+ *   que una llamada puede cambiarlos
+ * - Funciones del programa: una llamada a "print" es la del lenguaje solo si
+ *   el programa no define una función print
+ *
+ * También clasifica operandos de memoria (isMemory) e instrucciones que
+ * pueden fallar (mayFail) para ValueNumberingPass, DeadCodeEliminationPass y
+ * las pasadas de ciclos.
+ */
+final class ProgramNames {
+
+    private int nextTemp = 1;
+    private int nextLabel = 1;
+    private final Set<String> shared = new HashSet<>();
+    private final Set<String> functions = new HashSet<>();
+
+    private ProgramNames() {
+    }
+
+    /**
+     * Recorre todos los grafos del programa (ver ControlFlowGraph.allGraphs)
+     */
+    static ProgramNames scan(ControlFlowGraph cfg) {
+        ProgramNames program = new ProgramNames();
+        Map<String, ControlFlowGraph> firstGraph = new HashMap<>();
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            if (graph.getName() != null) {
+                program.functions.add(graph.getName());
+            }
+            for (BasicBlock block : graph.getBlocks()) {
+                for (TACInstruction instr : block.getInstructions()) {
+                    if (instr.getOp() == OpType.LABEL) {
+                        program.seeLabel(instr.getLabelOperand());
+                    }
+                    instr.forEachTarget(program::seeLabel);
+                    TACOperand written = instr.getWritten();
+                    if (written != null) {
+                        program.seeName(written, graph, firstGraph);
+                    }
+                    instr.forEachRead(operand -> SSAForm.mapNames(operand, name -> {
+                        if (!name.isInt()) {
+                            program.seeName(name, graph, firstGraph);
+                        }
+                        return name;
+                    }));
+                }
+            }
+        }
+        return program;
+    }
+
+    private void seeLabel(TACOperand label) {
+        if (label != null && label.isLabel()) {
+            nextLabel = Math.max(nextLabel, label.getId() + 1);
+        }
+    }
+
+    private void seeName(TACOperand name, ControlFlowGraph graph, Map<String, ControlFlowGraph> firstGraph) {
+        if (name.isTemp()) {
+            nextTemp = Math.max(nextTemp, name.getId() + 1);
+            return;
+        }
+        ControlFlowGraph first = firstGraph.putIfAbsent(name.toString(), graph);
+        if (first != null && first != graph) {
+            shared.add(name.toString());
+        }
+    }
+
+    /**
+     * Temporal que no usa el programa
+     */
+    TACOperand newTemp() {
+        return TACOperand.temp(nextTemp++);
+    }
+
+    /**
+     * Etiqueta que no usa el programa
+     */
+    TACOperand newLabel() {
+        return TACOperand.label(nextLabel++);
+    }
+
+    /**
+     * true si el nombre aparece en más de un grafo
+     */
+    boolean isShared(TACOperand name) {
+        return shared.contains(name.toString());
+    }
+
+    /**
+     * true si una llamada a print es la del lenguaje (no cambia variables)
+     */
+    boolean isBuiltinPrint() {
+        return !functions.contains("print");
+    }
+
+    /**
+     * Elemento, campo o dirección: "a[t1]", "m[t1][t2]", "this.x", "p.x" o
+     * "[t7]" (ver ArrayLoweringPass). Un literal string o numérico ("3.14")
+     * no lo es aunque tenga punto o corchetes
+     */
+    static boolean isMemory(TACOperand operand) {
+        return operand != null && operand.isAccess();
+    }
+
+    // "this.x": this nunca es null
+    private static boolean isThisField(TACOperand operand) {
+        return operand.isField() && operand.getBase().toString().equals("this");
+    }
+
+    /**
+     * true si la instrucción puede lanzar un error: una carga de un elemento
+     * o campo (this nunca es null), "/" y "%" sin un divisor constante
+     * distinto de cero, o un bounds_check
+     */
+    static boolean mayFail(TACInstruction instr) {
+        switch (instr.getOp()) {
+            case BOUNDS_CHECK:
+                return true;
+            case ASSIGN:
+                return isMemory(instr.getArg1Operand()) && !isThisField(instr.getArg1Operand());
+            case BINARY_OP: {
+                String op = instr.getOperator();
+                TACOperand divisor = instr.getArg2Operand();
+                return (op.equals("/") || op.equals("%"))
+                        && !(divisor != null && divisor.isInt() && (int) divisor.getValue() != 0);
+            }
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,1012 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Forma SSA (asignación estática única) de un grafo de flujo de control
+ *
+ * El generador recicla temporales y el programa reasigna variables, así que
+ * un mismo nombre tiene muchas definiciones. En SSA cada definición crea una
+ * versión nueva: los temporales reciben un tN nuevo y las variables se
+ * llaman "x$1", "x$2"... ('$' no es válido en un identificador de
+ * Compiscript). Donde se juntan caminos con versiones distintas, una
+ * instrucción PHI elige la del predecesor por el que se llegó:
+ * "x$3 = phi(x$1, x$2)" tiene un argumento por cada bloque de
+ * getPredecessors(), en ese orden. Una lectura sin definición previa
+ * (parámetros, valor inicial) usa el nombre original: la versión 0.
+ *
+ * CONSTRUCCIÓN (build, por grafo: cada función y el código global):
+ * 1. Árbol de dominadores y fronteras de dominancia (DominatorTree)
+ * 2. PHI en la frontera de dominancia iterada de los bloques que definen
+ *    cada nombre, solo para nombres leídos en algún bloque antes de
+ *    escribirse (semi-podada)
+ * 3. Renombrado en preorden del árbol de dominadores con una pila de
+ *    versiones por nombre; después se quitan las PHI que nadie lee
+ *
+ * Qué se renombra: los temporales y las variables simples que escribe el
+ * grafo y que ningún otro grafo nombra (las demás pueden ser globales que
+ * una llamada cambia: quedan como memoria, igual que en las otras pasadas).
+ * En una función tampoco las globales (TACGenerator.getGlobalNames): el TAC
+ * no distingue "let g" global de una local si solo esa función la nombra.
+ * Tampoco se renombra un nombre escrito dentro de un try ni uno que
+ * necesitaría una PHI en un catch: una excepción puede llegar desde
+ * cualquier instrucción protegida. Si la entrada del grafo es destino de
+ * un salto (código global que empieza con un ciclo) no se renombra nada.
+ *
+ * DESTRUCCIÓN (destruct, con fusión de copias):
+ * 1. Vida de cada versión (las PHI leen al final de cada predecesor) e
+ *    interferencias entre versiones del mismo nombre o unidas por una PHI
+ * 2. Los argumentos de cada PHI se unen con su destino si no interfieren
+ * 3. Cada clase toma el nombre original si no interfiere con otra clase que
+ *    ya lo tiene (así un programa sin cambios vuelve a sus nombres y sus
+ *    copias "x = x" desaparecen); si no, un temporal nuevo
+ * 4. Las PHI que quedan se vuelven copias paralelas al final de cada
+ *    predecesor, secuencializadas (un ciclo usa un temporal). En una arista
+ *    crítica (un if o jump_table que salta a un bloque con PHI) las copias
+ *    van en un bloque nuevo "Lk: copias" justo antes del destino.
+ *
+ * Ambas operan sobre los bloques del grafo: tras destruct las aristas ya no
+ * corresponden a las instrucciones y hay que reconstruir el grafo desde
+ * toInstructions().
+ */
+public final class SSAForm {
+
+    private static final String VERSION_SEPARATOR = "$";
+
+    /**
+     * Números libres de temporales y etiquetas, compartidos por todo el programa
+     */
+    private static final class Fresh {
+        int temp;
+        int label;
+    }
+
+    private final ControlFlowGraph graph;
+    private final Fresh fresh;
+    private DominatorTree dominators;
+    // Nombres originales renombrados en este grafo
+    private final Set<TACOperand> renamed = new HashSet<>();
+    // Versión → nombre original
+    private final Map<TACOperand, TACOperand> original = new HashMap<>();
+    // Versión → instrucción que la define (PHI o normal)
+    private final Map<TACOperand, TACInstruction> definitions = new HashMap<>();
+    private final Map<TACInstruction, TACOperand> phiNames = new IdentityHashMap<>();
+    private final Map<TACOperand, Integer> versionCount = new HashMap<>();
+    private boolean destructed;
+
+    private SSAForm(ControlFlowGraph graph, Fresh fresh) {
+        this.graph = graph;
+        this.fresh = fresh;
+    }
+
+    /**
+     * Pasa a SSA cada grafo del programa (el principal y sus funciones)
+     * @param program grafo recién construido; sus bloques se modifican
+     * @param globals variables globales del programa (no se renombran
+     *                dentro de las funciones)
+     * @return una forma por grafo, en el orden de allGraphs()
+     */
+    public static List<SSAForm> build(ControlFlowGraph program, Set<String> globals) {
+        List<ControlFlowGraph> graphs = program.allGraphs();
+        Fresh fresh = new Fresh();
+        fresh.temp = 1;     // el generador empieza en t1
+
+        // Nombres que aparecen en más de un grafo, y los números libres
+        Map<String, ControlFlowGraph> firstGraph = new HashMap<>();
+        Set<String> shared = new HashSet<>();
+        for (ControlFlowGraph graph : graphs) {
+            for (BasicBlock block : graph.getBlocks()) {
+                for (TACInstruction instr : block.getInstructions()) {
+                    forEachOperand(instr, operand -> {
+                        if (operand.isTemp()) {
+                            fresh.temp = Math.max(fresh.temp, operand.getId() + 1);
+                        } else if (operand.isLabel()) {
+                            fresh.label = Math.max(fresh.label, operand.getId() + 1);
+                        } else if (operand.getKind() == TACOperand.Kind.NAME) {
+                            forEachIdentifier(operand, name -> {
+                                if (name.isTemp()) {
+                                    fresh.temp = Math.max(fresh.temp, name.getId() + 1);
+                                } else {
+                                    ControlFlowGraph first = firstGraph.putIfAbsent(name.toString(), graph);
+                                    if (first != null && first != graph) {
+                                        shared.add(name.toString());
+                                    }
+                                }
+                            });
+                        }
+                    });
+                }
+            }
+        }
+
+        Set<String> sharedOrGlobal = new HashSet<>(shared);
+        sharedOrGlobal.addAll(globals);
+        List<SSAForm> forms = new ArrayList<>(graphs.size());
+        for (ControlFlowGraph graph : graphs) {
+            SSAForm form = new SSAForm(graph, fresh);
+            form.construct(graph.getName() == null ? shared : sharedOrGlobal);
+            forms.add(form);
+        }
+        return forms;
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Dominadores del grafo en SSA (null si no se renombró nada)
+     */
+    public DominatorTree getDominators() {
+        return dominators;
+    }
+
+    /**
+     * true si el nombre original (tN o variable) se renombró en este grafo
+     */
+    public boolean isRenamed(TACOperand name) {
+        return renamed.contains(name);
+    }
+
+    /**
+     * Nombre original de una versión (null si no es una versión de este grafo)
+     */
+    public TACOperand getOriginal(TACOperand version) {
+        return original.get(version);
+    }
+
+    /**
+     * Instrucción que define la versión al construir la forma (null para la
+     * versión 0 o un nombre que no es versión)
+     */
+    public TACInstruction getDefinition(TACOperand version) {
+        return definitions.get(version);
+    }
+
+    // ------------------------------------------------------------------
+    // Construcción
+    // ------------------------------------------------------------------
+
+    private void construct(Set<String> shared) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        if (blocks.isEmpty() || !blocks.get(0).getPredecessors().isEmpty()) {
+            return;
+        }
+        dominators = DominatorTree.compute(graph);
+
+        // Nombres escritos, bloques que los definen y nombres leídos antes de escribirse
+        Map<TACOperand, List<BasicBlock>> defBlocks = new LinkedHashMap<>();
+        Set<TACOperand> excluded = new HashSet<>();
+        Set<TACOperand> global = new HashSet<>();
+        Set<BasicBlock> handlers = new HashSet<>();
+        for (BasicBlock block : blocks) {
+            if (block.getHandler() != null) {
+                handlers.add(block.getHandler());
+            }
+            if (!dominators.isReachable(block)) {
+                continue;
+            }
+            Set<TACOperand> killed = new HashSet<>();
+            for (TACInstruction instr : block.getInstructions()) {
+                instr.forEachRead(operand -> mapNames(operand, name -> {
+                    if (!killed.contains(name)) {
+                        global.add(name);
+                    }
+                    return name;
+                }));
+                TACOperand written = instr.getWritten();
+                if (written == null || !(written.isTemp() || CopyPropagationPass.isVariable(written))
+                        || shared.contains(written.toString())) {
+                    continue;
+                }
+                if (block.getHandler() != null) {
+                    excluded.add(written);
+                }
+                killed.add(written);
+                List<BasicBlock> defs = defBlocks.computeIfAbsent(written, w -> new ArrayList<>(2));
+                if (defs.isEmpty() || defs.get(defs.size() - 1) != block) {
+                    defs.add(block);
+                }
+            }
+        }
+
+        // Bloques con PHI por nombre (frontera de dominancia iterada)
+        Map<BasicBlock, List<TACOperand>> phis = new LinkedHashMap<>();
+        for (Map.Entry<TACOperand, List<BasicBlock>> entry : defBlocks.entrySet()) {
+            TACOperand name = entry.getKey();
+            if (excluded.contains(name)) {
+                continue;
+            }
+            if (global.contains(name)) {
+                Set<BasicBlock> placed = new LinkedHashSet<>();
+                Deque<BasicBlock> work = new ArrayDeque<>(entry.getValue());
+                while (!work.isEmpty()) {
+                    for (BasicBlock frontier : dominators.getFrontier(work.pop())) {
+                        if (placed.add(frontier)) {
+                            work.push(frontier);
+                        }
+                    }
+                }
+                if (placed.stream().anyMatch(handlers::contains)) {
+                    continue;
+                }
+                for (BasicBlock block : placed) {
+                    phis.computeIfAbsent(block, b -> new ArrayList<>()).add(name);
+                }
+            }
+            renamed.add(name);
+        }
+        if (renamed.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<BasicBlock, List<TACOperand>> entry : phis.entrySet()) {
+            BasicBlock block = entry.getKey();
+            int at = phiStart(block);
+            for (TACOperand name : entry.getValue()) {
+                TACInstruction phi = new TACInstruction(OpType.PHI);
+                phi.setResult(name);
+                for (int i = 0; i < block.getPredecessors().size(); i++) {
+                    phi.addParam(name);
+                }
+                phiNames.put(phi, name);
+                block.getInstructions().add(at++, phi);
+            }
+        }
+
+        Map<TACOperand, Integer> phiUses = new HashMap<>();
+        rename(phiUses);
+        removeDeadPhis(phiUses);
+    }
+
+    /**
+     * Posición de la primera PHI: después de la etiqueta o try_end que abre el bloque
+     */
+    private static int phiStart(BasicBlock block) {
+        TACInstruction first = block.first();
+        return first != null && (first.getOp() == OpType.LABEL || first.getOp() == OpType.TRY_END) ? 1 : 0;
+    }
+
+    /**
+     * Renombrado en preorden del árbol de dominadores (iterativo: el árbol
+     * puede ser tan profundo como bloques tenga el grafo). Cuenta de paso
+     * las lecturas de cada versión definida por una PHI.
+     */
+    private void rename(Map<TACOperand, Integer> phiUses) {
+        Map<TACOperand, Deque<TACOperand>> stacks = new HashMap<>();
+        UnaryOperator<TACOperand> current = operand -> mapNames(operand, name -> {
+            Deque<TACOperand> stack = stacks.get(name);
+            if (stack == null || stack.isEmpty()) {
+                return name;
+            }
+            phiUses.computeIfPresent(stack.peek(), (version, count) -> count + 1);
+            return stack.peek();
+        });
+
+        Deque<Object> work = new ArrayDeque<>();
+        work.push(graph.getEntry());
+        while (!work.isEmpty()) {
+            Object item = work.pop();
+            if (item instanceof List<?> pushed) {
+                // Salida del bloque: se sacan las versiones que definió
+                for (Object name : pushed) {
+                    stacks.get((TACOperand) name).pop();
+                }
+                continue;
+            }
+            BasicBlock block = (BasicBlock) item;
+            List<TACOperand> pushed = new ArrayList<>();
+            List<TACInstruction> instructions = block.getInstructions();
+            for (int i = 0; i < instructions.size(); i++) {
+                TACInstruction instr = instructions.get(i);
+                TACOperand base;
+                if (instr.getOp() == OpType.PHI) {
+                    base = phiNames.get(instr);
+                } else {
+                    instr = instr.mapReads(current);
+                    TACOperand written = instr.getWritten();
+                    base = written != null && renamed.contains(written) ? written : null;
+                    if (base != null && instr == instructions.get(i)) {
+                        instr = instr.copy();
+                    }
+                    instructions.set(i, instr);
+                }
+                if (base != null) {
+                    TACOperand version = newVersion(base);
+                    instr.setResult(version);
+                    definitions.put(version, instr);
+                    if (instr.getOp() == OpType.PHI) {
+                        phiUses.put(version, 0);
+                    }
+                    stacks.computeIfAbsent(base, b -> new ArrayDeque<>()).push(version);
+                    pushed.add(base);
+                }
+            }
+            for (BasicBlock succ : block.getSuccessors()) {
+                int index = succ.getPredecessors().indexOf(block);
+                for (TACInstruction instr : succ.getInstructions()) {
+                    TACOperand base = instr.getOp() == OpType.PHI ? phiNames.get(instr) : null;
+                    if (base != null) {
+                        instr.setParam(index, current.apply(base));
+                    }
+                }
+            }
+            work.push(pushed);
+            List<BasicBlock> children = dominators.getChildren(block);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                work.push(children.get(i));
+            }
+        }
+    }
+
+    private TACOperand newVersion(TACOperand base) {
+        TACOperand version;
+        if (base.isTemp()) {
+            version = TACOperand.temp(fresh.temp++);
+        } else {
+            int n = versionCount.merge(base, 1, Integer::sum);
+            version = TACOperand.name(base + VERSION_SEPARATOR + n);
+        }
+        original.put(version, base);
+        return version;
+    }
+
+    /**
+     * Quita las PHI cuyo resultado nadie lee (también las que solo leen otras PHI muertas)
+     */
+    private void removeDeadPhis(Map<TACOperand, Integer> uses) {
+        Set<TACInstruction> dead = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<TACInstruction> work = new ArrayDeque<>(phiNames.keySet());
+        while (!work.isEmpty()) {
+            TACInstruction phi = work.pop();
+            if (dead.contains(phi) || uses.getOrDefault(phi.getResultOperand(), 0) > 0) {
+                continue;
+            }
+            dead.add(phi);
+            for (TACOperand arg : phi.getParamOperands()) {
+                // Solo las versiones de PHI están en uses
+                Integer left = uses.computeIfPresent(arg, (version, count) -> count - 1);
+                if (left != null && left == 0) {
+                    work.push(definitions.get(arg));
+                }
+            }
+        }
+        if (dead.isEmpty()) {
+            return;
+        }
+        for (BasicBlock block : graph.getBlocks()) {
+            block.getInstructions().removeIf(dead::contains);
+        }
+        for (TACInstruction phi : dead) {
+            definitions.remove(phi.getResultOperand());
+            phiNames.remove(phi);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Destrucción
+    // ------------------------------------------------------------------
+
+    /**
+     * Sale de SSA: une versiones, les devuelve su nombre y cambia las PHI por copias
+     */
+    public void destruct() {
+        if (destructed) {
+            throw new IllegalStateException("La forma SSA ya se destruyó");
+        }
+        destructed = true;
+        if (renamed.isEmpty()) {
+            return;
+        }
+        List<BasicBlock> blocks = graph.getBlocks();
+
+        // Índice de cada nombre seguido: versiones y versiones 0
+        Map<TACOperand, Integer> index = new HashMap<>();
+        List<TACOperand> names = new ArrayList<>();
+        for (BasicBlock block : blocks) {
+            for (TACInstruction instr : block.getInstructions()) {
+                TACOperand written = instr.getWritten();
+                if (written != null && isTracked(written)) {
+                    index.computeIfAbsent(written, w -> { names.add(w); return names.size() - 1; });
+                }
+                forEachName(instr, name -> index.computeIfAbsent(name, n -> { names.add(n); return names.size() - 1; }));
+            }
+        }
+        int n = names.size();
+        TACOperand[] bases = new TACOperand[n];
+        boolean[] versionZero = new boolean[n];
+        boolean[] inPhi = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            TACOperand base = original.get(names.get(i));
+            versionZero[i] = base == null;
+            bases[i] = base == null ? names.get(i) : base;
+        }
+        for (BasicBlock block : blocks) {
+            for (TACInstruction instr : block.getInstructions()) {
+                if (instr.getOp() == OpType.PHI) {
+                    inPhi[index.get(instr.getResultOperand())] = true;
+                    for (TACOperand arg : instr.getParamOperands()) {
+                        Integer i = index.get(arg);
+                        if (i != null) {
+                            inPhi[i] = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Solo interesa la vida de nombres que pueden interferir con otro
+        // relevante: los que comparten nombre original o están en una PHI
+        Map<TACOperand, Integer> perBase = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            perBase.merge(bases[i], 1, Integer::sum);
+        }
+        boolean[] relevant = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            relevant[i] = inPhi[i] || perBase.get(bases[i]) > 1;
+        }
+        Set<Integer>[] liveOut = liveOut(index, relevant);
+
+        // Interferencias entre versiones del mismo nombre o unidas por PHI
+        Map<Integer, Set<Integer>> interference = new HashMap<>();
+        for (BasicBlock block : blocks) {
+            LiveNames live = new LiveNames(bases, inPhi);
+            for (int v : liveOut[block.getId()]) {
+                live.add(v);
+            }
+            List<TACInstruction> instructions = block.getInstructions();
+            for (int k = instructions.size() - 1; k >= 0; k--) {
+                TACInstruction instr = instructions.get(k);
+                if (instr.getOp() == OpType.PHI) {
+                    continue;
+                }
+                TACOperand written = instr.getWritten();
+                Integer def = written == null ? null : index.get(written);
+                if (def != null && relevant[def]) {
+                    Integer source = instr.getOp() == OpType.ASSIGN ? index.get(instr.getArg1Operand()) : null;
+                    live.forEachRelevant(def, v -> {
+                        if (v != def && (source == null || v != source)) {
+                            addInterference(interference, def, v);
+                        }
+                    });
+                    live.remove(def);
+                }
+                forEachName(instr, name -> {
+                    int i = index.get(name);
+                    if (relevant[i]) {
+                        live.add(i);
+                    }
+                });
+            }
+            List<Integer> phiDefs = new ArrayList<>();
+            for (TACInstruction instr : instructions) {
+                if (instr.getOp() == OpType.PHI) {
+                    int def = index.get(instr.getResultOperand());
+                    phiDefs.add(def);
+                    live.remove(def);
+                }
+            }
+            for (int def : phiDefs) {
+                live.forEachRelevant(def, v -> addInterference(interference, def, v));
+                for (int other : phiDefs) {
+                    if (other != def && (bases[def].equals(bases[other]) || inPhi[other])) {
+                        addInterference(interference, def, other);
+                    }
+                }
+            }
+        }
+
+        // Unión de los argumentos de cada PHI con su destino
+        int[] parent = new int[n];
+        List<List<Integer>> members = new ArrayList<>(n);
+        boolean[] hasZero = versionZero.clone();
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            List<Integer> single = new ArrayList<>(1);
+            single.add(i);
+            members.add(single);
+        }
+        for (BasicBlock block : blocks) {
+            for (TACInstruction instr : block.getInstructions()) {
+                if (instr.getOp() != OpType.PHI) {
+                    continue;
+                }
+                int def = index.get(instr.getResultOperand());
+                for (TACOperand arg : instr.getParamOperands()) {
+                    Integer a = index.get(arg);
+                    if (a == null) {
+                        continue;
+                    }
+                    int x = find(parent, def);
+                    int y = find(parent, a);
+                    if (x == y || (hasZero[x] && hasZero[y])) {
+                        continue;
+                    }
+                    boolean smallerX = members.get(x).size() <= members.get(y).size();
+                    if (interferes(members.get(smallerX ? x : y), smallerX ? y : x, parent, interference)) {
+                        continue;
+                    }
+                    if (members.get(x).size() < members.get(y).size()) {
+                        int swap = x;
+                        x = y;
+                        y = swap;
+                    }
+                    parent[y] = x;
+                    members.get(x).addAll(members.get(y));
+                    members.set(y, null);
+                    hasZero[x] |= hasZero[y];
+                }
+            }
+        }
+
+        // Nombre de cada clase: primero las que tienen una versión 0
+        TACOperand[] classNames = new TACOperand[n];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < n; i++) {
+                if (find(parent, i) != i || hasZero[i] != (pass == 0)) {
+                    continue;
+                }
+                List<Integer> group = members.get(i);
+                TACOperand chosen = null;
+                for (int member : group) {
+                    if (versionZero[member]) {
+                        chosen = bases[member];
+                        break;
+                    }
+                }
+                if (chosen == null) {
+                    for (int member : group) {
+                        if (!conflicts(group, i, bases[member], parent, classNames, interference)) {
+                            chosen = bases[member];
+                            break;
+                        }
+                    }
+                }
+                if (chosen == null) {
+                    chosen = TACOperand.temp(fresh.temp++);
+                }
+                classNames[i] = chosen;
+            }
+        }
+        Map<TACOperand, TACOperand> finalName = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            finalName.put(names.get(i), classNames[find(parent, i)]);
+        }
+        UnaryOperator<TACOperand> rewrite = operand -> mapNames(operand,
+                name -> finalName.getOrDefault(name, name));
+
+        // Copias de cada arista con PHI, con los nombres finales
+        Map<BasicBlock, List<List<TACInstruction>>> edgeCopies = new IdentityHashMap<>();
+        for (BasicBlock block : blocks) {
+            List<TACInstruction> phis = new ArrayList<>();
+            for (TACInstruction instr : block.getInstructions()) {
+                if (instr.getOp() == OpType.PHI) {
+                    phis.add(instr);
+                }
+            }
+            if (phis.isEmpty()) {
+                continue;
+            }
+            List<List<TACInstruction>> perPred = new ArrayList<>();
+            for (int p = 0; p < block.getPredecessors().size(); p++) {
+                List<TACOperand[]> parallel = new ArrayList<>();
+                for (TACInstruction phi : phis) {
+                    TACOperand dst = rewrite.apply(phi.getResultOperand());
+                    TACOperand src = rewrite.apply(phi.getParamOperands().get(p));
+                    if (!dst.equals(src)) {
+                        parallel.add(new TACOperand[] { dst, src });
+                    }
+                }
+                perPred.add(sequentialize(parallel));
+            }
+            edgeCopies.put(block, perPred);
+            block.getInstructions().removeIf(instr -> instr.getOp() == OpType.PHI);
+        }
+
+        // Nombres finales en todas las instrucciones; las copias x = x desaparecen
+        for (BasicBlock block : blocks) {
+            List<TACInstruction> instructions = block.getInstructions();
+            List<TACInstruction> out = new ArrayList<>(instructions.size());
+            for (TACInstruction instr : instructions) {
+                TACInstruction mapped = instr.mapReads(rewrite);
+                TACOperand written = mapped.getWritten();
+                if (written != null && finalName.containsKey(written)) {
+                    if (mapped == instr) {
+                        mapped = instr.copy();
+                    }
+                    mapped.setResult(finalName.get(written));
+                    if (mapped.getOp() == OpType.ASSIGN && mapped.getResultOperand().equals(mapped.getArg1Operand())) {
+                        continue;
+                    }
+                }
+                out.add(mapped);
+            }
+            instructions.clear();
+            instructions.addAll(out);
+        }
+
+        placeCopies(edgeCopies);
+        renamed.clear();
+    }
+
+    private boolean isTracked(TACOperand name) {
+        return original.containsKey(name) || renamed.contains(name);
+    }
+
+    /**
+     * Nombres vivos agrupados como los consulta la interferencia: solo
+     * importan los pares del mismo nombre original o unidos por alguna PHI
+     */
+    private static final class LiveNames {
+        final TACOperand[] bases;
+        final boolean[] inPhi;
+        final Map<TACOperand, Set<Integer>> byBase = new HashMap<>();
+        final Set<Integer> phi = new HashSet<>();
+
+        LiveNames(TACOperand[] bases, boolean[] inPhi) {
+            this.bases = bases;
+            this.inPhi = inPhi;
+        }
+
+        void add(int name) {
+            byBase.computeIfAbsent(bases[name], b -> new HashSet<>(4)).add(name);
+            if (inPhi[name]) {
+                phi.add(name);
+            }
+        }
+
+        void remove(int name) {
+            Set<Integer> same = byBase.get(bases[name]);
+            if (same != null) {
+                same.remove(name);
+            }
+            phi.remove(name);
+        }
+
+        void forEachRelevant(int name, IntConsumer action) {
+            Set<Integer> same = byBase.get(bases[name]);
+            if (same != null) {
+                for (int other : same) {
+                    action.accept(other);
+                }
+            }
+            if (inPhi[name]) {
+                for (int other : phi) {
+                    action.accept(other);
+                }
+            }
+        }
+    }
+
+    private static void addInterference(Map<Integer, Set<Integer>> interference, int a, int b) {
+        interference.computeIfAbsent(a, x -> new HashSet<>(4)).add(b);
+        interference.computeIfAbsent(b, x -> new HashSet<>(4)).add(a);
+    }
+
+    /**
+     * true si algún miembro del grupo (clase de raíz root) interfiere con
+     * otra clase que ya se llama name
+     */
+    private static boolean conflicts(List<Integer> group, int root, TACOperand name, int[] parent,
+                                     TACOperand[] classNames, Map<Integer, Set<Integer>> interference) {
+        for (int member : group) {
+            Set<Integer> neighbors = interference.get(member);
+            if (neighbors != null) {
+                for (int neighbor : neighbors) {
+                    int other = find(parent, neighbor);
+                    if (other != root && name.equals(classNames[other])) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * true si algún miembro del grupo interfiere con la clase de raíz other
+     */
+    private static boolean interferes(List<Integer> group, int other, int[] parent,
+                                      Map<Integer, Set<Integer>> interference) {
+        int root = find(parent, other);
+        for (int member : group) {
+            Set<Integer> neighbors = interference.get(member);
+            if (neighbors != null) {
+                for (int neighbor : neighbors) {
+                    if (find(parent, neighbor) == root) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nombres relevantes vivos a la salida de cada bloque. Los argumentos de
+     * una PHI se leen al final del predecesor correspondiente, no en el
+     * bloque de la PHI.
+     * Disperso como Liveness: desde cada uso se sube por los predecesores
+     * hasta el bloque que define el nombre, así que el costo es la suma de
+     * los rangos vivos.
+     */
+    private Set<Integer>[] liveOut(Map<TACOperand, Integer> index, boolean[] relevant) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        int size = blocks.size();
+        @SuppressWarnings("unchecked")
+        Set<Integer>[] in = new Set[size];
+        @SuppressWarnings("unchecked")
+        Set<Integer>[] out = new Set[size];
+        @SuppressWarnings("unchecked")
+        Set<Integer>[] defined = new Set[size];
+        for (int id = 0; id < size; id++) {
+            in[id] = new HashSet<>(4);
+            out[id] = new HashSet<>(4);
+            defined[id] = new HashSet<>(4);
+        }
+        // Pares (bloque, nombre) vivos a la entrada, pendientes de subir
+        Deque<int[]> pending = new ArrayDeque<>();
+        for (BasicBlock block : blocks) {
+            int id = block.getId();
+            for (TACInstruction instr : block.getInstructions()) {
+                if (instr.getOp() == OpType.PHI) {
+                    List<TACOperand> args = instr.getParamOperands();
+                    for (int p = 0; p < args.size(); p++) {
+                        Integer arg = index.get(args.get(p));
+                        if (arg != null && relevant[arg]) {
+                            pending.push(new int[] { block.getPredecessors().get(p).getId(), arg, 1 });
+                        }
+                    }
+                } else {
+                    forEachName(instr, name -> {
+                        int i = index.get(name);
+                        if (relevant[i] && !defined[id].contains(i) && in[id].add(i)) {
+                            pending.push(new int[] { id, i, 0 });
+                        }
+                    });
+                }
+                TACOperand written = instr.getWritten();
+                Integer def = written == null ? null : index.get(written);
+                if (def != null) {
+                    defined[id].add(def);
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            int[] item = pending.pop();
+            int name = item[1];
+            if (item[2] == 1) {
+                // Argumento de PHI: vivo a la salida del predecesor
+                int pred = item[0];
+                if (out[pred].add(name) && !defined[pred].contains(name) && in[pred].add(name)) {
+                    pending.push(new int[] { pred, name, 0 });
+                }
+                continue;
+            }
+            for (BasicBlock pred : blocks.get(item[0]).getPredecessors()) {
+                int p = pred.getId();
+                if (out[p].add(name) && !defined[p].contains(name) && in[p].add(name)) {
+                    pending.push(new int[] { p, name, 0 });
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Ordena copias paralelas (dst_i = src_i a la vez) en copias secuenciales
+     */
+    private List<TACInstruction> sequentialize(List<TACOperand[]> parallel) {
+        List<TACInstruction> out = new ArrayList<>(parallel.size());
+        List<TACOperand[]> pending = new ArrayList<>(parallel);
+        while (!pending.isEmpty()) {
+            TACOperand[] ready = null;
+            for (TACOperand[] copy : pending) {
+                boolean read = false;
+                for (TACOperand[] other : pending) {
+                    if (other != copy && other[1].equals(copy[0])) {
+                        read = true;
+                        break;
+                    }
+                }
+                if (!read) {
+                    ready = copy;
+                    break;
+                }
+            }
+            if (ready != null) {
+                out.add(assign(ready[0], ready[1]));
+                pending.remove(ready);
+                continue;
+            }
+            // Ciclo (x = y, y = x): se guarda un destino antes de pisarlo
+            TACOperand saved = pending.get(0)[0];
+            TACOperand temp = TACOperand.temp(fresh.temp++);
+            out.add(assign(temp, saved));
+            for (TACOperand[] copy : pending) {
+                if (copy[1].equals(saved)) {
+                    copy[1] = temp;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Pone las copias de cada arista en su predecesor, o en un bloque nuevo
+     * antes del destino si el predecesor salta ahí con un if o jump_table
+     */
+    private void placeCopies(Map<BasicBlock, List<List<TACInstruction>>> edgeCopies) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        Map<BasicBlock, List<TACOperand>> trampolineLabels = new IdentityHashMap<>();
+        Map<BasicBlock, List<List<TACInstruction>>> trampolineCopies = new IdentityHashMap<>();
+
+        for (Map.Entry<BasicBlock, List<List<TACInstruction>>> entry : edgeCopies.entrySet()) {
+            BasicBlock block = entry.getKey();
+            List<BasicBlock> preds = block.getPredecessors();
+            for (int p = 0; p < preds.size(); p++) {
+                List<TACInstruction> copies = entry.getValue().get(p);
+                if (copies.isEmpty()) {
+                    continue;
+                }
+                BasicBlock pred = preds.get(p);
+                List<TACInstruction> instructions = pred.getInstructions();
+                TACInstruction last = pred.last();
+                OpType op = last.getOp();
+                if (op == OpType.IF_GOTO || op == OpType.JUMP_TABLE) {
+                    boolean fallsInto = op == OpType.IF_GOTO && pred.getId() + 1 < blocks.size()
+                            && blocks.get(pred.getId() + 1) == block;
+                    TACOperand target = block.getLabel();
+                    boolean[] jumpsTo = { false };
+                    last.forEachTarget(label -> jumpsTo[0] |= label.equals(target));
+                    if (jumpsTo[0]) {
+                        TACOperand label = TACOperand.label(fresh.label++);
+                        instructions.set(instructions.size() - 1, retarget(last, target, label));
+                        trampolineLabels.computeIfAbsent(block, b -> new ArrayList<>()).add(label);
+                        trampolineCopies.computeIfAbsent(block, b -> new ArrayList<>()).add(copies);
+                    }
+                    if (fallsInto) {
+                        instructions.addAll(copies);
+                    }
+                } else if (op == OpType.GOTO || op == OpType.TRY_BEGIN) {
+                    instructions.addAll(instructions.size() - 1, copies);
+                } else {
+                    instructions.addAll(copies);
+                }
+            }
+        }
+
+        for (Map.Entry<BasicBlock, List<TACOperand>> entry : trampolineLabels.entrySet()) {
+            BasicBlock block = entry.getKey();
+            TACOperand target = block.getLabel();
+            List<TACInstruction> before = blocks.get(block.getId() - 1).getInstructions();
+            OpType lastOp = before.isEmpty() ? null : before.get(before.size() - 1).getOp();
+            if (lastOp != OpType.GOTO && lastOp != OpType.RETURN && lastOp != OpType.JUMP_TABLE) {
+                before.add(jump(target));
+            }
+            List<TACOperand> labels = entry.getValue();
+            List<List<TACInstruction>> copies = trampolineCopies.get(block);
+            for (int i = 0; i < labels.size(); i++) {
+                TACInstruction label = new TACInstruction(OpType.LABEL);
+                label.setLabel(labels.get(i));
+                before.add(label);
+                before.addAll(copies.get(i));
+                if (i < labels.size() - 1) {
+                    before.add(jump(target));
+                }
+            }
+        }
+    }
+
+    private static TACInstruction retarget(TACInstruction jump, TACOperand from, TACOperand to) {
+        if (jump.getOp() == OpType.IF_GOTO) {
+            TACInstruction copy = jump.copy();
+            copy.setLabel(to);
+            return copy;
+        }
+        TACInstruction copy = new TACInstruction(OpType.JUMP_TABLE);
+        copy.setArg1(jump.getArg1Operand());
+        copy.setArg2(jump.getArg2Operand());
+        copy.setLabel(jump.getLabelOperand().equals(from) ? to : jump.getLabelOperand());
+        for (TACOperand entry : jump.getParamOperands()) {
+            copy.addParam(entry.equals(from) ? to : entry);
+        }
+        return copy;
+    }
+
+    private static TACInstruction assign(TACOperand dst, TACOperand src) {
+        TACInstruction copy = new TACInstruction(OpType.ASSIGN);
+        copy.setResult(dst);
+        copy.setArg1(src);
+        return copy;
+    }
+
+    private static TACInstruction jump(TACOperand label) {
+        TACInstruction jump = new TACInstruction(OpType.GOTO);
+        jump.setLabel(label);
+        return jump;
+    }
+
+    // ------------------------------------------------------------------
+    // Nombres dentro de operandos
+    // ------------------------------------------------------------------
+
+    /**
+     * Nombres seguidos (versiones y nombres renombrados) que lee la
+     * instrucción, también dentro de un elemento o campo ("a[i]", "p.x")
+     */
+    private void forEachName(TACInstruction instr, Consumer<TACOperand> action) {
+        instr.forEachRead(operand -> mapNames(operand, name -> {
+            if (isTracked(name)) {
+                action.accept(name);
+            }
+            return name;
+        }));
+    }
+
+    /**
+     * Aplica rename a cada temporal o variable del operando: el operando
+     * mismo, o las partes de un elemento o campo ("a[i]" → "a[i$2]"; el
+     * nombre de un campo no se toca). Devuelve el mismo operando si nada
+     * cambia.
+     */
+    static TACOperand mapNames(TACOperand operand, UnaryOperator<TACOperand> rename) {
+        if (operand == null) {
+            return null;
+        }
+        if (operand.isTemp() || CopyPropagationPass.isVariable(operand)) {
+            return rename.apply(operand);
+        }
+        return operand.mapParts(part -> mapNames(part, rename));
+    }
+
+    /**
+     * Temporales y variables del operando (ver mapNames)
+     */
+    private static void forEachIdentifier(TACOperand operand, Consumer<TACOperand> action) {
+        mapNames(operand, name -> {
+            action.accept(name);
+            return name;
+        });
+    }
+
+    /**
+     * Operandos de la instrucción (destino, argumentos, parámetros y etiqueta)
+     */
+    private static void forEachOperand(TACInstruction instr, Consumer<TACOperand> action) {
+        if (instr.getResultOperand() != null) action.accept(instr.getResultOperand());
+        if (instr.getArg1Operand() != null) action.accept(instr.getArg1Operand());
+        if (instr.getArg2Operand() != null) action.accept(instr.getArg2Operand());
+        if (instr.getLabelOperand() != null) action.accept(instr.getLabelOperand());
+        for (TACOperand param : instr.getParamOperands()) {
+            action.accept(param);
+        }
+    }
+}
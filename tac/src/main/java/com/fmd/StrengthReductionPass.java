@@ -0,0 +1,381 @@
+package com.fmd;
+
+import com.fmd.NaturalLoops.Loop;
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reducción de fuerza de variables de inducción
+ *
+ * Con los accesos bajados a direcciones (ArrayLoweringPass) y la fila fuera
+ * del ciclo (LoopInvariantCodeMotionPass), recorrer una fila calcula en
+ * cada vuelta
+ *
+ *   t6 = j * 4
+ *   t7 = t2 + t6        t2: la fila, invariante
+ *   t3 = [t7]
+ *
+ * j es una variable de inducción básica: su única escritura en el ciclo es
+ * "j = j + c", "j = c + j" o "j = j - c" con c entero. t7 es derivada: un
+ * puntero invariante más j por una constante. Por cada familia (puntero,
+ * j, constante) la pasada crea un temporal p con ese valor:
+ * - en el preencabezado (NaturalLoops.insertPreheader) "tK = j * 4; p = t2 + tK"
+ * - justo después de "j = j + c": "p = p + 4 * c"
+ * - "t7 = t2 + t6" se vuelve "t7 = p"
+ * CopyPropagationPass lleva después p a "[t7]" y DeadCodeEliminationPass
+ * quita la multiplicación: el ciclo avanza un puntero un elemento por
+ * vuelta. La fila m[i] de un ciclo externo avanza igual, una fila por vuelta.
+ *
+ * Condiciones:
+ * - "t6 = j * 4" es la única escritura de t6 en el ciclo y está en el mismo
+ *   bloque que la suma, antes y sin escrituras de j entre ambas
+ * - el puntero no se escribe en el ciclo. Solo se reducen sumas a punteros
+ *   (temporales escritos con "&" o sumando a otro puntero): "+" también
+ *   concatena strings
+ * - una variable j no cambia por otro lado: sin stores a campos en el
+ *   ciclo, y sin llamadas (salvo print) si no es local de la función
+ * - el ciclo no tiene bloques dentro de un try
+ *
+ * Los ciclos internos van primero.
+ */
+public class StrengthReductionPass implements TACPass {
+
+    @Override
+    public String name() {
+        return "strength-reduction";
+    }
+
+    /**
+     * Variable derivada: base + iv * factor
+     */
+    private record Family(TACOperand base, TACOperand iv, long factor) {
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(instructions);
+        ProgramNames program = ProgramNames.scan(cfg);
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            List<Loop> loops = NaturalLoops.find(graph, DominatorTree.compute(graph)).getLoops();
+            if (loops.isEmpty()) {
+                continue;
+            }
+            Set<TACOperand> pointers = pointers(graph);
+            for (Loop loop : loops) {
+                new Reduction(program, graph, loop, pointers).run();
+            }
+        }
+        return cfg.toInstructions();
+    }
+
+    /**
+     * Temporales del grafo que guardan direcciones: todas sus escrituras son
+     * "&a", una copia de un puntero o un puntero más o menos algo (sin contar
+     * "p = p + c", que solo lo avanza)
+     */
+    static Set<TACOperand> pointers(ControlFlowGraph graph) {
+        Map<TACOperand, List<TACInstruction>> defs = new LinkedHashMap<>();
+        for (BasicBlock block : graph.getBlocks()) {
+            for (TACInstruction instr : block.getInstructions()) {
+                TACOperand written = instr.getWritten();
+                if (written != null && written.isTemp()) {
+                    defs.computeIfAbsent(written, temp -> new ArrayList<>(1)).add(instr);
+                }
+            }
+        }
+        Set<TACOperand> pointers = new HashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<TACOperand, List<TACInstruction>> entry : defs.entrySet()) {
+                TACOperand temp = entry.getKey();
+                if (pointers.contains(temp)) {
+                    continue;
+                }
+                boolean all = true;
+                boolean any = false;
+                for (TACInstruction def : entry.getValue()) {
+                    if (isAdvance(def, temp)) {
+                        continue;
+                    }
+                    any = true;
+                    all &= switch (def.getOp()) {
+                        case UNARY_OP -> "&".equals(def.getOperator());
+                        case ASSIGN -> pointers.contains(def.getArg1Operand());
+                        case BINARY_OP -> switch (def.getOperator()) {
+                            case "+" -> pointers.contains(def.getArg1Operand()) != pointers.contains(def.getArg2Operand());
+                            case "-" -> pointers.contains(def.getArg1Operand()) && !pointers.contains(def.getArg2Operand());
+                            default -> false;
+                        };
+                        default -> false;
+                    };
+                }
+                if (all && any) {
+                    pointers.add(temp);
+                    changed = true;
+                }
+            }
+        }
+        return pointers;
+    }
+
+    /**
+     * true si def es "temp = temp + c" o "temp = temp - c" con c entero
+     */
+    private static boolean isAdvance(TACInstruction def, TACOperand temp) {
+        return def.getOp() == OpType.BINARY_OP && ("+".equals(def.getOperator()) || "-".equals(def.getOperator()))
+                && temp.equals(def.getArg1Operand()) && def.getArg2Operand() != null && def.getArg2Operand().isInt();
+    }
+
+    /**
+     * Análisis y reducción de un ciclo
+     */
+    private static final class Reduction {
+        final ProgramNames program;
+        final ControlFlowGraph graph;
+        final Loop loop;
+        final Set<TACOperand> pointers;
+        final List<BasicBlock> blocks;
+
+        // Escrituras en el ciclo por temporal o variable, y la posición (bloque, índice) de la última
+        final Map<TACOperand, Integer> defs = new HashMap<>();
+        final Map<TACOperand, int[]> defSite = new HashMap<>();
+        boolean calls;
+        boolean fieldStores;
+
+        Reduction(ProgramNames program, ControlFlowGraph graph, Loop loop, Set<TACOperand> pointers) {
+            this.program = program;
+            this.graph = graph;
+            this.loop = loop;
+            this.pointers = pointers;
+            this.blocks = loop.getBlocks();
+        }
+
+        void run() {
+            if (!collect()) {
+                return;
+            }
+            // Sumas a reducir, por familia: posiciones (bloque, índice)
+            Map<Family, List<int[]>> families = new LinkedHashMap<>();
+            for (int b = 0; b < blocks.size(); b++) {
+                List<TACInstruction> instructions = blocks.get(b).getInstructions();
+                for (int i = 0; i < instructions.size(); i++) {
+                    Family family = derived(instructions.get(i), b, i);
+                    if (family != null) {
+                        families.computeIfAbsent(family, f -> new ArrayList<>()).add(new int[]{b, i});
+                    }
+                }
+            }
+            if (families.isEmpty()) {
+                return;
+            }
+
+            List<TACInstruction> preheader = new ArrayList<>();
+            // Avances después de cada variable de inducción
+            Map<TACOperand, List<TACInstruction>> advances = new LinkedHashMap<>();
+            for (Map.Entry<Family, List<int[]>> entry : families.entrySet()) {
+                Family family = entry.getKey();
+                TACOperand pointer = program.newTemp();
+                TACOperand offset = family.iv();
+                if (family.factor() != 1) {
+                    offset = program.newTemp();
+                    preheader.add(binary(offset, family.iv(), "*", TACOperand.integer(family.factor())));
+                }
+                preheader.add(binary(pointer, family.base(), "+", offset));
+
+                for (int[] site : entry.getValue()) {
+                    List<TACInstruction> instructions = blocks.get(site[0]).getInstructions();
+                    TACInstruction copy = new TACInstruction(OpType.ASSIGN);
+                    copy.setResult(instructions.get(site[1]).getResultOperand());
+                    copy.setArg1(pointer);
+                    instructions.set(site[1], copy);
+                }
+
+                long step = family.factor() * step(family.iv());
+                advances.computeIfAbsent(family.iv(), iv -> new ArrayList<>())
+                        .add(binary(pointer, pointer, step < 0 ? "-" : "+", TACOperand.integer(Math.abs(step))));
+            }
+
+            // De atrás hacia adelante: insertar no mueve las posiciones que faltan
+            List<TACOperand> ivs = new ArrayList<>(advances.keySet());
+            ivs.sort((x, y) -> {
+                int[] a = defSite.get(x);
+                int[] c = defSite.get(y);
+                return a[0] != c[0] ? Integer.compare(c[0], a[0]) : Integer.compare(c[1], a[1]);
+            });
+            for (TACOperand iv : ivs) {
+                int[] site = defSite.get(iv);
+                blocks.get(site[0]).getInstructions().addAll(site[1] + 1, advances.get(iv));
+            }
+            NaturalLoops.insertPreheader(graph, loop, preheader, program::newLabel);
+        }
+
+        /**
+         * Escrituras y efectos del ciclo
+         * @return false si el ciclo no se puede tocar
+         */
+        boolean collect() {
+            BasicBlock header = loop.getHeader();
+            boolean outside = header == graph.getEntry();
+            for (BasicBlock pred : header.getPredecessors()) {
+                if (pred.getHandler() == header) {
+                    return false;   // el encabezado es un catch
+                }
+                outside |= !loop.contains(pred);
+            }
+            if (!outside) {
+                return false;
+            }
+            for (int b = 0; b < blocks.size(); b++) {
+                BasicBlock block = blocks.get(b);
+                if (block.getHandler() != null) {
+                    return false;
+                }
+                List<TACInstruction> instructions = block.getInstructions();
+                for (int i = 0; i < instructions.size(); i++) {
+                    TACInstruction instr = instructions.get(i);
+                    switch (instr.getOp()) {
+                        case TRY_BEGIN, TRY_END -> {
+                            return false;
+                        }
+                        case CALL, ASSIGN_CALL, NEW -> calls |= !isPrint(instr);
+                        default -> {
+                        }
+                    }
+                    if (instr.isStore() && instr.getResultOperand().isField()) {
+                        fieldStores = true;
+                    }
+                    TACOperand written = instr.getWritten();
+                    if (written != null) {
+                        defs.merge(written, 1, Integer::sum);
+                        defSite.put(written, new int[]{b, i});
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean isPrint(TACInstruction instr) {
+            return instr.getOp() == OpType.CALL && "print".equals(instr.getArg1())
+                    && program.isBuiltinPrint();
+        }
+
+        /**
+         * Paso de una variable de inducción básica (su única escritura en el
+         * ciclo es "iv = iv ± c" o "iv = c + iv"); 0 si no lo es
+         */
+        long step(TACOperand operand) {
+            Integer count = defs.get(operand);
+            if (count == null || count != 1) {
+                return 0;
+            }
+            if (!operand.isTemp()) {
+                if (!CopyPropagationPass.isVariable(operand) || fieldStores || (calls && !isLocal(operand))) {
+                    return 0;
+                }
+            }
+            int[] site = defSite.get(operand);
+            TACInstruction def = blocks.get(site[0]).getInstructions().get(site[1]);
+            if (def.getOp() != OpType.BINARY_OP) {
+                return 0;
+            }
+            TACOperand arg1 = def.getArg1Operand();
+            TACOperand arg2 = def.getArg2Operand();
+            switch (def.getOperator()) {
+                case "+":
+                    if (operand.equals(arg1) && arg2.isInt()) {
+                        return arg2.getValue();
+                    }
+                    return operand.equals(arg2) && arg1.isInt() ? arg1.getValue() : 0;
+                case "-":
+                    return operand.equals(arg1) && arg2.isInt() ? -arg2.getValue() : 0;
+                default:
+                    return 0;
+            }
+        }
+
+        /**
+         * true si la variable es de esta función: ninguna llamada la puede cambiar
+         */
+        private boolean isLocal(TACOperand variable) {
+            return graph.getName() != null && !program.isShared(variable);
+        }
+
+        /**
+         * Familia de "x = p + y" en (b, i) si es una variable derivada que se
+         * puede reducir; null si no
+         */
+        Family derived(TACInstruction instr, int b, int i) {
+            TACOperand written = instr.getWritten();
+            if (instr.getOp() != OpType.BINARY_OP || !"+".equals(instr.getOperator())
+                    || written == null || !written.isTemp()) {
+                return null;
+            }
+            TACOperand base = instr.getArg1Operand();
+            TACOperand offset = instr.getArg2Operand();
+            if (!isInvariantPointer(base)) {
+                base = instr.getArg2Operand();
+                offset = instr.getArg1Operand();
+                if (!isInvariantPointer(base)) {
+                    return null;
+                }
+            }
+            if (written.equals(base) || written.equals(offset)) {
+                return null;
+            }
+            if (step(offset) != 0) {
+                return new Family(base, offset, 1);
+            }
+
+            // offset = iv * c, escrito antes en el mismo bloque
+            if (!offset.isTemp() || defs.getOrDefault(offset, 0) != 1) {
+                return null;
+            }
+            int[] site = defSite.get(offset);
+            if (site[0] != b || site[1] >= i) {
+                return null;
+            }
+            TACInstruction def = blocks.get(b).getInstructions().get(site[1]);
+            if (def.getOp() != OpType.BINARY_OP || !"*".equals(def.getOperator())) {
+                return null;
+            }
+            TACOperand iv = def.getArg1Operand();
+            TACOperand factor = def.getArg2Operand();
+            if (iv.isInt()) {
+                iv = def.getArg2Operand();
+                factor = def.getArg1Operand();
+            }
+            if (!factor.isInt() || factor.getValue() == 0 || step(iv) == 0) {
+                return null;
+            }
+            int[] ivSite = defSite.get(iv);
+            if (ivSite[0] == b && ivSite[1] > site[1] && ivSite[1] < i) {
+                return null;    // iv cambia entre la multiplicación y la suma
+            }
+            return new Family(base, iv, factor.getValue());
+        }
+
+        private boolean isInvariantPointer(TACOperand operand) {
+            return operand != null && pointers.contains(operand) && !defs.containsKey(operand);
+        }
+    }
+
+    private static TACInstruction binary(TACOperand result, TACOperand arg1, String operator, TACOperand arg2) {
+        TACInstruction instr = new TACInstruction(OpType.BINARY_OP);
+        instr.setResult(result);
+        instr.setArg1(arg1);
+        instr.setOperator(operator);
+        instr.setArg2(arg2);
+        return instr;
+    }
+}
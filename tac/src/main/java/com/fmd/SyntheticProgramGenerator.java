@@ -0,0 +1,408 @@
+package com.fmd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador de programas Compiscript sintéticos para pruebas de escala
+ *
+ * RESPONSABILIDADES:
+ * - Emitir programas sintáctica y semánticamente válidos según Compiscript.g4
+ * - Reproducir el mismo programa para la misma semilla y configuración
+ * - Controlar la forma del programa con un parámetro por construcción
+ *
+ * Cada programa es una secuencia de "unidades" de nivel superior hasta
+ * alcanzar el tamaño pedido. Una unidad es una de:
+ * - función con bloques anidados (if / while / for) y su llamada
+ * - clase (con subclase opcional), instancia y llamada a método
+ * - switch con casos y break
+ * - arreglo literal (y matriz) con accesos por índice
+ * - cadena larga de expresiones aritméticas y lógicas
+ *
+ * Reglas para que el programa sea válido:
+ * - Todo identificador es único (contador global) y se declara antes de usarse
+ * - Solo se usan variables integer en expresiones aritméticas
+ * - Los divisores son literales distintos de cero
+ * - Los ciclos tienen contador propio y terminan
+ * - Ningún identificador empieza con "t" para no confundirse con temporales
+ *
+ * Uso:
+ *   String code = new SyntheticProgramGenerator(42)
+ *           .nestingDepth(5)
+ *           .switchWidth(64)
+ *           .generate(1024 * 1024);
+ */
+public class SyntheticProgramGenerator {
+
+    private final Random random;
+
+    // Forma de cada construcción
+    private int nestingDepth = 3;          // profundidad máxima de bloques anidados
+    private int statementsPerBlock = 3;    // statements máximos por bloque
+    private int switchWidth = 8;           // casos por switch
+    private int classFields = 3;           // campos por clase
+    private int arrayLength = 16;          // elementos por arreglo literal
+    private int expressionLength = 8;      // operandos por cadena de expresiones
+
+    // Peso relativo de cada tipo de unidad (0 = no se genera)
+    private int functionWeight = 4;
+    private int classWeight = 2;
+    private int switchWeight = 2;
+    private int arrayWeight = 2;
+    private int expressionWeight = 2;
+
+    private StringBuilder out;
+    private int nextId;
+    private int indent;
+    private List<String> globals;          // variables integer globales ya declaradas
+
+    public SyntheticProgramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // CONFIGURACIÓN
+    public SyntheticProgramGenerator nestingDepth(int nestingDepth) {
+        this.nestingDepth = Math.max(0, nestingDepth);
+        return this;
+    }
+
+    public SyntheticProgramGenerator statementsPerBlock(int statementsPerBlock) {
+        this.statementsPerBlock = Math.max(1, statementsPerBlock);
+        return this;
+    }
+
+    public SyntheticProgramGenerator switchWidth(int switchWidth) {
+        this.switchWidth = Math.max(1, switchWidth);
+        return this;
+    }
+
+    public SyntheticProgramGenerator classFields(int classFields) {
+        this.classFields = Math.max(1, classFields);
+        return this;
+    }
+
+    public SyntheticProgramGenerator arrayLength(int arrayLength) {
+        this.arrayLength = Math.max(1, arrayLength);
+        return this;
+    }
+
+    public SyntheticProgramGenerator expressionLength(int expressionLength) {
+        this.expressionLength = Math.max(1, expressionLength);
+        return this;
+    }
+
+    /**
+     * Pesos relativos de cada tipo de unidad; un peso 0 desactiva esa construcción
+     */
+    public SyntheticProgramGenerator weights(int functions, int classes, int switches,
+                                             int arrays, int expressions) {
+        if (functions + classes + switches + arrays + expressions <= 0) {
+            throw new IllegalArgumentException("Al menos un peso debe ser positivo");
+        }
+        this.functionWeight = Math.max(0, functions);
+        this.classWeight = Math.max(0, classes);
+        this.switchWeight = Math.max(0, switches);
+        this.arrayWeight = Math.max(0, arrays);
+        this.expressionWeight = Math.max(0, expressions);
+        return this;
+    }
+
+    // GENERACIÓN
+    /**
+     * Genera un programa de al menos targetBytes caracteres
+     * (se completa la unidad en curso, así que puede excederlo un poco)
+     */
+    public String generate(long targetBytes) {
+        out = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, targetBytes + 4096));
+        nextId = 0;
+        indent = 0;
+        globals = new ArrayList<>();
+
+        // Semilla de variables globales para las expresiones de nivel superior
+        for (int i = 0; i < 3; i++) {
+            String name = name("g");
+            line("let " + name + ": integer = " + random.nextInt(100) + ";");
+            globals.add(name);
+        }
+
+        while (out.length() < targetBytes) {
+            unit();
+        }
+        return out.toString();
+    }
+
+    private void unit() {
+        int total = functionWeight + classWeight + switchWeight + arrayWeight + expressionWeight;
+        int pick = random.nextInt(total);
+        if ((pick -= functionWeight) < 0) {
+            function();
+        } else if ((pick -= classWeight) < 0) {
+            classUnit();
+        } else if ((pick -= switchWeight) < 0) {
+            switchUnit();
+        } else if ((pick -= arrayWeight) < 0) {
+            arrayUnit();
+        } else {
+            expressionUnit();
+        }
+    }
+
+    /**
+     * function fN(pA: integer, pB: integer): integer { ...bloques anidados...; return expr; }
+     * let rN: integer = fN(g, 3);
+     */
+    private void function() {
+        String fn = name("f");
+        List<String> scope = new ArrayList<>();
+        scope.add(name("p"));
+        scope.add(name("p"));
+
+        line("function " + fn + "(" + scope.get(0) + ": integer, " + scope.get(1) + ": integer): integer {");
+        indent++;
+        body(nestingDepth, scope);
+        // Siempre una operación: el return toma el resultado de la última instrucción
+        line("return " + scope.get(0) + " + " + intExpr(scope, 2) + ";");
+        indent--;
+        line("}");
+
+        String result = name("r");
+        line("let " + result + ": integer = " + fn + "(" + operand(globals) + ", " + operand(globals) + ");");
+        line("print(\"" + fn + " = \" + " + result + ");");
+        globals.add(result);
+    }
+
+    /**
+     * Statements de un bloque; si queda profundidad, algunos son if/while/for anidados.
+     * Las variables locales declaradas aquí solo son visibles en este bloque.
+     */
+    private void body(int depth, List<String> visible) {
+        List<String> scope = new ArrayList<>(visible);
+        int count = 1 + random.nextInt(statementsPerBlock);
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(depth > 0 ? 6 : 3);
+            switch (kind) {
+                case 0 -> {
+                    String local = name("v");
+                    line("let " + local + ": integer = " + intExpr(scope, expressionLength) + ";");
+                    scope.add(local);
+                }
+                case 1 -> line(pickAssignable(scope) + " = " + intExpr(scope, expressionLength) + ";");
+                case 2 -> line("print(\"v = \" + " + pickVar(scope) + ");");
+                case 3 -> {
+                    line("if (" + boolExpr(scope) + ") {");
+                    nested(depth, scope);
+                    line("} else {");
+                    nested(depth, scope);
+                    line("}");
+                }
+                case 4 -> {
+                    String counter = name("c");
+                    line("let " + counter + ": integer = 0;");
+                    line("while (" + counter + " < " + (2 + random.nextInt(3)) + ") {");
+                    nested(depth, scope);
+                    indent++;
+                    line(counter + " = " + counter + " + 1;");
+                    indent--;
+                    line("}");
+                }
+                default -> {
+                    String counter = name("i");
+                    line("for (let " + counter + ": integer = 0; " + counter + " < " + (2 + random.nextInt(3))
+                            + "; " + counter + " = " + counter + " + 1) {");
+                    List<String> inner = new ArrayList<>(scope);
+                    inner.add(counter);
+                    nested(depth, inner);
+                    line("}");
+                }
+            }
+        }
+    }
+
+    private void nested(int depth, List<String> scope) {
+        indent++;
+        body(depth - 1, scope);
+        indent--;
+    }
+
+    /**
+     * class CN { campos; constructor; método } con subclase opcional, instancia y llamada
+     */
+    private void classUnit() {
+        String cls = name("C");
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < classFields; i++) {
+            fields.add(name("m"));
+        }
+        String param = name("p");
+        String method = name("get");
+        String arg = name("p");
+
+        line("class " + cls + " {");
+        indent++;
+        for (String field : fields) {
+            line("let " + field + ": integer = " + random.nextInt(100) + ";");
+        }
+        line("function constructor(" + param + ": integer) {");
+        indent++;
+        line("this." + fields.get(0) + " = " + param + ";");
+        indent--;
+        line("}");
+        line("function " + method + "(" + arg + ": integer): integer {");
+        indent++;
+        line("return this." + fields.get(random.nextInt(fields.size())) + " + " + arg + ";");
+        indent--;
+        line("}");
+        indent--;
+        line("}");
+
+        String type = cls;
+        if (random.nextBoolean()) {
+            type = name("D");
+            line("class " + type + " : " + cls + " {");
+            indent++;
+            line("let " + name("m") + ": integer = " + random.nextInt(100) + ";");
+            indent--;
+            line("}");
+        }
+
+        String obj = name("o");
+        String result = name("r");
+        line("let " + obj + ": " + type + " = new " + type + "(" + operand(globals) + ");");
+        line("let " + result + ": integer = " + obj + "." + method + "(" + random.nextInt(100) + ");");
+        globals.add(result);
+    }
+
+    /**
+     * switch sobre un entero con switchWidth casos, cada uno con break, y default
+     */
+    private void switchUnit() {
+        String selector = name("s");
+        line("let " + selector + ": integer = " + random.nextInt(switchWidth + 1) + ";");
+        line("switch (" + selector + ") {");
+        indent++;
+        for (int i = 0; i < switchWidth; i++) {
+            line("case " + i + ":");
+            indent++;
+            line(selector + " = " + selector + " + " + (1 + random.nextInt(9)) + ";");
+            line("break;");
+            indent--;
+        }
+        line("default:");
+        indent++;
+        line("print(\"default \" + " + selector + ");");
+        indent--;
+        indent--;
+        line("}");
+        globals.add(selector);
+    }
+
+    /**
+     * Arreglo literal de arrayLength elementos, matriz de 2 filas y accesos por índice
+     */
+    private void arrayUnit() {
+        String array = name("a");
+        line("let " + array + ": integer[] = " + arrayLiteral(arrayLength) + ";");
+
+        String matrix = name("a");
+        int cols = Math.max(1, Math.min(arrayLength, 8));
+        line("let " + matrix + ": integer[][] = [" + arrayLiteral(cols) + ", " + arrayLiteral(cols) + "];");
+
+        String element = name("e");
+        line("let " + element + ": integer = " + array + "[" + random.nextInt(arrayLength) + "] + "
+                + matrix + "[" + random.nextInt(2) + "][" + random.nextInt(cols) + "];");
+        globals.add(element);
+    }
+
+    /**
+     * Cadenas largas: una aritmética y una lógica
+     */
+    private void expressionUnit() {
+        String value = name("x");
+        line("let " + value + ": integer = " + intExpr(globals, expressionLength) + ";");
+        globals.add(value);
+
+        String flag = name("b");
+        line("let " + flag + ": boolean = " + boolExpr(globals) + ";");
+        line("if (" + flag + ") {");
+        indent++;
+        line("print(\"" + value + " = \" + " + value + ");");
+        indent--;
+        line("}");
+    }
+
+    // EXPRESIONES
+    private String intExpr(List<String> vars, int operands) {
+        StringBuilder sb = new StringBuilder(operand(vars));
+        for (int i = 1; i < operands; i++) {
+            switch (random.nextInt(6)) {
+                case 0 -> sb.append(" + ").append(operand(vars));
+                case 1 -> sb.append(" - ").append(operand(vars));
+                case 2 -> sb.append(" * ").append(operand(vars));
+                case 3 -> sb.append(" / ").append(1 + random.nextInt(9));
+                case 4 -> sb.append(" % ").append(1 + random.nextInt(9));
+                default -> sb.append(" + (").append(operand(vars)).append(" - ").append(operand(vars)).append(")");
+            }
+        }
+        return sb.toString();
+    }
+
+    private String boolExpr(List<String> vars) {
+        String[] relops = {"<", "<=", ">", ">=", "==", "!="};
+        int terms = Math.max(1, Math.min(expressionLength / 2, 6));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                sb.append(random.nextBoolean() ? " && " : " || ");
+            }
+            sb.append(operand(vars)).append(' ')
+                    .append(relops[random.nextInt(relops.length)]).append(' ')
+                    .append(random.nextInt(100));
+        }
+        return sb.toString();
+    }
+
+    private String operand(List<String> vars) {
+        if (vars.isEmpty() || random.nextInt(3) == 0) {
+            return Integer.toString(random.nextInt(100));
+        }
+        return pickVar(vars);
+    }
+
+    private String pickVar(List<String> vars) {
+        return vars.get(random.nextInt(vars.size()));
+    }
+
+    /**
+     * Variable que se puede reasignar: parámetros y locales, nunca contadores de ciclo
+     */
+    private String pickAssignable(List<String> vars) {
+        List<String> assignable = vars.stream()
+                .filter(v -> v.startsWith("p") || v.startsWith("v"))
+                .toList();
+        return pickVar(assignable);
+    }
+
+    private String arrayLiteral(int length) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(random.nextInt(1000));
+        }
+        return sb.append(']').toString();
+    }
+
+    // UTILIDADES
+    private String name(String prefix) {
+        return prefix + (nextId++);
+    }
+
+    private void line(String text) {
+        for (int i = 0; i < indent; i++) {
+            out.append("  ");
+        }
+        out.append(text).append('\n');
+    }
+}
@@ -1,27 +1,14 @@
 package com.fmd;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fmd.modules.Symbol;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.tree.ParseTree;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.fmd.modules.SemanticError;
-
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
-
-import com.fmd.CompiscriptLexer;
-import com.fmd.CompiscriptParser;
-import com.fmd.CompiscriptBaseVisitor;
 
 @SpringBootApplication
 public class TACApplication {
@@ -34,116 +21,149 @@ public class TACApplication {
 @RequestMapping("/compilar-tac")
 class TACController {
 
+    private final TACCompilationService compilationService;
+    private final AstImageService astImageService;
+    private final TACCompileCache compileCache;
+
+    // Valores de "astImage" (ver analizar)
+    private static final Set<String> AST_MODES = Set.of("sync", "none", "async");
+
+    TACController(TACCompilationService compilationService, AstImageService astImageService,
+                  TACCompileCache compileCache) {
+        this.compilationService = compilationService;
+        this.astImageService = astImageService;
+        this.compileCache = compileCache;
+    }
+
+    /**
+     * Compila el código recibido en "codigo".
+     *
+     * El campo opcional "astImage" controla la imagen del AST:
+     * - "sync" (por defecto): se genera antes de responder
+     * - "none": no se genera
+     * - "async": se responde un "astTicket" y la imagen se genera en segundo
+     *   plano; se consulta con GET /compilar-tac/ast/{ticket}
+     * Otro valor responde 400.
+     *
+     * Con "profile": "true" se compila aunque el código esté en caché y la
+     * respuesta incluye "profile" con el tiempo y la memoria de cada fase.
+     *
+     * Con "optimize": "1" (nivel de TACOptimizer) "tac" sale optimizado y la
+     * respuesta incluye "optimization" con las instrucciones antes y después.
+     * Un nivel que no es un número entre 0 y TACOptimizer.MAX_LEVEL responde 400.
+     */
     @PostMapping
-    public Map<String, Object> analizar(@RequestBody Map<String, String> body) throws Exception {
+    public ResponseEntity<Map<String, Object>> analizar(@RequestBody Map<String, String> body) throws Exception {
         String code = body.get("codigo");
-        Map<String, Object> response = new HashMap<>();
+        String astMode = body.getOrDefault("astImage", "sync");
+        boolean profile = Boolean.parseBoolean(body.get("profile"));
+        if (!AST_MODES.contains(astMode)) {
+            return astModeError();
+        }
 
-        // 1. Crear lexer y parser
-        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        CompiscriptParser parser = new CompiscriptParser(tokens);
-
-        // 2. Parsear
-        ParseTree tree = parser.program();
-
-        // 3. Semántico
-        SemanticVisitor visitor = new SemanticVisitor();
-        visitor.visit(tree);
-
-        // 4. Guardar errores
-        List<SemanticError> errores = visitor.getErrores();
-
-        // 5. Ejecutar script de Python para generar imagen del árbol
-        String treeString = tree.toStringTree(parser);
-        String base64Img = generarImagen(treeString);
-
-        // Retornar si hay errores semánticos
-        if (!errores.isEmpty()) {
-            List<Map<String, Object>> simbolos = visitor.getRaiz().getAllScopesSymbols().values().stream()
-                    .map(sym -> {
-                        Map<String, Object> map = new HashMap<>();
-                        map.put("name", sym.getName());
-                        map.put("type", sym.getType());
-                        map.put("kind", sym.getKind());
-                        map.put("line", sym.getLine());
-                        map.put("column", sym.getColumn());
-                        return map;
-                    })
-                    .toList();
-
-            response.put("errors", errores);
-            response.put("symbols", simbolos);
-            response.put("astImage", base64Img);
-            response.put("tac",Collections.singletonList("Hay errores semánticos, no se puede continuar con el TAC"));
-
-            return response;
+        String level = body.get("optimize");
+        int optimize;
+        try {
+            optimize = level == null ? 0 : Integer.parseInt(level.trim());
+        } catch (NumberFormatException e) {
+            optimize = -1;
         }
+        if (optimize < 0 || optimize > TACOptimizer.MAX_LEVEL) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "\"optimize\" debe ser un nivel entre 0 y " + TACOptimizer.MAX_LEVEL);
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(compilationService.compilar(code, astMode, profile, optimize));
+    }
 
-        // 6. Ejecutar generador de código intermedio
-        System.out.println("\n GENERACIÓN DE TAC \n");
-        TACVisitor visitor_tac = new TACVisitor(visitor.getExistingScopes());
-        visitor_tac.visit(tree);
-
-        List<Map<String, Object>> simbolos = visitor_tac.getGenerator().getScope("0").getAllScopesSymbols().values().stream()
-                .map(sym -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("name", sym.getName());
-                    map.put("type", sym.getType());
-                    map.put("kind", sym.getKind());
-                    map.put("line", sym.getLine());
-                    map.put("column", sym.getColumn());
-                    map.put("offset", sym.getOffset());
-                    map.put("size", sym.getSize());
-                    return map;
-                })
-                .toList();
-
-        List<String> instructions = visitor_tac.getGenerator().getInstructions().stream()
-                .map(Object::toString)
-                .toList();
-
-        response.put("errors", errores);
-        response.put("symbols", simbolos);
-        response.put("astImage", base64Img);
-        response.put("tac", instructions);
-
-        return response;
+    private static ResponseEntity<Map<String, Object>> astModeError() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "\"astImage\" debe ser \"sync\", \"none\" o \"async\"");
+        return ResponseEntity.badRequest().body(response);
     }
 
-    public static String generarImagen(String treeString) {
+    /**
+     * Compila el código recibido en "codigo" y responde el TAC como NDJSON
+     * mientras se genera (ver TACCompilationService.compilarStream).
+     * No genera imagen del AST ni usa la caché.
+     */
+    @PostMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> analizarStream(@RequestBody Map<String, String> body) {
+        String code = body.get("codigo");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> compilationService.compilarStream(code, out));
+    }
+
+    /**
+     * Compila un lote de programas en paralelo.
+     *
+     * Cuerpo: {"codigos": ["...", "..."], "astImage": "none"}
+     * "astImage" es opcional y por defecto "none"; otro valor que no sea
+     * "sync", "none" o "async" responde 400 (ver analizar).
+     * Responde {"results": [...]} en el mismo orden que "codigos".
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> analizarLote(@RequestBody Map<String, Object> body)
+            throws InterruptedException {
+        Map<String, Object> response = new HashMap<>();
+        if (!(body.get("codigos") instanceof List<?> codigos)
+                || !codigos.stream().allMatch(c -> c instanceof String)) {
+            response.put("error", "\"codigos\" debe ser una lista de strings");
+            return ResponseEntity.badRequest().body(response);
+        }
+        String astMode = String.valueOf(body.getOrDefault("astImage", "none"));
+        if (!AST_MODES.contains(astMode)) {
+            return astModeError();
+        }
+
         try {
-            // Ejecuta un script Python que recibe el árbol y devuelve Base64
-            ProcessBuilder pb = new ProcessBuilder("python", "additions\\AstTreeGenerator.py");
-            Process p = pb.start();
-
-            System.out.println("=== AST Raw ===");
-            System.out.println(treeString);
-            System.out.println("================");
-
-            // Mandar el árbol al script
-            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(p.getOutputStream()))) {
-                writer.write(treeString);
-                writer.newLine();
-                writer.flush();
-            }
-
-            // Recibir errores
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(p.getErrorStream()));
-            String line;
-            while ((line = errorReader.readLine()) != null) {
-                System.err.println("[PYTHON ERROR] " + line);
-            }
-
-            // Esperar a que termine
-            p.waitFor();
-
-            // Leer el archivo generado
-            byte[] bytes = Files.readAllBytes(Paths.get("ast_tree.png"));
-            return Base64.getEncoder().encodeToString(bytes);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            List<String> codes = codigos.stream().map(String.class::cast).toList();
+            response.put("results", compilationService.compilarLote(codes, astMode));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
     }
+
+    /**
+     * Consulta la imagen de un ticket generado con "astImage": "async"
+     * 200 lista, 202 pendiente, 404 desconocido o vencido, 500 si falló
+     */
+    @GetMapping("/ast/{ticket}")
+    public ResponseEntity<Map<String, Object>> imagenAst(@PathVariable String ticket) {
+        Map<String, Object> response = new HashMap<>();
+        AstImageService.Status status = astImageService.status(ticket);
+        response.put("status", status.name().toLowerCase());
+
+        switch (status) {
+            case DONE:
+                response.put("astImage", astImageService.image(ticket));
+                return ResponseEntity.ok(response);
+            case PENDING:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            default:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+
+    /**
+     * Programas parseados, cuántos necesitaron LL y estado de los DFA de
+     * predicción y del pool de parsers (ver CompiscriptParsing)
+     */
+    @GetMapping("/parser")
+    public CompiscriptParsing.PredictionStats estadisticasParser() {
+        return CompiscriptParsing.predictionStats();
+    }
+
+    /**
+     * Estadísticas de la caché de compilaciones
+     */
+    @GetMapping("/cache")
+    public Map<String, Object> estadisticasCache() {
+        return compileCache.stats();
+    }
 }
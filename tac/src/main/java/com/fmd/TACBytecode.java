@@ -0,0 +1,1067 @@
+package com.fmd;
+
+import com.fmd.modules.ArrayLayout;
+import com.fmd.modules.Symbol;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * TAC decodificado para TACVirtualMachine
+ *
+ * Cada instrucción ocupa cuatro enteros seguidos de code: [opcode, x, y, z].
+ * Los operandos son enteros kind << 24 | index (ver operand), así que la
+ * máquina nunca mira un string al ejecutar:
+ *
+ * - LOCAL:      slot del frame actual (variables, parámetros y temporales)
+ * - GLOBAL:     slot de una variable del programa principal
+ * - CONST:      entrada de constants (Long, String o null)
+ * - UPVAL:      variable de una función que contiene a la actual: upvalHops
+ *               frames hacia afuera por el enlace estático, slot upvalSlots
+ * - FIELD:      campo de this (slot del objeto)
+ * - THIS:       objeto del método
+ * - EXCEPTION:  mensaje del último error atrapado
+ * - FUNC:       función como valor (closureFunction, closureHops)
+ *
+ * Las listas de argumentos e índices van en extra como [cantidad, operandos...]
+ * y las etiquetas se resuelven una sola vez a la posición de su instrucción.
+ * Los try también se resuelven al decodificar: handlers da, por instrucción,
+ * el try más interno de su función que la protege (en el orden del TAC, como
+ * en ControlFlowGraph), así que un break o return que sale de un try no
+ * deja nada pendiente al ejecutar.
+ *
+ * Cada "Function f:" tiene un frame con un slot cada 4 bytes del offset que
+ * TACFuncsVisitor guardó en el Symbol de sus parámetros y locales; los
+ * temporales van después. Las variables de un bloque anidado que no tienen
+ * Symbol en la función (o chocan con otro slot) también van al final.
+ */
+public final class TACBytecode {
+
+    // Tipos de operando
+    static final int LOCAL = 0, GLOBAL = 1, CONST = 2, UPVAL = 3, FIELD = 4, THIS = 5, EXCEPTION = 6, FUNC = 7,
+            NONE = 8;
+
+    // Instrucciones
+    static final int MOVE = 0, ADD = 1, SUB = 2, MUL = 3, DIV = 4, MOD = 5, LT = 6, LE = 7, GT = 8, GE = 9,
+            EQ = 10, NE = 11, AND = 12, OR = 13, NEG = 14, NOT = 15, ADDR = 16,
+            LOAD_ELEM = 17, STORE_ELEM = 18, LOAD_FIELD = 19, STORE_FIELD = 20, LOAD_MEM = 21, STORE_MEM = 22,
+            GOTO = 23, IF_EQ = 24, IF_NE = 25, IF_LT = 26, IF_LE = 27, IF_GT = 28, IF_GE = 29, JUMP_TABLE = 30,
+            CALL_FN = 31, CALL_VALUE = 32, CALL_METHOD = 33, PRINT = 34, NEW = 35, RETURN = 36, RETURN_NULL = 37,
+            TRY = 38, TRY_END = 39, CHECK_INDEX = 40, HALT = 41;
+
+    static final String[] OPCODE_NAMES = {
+            "move", "add", "sub", "mul", "div", "mod", "lt", "le", "gt", "ge", "eq", "ne", "and", "or",
+            "neg", "not", "addr", "load_elem", "store_elem", "load_field", "store_field", "load_mem",
+            "store_mem", "goto", "if_eq", "if_ne", "if_lt", "if_le", "if_gt", "if_ge", "jump_table",
+            "call_fn", "call_value", "call_method", "print", "new", "return", "return_null", "try",
+            "try_end", "check_index", "halt"
+    };
+
+    /**
+     * Función decodificada
+     *
+     * @param entry posición de la primera instrucción del cuerpo
+     * @param frameSize slots del frame
+     * @param paramSlots slot de cada parámetro, en orden
+     * @param localVarSize bytes de locales que TACFuncsVisitor guardó en el Symbol (-1 si no hay)
+     */
+    public record Function(String name, int entry, int frameSize, int[] paramSlots, int localVarSize) {
+    }
+
+    /**
+     * Clase decodificada: el objeto tiene un slot por campo y sus
+     * inicializadores corren como una función sin parámetros (initEntry)
+     *
+     * Una subclase (TACGenerator.getSuperclasses) tiene los campos de su
+     * superclase en los mismos slots, así que un método heredado lee los
+     * campos de un objeto de la subclase igual que los de la suya.
+     *
+     * @param fieldSlots slot de cada nombre (ver names) o -1 si no es campo
+     * @param methods función de cada nombre o -1 si no es método, incluyendo
+     *                los heredados que la clase no redefine
+     * @param constructor función "constructor" propia o heredada, o -1
+     * @param superclass clase padre (índice en classes) o -1
+     */
+    public record ClassLayout(String name, int initEntry, int initFrameSize, String[] fields, int[] fieldSlots,
+                              int[] methods, int constructor, int superclass) {
+    }
+
+    final int[] code;
+    final int[] extra;
+    final Object[] constants;
+    final int[] upvalHops;
+    final int[] upvalSlots;
+    final int[] closureFunction;
+    final int[] closureHops;
+    final Function[] functions;
+    final ClassLayout[] classes;
+    final ArrayLayout[] layouts;
+    // Posición del try que protege cada instrucción, o -1 (su catch es el x de ese try)
+    final int[] handlers;
+    // Nombres de campos y métodos (índices de LOAD_FIELD, STORE_FIELD y CALL_METHOD)
+    final String[] names;
+    final String[] globals;
+    final int mainFrameSize;
+
+    private TACBytecode(Decoder decoder) {
+        code = decoder.code.toArray();
+        extra = decoder.extra.toArray();
+        constants = decoder.constants.toArray();
+        upvalHops = decoder.upvalHops.toArray();
+        upvalSlots = decoder.upvalSlots.toArray();
+        closureFunction = decoder.closureFunction.toArray();
+        closureHops = decoder.closureHops.toArray();
+        functions = decoder.functionTable();
+        classes = decoder.classTable();
+        layouts = decoder.layouts.toArray(new ArrayLayout[0]);
+        handlers = decoder.handlers.toArray();
+        names = decoder.names.keySet().toArray(new String[0]);
+        globals = decoder.globals.keySet().toArray(new String[0]);
+        mainFrameSize = decoder.main.slots;
+    }
+
+    /**
+     * Decodifica el TAC de un generador (antes o después de TACOptimizer):
+     * los Symbol de sus scopes dan parámetros y offsets, y sus formas de
+     * arreglo el tamaño de los arreglos que se crean al guardar un elemento
+     *
+     * @throws IllegalArgumentException si el TAC tiene phi (ver SSAForm.destruct) o una etiqueta sin definir
+     */
+    public static TACBytecode decode(List<TACInstruction> instructions, TACGenerator generator) {
+        Decoder decoder = new Decoder(generator);
+        decoder.scan(instructions);
+        decoder.assignSlots();
+        decoder.emitAll(instructions);
+        return new TACBytecode(decoder);
+    }
+
+    /**
+     * Instrucciones decodificadas
+     */
+    public int size() {
+        return code.length / 4;
+    }
+
+    public List<Function> getFunctions() {
+        return Collections.unmodifiableList(Arrays.asList(functions));
+    }
+
+    public List<ClassLayout> getClasses() {
+        return Collections.unmodifiableList(Arrays.asList(classes));
+    }
+
+    static int operand(int kind, int index) {
+        return kind << 24 | index;
+    }
+
+    static int kind(int operand) {
+        return operand >>> 24;
+    }
+
+    static int index(int operand) {
+        return operand & 0xFFFFFF;
+    }
+
+    // Campos de cada instrucción que son operandos: bit 0 para x, 1 para y, 2 para z
+    private static final int[] OPERAND_FIELDS = {
+            0b011, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111, 0b111,
+            0b011, 0b011, 0b011, 0b011, 0b101, 0b011, 0b101, 0b011,
+            0b011, 0b000, 0b011, 0b011, 0b011, 0b011, 0b011, 0b011, 0b001,
+            0b011, 0b011, 0b011, 0b001, 0b001, 0b001, 0b000, 0b000,
+            0b000, 0b011, 0b000
+    };
+
+    /**
+     * Listado legible: "  12: add l3, l1, k0" (l: local, g: global, k: constante,
+     * u: variable de afuera, f: campo de this, fn: función); posiciones,
+     * listas de extra y formas quedan como número
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < size(); pc++) {
+            int at = pc * 4;
+            int op = code[at];
+            sb.append(String.format("%4d: %s", pc, OPCODE_NAMES[op]));
+            for (int k = 0; k < 3; k++) {
+                int value = code[at + 1 + k];
+                sb.append(k == 0 ? " " : ", ").append((OPERAND_FIELDS[op] >> k & 1) != 0 ? text(value) : value);
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private static String text(int operand) {
+        int index = index(operand);
+        return switch (kind(operand)) {
+            case LOCAL -> "l" + index;
+            case GLOBAL -> "g" + index;
+            case CONST -> "k" + index;
+            case UPVAL -> "u" + index;
+            case FIELD -> "f" + index;
+            case THIS -> "this";
+            case EXCEPTION -> "exception";
+            case FUNC -> "fn" + index;
+            default -> "-";
+        };
+    }
+
+    // Arreglo de int que crece
+    private static final class IntList {
+        private int[] data = new int[64];
+        private int size;
+
+        int add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size] = value;
+            return size++;
+        }
+
+        void set(int index, int value) {
+            data[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * Programa principal, cuerpo de una clase (inicializadores de campos) o
+     * función; las funciones anidadas ven las variables de las que las contienen
+     */
+    private static final class Unit {
+        static final int MAIN = 0, CLASS = 1, FUNCTION = 2;
+
+        final int kind;
+        final String name;
+        final Unit parent;
+        // Funciones anidadas: profundidad de su frame en la cadena de enlaces estáticos
+        final int depth;
+        int id = -1;
+        // Funciones (o métodos) declaradas directamente adentro
+        final Map<String, Unit> functions = new LinkedHashMap<>();
+        // Variables escritas en el cuerpo propio
+        final Set<String> written = new LinkedHashSet<>();
+        // Locales de una función o campos de una clase
+        final Map<String, Integer> named = new LinkedHashMap<>();
+        final Map<Integer, Integer> temps = new HashMap<>();
+        final List<Integer> scratch = new ArrayList<>();
+        final List<Integer> params = new ArrayList<>();
+        int slots;
+        int fields;
+        int entry;
+        int skip;
+        // try abiertos del cuerpo propio al emitir, el más interno arriba
+        final Deque<Integer> tries = new ArrayDeque<>();
+        int localVarSize = -1;
+
+        Unit(int kind, String name, Unit parent) {
+            this.kind = kind;
+            this.name = name;
+            this.parent = parent;
+            this.depth = kind == FUNCTION ? enclosingFunctionDepth(parent) + 1 : 0;
+        }
+
+        private static int enclosingFunctionDepth(Unit unit) {
+            return unit != null && unit.kind == FUNCTION ? unit.depth : 0;
+        }
+
+        /**
+         * Función que contiene a esta (null en el nivel principal o en una clase)
+         */
+        Unit enclosingFunction() {
+            return parent != null && parent.kind == FUNCTION ? parent : null;
+        }
+    }
+
+    private static final class Decoder {
+        private final TACGenerator generator;
+        final Unit main = new Unit(Unit.MAIN, "main", null);
+        // Funciones y clases en el orden del TAC
+        private final List<Unit> opened = new ArrayList<>();
+        private final List<Unit> functionUnits = new ArrayList<>();
+        private final Map<String, Unit> classUnits = new LinkedHashMap<>();
+        final Map<String, Integer> globals = new LinkedHashMap<>();
+        final Map<String, Integer> names = new LinkedHashMap<>();
+
+        final IntList code = new IntList();
+        final IntList extra = new IntList();
+        final IntList handlers = new IntList();
+        final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndex = new HashMap<>();
+        final IntList upvalHops = new IntList();
+        final IntList upvalSlots = new IntList();
+        final IntList closureFunction = new IntList();
+        final IntList closureHops = new IntList();
+        final List<ArrayLayout> layouts = new ArrayList<>();
+        private final Map<String, Integer> layoutIndex = new HashMap<>();
+
+        // Posición de cada etiqueta y lugares (en code o extra) que esperan una
+        private final Map<TACOperand, Integer> labels = new HashMap<>();
+        private final List<Fixup> fixups = new ArrayList<>();
+
+        private Unit unit;
+        private int scratchUsed;
+
+        Decoder(TACGenerator generator) {
+            this.generator = generator;
+        }
+
+        // Clave de null en constantIndex
+        private enum NullKey { NULL }
+
+        // Entero de code o extra que recibe la posición de label
+        private record Fixup(IntList target, int index, TACOperand label) {
+        }
+
+        // ---- 1. Estructura: funciones, clases y variables escritas por cada una
+
+        void scan(List<TACInstruction> instructions) {
+            Deque<Unit> stack = new ArrayDeque<>();
+            stack.push(main);
+            for (TACInstruction instr : instructions) {
+                Unit current = stack.peek();
+                switch (instr.getOp()) {
+                    case LABEL_FUNCTION -> {
+                        Unit function = new Unit(Unit.FUNCTION, instr.getLabel(), current);
+                        function.id = functionUnits.size();
+                        functionUnits.add(function);
+                        current.functions.putIfAbsent(function.name, function);
+                        opened.add(function);
+                        stack.push(function);
+                    }
+                    case LABEL_CLASS -> {
+                        Unit cls = new Unit(Unit.CLASS, instr.getLabel(), current);
+                        if (!classUnits.containsKey(cls.name)) {
+                            cls.id = classUnits.size();
+                            classUnits.put(cls.name, cls);
+                        }
+                        opened.add(cls);
+                        stack.push(cls);
+                    }
+                    case END, END_CLASS -> {
+                        if (stack.size() > 1) {
+                            stack.pop();
+                        }
+                    }
+                    case ASSIGN, BINARY_OP, UNARY_OP, ASSIGN_CALL, NEW -> {
+                        TACOperand result = instr.getResultOperand();
+                        if (result == null || result.getKind() != TACOperand.Kind.NAME) {
+                            break;
+                        }
+                        // "a[i] = x" también declara a: el arreglo se crea con su primer elemento
+                        TACOperand name = result.isElement() ? result.getBase() : result;
+                        if (CopyPropagationPass.isVariable(name)) {
+                            current.written.add(name.toString());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        // ---- 2. Slots de globales, campos y locales
+
+        void assignSlots() {
+            for (Map.Entry<String, Symbol> entry : generator.getGlobalSymbols().entrySet()) {
+                Symbol.Kind kind = entry.getValue().getKind();
+                if (kind != Symbol.Kind.FUNCTION && kind != Symbol.Kind.CLASS) {
+                    global(entry.getKey());
+                }
+            }
+            for (String name : main.written) {
+                global(name);
+            }
+            Set<Unit> laidOut = new HashSet<>();
+            for (Unit u : opened) {
+                if (u.kind == Unit.CLASS) {
+                    layoutClass(u, laidOut);
+                } else {
+                    String owner = u.parent.kind == Unit.CLASS ? u.parent.name : null;
+                    Symbol funcSym = symbol(u.name, Symbol.Kind.FUNCTION, owner);
+                    List<Symbol> params = funcSym != null && funcSym.getParams() != null
+                            ? funcSym.getParams() : List.of();
+                    Map<String, Symbol> symbols = new LinkedHashMap<>();
+                    List<String> locals = new ArrayList<>();
+                    if (funcSym != null) {
+                        for (Symbol param : params) {
+                            symbols.put(param.getName(), param);
+                            locals.add(param.getName());
+                        }
+                        if (funcSym.getMembers() != null) {
+                            for (Symbol member : funcSym.getMembers().values()) {
+                                if (member.getKind() != Symbol.Kind.FUNCTION && member.getKind() != Symbol.Kind.CLASS) {
+                                    symbols.putIfAbsent(member.getName(), member);
+                                    locals.add(member.getName());
+                                }
+                            }
+                        }
+                        u.localVarSize = funcSym.getLocalVarSize();
+                    }
+                    for (String name : u.written) {
+                        if (!symbols.containsKey(name) && !visibleOutside(u.parent, name)) {
+                            locals.add(name);
+                        }
+                    }
+                    u.slots = layout(u.named, locals, symbols);
+                    for (Symbol param : params) {
+                        u.params.add(u.named.get(param.getName()));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Campos de una clase: primero los de su superclase, en los mismos
+         * slots, y después los propios
+         */
+        private void layoutClass(Unit u, Set<Unit> laidOut) {
+            if (!laidOut.add(u)) {
+                return;
+            }
+            Unit parent = superclass(u);
+            if (parent != null) {
+                layoutClass(parent, laidOut);
+                u.named.putAll(parent.named);
+            }
+            Symbol classSym = symbol(u.name, Symbol.Kind.CLASS, null);
+            Map<String, Symbol> members = classSym != null && classSym.getMembers() != null
+                    ? classSym.getMembers() : Map.of();
+            List<String> fields = new ArrayList<>();
+            for (Map.Entry<String, Symbol> member : members.entrySet()) {
+                if (member.getValue().getKind() != Symbol.Kind.FUNCTION) {
+                    fields.add(member.getKey());
+                }
+            }
+            fields.addAll(u.written);
+            u.fields = layout(u.named, fields, members);
+        }
+
+        /**
+         * Clase padre de cls en el TAC, o null si no hereda, si la padre no
+         * está en el TAC o si la cadena es circular (el análisis semántico
+         * ya lo reporta)
+         */
+        private Unit superclass(Unit cls) {
+            Map<String, String> superclasses = generator.getSuperclasses();
+            Unit parent = classUnits.get(superclasses.get(cls.name));
+            int steps = 0;
+            for (Unit u = parent; u != null; u = classUnits.get(superclasses.get(u.name))) {
+                if (u == cls || ++steps > classUnits.size()) {
+                    return null;
+                }
+            }
+            return parent;
+        }
+
+        /**
+         * Método name de cls o el más cercano que hereda (null si no hay)
+         */
+        private Unit method(Unit cls, String name) {
+            for (Unit u = cls; u != null; u = superclass(u)) {
+                Unit method = u.functions.get(name);
+                if (method != null) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Símbolo de una función o clase; un método es el que tiene owner como clase
+         */
+        private Symbol symbol(String name, Symbol.Kind kind, String owner) {
+            List<Symbol> found = generator.findSymbols(name, kind);
+            for (Symbol sym : found) {
+                if (owner == null || owner.equals(sym.getEnclosingClassName())) {
+                    return sym;
+                }
+            }
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        /**
+         * Slot = offset / 4 para los nombres con Symbol; los demás (y los que
+         * chocan) después del último
+         * @return slots usados
+         */
+        private static int layout(Map<String, Integer> slots, List<String> names, Map<String, Symbol> symbols) {
+            // slots puede traer los campos heredados (ver layoutClass)
+            Set<Integer> taken = new HashSet<>(slots.values());
+            List<String> deferred = new ArrayList<>();
+            int end = 0;
+            for (int slot : taken) {
+                end = Math.max(end, slot + 1);
+            }
+            for (String name : names) {
+                if (slots.containsKey(name) || deferred.contains(name)) {
+                    continue;
+                }
+                Symbol sym = symbols.get(name);
+                if (sym == null || sym.getOffset() < 0 || sym.getOffset() % 4 != 0 || !taken.add(sym.getOffset() / 4)) {
+                    deferred.add(name);
+                    continue;
+                }
+                int slot = sym.getOffset() / 4;
+                slots.put(name, slot);
+                end = Math.max(end, slot + 1);
+            }
+            for (String name : deferred) {
+                slots.put(name, end++);
+            }
+            return end;
+        }
+
+        /**
+         * true si el nombre es de una unidad que contiene a from o del programa principal
+         */
+        private boolean visibleOutside(Unit from, String name) {
+            for (Unit u = from; u != null; u = u.parent) {
+                if (u.named.containsKey(name) || u.functions.containsKey(name)) {
+                    return true;
+                }
+            }
+            return globals.containsKey(name) || classUnits.containsKey(name);
+        }
+
+        private int global(String name) {
+            return globals.computeIfAbsent(name, key -> globals.size());
+        }
+
+        // ---- 3. Instrucciones
+
+        void emitAll(List<TACInstruction> instructions) {
+            Deque<Unit> stack = new ArrayDeque<>();
+            stack.push(main);
+            Iterator<Unit> next = opened.iterator();
+            for (TACInstruction instr : instructions) {
+                unit = stack.peek();
+                scratchUsed = 0;
+                switch (instr.getOp()) {
+                    case LABEL_FUNCTION, LABEL_CLASS -> {
+                        Unit inner = next.next();
+                        // El flujo normal pasa por encima del cuerpo
+                        inner.skip = emit(GOTO, 0, 0, 0);
+                        // Un constructor que espera a los inicializadores (ver NEW) está
+                        // en inner.entry: el try de afuera no lo protege
+                        handlers.set(inner.skip, -1);
+                        inner.entry = pc();
+                        stack.push(inner);
+                    }
+                    case END, END_CLASS -> {
+                        if (stack.size() > 1) {
+                            Unit inner = stack.pop();
+                            emit(RETURN_NULL, 0, 0, 0);
+                            code.set(inner.skip * 4 + 1, pc());
+                        }
+                    }
+                    case LABEL -> labels.put(instr.getLabelOperand(), pc());
+                    case ASSIGN -> assign(instr.getResultOperand(), instr.getArg1Operand());
+                    case BINARY_OP -> {
+                        int op = binary(instr.getOperator());
+                        int left = read(instr.getArg1Operand());
+                        int right = read(instr.getArg2Operand());
+                        write(instr.getResultOperand(), dst -> emit(op, dst, left, right));
+                    }
+                    case UNARY_OP -> unary(instr);
+                    case GOTO -> target(emit(GOTO, 0, 0, 0) * 4 + 1, false, instr.getLabelOperand());
+                    case IF_GOTO -> {
+                        int op = branch(instr.getRelop());
+                        int left = read(instr.getArg1Operand());
+                        int right = instr.getArg2Operand() != null ? read(instr.getArg2Operand()) : constant(0L);
+                        target(emit(op, left, right, 0) * 4 + 3, false, instr.getLabelOperand());
+                    }
+                    case JUMP_TABLE -> {
+                        int index = read(instr.getArg1Operand());
+                        List<TACOperand> entries = instr.getParamOperands();
+                        int table = extra.add(entries.size());
+                        for (TACOperand entry : entries) {
+                            target(extra.add(0), true, entry);
+                        }
+                        target(extra.add(0), true, instr.getLabelOperand());
+                        emit(JUMP_TABLE, index, (int) instr.getArg2Operand().getValue(), table);
+                    }
+                    case CALL, ASSIGN_CALL -> call(instr);
+                    case NEW -> {
+                        Unit cls = classUnits.get(instr.getArg1());
+                        int args = arguments(instr.getParamOperands());
+                        int classId = cls != null ? cls.id : -1;
+                        if (classId < 0) {
+                            // Clase que no está en el TAC: error al ejecutar con su nombre
+                            classId = -1 - constant(instr.getArg1());
+                        }
+                        int id = classId;
+                        write(instr.getResultOperand(), dst -> emit(NEW, dst, id, args));
+                    }
+                    case RETURN -> emit(RETURN, instr.getArg1Operand() != null ? read(instr.getArg1Operand())
+                            : constant(null), 0, 0);
+                    case TRY_BEGIN -> {
+                        int position = emit(TRY, 0, 0, 0);
+                        target(position * 4 + 1, false, instr.getLabelOperand());
+                        unit.tries.push(position);
+                    }
+                    case TRY_END -> {
+                        emit(TRY_END, 0, 0, 0);
+                        unit.tries.poll();
+                    }
+                    case BOUNDS_CHECK -> emit(CHECK_INDEX, read(instr.getArg1Operand()),
+                            read(instr.getArg2Operand()), 0);
+                    case PHI -> throw new IllegalArgumentException("phi no se puede ejecutar: " + instr
+                            + " (ver SSAForm.destruct)");
+                }
+            }
+            emit(HALT, 0, 0, 0);
+            for (Fixup fixup : fixups) {
+                Integer position = labels.get(fixup.label());
+                if (position == null) {
+                    throw new IllegalArgumentException("Etiqueta sin definir: " + fixup.label());
+                }
+                fixup.target().set(fixup.index(), position);
+            }
+        }
+
+        private int pc() {
+            return code.size() / 4;
+        }
+
+        private int emit(int op, int x, int y, int z) {
+            int pc = pc();
+            code.add(op);
+            code.add(x);
+            code.add(y);
+            code.add(z);
+            handlers.add(unit.tries.isEmpty() ? -1 : unit.tries.peek());
+            return pc;
+        }
+
+        private void target(int position, boolean inExtra, TACOperand label) {
+            fixups.add(new Fixup(inExtra ? extra : code, position, label));
+        }
+
+        private void unary(TACInstruction instr) {
+            String operator = instr.getOperator();
+            TACOperand arg = instr.getArg1Operand();
+            if (operator.equals("&")) {
+                int base = read(arg);
+                int layout = layout(arg.toString());
+                write(instr.getResultOperand(), dst -> emit(ADDR, dst, base, layout));
+                return;
+            }
+            int op = switch (operator) {
+                case "-" -> NEG;
+                case "!" -> NOT;
+                default -> throw new IllegalArgumentException("Operador unario desconocido: " + operator);
+            };
+            int value = read(arg);
+            write(instr.getResultOperand(), dst -> emit(op, dst, value, 0));
+        }
+
+        private static int binary(String operator) {
+            return switch (operator) {
+                case "+" -> ADD;
+                case "-" -> SUB;
+                case "*" -> MUL;
+                case "/" -> DIV;
+                case "%" -> MOD;
+                case "<" -> LT;
+                case "<=" -> LE;
+                case ">" -> GT;
+                case ">=" -> GE;
+                case "==" -> EQ;
+                case "!=" -> NE;
+                case "&&" -> AND;
+                case "||" -> OR;
+                default -> throw new IllegalArgumentException("Operador desconocido: " + operator);
+            };
+        }
+
+        private static int branch(String relop) {
+            if (relop == null) {
+                return IF_NE;
+            }
+            return switch (relop) {
+                case "==" -> IF_EQ;
+                case "!=" -> IF_NE;
+                case "<" -> IF_LT;
+                case "<=" -> IF_LE;
+                case ">" -> IF_GT;
+                case ">=" -> IF_GE;
+                default -> throw new IllegalArgumentException("Comparación desconocida: " + relop);
+            };
+        }
+
+        // ---- Llamadas
+
+        private void call(TACInstruction instr) {
+            TACOperand callee = instr.getArg1Operand();
+            String name = callee.toString();
+            TACOperand result = instr.getOp() == OpType.ASSIGN_CALL ? instr.getResultOperand() : null;
+            if (callee.isField()) {
+                // obj.m(args)
+                int object = read(callee.getBase());
+                int args = methodArguments(callee.getField(), instr.getParamOperands());
+                write(result, dst -> emit(CALL_METHOD, dst, object, args));
+                return;
+            }
+            if (CopyPropagationPass.isVariable(callee)) {
+                for (Unit u = unit; u != null; u = u.parent) {
+                    if (u.kind == Unit.FUNCTION && u.named.containsKey(name)) {
+                        break;
+                    }
+                    Unit function = u.functions.get(name);
+                    if (u.kind == Unit.CLASS && method(u, name) != null) {
+                        // Método (propio o heredado) llamado sin this dentro de otro método
+                        int args = methodArguments(name, instr.getParamOperands());
+                        write(result, dst -> emit(CALL_METHOD, dst, operand(THIS, 0), args));
+                        return;
+                    }
+                    if (function != null) {
+                        int closure = closure(function);
+                        int args = arguments(instr.getParamOperands());
+                        write(result, dst -> emit(CALL_FN, dst, closure, args));
+                        return;
+                    }
+                    if (u.kind == Unit.CLASS && u.named.containsKey(name)) {
+                        break;
+                    }
+                }
+                if (name.equals("print") && !globals.containsKey(name)) {
+                    int args = arguments(instr.getParamOperands());
+                    write(result, dst -> emit(PRINT, dst, args, 0));
+                    return;
+                }
+            }
+            int function = read(callee);
+            int args = arguments(instr.getParamOperands());
+            write(result, dst -> emit(CALL_VALUE, dst, function, args));
+        }
+
+        // [cantidad, argumentos...]
+        private int arguments(List<TACOperand> params) {
+            return list(-1, values(params));
+        }
+
+        // [nombre, cantidad, argumentos...]
+        private int methodArguments(String method, List<TACOperand> params) {
+            return list(name(method), values(params));
+        }
+
+        // Se leen todos antes de escribir la lista: leer un acceso también escribe en extra
+        private int[] values(List<TACOperand> operands) {
+            int[] values = new int[operands.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = read(operands.get(i));
+            }
+            return values;
+        }
+
+        // Lista en extra, con un entero antes de la cantidad si head >= 0
+        private int list(int head, int[] values) {
+            int start = head >= 0 ? extra.add(head) : extra.size();
+            extra.add(values.length);
+            for (int value : values) {
+                extra.add(value);
+            }
+            return start;
+        }
+
+        // Entrada de FUNC: la función y cuántos enlaces estáticos subir desde el frame actual
+        private int closure(Unit function) {
+            Unit outer = function.enclosingFunction();
+            int hops = outer == null ? -1 : unit.depth - outer.depth;
+            closureHops.add(hops);
+            return operand(FUNC, closureFunction.add(function.id));
+        }
+
+        // ---- Operandos
+
+        /**
+         * Operando que se puede leer; un acceso ("a[i]", "obj.f", "[t3]") se
+         * carga antes en un slot auxiliar
+         */
+        private int read(TACOperand operand) {
+            switch (operand.getKind()) {
+                case INT:
+                    return constant(operand.getValue());
+                case TEMP:
+                    return operand(LOCAL, temp(operand.getId()));
+                case LABEL:
+                    throw new IllegalArgumentException("Etiqueta usada como valor: " + operand);
+                default:
+                    break;
+            }
+            String text = operand.toString();
+            switch (text) {
+                case "this":
+                    return operand(THIS, 0);
+                case "exception":
+                    return operand(EXCEPTION, 0);
+                case "null":
+                    return constant(null);
+                default:
+                    break;
+            }
+            if (text.startsWith("\"")) {
+                return constant(unquote(text));
+            }
+            if (CopyPropagationPass.isVariable(operand)) {
+                return resolve(text, false);
+            }
+            int field = thisField(operand);
+            if (field >= 0) {
+                return operand(FIELD, field);
+            }
+            if (!operand.isAccess()) {
+                throw new IllegalArgumentException("Operando desconocido: " + text);
+            }
+            int scratch = operand(LOCAL, scratch());
+            load(scratch, operand);
+            return scratch;
+        }
+
+        /**
+         * Destino de result: si es un acceso, la instrucción escribe en un
+         * slot auxiliar y después se guarda
+         */
+        private void write(TACOperand result, IntConsumer instruction) {
+            if (result == null) {
+                instruction.accept(operand(NONE, 0));
+                return;
+            }
+            int dst = writable(result);
+            if (dst >= 0) {
+                instruction.accept(dst);
+                return;
+            }
+            int scratch = operand(LOCAL, scratch());
+            instruction.accept(scratch);
+            store(result, scratch);
+        }
+
+        // Operando escribible o -1 si result es un acceso
+        private int writable(TACOperand result) {
+            if (result.isTemp()) {
+                return operand(LOCAL, temp(result.getId()));
+            }
+            if (CopyPropagationPass.isVariable(result) && !result.toString().equals("this")) {
+                return resolve(result.toString(), true);
+            }
+            int field = thisField(result);
+            if (field < 0 && !result.isAccess()) {
+                throw new IllegalArgumentException("Destino desconocido: " + result);
+            }
+            return field >= 0 ? operand(FIELD, field) : -1;
+        }
+
+        private void assign(TACOperand result, TACOperand value) {
+            int dst = writable(result);
+            if (dst < 0) {
+                store(result, read(value));
+            } else if (value.isAccess() && thisField(value) < 0) {
+                load(dst, value);
+            } else {
+                emit(MOVE, dst, read(value), 0);
+            }
+        }
+
+        private void load(int dst, TACOperand access) {
+            if (access.isAddress()) {
+                emit(LOAD_MEM, dst, read(access.getIndices().get(0)), 0);
+            } else if (access.isField()) {
+                emit(LOAD_FIELD, dst, read(access.getBase()), name(access.getField()));
+            } else {
+                int indices = indices(access);
+                emit(LOAD_ELEM, dst, read(access.getBase()), indices);
+            }
+        }
+
+        private void store(TACOperand access, int value) {
+            if (access.isAddress()) {
+                emit(STORE_MEM, read(access.getIndices().get(0)), value, 0);
+            } else if (access.isField()) {
+                emit(STORE_FIELD, read(access.getBase()), name(access.getField()), value);
+            } else {
+                int indices = indices(access);
+                emit(STORE_ELEM, read(access.getBase()), indices, value);
+            }
+        }
+
+        // [forma, cantidad, índices...] de "a[i][j]"
+        private int indices(TACOperand element) {
+            return list(layout(element.getBase().toString()) + 1, values(element.getIndices()));
+        }
+
+        // Campo de la clase actual en "this.f" o -1
+        private int thisField(TACOperand operand) {
+            if (!operand.isField() || !operand.getBase().toString().equals("this")) {
+                return -1;
+            }
+            String field = operand.getField();
+            for (Unit u = unit; u != null; u = u.parent) {
+                if (u.kind == Unit.CLASS) {
+                    Integer slot = u.named.get(field);
+                    return slot != null ? slot : -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Variable visible desde la unidad actual: local, de una función que
+         * la contiene, campo de la clase, función o global
+         */
+        private int resolve(String name, boolean forWrite) {
+            for (Unit u = unit; u != null; u = u.parent) {
+                if (u.kind == Unit.FUNCTION && u.named.containsKey(name)) {
+                    int slot = u.named.get(name);
+                    if (u == unit) {
+                        return operand(LOCAL, slot);
+                    }
+                    upvalHops.add(unit.depth - u.depth);
+                    return operand(UPVAL, upvalSlots.add(slot));
+                }
+                if (u.kind == Unit.CLASS && u.named.containsKey(name)) {
+                    return operand(FIELD, u.named.get(name));
+                }
+                Unit function = u.functions.get(name);
+                if (function != null && !forWrite && u.kind != Unit.CLASS) {
+                    return closure(function);
+                }
+            }
+            return operand(GLOBAL, global(name));
+        }
+
+        private int temp(int id) {
+            return unit.temps.computeIfAbsent(id, key -> unit.slots++);
+        }
+
+        // Slot auxiliar para un acceso dentro de la instrucción actual
+        private int scratch() {
+            if (scratchUsed == unit.scratch.size()) {
+                unit.scratch.add(unit.slots++);
+            }
+            return unit.scratch.get(scratchUsed++);
+        }
+
+        private int constant(Object value) {
+            Object key = value == null ? NullKey.NULL : value;
+            Integer index = constantIndex.get(key);
+            if (index == null) {
+                index = constants.size();
+                constants.add(value);
+                constantIndex.put(key, index);
+            }
+            return operand(CONST, index);
+        }
+
+        private int name(String name) {
+            return names.computeIfAbsent(name, key -> names.size());
+        }
+
+        // Forma del arreglo que guarda name o -1
+        private int layout(String name) {
+            Integer index = layoutIndex.get(name);
+            if (index == null) {
+                ArrayLayout layout = generator.getArrayLayouts().get(name);
+                index = -1;
+                if (layout != null) {
+                    index = layouts.size();
+                    layouts.add(layout);
+                }
+                layoutIndex.put(name, index);
+            }
+            return index;
+        }
+
+        private static String unquote(String literal) {
+            String body = literal.length() >= 2 && literal.endsWith("\"")
+                    ? literal.substring(1, literal.length() - 1)
+                    : literal.substring(1);
+            if (body.indexOf('\\') < 0) {
+                return body;
+            }
+            StringBuilder sb = new StringBuilder(body.length());
+            for (int i = 0; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == '\\' && i + 1 < body.length()) {
+                    char escaped = body.charAt(++i);
+                    sb.append(switch (escaped) {
+                        case 'n' -> '\n';
+                        case 't' -> '\t';
+                        default -> escaped;
+                    });
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        // ---- Tablas finales
+
+        Function[] functionTable() {
+            Function[] table = new Function[functionUnits.size()];
+            for (Unit u : functionUnits) {
+                int[] params = u.params.stream().mapToInt(Integer::intValue).toArray();
+                table[u.id] = new Function(u.name, u.entry, u.slots, params, u.localVarSize);
+            }
+            return table;
+        }
+
+        ClassLayout[] classTable() {
+            ClassLayout[] table = new ClassLayout[classUnits.size()];
+            for (Unit u : classUnits.values()) {
+                String[] fields = new String[u.fields];
+                int[] fieldSlots = new int[names.size()];
+                int[] methods = new int[names.size()];
+                Arrays.fill(fieldSlots, -1);
+                Arrays.fill(methods, -1);
+                for (Map.Entry<String, Integer> field : u.named.entrySet()) {
+                    fields[field.getValue()] = field.getKey();
+                    Integer id = names.get(field.getKey());
+                    if (id != null) {
+                        fieldSlots[id] = field.getValue();
+                    }
+                }
+                // Los propios primero: un método redefinido tapa al heredado
+                for (Unit c = u; c != null; c = superclass(c)) {
+                    for (Unit method : c.functions.values()) {
+                        Integer id = names.get(method.name);
+                        if (id != null && methods[id] < 0) {
+                            methods[id] = method.id;
+                        }
+                    }
+                }
+                Unit constructor = method(u, "constructor");
+                Unit parent = superclass(u);
+                table[u.id] = new ClassLayout(u.name, u.entry, u.slots, fields, fieldSlots, methods,
+                        constructor != null ? constructor.id : -1, parent != null ? parent.id : -1);
+            }
+            return table;
+        }
+    }
+}
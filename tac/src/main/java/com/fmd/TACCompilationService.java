@@ -0,0 +1,334 @@
+package com.fmd;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fmd.modules.SemanticError;
+import com.fmd.modules.Symbol;
+import com.fmd.modules.TACInstruction;
+import jakarta.annotation.PreDestroy;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Pipeline de compilación usado por TACController
+ *
+ * FLUJO:
+ * 1. Buscar el código en TACCompileCache (por hash del contenido)
+ * 2. Si no está: lexer → parser → semántico → TAC
+ * 3. Generar la imagen del AST según el modo pedido
+ * 4. Guardar la respuesta en caché (la imagen async se agrega cuando termina)
+ *
+ * Los lotes (compilarLote) se reparten en un ForkJoinPool propio; cada
+ * programa usa sus propias instancias de SemanticVisitor y TACVisitor
+ * (y por lo tanto de TACGenerator, TACExprVisitor y TACStmtVisitor).
+ *
+ * Cada compilación que no sale de la caché se mide con CompileProfiler y se
+ * publica en Micrometer (TACMetrics).
+ *
+ * compilarStream escribe el TAC como NDJSON mientras se genera, sin pasar por
+ * la caché ni guardar la lista de instrucciones.
+ *
+ * Configuración (application.properties):
+ *   tac.batch.parallelism   hilos del pool de lotes (0 = núcleos disponibles)
+ *   tac.batch.max-programs  programas máximos por lote
+ */
+@Service
+public class TACCompilationService {
+
+    private final AstImageService astImageService;
+    private final TACCompileCache cache;
+    private final ObjectMapper objectMapper;
+    private final TACMetrics metrics;
+    private final ForkJoinPool batchPool;
+    private final int maxBatchPrograms;
+
+    public TACCompilationService(AstImageService astImageService, TACCompileCache cache,
+                                 ObjectMapper objectMapper, TACMetrics metrics,
+                                 @Value("${tac.batch.parallelism:0}") int batchParallelism,
+                                 @Value("${tac.batch.max-programs:1000}") int maxBatchPrograms) {
+        this.astImageService = astImageService;
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.batchPool = new ForkJoinPool(batchParallelism > 0
+                ? batchParallelism
+                : Runtime.getRuntime().availableProcessors());
+        this.maxBatchPrograms = maxBatchPrograms;
+    }
+
+    /**
+     * Compila varios programas en paralelo
+     * @param codes códigos Compiscript
+     * @param astMode modo de imagen para todos los programas
+     * @return una respuesta por programa, en el mismo orden de entrada; si un
+     *         programa falla, su respuesta solo contiene "index" y "error"
+     */
+    public List<Map<String, Object>> compilarLote(List<String> codes, String astMode)
+            throws InterruptedException {
+        if (codes.size() > maxBatchPrograms) {
+            throw new IllegalArgumentException("El lote excede " + maxBatchPrograms + " programas");
+        }
+
+        List<Callable<Map<String, Object>>> tasks = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            tasks.add(() -> compilar(code, astMode));
+        }
+
+        // invokeAll devuelve los futuros en el orden de las tareas
+        List<Future<Map<String, Object>>> futures = batchPool.invokeAll(tasks);
+        List<Map<String, Object>> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Map<String, Object> result;
+            try {
+                result = futures.get(i).get();
+            } catch (ExecutionException e) {
+                result = new HashMap<>();
+                result.put("error", String.valueOf(e.getCause()));
+            }
+            result.put("index", i);
+            results.add(result);
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdownNow();
+    }
+
+    /**
+     * Compila un programa y arma la respuesta del endpoint
+     * @param code código Compiscript
+     * @param astMode "sync", "none" o "async" (ver TACController.analizar)
+     * @return respuesta con syntaxErrors, errors, tacErrors, symbols, tac, astImage y,
+     *         si aplica, astTicket
+     */
+    public Map<String, Object> compilar(String code, String astMode) {
+        return compilar(code, astMode, false);
+    }
+
+    /**
+     * @param profile true para compilar aunque esté en caché y agregar "profile"
+     *                (fases y hotspots, ver CompileProfiler.toMap) a la respuesta
+     */
+    public Map<String, Object> compilar(String code, String astMode, boolean profile) {
+        return compilar(code, astMode, profile, 0);
+    }
+
+    /**
+     * @param optimize nivel de TACOptimizer; con nivel mayor a 0 "tac" es el TAC
+     *                 optimizado y la respuesta incluye "optimization" (ver TACOptimizer.Report)
+     */
+    public Map<String, Object> compilar(String code, String astMode, boolean profile, int optimize) {
+        TACOptimizer optimizer = new TACOptimizer(optimize);
+        // El mismo código con otro nivel es otra respuesta
+        String key = optimize == 0 ? TACCompileCache.key(code) : TACCompileCache.key(code) + "-O" + optimize;
+
+        // 1. Reutilizar una compilación previa del mismo código; sync y async
+        //    necesitan la imagen, así que una entrada sin imagen solo sirve para "none"
+        TACCompileCache.Entry cached = cache.get(key);
+        if (!profile && cached != null && (astMode.equals("none") || cached.astImage() != null)) {
+            Map<String, Object> response = new HashMap<>(cached.response());
+            // En modo async la imagen ya está lista, así que no hace falta ticket
+            response.put("astImage", astMode.equals("none") ? null : cached.astImage());
+            return response;
+        }
+
+        // 2. Crear lexer y parser
+        CompileProfiler profiler = metrics.newProfiler();
+        CompiscriptParsing.Result parsed = parse(code, profiler);
+        CompiscriptParser parser = parsed.parser();
+        ParseTree tree = parsed.tree();
+
+        // 3. Análisis semántico y TAC
+        Map<String, Object> response = compilarArbol(tree, profiler, optimizer);
+        response.put("syntaxErrors", parsed.syntaxMessages());
+        metrics.record(profiler);
+
+        // 4. Imagen del árbol en modo sync
+        String base64Img = astMode.equals("sync") ? AstImageRenderer.renderBase64(tree, parser) : null;
+
+        // 5. Guardar en caché (antes del ticket: es propio de esta petición)
+        String cachedImage = base64Img != null ? base64Img : (cached != null ? cached.astImage() : null);
+        cache.put(key, Collections.unmodifiableMap(new HashMap<>(response)), cachedImage);
+
+        // 6. En modo async la imagen se renderiza en segundo plano y, al
+        //    terminar, se guarda en la misma entrada para no volver a generarla
+        if (astMode.equals("async")) {
+            String ticket = astImageService.submit(tree, parser, image -> cache.putImage(key, image));
+            response.put("astTicket", ticket); // null si la cola de renderizado está llena
+        }
+
+        response.put("astImage", base64Img);
+        if (profile) {
+            response.put("profile", profiler.toMap());
+        }
+        return response;
+    }
+
+    /**
+     * Lexer y parser del pool (SLL con fallback a LL, ver CompiscriptParsing)
+     */
+    private static CompiscriptParsing.Result parse(String code, CompileProfiler profiler) {
+        return CompiscriptParsing.parse(code, profiler);
+    }
+
+    /**
+     * Ejecuta el análisis semántico y, si no hay errores, la generación de TAC
+     * @return respuesta con errors, tacErrors, symbols, tac y, si se optimizó, optimization
+     */
+    private Map<String, Object> compilarArbol(ParseTree tree, CompileProfiler profiler, TACOptimizer optimizer) {
+        Map<String, Object> response = new HashMap<>();
+
+        // Semántico
+        SemanticVisitor visitor = new SemanticVisitor();
+        profiler.phase(CompileProfiler.Phase.SEMANTIC, () -> visitor.visit(tree));
+
+        // Guardar errores
+        List<SemanticError> errores = visitor.getErrores();
+
+        // Retornar si hay errores semánticos
+        if (!errores.isEmpty()) {
+            response.put("errors", errores);
+            response.put("symbols", simbolosSemanticos(visitor));
+            response.put("tac", Collections.singletonList("Hay errores semánticos, no se puede continuar con el TAC"));
+
+            return response;
+        }
+
+        // Ejecutar generador de código intermedio
+        TACVisitor visitor_tac = new TACVisitor(visitor.getExistingScopes());
+        visitor_tac.getGenerator().setProfiler(profiler);
+        optimizer.configure(visitor_tac.getGenerator());
+        profiler.phase(CompileProfiler.Phase.TAC, () -> visitor_tac.visit(tree));
+
+        List<TACInstruction> generated = visitor_tac.getGenerator().getInstructions();
+        if (optimizer.getLevel() > 0) {
+            TACOptimizer.Result optimized = optimizer.optimize(generated);
+            generated = optimized.instructions();
+            response.put("optimization", optimized.report().toMap());
+        }
+
+        List<String> instructions = generated.stream()
+                .map(Object::toString)
+                .toList();
+
+        response.put("errors", errores);
+        response.put("tacErrors", visitor_tac.getGenerator().getErrors());
+        response.put("symbols", simbolosTAC(visitor_tac));
+        response.put("tac", instructions);
+
+        return response;
+    }
+
+    /**
+     * Compila un programa y escribe el resultado como NDJSON (un objeto JSON por línea)
+     * a medida que TACGenerator emite cada instrucción:
+     *   {"tac": "t1 = 5"}                                   una línea por instrucción
+     *   {"errors": [], "symbols": [...], "count": N}        línea final
+     * La línea final también lleva "syntaxErrors" y "tacErrors" (ver compilar).
+     * Si hay errores semánticos solo se escribe la línea final, sin "count" ni "tacErrors".
+     * No usa la caché: guardar la respuesta obligaría a materializarla.
+     */
+    public void compilarStream(String code, OutputStream out) throws IOException {
+        CompileProfiler profiler = metrics.newProfiler();
+        CompiscriptParsing.Result parsed = parse(code, profiler);
+        ParseTree tree = parsed.tree();
+
+        SemanticVisitor visitor = new SemanticVisitor();
+        profiler.phase(CompileProfiler.Phase.SEMANTIC, () -> visitor.visit(tree));
+        List<SemanticError> errores = visitor.getErrores();
+
+        // El stream pertenece a quien llama: no cerrarlo junto con el generador.
+        // Cada línea termina en '\n', así que no se usa el separador por defecto (espacio).
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null)) {
+            if (!errores.isEmpty()) {
+                json.writeStartObject();
+                json.writeObjectField("syntaxErrors", parsed.syntaxMessages());
+                json.writeObjectField("errors", errores);
+                json.writeObjectField("symbols", simbolosSemanticos(visitor));
+                json.writeEndObject();
+                json.writeRaw('\n');
+                metrics.record(profiler);
+                return;
+            }
+
+            TACVisitor visitor_tac = new TACVisitor(visitor.getExistingScopes(), instr -> {
+                try {
+                    json.writeStartObject();
+                    json.writeStringField("tac", instr.toString());
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    // El cliente cerró la conexión: abortar la generación
+                    throw new UncheckedIOException(e);
+                }
+            });
+            visitor_tac.getGenerator().setProfiler(profiler);
+            try {
+                // Incluye el tiempo de escribir cada línea en la respuesta
+                profiler.phase(CompileProfiler.Phase.TAC, () -> visitor_tac.visit(tree));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            metrics.record(profiler);
+
+            json.writeStartObject();
+            json.writeObjectField("syntaxErrors", parsed.syntaxMessages());
+            json.writeObjectField("errors", errores);
+            json.writeObjectField("tacErrors", visitor_tac.getGenerator().getErrors());
+            json.writeObjectField("symbols", simbolosTAC(visitor_tac));
+            json.writeNumberField("count", visitor_tac.getGenerator().getInstructionCount());
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Símbolos reportados cuando el análisis semántico falla
+     */
+    private static List<Map<String, Object>> simbolosSemanticos(SemanticVisitor visitor) {
+        return visitor.getRaiz().getAllScopesSymbols().values().stream()
+                .map(sym -> simbolo(sym, false))
+                .toList();
+    }
+
+    /**
+     * Símbolos con offset y tamaño asignados durante la generación de TAC
+     */
+    private static List<Map<String, Object>> simbolosTAC(TACVisitor visitor_tac) {
+        return visitor_tac.getGenerator().getScope("0").getAllScopesSymbols().values().stream()
+                .map(sym -> simbolo(sym, true))
+                .toList();
+    }
+
+    private static Map<String, Object> simbolo(Symbol sym, boolean withLayout) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", sym.getName());
+        map.put("type", sym.getType());
+        map.put("kind", sym.getKind());
+        map.put("line", sym.getLine());
+        map.put("column", sym.getColumn());
+        if (withLayout) {
+            map.put("offset", sym.getOffset());
+            map.put("size", sym.getSize());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,139 @@
+package com.fmd;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Caché de compilaciones direccionada por contenido
+ *
+ * RESPONSABILIDADES:
+ * - Identificar cada programa por el SHA-256 de su código
+ * - Guardar la respuesta final (tac, symbols, errors y la imagen si existe)
+ * - Desalojar por tamaño estimado en bytes (Caffeine, política W-TinyLFU)
+ * - Exponer aciertos, fallos y desalojos
+ *
+ * Configuración (application.properties):
+ *   tac.cache.enabled    activa o desactiva la caché
+ *   tac.cache.max-bytes  tamaño máximo estimado de todas las respuestas
+ */
+@Component
+public class TACCompileCache {
+
+    /**
+     * Respuesta guardada: inmutable, se copia antes de devolverla
+     * @param response errors, symbols y tac
+     * @param astImage imagen en Base64 o null si nunca se generó
+     */
+    public record Entry(Map<String, Object> response, String astImage) {
+    }
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+
+    public TACCompileCache(@Value("${tac.cache.enabled:true}") boolean enabled,
+                           @Value("${tac.cache.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> weigh(entry))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Clave de caché: SHA-256 del código en hexadecimal
+     */
+    public static String key(String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(code.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public Entry get(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String key, Map<String, Object> response, String astImage) {
+        if (enabled) {
+            cache.put(key, new Entry(response, astImage));
+        }
+    }
+
+    /**
+     * Agrega la imagen a una entrada que se guardó sin ella (render asíncrono);
+     * no hace nada si la entrada ya fue desalojada o ya tiene imagen
+     */
+    public void putImage(String key, String astImage) {
+        if (enabled) {
+            cache.asMap().computeIfPresent(key, (k, entry) ->
+                    entry.astImage() != null ? entry : new Entry(entry.response(), astImage));
+        }
+    }
+
+    /**
+     * Métricas de la caché para el endpoint de estadísticas
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new HashMap<>();
+        map.put("enabled", enabled);
+        map.put("entries", cache.estimatedSize());
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("evictedBytes", stats.evictionWeight());
+        return map;
+    }
+
+    /**
+     * Estimación del tamaño en memoria de una respuesta (bytes).
+     * Los strings pesan 2 bytes por carácter más su encabezado.
+     */
+    private static int weigh(Entry entry) {
+        long bytes = 64 + stringBytes(entry.astImage());
+        for (Object value : entry.response().values()) {
+            bytes += objectBytes(value);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long objectBytes(Object value) {
+        if (value instanceof String) {
+            return stringBytes((String) value);
+        }
+        if (value instanceof Collection<?>) {
+            long bytes = 16;
+            for (Object item : (Collection<?>) value) {
+                bytes += 8 + objectBytes(item);
+            }
+            return bytes;
+        }
+        if (value instanceof Map<?, ?>) {
+            long bytes = 48;
+            for (Object item : ((Map<?, ?>) value).values()) {
+                bytes += 32 + objectBytes(item);
+            }
+            return bytes;
+        }
+        return 32; // números, enums y errores semánticos
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+}
@@ -2,8 +2,11 @@ package com.fmd;
 
 import com.fmd.CompiscriptParser;
 import com.fmd.CompiscriptBaseVisitor;
+import com.fmd.modules.ArrayLayout;
 import com.fmd.modules.Symbol;
 import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACOperand;
+import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
 
@@ -12,7 +15,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
+public class TACExprVisitor extends CompiscriptBaseVisitor<TACOperand> {
 
     private final TACGenerator generator;
 
@@ -20,16 +23,33 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         this.generator = generator;
     }
 
+    /**
+     * Despacho de nodos; con profiler mide cada visit* (ver CompileProfiler)
+     */
+    @Override
+    public TACOperand visit(ParseTree tree) {
+        CompileProfiler profiler = generator.getProfiler();
+        if (profiler == null) {
+            return super.visit(tree);
+        }
+        profiler.enterVisit();
+        try {
+            return super.visit(tree);
+        } finally {
+            profiler.exitVisit("TACExprVisitor", tree);
+        }
+    }
+
 
     // EXPRESIONES BÁSICAS
     @Override
-    public String visitLiteralExpr(CompiscriptParser.LiteralExprContext ctx) {
+    public TACOperand visitLiteralExpr(CompiscriptParser.LiteralExprContext ctx) {
 
         // Si es un array literal
         if (ctx.arrayLiteral() != null) {
             return visitArrayLiteral(ctx.arrayLiteral());
         } else {
-            String temp = generator.newTemp();
+            TACOperand temp = generator.newTemp();
             String value;
 
             if (ctx.getText().equals("true")) {
@@ -53,21 +73,21 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
 
 
     @Override
-    public String visitIdentifierExpr(CompiscriptParser.IdentifierExprContext ctx) {
-        return ctx.Identifier().getText();
+    public TACOperand visitIdentifierExpr(CompiscriptParser.IdentifierExprContext ctx) {
+        return TACOperand.name(ctx.Identifier().getText());
     }
 
     @Override
-    public String visitAdditiveExpr(CompiscriptParser.AdditiveExprContext ctx) {
+    public TACOperand visitAdditiveExpr(CompiscriptParser.AdditiveExprContext ctx) {
         if (ctx.multiplicativeExpr().size() == 1) {
             return visit(ctx.multiplicativeExpr(0));
         }
 
-        String result = visit(ctx.multiplicativeExpr(0));
+        TACOperand result = visit(ctx.multiplicativeExpr(0));
 
         for (int i = 1; i < ctx.multiplicativeExpr().size(); i++) {
-            String right = visit(ctx.multiplicativeExpr(i));
-            String temp = generator.newTemp();
+            TACOperand right = visit(ctx.multiplicativeExpr(i));
+            TACOperand temp = generator.newTemp();
             String op = ctx.getChild(2 * i - 1).getText();
 
             TACInstruction instr = new TACInstruction(TACInstruction.OpType.BINARY_OP);
@@ -86,16 +106,16 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitMultiplicativeExpr(CompiscriptParser.MultiplicativeExprContext ctx) {
+    public TACOperand visitMultiplicativeExpr(CompiscriptParser.MultiplicativeExprContext ctx) {
         if (ctx.unaryExpr().size() == 1) {
             return visit(ctx.unaryExpr(0));
         }
 
-        String result = visit(ctx.unaryExpr(0));
+        TACOperand result = visit(ctx.unaryExpr(0));
 
         for (int i = 1; i < ctx.unaryExpr().size(); i++) {
-            String right = visit(ctx.unaryExpr(i));
-            String temp = generator.newTemp();
+            TACOperand right = visit(ctx.unaryExpr(i));
+            TACOperand temp = generator.newTemp();
             String op = ctx.getChild(2 * i - 1).getText(); // '*', '/' o '%'
 
             TACInstruction instr = new TACInstruction(TACInstruction.OpType.BINARY_OP);
@@ -114,13 +134,13 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitUnaryExpr(CompiscriptParser.UnaryExprContext ctx) {
+    public TACOperand visitUnaryExpr(CompiscriptParser.UnaryExprContext ctx) {
         if (ctx.unaryExpr() == null) {
             return visit(ctx.primaryExpr());
         }
 
-        String operand = visit(ctx.unaryExpr());
-        String temp = generator.newTemp();
+        TACOperand operand = visit(ctx.unaryExpr());
+        TACOperand temp = generator.newTemp();
         String op = ctx.getChild(0).getText(); // '-' o '!'
 
         TACInstruction instr = new TACInstruction(TACInstruction.OpType.UNARY_OP);
@@ -133,7 +153,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitPrimaryExpr(CompiscriptParser.PrimaryExprContext ctx) {
+    public TACOperand visitPrimaryExpr(CompiscriptParser.PrimaryExprContext ctx) {
         if (ctx.literalExpr() != null) {
             return visit(ctx.literalExpr());
         } else if (ctx.leftHandSide() != null) {
@@ -146,18 +166,18 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
 
     // COMPARACIONES Y LÓGICA
     @Override
-    public String visitRelationalExpr(CompiscriptParser.RelationalExprContext ctx) {
+    public TACOperand visitRelationalExpr(CompiscriptParser.RelationalExprContext ctx) {
         if (ctx.additiveExpr().size() == 1) {
             return visit(ctx.additiveExpr(0));
         }
 
         // Evaluar el primer operando
-        String left = visit(ctx.additiveExpr(0));
+        TACOperand left = visit(ctx.additiveExpr(0));
 
         // Procesar cada operación relacional de izquierda a derecha
         for (int i = 1; i < ctx.additiveExpr().size(); i++) {
-            String right = visit(ctx.additiveExpr(i));
-            String temp = generator.newTemp();
+            TACOperand right = visit(ctx.additiveExpr(i));
+            TACOperand temp = generator.newTemp();
 
             // Obtener el operador: '<', '>', '<=', '>='
             String op = ctx.getChild(2 * i - 1).getText();
@@ -178,18 +198,18 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitEqualityExpr(CompiscriptParser.EqualityExprContext ctx) {
+    public TACOperand visitEqualityExpr(CompiscriptParser.EqualityExprContext ctx) {
         if (ctx.relationalExpr().size() == 1) {
             return visit(ctx.relationalExpr(0));
         }
 
         // Evaluar el primer operando
-        String left = visit(ctx.relationalExpr(0));
+        TACOperand left = visit(ctx.relationalExpr(0));
 
         // Procesar cada operación de igualdad de izquierda a derecha
         for (int i = 1; i < ctx.relationalExpr().size(); i++) {
-            String right = visit(ctx.relationalExpr(i));
-            String temp = generator.newTemp();
+            TACOperand right = visit(ctx.relationalExpr(i));
+            TACOperand temp = generator.newTemp();
 
             // Obtener el operador: '==' o '!='
             String op = ctx.getChild(2 * i - 1).getText();
@@ -210,15 +230,18 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitLogicalAndExpr(CompiscriptParser.LogicalAndExprContext ctx) {
+    public TACOperand visitLogicalAndExpr(CompiscriptParser.LogicalAndExprContext ctx) {
         if (ctx.equalityExpr().size() == 1) {
             return visit(ctx.equalityExpr(0));
         }
+        if (generator.isJumpingConditions()) {
+            return materialize(ctx);
+        }
 
-        String result = generator.newTemp();
-        String endLabel = generator.newLabel();
+        TACOperand result = generator.newTemp();
+        TACOperand endLabel = generator.newLabel();
 
-        String left = visit(ctx.equalityExpr(0));
+        TACOperand left = visit(ctx.equalityExpr(0));
 
         // Inicializamos resultado = 0 (false)
         TACInstruction init = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -235,7 +258,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         generator.addInstruction(ifGoto);
 
         // Evaluamos right
-        String right = visit(ctx.equalityExpr(1));
+        TACOperand right = visit(ctx.equalityExpr(1));
 
         // Asignamos right a result
         TACInstruction assignRight = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -255,15 +278,18 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
 
 
     @Override
-    public String visitLogicalOrExpr(CompiscriptParser.LogicalOrExprContext ctx) {
+    public TACOperand visitLogicalOrExpr(CompiscriptParser.LogicalOrExprContext ctx) {
         if (ctx.logicalAndExpr().size() == 1) {
             return visit(ctx.logicalAndExpr(0));
         }
+        if (generator.isJumpingConditions()) {
+            return materialize(ctx);
+        }
 
-        String result = generator.newTemp();
-        String endLabel = generator.newLabel();
+        TACOperand result = generator.newTemp();
+        TACOperand endLabel = generator.newLabel();
 
-        String left = visit(ctx.logicalAndExpr(0));
+        TACOperand left = visit(ctx.logicalAndExpr(0));
 
         // Inicializamos resultado = 1 (true)
         TACInstruction init = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -280,7 +306,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         generator.addInstruction(ifGoto);
 
         // Evaluamos right
-        String right = visit(ctx.logicalAndExpr(1));
+        TACOperand right = visit(ctx.logicalAndExpr(1));
 
         // Asignamos right a result
         TACInstruction assignRight = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -300,9 +326,186 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
 
 
 
+    // CONDICIONES COMO SALTOS (generator.isJumpingConditions())
+    /**
+     * Traduce una condición a saltos: salta a target si la condición vale
+     * "when" y sigue con la instrucción siguiente si no.
+     *
+     *   a < b            if a < b goto target      (when = true)
+     *                    if a >= b goto target     (when = false, relop negado)
+     *   a && b           when = false: jumpIf(a, false, target); jumpIf(b, false, target)
+     *                    when = true:  jumpIf(a, false, Lskip); jumpIf(b, true, target); Lskip:
+     *   a || b           simétrico a &&
+     *   !a, (a)          jumpIf(a, !when, target), jumpIf(a, when, target)
+     *   otra expresión   t = expr; if t != 0 goto target (o == 0 con when = false)
+     *
+     * Las comparaciones no dejan un temporal 0/1 y && / || no lo materializan,
+     * con cualquier cantidad de operandos.
+     */
+    public void jumpIf(ParseTree node, boolean when, TACOperand target) {
+        if (node instanceof CompiscriptParser.ExpressionContext expression) {
+            jumpIf(expression.assignmentExpr(), when, target);
+        } else if (node instanceof CompiscriptParser.ExprNoAssignContext noAssign) {
+            jumpIf(noAssign.conditionalExpr(), when, target);
+        } else if (node instanceof CompiscriptParser.TernaryExprContext ternary && ternary.expression().isEmpty()) {
+            jumpIf(ternary.logicalOrExpr(), when, target);
+        } else if (node instanceof CompiscriptParser.LogicalOrExprContext or) {
+            jumpIfAll(or.logicalAndExpr(), true, when, target);
+        } else if (node instanceof CompiscriptParser.LogicalAndExprContext and) {
+            jumpIfAll(and.equalityExpr(), false, when, target);
+        } else if (node instanceof CompiscriptParser.EqualityExprContext equality && equality.relationalExpr().size() <= 2) {
+            if (equality.relationalExpr().size() == 1) {
+                jumpIf(equality.relationalExpr(0), when, target);
+            } else {
+                jumpIfCompare(equality, when, target);
+            }
+        } else if (node instanceof CompiscriptParser.RelationalExprContext relational && relational.additiveExpr().size() <= 2) {
+            if (relational.additiveExpr().size() == 1) {
+                jumpIfOperand(relational, when, target);
+            } else {
+                jumpIfCompare(relational, when, target);
+            }
+        } else {
+            jumpIfValue(node, when, target);
+        }
+    }
+
+    /**
+     * Operandos de || (disjunction = true) o de && (disjunction = false)
+     */
+    private void jumpIfAll(List<? extends ParseTree> operands, boolean disjunction, boolean when, TACOperand target) {
+        if (operands.size() == 1) {
+            jumpIf(operands.get(0), when, target);
+            return;
+        }
+        if (when == disjunction) {
+            // || que salta si es verdadero, && que salta si es falso: basta un operando
+            for (ParseTree operand : operands) {
+                jumpIf(operand, when, target);
+            }
+            return;
+        }
+        // Los primeros operandos deciden el caso contrario y saltan al final
+        TACOperand skip = generator.newLabel();
+        for (int i = 0; i < operands.size() - 1; i++) {
+            jumpIf(operands.get(i), disjunction, skip);
+        }
+        jumpIf(operands.get(operands.size() - 1), when, target);
+        TACInstruction skipLabel = new TACInstruction(TACInstruction.OpType.LABEL);
+        skipLabel.setLabel(skip);
+        generator.addInstruction(skipLabel);
+    }
+
+    /**
+     * "a op b" como un solo IF_GOTO
+     */
+    private void jumpIfCompare(ParserRuleContext comparison, boolean when, TACOperand target) {
+        TACOperand left = visit(comparison.getChild(0));
+        TACOperand right = visit(comparison.getChild(2));
+        String op = comparison.getChild(1).getText();
+        emitIfGoto(left, when ? op : negate(op), right, target);
+        generator.freeTemp(left);
+        generator.freeTemp(right);
+    }
+
+    /**
+     * Un solo operando de una comparación: "!a" y "(a)" siguen como condición
+     */
+    private void jumpIfOperand(CompiscriptParser.RelationalExprContext relational, boolean when, TACOperand target) {
+        CompiscriptParser.AdditiveExprContext additive = relational.additiveExpr(0);
+        if (additive.multiplicativeExpr().size() == 1
+                && additive.multiplicativeExpr(0).unaryExpr().size() == 1) {
+            CompiscriptParser.UnaryExprContext unary = additive.multiplicativeExpr(0).unaryExpr(0);
+            if (unary.unaryExpr() != null && unary.getChild(0).getText().equals("!")) {
+                jumpIf(unaryCondition(unary.unaryExpr()), !when, target);
+                return;
+            }
+            if (unary.primaryExpr() != null && unary.primaryExpr().expression() != null) {
+                jumpIf(unary.primaryExpr().expression(), when, target);
+                return;
+            }
+        }
+        jumpIfValue(relational, when, target);
+    }
+
+    /**
+     * Operando de "!": otro "!" o un paréntesis siguen como condición
+     */
+    private ParseTree unaryCondition(CompiscriptParser.UnaryExprContext unary) {
+        if (unary.primaryExpr() != null && unary.primaryExpr().expression() != null) {
+            return unary.primaryExpr().expression();
+        }
+        return unary;
+    }
+
+    private void jumpIfValue(ParseTree node, boolean when, TACOperand target) {
+        if (node instanceof CompiscriptParser.UnaryExprContext unary && unary.unaryExpr() != null
+                && unary.getChild(0).getText().equals("!")) {
+            jumpIf(unaryCondition(unary.unaryExpr()), !when, target);
+            return;
+        }
+        TACOperand value = visit(node);
+        emitIfGoto(value, when ? "!=" : "==", TACOperand.integer(0), target);
+        generator.freeTemp(value);
+    }
+
+    private void emitIfGoto(TACOperand left, String relop, TACOperand right, TACOperand target) {
+        TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+        ifGoto.setArg1(left);
+        ifGoto.setArg2(right);
+        ifGoto.setRelop(relop);
+        ifGoto.setLabel(target);
+        generator.addInstruction(ifGoto);
+    }
+
+    /**
+     * Operador de la comparación contraria
+     */
+    private static String negate(String op) {
+        switch (op) {
+            case "<": return ">=";
+            case "<=": return ">";
+            case ">": return "<=";
+            case ">=": return "<";
+            case "==": return "!=";
+            case "!=": return "==";
+            default: throw new IllegalArgumentException("Operador de comparación desconocido: " + op);
+        }
+    }
+
+    /**
+     * && o || como valor 0/1 a partir de sus saltos:
+     *   t = 0
+     *   [jumpIf(expr, false, Lend)]
+     *   t = 1
+     * Lend:
+     */
+    private TACOperand materialize(ParseTree node) {
+        TACOperand result = generator.newTemp();
+        TACOperand endLabel = generator.newLabel();
+
+        TACInstruction init = new TACInstruction(TACInstruction.OpType.ASSIGN);
+        init.setResult(result);
+        init.setArg1("0");
+        generator.addInstruction(init);
+
+        jumpIf(node, false, endLabel);
+
+        TACInstruction assignTrue = new TACInstruction(TACInstruction.OpType.ASSIGN);
+        assignTrue.setResult(result);
+        assignTrue.setArg1("1");
+        generator.addInstruction(assignTrue);
+
+        TACInstruction lblInstr = new TACInstruction(TACInstruction.OpType.LABEL);
+        lblInstr.setLabel(endLabel);
+        generator.addInstruction(lblInstr);
+        return result;
+    }
+
+
     @Override
-    public String visitLeftHandSide(CompiscriptParser.LeftHandSideContext ctx) {
-        String result = visit(ctx.primaryAtom());
+    public TACOperand visitLeftHandSide(CompiscriptParser.LeftHandSideContext ctx) {
+        TACOperand result = visit(ctx.primaryAtom());
 
         for (CompiscriptParser.SuffixOpContext suffix : ctx.suffixOp()) {
             result = visitSuffixOp(suffix, result);
@@ -311,7 +514,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         return result;
     }
 
-    private String visitSuffixOp(CompiscriptParser.SuffixOpContext ctx, String base) {
+    private TACOperand visitSuffixOp(CompiscriptParser.SuffixOpContext ctx, TACOperand base) {
         if (ctx instanceof CompiscriptParser.CallExprContext) {
             return handleFunctionCall((CompiscriptParser.CallExprContext) ctx, base);
         } else if (ctx instanceof CompiscriptParser.IndexExprContext) {
@@ -322,9 +525,9 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         return base;
     }
 
-    private String handleFunctionCall(CompiscriptParser.CallExprContext ctx, String funcName) {
+    private TACOperand handleFunctionCall(CompiscriptParser.CallExprContext ctx, TACOperand funcName) {
         TACInstruction callInstruction = new TACInstruction(TACInstruction.OpType.CALL);
-        String result = null;
+        TACOperand result = null;
 
         // Si la llamada es para asignación
         if( generator.getAssignment() ){
@@ -335,14 +538,14 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
 
         callInstruction.setArg1(funcName);
 
-        List<String> valsToFree =  new ArrayList<>();
+        List<TACOperand> valsToFree =  new ArrayList<>();
         if (ctx.arguments() != null) {
             List<CompiscriptParser.ExpressionContext> args = ctx.arguments().expression();
             for (CompiscriptParser.ExpressionContext arg : args) {
-                String literalValue = visit(arg); // evaluar expresion
-                String tempName = literalValue;
+                TACOperand literalValue = visit(arg); // evaluar expresion
+                TACOperand tempName = literalValue;
 
-                if (!(literalValue.startsWith("t") && Integer.parseInt(literalValue.substring(1)) > 0)) {
+                if (!generator.isTemp(literalValue)) {
                     tempName = generator.newTemp();
                     TACInstruction paramInstruction = new TACInstruction(TACInstruction.OpType.ASSIGN);
                     paramInstruction.setResult(tempName);
@@ -355,7 +558,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
             }
         }
 
-        for (String val : valsToFree) {
+        for (TACOperand val : valsToFree) {
             generator.freeTemp(val);
         }
 
@@ -363,28 +566,30 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         return result;
     }
 
-    private String handleArrayAccess(CompiscriptParser.IndexExprContext ctx, String arrayName) {
+    private TACOperand handleArrayAccess(CompiscriptParser.IndexExprContext ctx, TACOperand arrayName) {
         // Evaluar el índice
-        String indexVal = visit(ctx.expression());
+        TACOperand indexVal = visit(ctx.expression());
 
         // Crear temporal que contendrá el valor del array en ese índice
-        String temp = generator.newTemp();
+        TACOperand temp = generator.newTemp();
 
         // Generar TAC: temporal = array[index]
         TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
         instr.setResult(temp);
-        instr.setArg1(arrayName + "[" + indexVal + "]");
+        instr.setArg1(TACOperand.element(arrayName, indexVal));
         generator.addInstruction(instr);
         generator.freeTemp(indexVal);
         return temp;
     }
 
 
-    private String handlePropertyAccess(CompiscriptParser.PropertyAccessExprContext ctx, String objName) {
+    private TACOperand handlePropertyAccess(CompiscriptParser.PropertyAccessExprContext ctx, TACOperand object) {
+        String objName = object.toString();
         String propertyName = ctx.getText();
 
         // si es una función
         String identifier = ctx.Identifier().getText();
+        TACOperand property = TACOperand.field(object, identifier);
         Symbol symObj = generator.getSymbol(objName);
         Symbol symType = null;
         Symbol symProperty = null;
@@ -392,7 +597,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         if(objName.equals("this")){
             symProperty = generator.getSymbol(propertyName);
             if (symProperty != null && symProperty.getKind() == Symbol.Kind.FUNCTION) {
-                return (objName + propertyName);
+                return property;
             }
         }
 
@@ -404,21 +609,21 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
             symProperty = symType.getMembers().get(identifier);
 
             if (symProperty != null && symProperty.getKind() == Symbol.Kind.FUNCTION) {
-                return (objName + propertyName);
+                return property;
             }
         }
 
-        String result = generator.newTemp();
+        TACOperand result = generator.newTemp();
         TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
         instr.setResult(result);
-        instr.setArg1(objName + propertyName);
+        instr.setArg1(property);
         generator.addInstruction(instr);
 
         return result;
     }
 
     @Override
-    public String visitArrayLiteral(CompiscriptParser.ArrayLiteralContext ctx) {
+    public TACOperand visitArrayLiteral(CompiscriptParser.ArrayLiteralContext ctx) {
         //  Obtener nombre del array desde la variable declarada
         String varName = getAssignedVariable(ctx); // "let numbers = [...]"
         Symbol arraySym = generator.getSymbol(varName);
@@ -430,6 +635,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         // Dimensiones del array
         List<Integer> dimensions = calculateDimensions(ctx);
         arraySym.setDimensions(dimensions);
+        generator.recordArrayLayout(varName, new ArrayLayout(dimensions, elementSize));
 
         // Calcular tamaño total del array en bytes
         int totalElements = dimensions.stream().reduce(1, (a, b) -> a * b);
@@ -445,15 +651,15 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
 
         // Generar TAC para cada elemento usando índice
         List<Integer> currentIndex = new ArrayList<>(Collections.nCopies(dimensions.size(), 0));
-        generateMatrixAssignments(ctx, varName, currentIndex, 0);
+        generateMatrixAssignments(ctx, TACOperand.name(varName), currentIndex, 0);
 
-        return varName;
+        return TACOperand.name(varName);
     }
 
     /**
      * Extrae el ArrayLiteralContext navegando la jerarquía de reglas
      */
-    private CompiscriptParser.ArrayLiteralContext getArrayLiteral(
+    CompiscriptParser.ArrayLiteralContext getArrayLiteral(
             CompiscriptParser.ExpressionContext expr
     ) {
         // expression -> assignmentExpr
@@ -532,7 +738,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
      */
     private void generateMatrixAssignments(
             CompiscriptParser.ArrayLiteralContext ctx,
-            String varName,
+            TACOperand varName,
             List<Integer> currentIndex,
             int depth
     ) {
@@ -549,22 +755,21 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
                 generateMatrixAssignments(innerArray, varName, currentIndex, depth + 1);
             } else {
                 // Es un valor escalar, generar asignación
-                String val = visit(expr);
+                TACOperand val = visit(expr);
 
                 // Construir índice multidimensional: varName[i][j]...
-                StringBuilder indexStr = new StringBuilder(varName);
+                TACOperand[] indices = new TACOperand[depth + 1];
                 for (int j = 0; j <= depth; j++) {
-                    indexStr.append("[").append(currentIndex.get(j)).append("]");
+                    indices[j] = TACOperand.integer(currentIndex.get(j));
                 }
 
                 TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
-                instr.setResult(indexStr.toString());
+                instr.setResult(TACOperand.element(varName, indices));
                 instr.setArg1(val);
                 generator.addInstruction(instr);
                 generator.freeTemp(val);
             }
         }
-        generator.freeTemp(varName);
     }
 
     private String getAssignedVariable(ParseTree ctx) {
@@ -584,36 +789,44 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
      * cond ? expr1 : expr2
      *
      * @param ctx the parse tree
-     * @return String result
+     * @return TACOperand result
      */
     @Override
-    public String visitTernaryExpr(CompiscriptParser.TernaryExprContext ctx) {
+    public TACOperand visitTernaryExpr(CompiscriptParser.TernaryExprContext ctx) {
         if (ctx.logicalOrExpr() != null && ctx.expression().isEmpty()) {
             return visit(ctx.logicalOrExpr());
         }
 
-        String labelTrue =generator.newLabel();
-        String labelFalse =generator.newLabel();
-        String labelEnd =generator.newLabel();
-
-        String orExpr = visit(ctx.logicalOrExpr());
-        TACInstruction init = new TACInstruction(TACInstruction.OpType.IF_GOTO);
-        init.setArg1(orExpr);
-        init.setRelop("==");
-        init.setArg2("1"); // True
-        init.setLabel(labelTrue);
-        generator.addInstruction(init);
-
-        TACInstruction elseInstr = new TACInstruction(TACInstruction.OpType.GOTO);
-        elseInstr.setLabel(labelFalse);
-        generator.addInstruction(elseInstr);
+        // Con saltos la condición cae directo en la rama verdadera: no usa labelTrue
+        boolean jumping = generator.isJumpingConditions();
+        TACOperand labelTrue = jumping ? null : generator.newLabel();
+        TACOperand labelFalse = generator.newLabel();
+        TACOperand labelEnd = generator.newLabel();
 
-        TACInstruction initLabel = new TACInstruction(TACInstruction.OpType.LABEL);
-        initLabel.setLabel(labelTrue);
-        generator.addInstruction(initLabel);
+        TACOperand orExpr = null;
+        if (jumping) {
+            // Si la condición es falsa se salta a labelFalse; si no, sigue en la rama verdadera
+            jumpIf(ctx.logicalOrExpr(), false, labelFalse);
+        } else {
+            orExpr = visit(ctx.logicalOrExpr());
+            TACInstruction init = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+            init.setArg1(orExpr);
+            init.setRelop("==");
+            init.setArg2("1"); // True
+            init.setLabel(labelTrue);
+            generator.addInstruction(init);
+
+            TACInstruction elseInstr = new TACInstruction(TACInstruction.OpType.GOTO);
+            elseInstr.setLabel(labelFalse);
+            generator.addInstruction(elseInstr);
+
+            TACInstruction initLabel = new TACInstruction(TACInstruction.OpType.LABEL);
+            initLabel.setLabel(labelTrue);
+            generator.addInstruction(initLabel);
+        }
 
-        String result = generator.newTemp();
-        String trueResult = visit(ctx.expression(0));
+        TACOperand result = generator.newTemp();
+        TACOperand trueResult = visit(ctx.expression(0));
         TACInstruction assignTrueInstr = new TACInstruction(TACInstruction.OpType.ASSIGN);
         assignTrueInstr.setResult(result);
         assignTrueInstr.setArg1(trueResult);
@@ -628,7 +841,7 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         elseLabel.setLabel(labelFalse);
         generator.addInstruction(elseLabel);
 
-        String falseResult = visit(ctx.expression(1));
+        TACOperand falseResult = visit(ctx.expression(1));
         TACInstruction assignFalseInstr = new TACInstruction(TACInstruction.OpType.ASSIGN);
         assignFalseInstr.setResult(result);
         assignFalseInstr.setArg1(falseResult);
@@ -645,8 +858,8 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitNewExpr(CompiscriptParser.NewExprContext ctx) {
-        String result = generator.newTemp();
+    public TACOperand visitNewExpr(CompiscriptParser.NewExprContext ctx) {
+        TACOperand result = generator.newTemp();
 
         String className = ctx.Identifier().getText();
         TACInstruction newInstruction = new TACInstruction(TACInstruction.OpType.NEW);
@@ -656,8 +869,8 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         if (ctx.arguments() != null) {
             List<CompiscriptParser.ExpressionContext> args = ctx.arguments().expression();
             for (CompiscriptParser.ExpressionContext arg : args) {
-                String tempName = generator.newTemp();
-                String literalValue = visit(arg); // evaluar expresion
+                TACOperand tempName = generator.newTemp();
+                TACOperand literalValue = visit(arg); // evaluar expresion
 
                 TACInstruction paramInstruction = new TACInstruction(TACInstruction.OpType.ASSIGN);
                 paramInstruction.setResult(tempName);
@@ -672,22 +885,22 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitThisExpr(CompiscriptParser.ThisExprContext ctx) {
-        return "this";
+    public TACOperand visitThisExpr(CompiscriptParser.ThisExprContext ctx) {
+        return TACOperand.name("this");
     }
 
 
     // DELEGACIÓN
-    public String visitConditionalExpr(CompiscriptParser.ConditionalExprContext ctx) {
+    public TACOperand visitConditionalExpr(CompiscriptParser.ConditionalExprContext ctx) {
         return visitChildren(ctx);
     }
 
     @Override
-    public String visitExpression(CompiscriptParser.ExpressionContext ctx) {
+    public TACOperand visitExpression(CompiscriptParser.ExpressionContext ctx) {
         return visit(ctx.assignmentExpr());
     }
 
-    public String visitAssignmentExpr(CompiscriptParser.AssignmentExprContext ctx) {
+    public TACOperand visitAssignmentExpr(CompiscriptParser.AssignmentExprContext ctx) {
         if (ctx instanceof CompiscriptParser.ExprNoAssignContext) {
             CompiscriptParser.ExprNoAssignContext exprCtx =
                     (CompiscriptParser.ExprNoAssignContext) ctx;
@@ -697,12 +910,12 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
     }
 
     @Override
-    public String visitAssignExpr(CompiscriptParser.AssignExprContext ctx) {
+    public TACOperand visitAssignExpr(CompiscriptParser.AssignExprContext ctx) {
         generator.setAssignment(true);
         // ctx.lhs = lhs, ctx.assignmentExpr() = rhs
-        String lhs = ctx.lhs.getText();
+        TACOperand lhs = target(ctx.lhs);
 
-        String rhs = visit(ctx.assignmentExpr()); // recursivo para rhs
+        TACOperand rhs = visit(ctx.assignmentExpr()); // recursivo para rhs
 
         if (rhs != null) {
             TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -716,5 +929,43 @@ public class TACExprVisitor extends CompiscriptBaseVisitor<String> {
         return lhs; // devuelve el nombre de la variable asignada
     }
 
+    /**
+     * Destino de una asignación: la variable, o el elemento o campo que se
+     * escribe ("m[0][i]", "this.x"). Los índices finales quedan en el destino
+     * sin evaluarse aparte si son literales enteros o variables; lo que va
+     * antes se evalúa como en una lectura.
+     */
+    private TACOperand target(CompiscriptParser.LeftHandSideContext lhs) {
+        List<CompiscriptParser.SuffixOpContext> suffixes = lhs.suffixOp();
+        int last = suffixes.size();
+        while (last > 0 && suffixes.get(last - 1) instanceof CompiscriptParser.IndexExprContext) {
+            last--;
+        }
+        boolean field = last == suffixes.size() && last > 0
+                && suffixes.get(last - 1) instanceof CompiscriptParser.PropertyAccessExprContext;
+        if (last == suffixes.size() && last > 0 && !field) {
+            // Una llamada no es un destino: queda el texto del fuente
+            return TACOperand.name(lhs.getText());
+        }
+        TACOperand base = visit(lhs.primaryAtom());
+        for (int i = 0; i < (field ? last - 1 : last); i++) {
+            base = visitSuffixOp(suffixes.get(i), base);
+        }
+        if (field) {
+            String name = ((CompiscriptParser.PropertyAccessExprContext) suffixes.get(last - 1)).Identifier().getText();
+            return TACOperand.field(base, name);
+        }
+        if (last == suffixes.size()) {
+            return base;
+        }
+        TACOperand[] indices = new TACOperand[suffixes.size() - last];
+        for (int i = last; i < suffixes.size(); i++) {
+            CompiscriptParser.ExpressionContext index = ((CompiscriptParser.IndexExprContext) suffixes.get(i)).expression();
+            String text = index.getText();
+            indices[i - last] = text.matches("\\d+|[A-Za-z_]\\w*") ? TACOperand.of(text) : visit(index);
+        }
+        return TACOperand.element(base, indices);
+    }
+
 
 }
@@ -2,7 +2,8 @@ package com.fmd;
 
 import com.fmd.modules.Symbol;
 import com.fmd.modules.TACInstruction;
-import org.springframework.expression.spel.ast.Identifier;
+import com.fmd.modules.TACOperand;
+import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +18,23 @@ public class TACFuncsVisitor extends CompiscriptBaseVisitor<Void>{
         this.stmtVisitor = stmtVisitor;
     }
 
+    /**
+     * Despacho de nodos; con profiler mide cada visit* (ver CompileProfiler)
+     */
+    @Override
+    public Void visit(ParseTree tree) {
+        CompileProfiler profiler = generator.getProfiler();
+        if (profiler == null) {
+            return super.visit(tree);
+        }
+        profiler.enterVisit();
+        try {
+            return super.visit(tree);
+        } finally {
+            profiler.exitVisit("TACFuncsVisitor", tree);
+        }
+    }
+
     /**
      * Declaración de función:
      *      function suma(a, b) { ... }
@@ -46,6 +64,7 @@ public class TACFuncsVisitor extends CompiscriptBaseVisitor<Void>{
                 int updateOffset = generator.allocateLocal(generator.typeSize(paramSym.getType()));
                 paramSym.setOffset(updateOffset);
                 generator.getSymbol(paramSym.getName()).setOffset(updateOffset);
+                generator.recordArrayLayout(paramSym.getName(), null);
             }
         }
 
@@ -99,13 +118,13 @@ public class TACFuncsVisitor extends CompiscriptBaseVisitor<Void>{
         generator.setAssignment(true);
         TACInstruction returnInstruction = new TACInstruction(TACInstruction.OpType.RETURN);
 
-        String result = "null";
+        TACOperand result = TACOperand.name("null");
         if(ctx.expression()!=null){ // Si hay expresión, evaluarla
             if(generator.getSymbol(ctx.expression().getText())!=null){
-                result = generator.getSymbol(ctx.expression().getText()).getName();
+                result = TACOperand.name(generator.getSymbol(ctx.expression().getText()).getName());
             } else {
                 stmtVisitor.visit(ctx.expression()); // evaluar expresion
-                result = generator.getLastInstruction().getResult(); // tomar la última variable temporal registrada
+                result = generator.getLastInstruction().getResultOperand(); // tomar la última variable temporal registrada
             }
 
         }
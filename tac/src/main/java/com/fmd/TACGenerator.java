@@ -1,32 +1,65 @@
 package com.fmd;
 
 import java.util.*;
+import java.util.function.Consumer;
 
+import com.fmd.modules.ArrayLayout;
 import com.fmd.modules.Symbol;
 import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACOperand;
+import com.fmd.modules.TACOperandPool;
 
 /**
  * Generador de Código de Tres Direcciones (TAC)
  *
  * RESPONSABILIDADES:
- * - Generar temporales únicos (t1, t2, t3, ...)
+ * - Generar temporales únicos (t1, t2, t3, ...), reciclando los liberados
+ *   con freeTemp; sin reciclaje (setRecycleTemps(false)) cada temporal es
+ *   nuevo y TempAllocationPass asigna después los mínimos necesarios
  * - Generar etiquetas únicas (L1, L2, L3, ...)
- * - Almacenar TODAS las instrucciones TAC en orden
+ * - Almacenar TODAS las instrucciones TAC en orden (o enviarlas a un sink
+ *   en cuanto se generan, sin guardarlas)
  * - Mantener contexto para break/continue (pilas de etiquetas)
+ * - Juntar los problemas que encuentra la generación (getErrors) en lugar de
+ *   escribirlos en consola: el servidor los devuelve en la respuesta
  */
 public class TACGenerator {
 
     // Lista de todas las instrucciones TAC generadas
     private List<TACInstruction> instructions;
 
+    // Operandos compartidos por todas las instrucciones de este generador
+    private final TACOperandPool operandPool = new TACOperandPool();
+
+    // Si existe, recibe cada instrucción en lugar de guardarla en la lista
+    private Consumer<TACInstruction> sink;
+
+    // Problemas de la generación (ver reportError)
+    private final List<String> errors = new ArrayList<>();
+    private TACInstruction lastInstruction;
+    private int instructionCount;
+
+    // Si existe y tiene hotspots activos, los visitors miden cada visit*
+    private CompileProfiler profiler;
+
     // Contadores para generar nombres únicos
     private int tempCounter;
-    private Deque<String> freeTemps = new ArrayDeque<>();
+    private Deque<TACOperand> freeTemps = new ArrayDeque<>();
+    private final BitSet freeTempIds = new BitSet(); // bit i: ti está en freeTemps
+    private boolean recycleTemps = true;
+    private boolean jumpingConditions = false;
+    private boolean switchTables = false;
     private int labelCounter;
 
+    // Forma de los arreglos por nombre; null si no se conoce (ver recordArrayLayout)
+    private final Map<String, ArrayLayout> arrayLayouts = new HashMap<>();
+
+    // Clase padre de cada clase que hereda (ver recordSuperclass)
+    private final Map<String, String> superclasses = new HashMap<>();
+
     // Pilas para manejar break y continue en loops
-    private Stack<String> breakLabels;     // Etiquetas de salida de loops
-    private Stack<String> continueLabels;  // Etiquetas de continuación de loops
+    private Stack<TACOperand> breakLabels;     // Etiquetas de salida de loops
+    private Stack<TACOperand> continueLabels;  // Etiquetas de continuación de loops
 
     // Contexto actual (para funciones, clases, etc.)
     private String currentFunction;        // Nombre de la función actual
@@ -56,33 +89,85 @@ public class TACGenerator {
     // MÉTODOS BÁSICOS
     /**
      * Genera un nuevo temporal único
-     * @return Nombre del temporal (t1, t2, t3, ...)
+     * @return Temporal (t1, t2, t3, ...)
      */
-    public String newTemp() {
+    public TACOperand newTemp() {
         if (!freeTemps.isEmpty()) {
-            return freeTemps.pop();
+            TACOperand temp = freeTemps.pop();
+            freeTempIds.clear(temp.getId());
+            return temp;
         }
         tempCounter++;
-        return "t" + tempCounter;
+        return operandPool.intern(TACOperand.temp(tempCounter));
     }
 
     /**
      * Marca un temporal como libre para poder reciclarlo.
      */
-    public void freeTemp(String temp) {
-        // Evitar meter temporales inválidos o duplicados
-        if (temp != null && temp.startsWith("t") && !freeTemps.contains(temp)) {
+    public void freeTemp(TACOperand temp) {
+        // Evitar meter variables, literales o duplicados
+        if (recycleTemps && isTemp(temp) && !freeTempIds.get(temp.getId())) {
+            freeTempIds.set(temp.getId());
             freeTemps.push(temp);
         }
     }
 
+    /**
+     * true si el operando es un temporal generado por este generador (t1 .. tN),
+     * no una variable del programa, aunque se llame "t1"
+     */
+    public boolean isTemp(TACOperand operand) {
+        return operand != null && operand.isTemp() && operand.getId() >= 1 && operand.getId() <= tempCounter;
+    }
+
+    /**
+     * Con false, freeTemp no hace nada y cada newTemp devuelve un temporal
+     * nuevo: el TAC queda correcto sin depender de cuándo libera cada visitor,
+     * y TempAllocationPass se encarga de reutilizar temporales
+     */
+    public void setRecycleTemps(boolean recycleTemps) {
+        this.recycleTemps = recycleTemps;
+        if (!recycleTemps) {
+            freeTemps.clear();
+            freeTempIds.clear();
+        }
+    }
+
+    /**
+     * Con true, las condiciones de if, while, do-while, for y del operador
+     * ternario se traducen a saltos (ver TACExprVisitor.jumpIf): cada
+     * comparación es un IF_GOTO con su operador y && / || no materializan un
+     * 0/1. Por defecto las condiciones se evalúan a un temporal.
+     */
+    public void setJumpingConditions(boolean jumpingConditions) {
+        this.jumpingConditions = jumpingConditions;
+    }
+
+    public boolean isJumpingConditions() {
+        return jumpingConditions;
+    }
+
+    /**
+     * Con true, un switch cuyos case son constantes enteras despacha con
+     * JUMP_TABLE en los rangos densos y con un árbol de comparaciones en los
+     * dispersos (ver TACStmtVisitor.visitSwitchStatement). Por defecto se
+     * compara case por case.
+     */
+    public void setSwitchTables(boolean switchTables) {
+        this.switchTables = switchTables;
+    }
+
+    public boolean isSwitchTables() {
+        return switchTables;
+    }
+
     /**
      * Genera una nueva etiqueta única
-     * @return Nombre de la etiqueta (L1, L2, L3, ...)
+     * @return Etiqueta (L1, L2, L3, ...)
      */
-    public String newLabel() {
+    public TACOperand newLabel() {
         labelCounter++;
-        return "L" + labelCounter;
+        return operandPool.intern(TACOperand.label(labelCounter));
     }
 
     /**
@@ -90,7 +175,73 @@ public class TACGenerator {
      * @param instr Instrucción a añadir
      */
     public void addInstruction(TACInstruction instr) {
-        instructions.add(instr);
+        instr.intern(operandPool);
+        lastInstruction = instr;
+        instructionCount++;
+        if (sink != null) {
+            sink.accept(instr);
+        } else {
+            instructions.add(instr);
+        }
+    }
+
+    /**
+     * Envía cada instrucción al sink en cuanto se genera, sin guardarla.
+     * Con un sink activo getInstructions() queda vacío; las instrucciones
+     * no se modifican después de añadirse, así que el sink puede
+     * serializarlas de inmediato.
+     * @param sink consumidor de instrucciones o null para volver a guardarlas
+     */
+    public void setInstructionSink(Consumer<TACInstruction> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Profiler de la compilación en curso (puede ser null)
+     */
+    public CompileProfiler getProfiler() {
+        return profiler;
+    }
+
+    public void setProfiler(CompileProfiler profiler) {
+        this.profiler = profiler != null && profiler.isHotspotsEnabled() ? profiler : null;
+    }
+
+    /**
+     * Registra la forma del arreglo que guarda name: la de su literal, o null
+     * si se declara sin literal (parámetros, foreach, "let b = a"). Si el
+     * nombre aparece con dos formas distintas (en otra función o
+     * reasignado con otro literal) queda en null: el TAC solo tiene el
+     * nombre y no sabría cuál usar.
+     */
+    public void recordArrayLayout(String name, ArrayLayout layout) {
+        if (arrayLayouts.containsKey(name) && !Objects.equals(arrayLayouts.get(name), layout)) {
+            layout = null;
+        }
+        arrayLayouts.put(name, layout);
+    }
+
+    /**
+     * Formas registradas con recordArrayLayout (vista de solo lectura; un
+     * valor null es un nombre sin forma conocida)
+     */
+    public Map<String, ArrayLayout> getArrayLayouts() {
+        return Collections.unmodifiableMap(arrayLayouts);
+    }
+
+    /**
+     * Registra que className hereda de parentName ("class B : A"); el TAC no
+     * lo dice, así que TACBytecode lo usa para encontrar campos y métodos heredados
+     */
+    public void recordSuperclass(String className, String parentName) {
+        superclasses.put(className, parentName);
+    }
+
+    /**
+     * Superclases registradas con recordSuperclass (vista de solo lectura)
+     */
+    public Map<String, String> getSuperclasses() {
+        return Collections.unmodifiableMap(superclasses);
     }
 
     /**
@@ -106,7 +257,7 @@ public class TACGenerator {
      * @return instrucció TAC
      */
     public TACInstruction getLastInstruction() {
-        return instructions.get(instructions.size() - 1);
+        return lastInstruction;
     }
 
     /**
@@ -168,7 +319,7 @@ public class TACGenerator {
      * @param breakLabel Etiqueta de salida del loop
      * @param continueLabel Etiqueta de continuación del loop
      */
-    public void enterLoop(String breakLabel, String continueLabel) {
+    public void enterLoop(TACOperand breakLabel, TACOperand continueLabel) {
         breakLabels.push(breakLabel);
         continueLabels.push(continueLabel);
     }
@@ -189,7 +340,7 @@ public class TACGenerator {
      * Obtiene la etiqueta de break del loop actual
      * @return Etiqueta de break o null si no hay loop activo
      */
-    public String getCurrentBreakLabel() {
+    public TACOperand getCurrentBreakLabel() {
         return breakLabels.isEmpty() ? null : breakLabels.peek();
     }
 
@@ -197,8 +348,7 @@ public class TACGenerator {
      * Obtiene la etiqueta de continue del loop actual
      * @return Etiqueta de continue o null si no hay loop activo
      */
-    public String getCurrentContinueLabel() {
-        System.out.println(continueLabels);
+    public TACOperand getCurrentContinueLabel() {
         return continueLabels.isEmpty() ? null : continueLabels.peek();
     }
 
@@ -265,8 +415,15 @@ public class TACGenerator {
      */
     public void reset() {
         instructions.clear();
+        errors.clear();
+        lastInstruction = null;
+        instructionCount = 0;
         tempCounter = 0;
+        freeTemps.clear();
+        freeTempIds.clear();
         labelCounter = 0;
+        arrayLayouts.clear();
+        superclasses.clear();
         breakLabels.clear();
         continueLabels.clear();
         currentFunction = null;
@@ -278,7 +435,22 @@ public class TACGenerator {
      * @return Cantidad de instrucciones
      */
     public int getInstructionCount() {
-        return instructions.size();
+        return instructionCount;
+    }
+
+    /**
+     * Registra un problema de la generación (un símbolo que el análisis
+     * semántico no dejó, un continue sin ciclo); la instrucción se omite
+     */
+    public void reportError(int line, String message) {
+        errors.add("Línea " + line + ": " + message);
+    }
+
+    /**
+     * Problemas registrados con reportError, en orden
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
     }
 
     /**
@@ -298,6 +470,41 @@ public class TACGenerator {
         return scopeTable.get(line).getSymbolsLocal();
     }
 
+    /**
+     * Nombres declarados en el scope global (variables, funciones y clases);
+     * vacío si no hay tabla de símbolos
+     */
+    public Set<String> getGlobalNames() {
+        SemanticVisitor.Entorno global = scopeTable == null ? null : scopeTable.get("0");
+        return global == null ? Collections.emptySet() : Collections.unmodifiableSet(global.getSymbolsLocal().keySet());
+    }
+
+    /**
+     * Símbolos declarados en el scope global; vacío si no hay tabla de símbolos
+     */
+    public Map<String, Symbol> getGlobalSymbols() {
+        SemanticVisitor.Entorno global = scopeTable == null ? null : scopeTable.get("0");
+        return global == null ? Collections.emptyMap() : Collections.unmodifiableMap(global.getSymbolsLocal());
+    }
+
+    /**
+     * Símbolos con ese nombre y tipo en todos los scopes, en el orden en que
+     * se crearon los scopes (dos clases pueden tener un método con el mismo nombre)
+     */
+    public List<Symbol> findSymbols(String name, Symbol.Kind kind) {
+        List<Symbol> found = new ArrayList<>();
+        if (scopeTable == null) {
+            return found;
+        }
+        for (SemanticVisitor.Entorno entorno : scopeTable.values()) {
+            Symbol sym = entorno.getSymbolsLocal().get(name);
+            if (sym != null && sym.getKind() == kind && !found.contains(sym)) {
+                found.add(sym);
+            }
+        }
+        return found;
+    }
+
     /** imprime recursivamente los símbolos por scope */
     public void imprimirSimbolos() {
         System.out.println("===== TABLAS DE SÍMBOLOS POR SCOPE =====");
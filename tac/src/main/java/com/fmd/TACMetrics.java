@@ -0,0 +1,73 @@
+package com.fmd;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica en Micrometer las mediciones de CompileProfiler
+ *
+ * Métricas (GET /actuator/metrics/{nombre}?tag=phase:tac):
+ *   tac.compile.phase            tiempo de pared por fase (tag phase)
+ *   tac.compile.phase.cpu        tiempo de CPU por fase (tag phase)
+ *   tac.compile.phase.allocated  bytes asignados por fase (tag phase)
+ *   tac.compile.visitor          tiempo propio por método visit* (tag method),
+ *                                solo con tac.metrics.hotspots=true
+ *
+ * Configuración (application.properties):
+ *   tac.metrics.hotspots  medir cada método visit* de los visitors de TAC
+ */
+@Component
+public class TACMetrics {
+
+    private final MeterRegistry registry;
+    private final boolean hotspots;
+
+    public TACMetrics(MeterRegistry registry,
+                      @Value("${tac.metrics.hotspots:false}") boolean hotspots) {
+        this.registry = registry;
+        this.hotspots = hotspots;
+    }
+
+    /**
+     * Profiler para una compilación, con hotspots según la configuración
+     */
+    public CompileProfiler newProfiler() {
+        return new CompileProfiler(hotspots);
+    }
+
+    public void record(CompileProfiler profiler) {
+        for (Map.Entry<CompileProfiler.Phase, CompileProfiler.PhaseStats> entry : profiler.getPhases().entrySet()) {
+            String phase = entry.getKey().name().toLowerCase();
+            CompileProfiler.PhaseStats stats = entry.getValue();
+
+            registry.timer("tac.compile.phase", "phase", phase)
+                    .record(stats.wallNanos(), TimeUnit.NANOSECONDS);
+            if (stats.cpuNanos() >= 0) {
+                registry.timer("tac.compile.phase.cpu", "phase", phase)
+                        .record(stats.cpuNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (stats.allocatedBytes() >= 0) {
+                DistributionSummary.builder("tac.compile.phase.allocated")
+                        .baseUnit("bytes")
+                        .tag("phase", phase)
+                        .register(registry)
+                        .record(stats.allocatedBytes());
+            }
+        }
+
+        if (profiler.isHotspotsEnabled()) {
+            for (CompileProfiler.Hotspot hotspot : profiler.getHotspots()) {
+                Timer.builder("tac.compile.visitor")
+                        .tag("method", hotspot.method())
+                        .register(registry)
+                        .record(hotspot.selfNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
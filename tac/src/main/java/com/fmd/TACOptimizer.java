@@ -0,0 +1,236 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ejecuta las pasadas de optimización sobre el TAC de un programa
+ *
+ * NIVELES:
+ *   0  sin optimizar (el TAC tal como lo genera TACGenerator)
+ *   1  plegado y propagación de constantes
+ *   2  nivel 1 + subexpresiones comunes por bloque (numeración de valores),
+ *      propagación de copias, código invariante fuera de los ciclos y
+ *      eliminación de código muerto
+ *      (bloques inalcanzables, saltos a la siguiente instrucción,
+ *      asignaciones a temporales muertos); las condiciones se generan como
+ *      saltos (jumpingConditions) y los switch constantes con tabla o árbol
+ *      de comparaciones (switchTables)
+ *   3  nivel 2 + asignación de temporales por rangos de vida; el TAC se genera
+ *      con temporales nuevos (freshTemps) y TempAllocationPass los reparte
+ *   4  nivel 3 + accesos a arreglos como aritmética de direcciones (antes de
+ *      las subexpresiones comunes, para que vean las multiplicaciones) y
+ *      reducción de fuerza de las variables de inducción después de sacar lo
+ *      invariante, seguida de otra propagación de copias; al final de la
+ *      limpieza, la mirilla (PeepholePass) encadena saltos e invierte el
+ *      "if; goto" sobre una etiqueta
+ *
+ * Cada pasada recibe la salida de la anterior. El reporte guarda cuántas
+ * instrucciones había antes y después de cada pasada. La asignación de
+ * temporales siempre va al final: las demás pasadas pueden crear o acortar
+ * rangos de vida.
+ */
+public class TACOptimizer {
+
+    public static final int MAX_LEVEL = 4;
+
+    /**
+     * Instrucciones antes y después de una pasada
+     */
+    public record PassReport(String pass, int before, int after, long nanos) {
+    }
+
+    /**
+     * Reporte de un programa
+     * @param level nivel aplicado
+     * @param before instrucciones generadas
+     * @param after instrucciones tras optimizar
+     * @param passes detalle por pasada, en orden de ejecución
+     * @param tempsBefore temporales distintos en el TAC generado
+     * @param tempsAfter temporales distintos tras optimizar
+     * @param assignsBefore instrucciones ASSIGN (copias y cargas) generadas
+     * @param assignsAfter instrucciones ASSIGN tras optimizar
+     */
+    public record Report(int level, int before, int after, List<PassReport> passes,
+                         int tempsBefore, int tempsAfter, int assignsBefore, int assignsAfter) {
+
+        /**
+         * Fracción de instrucciones eliminadas (0 a 1)
+         */
+        public double reduction() {
+            return before == 0 ? 0 : (double) (before - after) / before;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("level", level);
+            map.put("before", before);
+            map.put("after", after);
+            map.put("reduction", Math.round(reduction() * 10000) / 100.0); // porcentaje
+            List<Map<String, Object>> detail = new ArrayList<>();
+            for (PassReport pass : passes) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("pass", pass.pass());
+                item.put("before", pass.before());
+                item.put("after", pass.after());
+                item.put("micros", pass.nanos() / 1000);
+                detail.add(item);
+            }
+            map.put("passes", detail);
+            map.put("tempsBefore", tempsBefore);
+            map.put("tempsAfter", tempsAfter);
+            map.put("assignsBefore", assignsBefore);
+            map.put("assignsAfter", assignsAfter);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Optimización -O%d: %d → %d instrucciones (%.1f%% menos)%n",
+                    level, before, after, reduction() * 100));
+            sb.append(String.format("  temporales: %d → %d, ASSIGN: %d → %d%n",
+                    tempsBefore, tempsAfter, assignsBefore, assignsAfter));
+            for (PassReport pass : passes) {
+                sb.append(String.format("  %-20s %8d → %8d  %8.2f ms%n",
+                        pass.pass(), pass.before(), pass.after(), pass.nanos() / 1e6));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * TAC optimizado y su reporte
+     */
+    public record Result(List<TACInstruction> instructions, Report report) {
+    }
+
+    private final int level;
+    private final List<TACPass> passes;
+    private final ArrayLoweringPass arrayLowering;
+
+    /**
+     * @param level 0 a MAX_LEVEL
+     */
+    public TACOptimizer(int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Nivel de optimización inválido: " + level + " (0-" + MAX_LEVEL + ")");
+        }
+        this.level = level;
+        this.arrayLowering = level >= 4 ? new ArrayLoweringPass() : null;
+        this.passes = passesFor(level, arrayLowering);
+    }
+
+    private static List<TACPass> passesFor(int level, ArrayLoweringPass arrayLowering) {
+        List<TACPass> passes = new ArrayList<>();
+        if (level >= 1) {
+            passes.add(new ConstantFoldingPass());
+        }
+        if (level >= 4) {
+            passes.add(arrayLowering);
+        }
+        if (level >= 2) {
+            passes.add(new ValueNumberingPass());
+            passes.add(new CopyPropagationPass());
+            passes.add(new LoopInvariantCodeMotionPass());
+            if (level >= 4) {
+                passes.add(new StrengthReductionPass());
+                passes.add(new CopyPropagationPass());
+            }
+            passes.add(new DeadCodeEliminationPass());
+            if (level >= 4) {
+                passes.add(new PeepholePass());
+            }
+        }
+        if (level >= 3) {
+            passes.add(new TempAllocationPass());
+        }
+        return passes;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Prepara el generador para este nivel (antes de visitar el programa)
+     */
+    public void configure(TACGenerator generator) {
+        generator.setRecycleTemps(!freshTemps());
+        generator.setJumpingConditions(jumpingConditions());
+        generator.setSwitchTables(switchTables());
+        if (arrayLowering != null) {
+            // Vista del generador: se llena mientras visita el programa
+            arrayLowering.setLayouts(generator.getArrayLayouts());
+        }
+    }
+
+    /**
+     * true si las condiciones deben generarse como saltos
+     * (TACGenerator.setJumpingConditions)
+     */
+    public boolean jumpingConditions() {
+        return level >= 2;
+    }
+
+    /**
+     * true si los switch con case constantes deben despacharse con JUMP_TABLE
+     * o un árbol de comparaciones (TACGenerator.setSwitchTables)
+     */
+    public boolean switchTables() {
+        return level >= 2;
+    }
+
+    /**
+     * true si el TAC debe generarse sin reciclar temporales
+     * (TACGenerator.setRecycleTemps(false)); la asignación la hace una pasada
+     */
+    public boolean freshTemps() {
+        return level >= 3;
+    }
+
+    /**
+     * Instrucciones ASSIGN del TAC
+     */
+    public static int countAssigns(List<TACInstruction> instructions) {
+        int count = 0;
+        for (TACInstruction instr : instructions) {
+            if (instr.getOp() == TACInstruction.OpType.ASSIGN) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Temporales distintos que aparecen en el TAC
+     */
+    public static int countTemps(List<TACInstruction> instructions) {
+        BitSet seen = new BitSet();
+        for (TACInstruction instr : instructions) {
+            instr.forEachRead(operand -> operand.forEachTemp(seen::set));
+            if (instr.getWritten() != null) {
+                instr.getWritten().forEachTemp(seen::set);
+            }
+        }
+        return seen.cardinality();
+    }
+
+    public Result optimize(List<TACInstruction> instructions) {
+        List<PassReport> reports = new ArrayList<>(passes.size());
+        List<TACInstruction> current = instructions;
+        for (TACPass pass : passes) {
+            long start = System.nanoTime();
+            List<TACInstruction> next = pass.run(current);
+            reports.add(new PassReport(pass.name(), current.size(), next.size(), System.nanoTime() - start));
+            current = next;
+        }
+        return new Result(current, new Report(level, instructions.size(), current.size(), List.copyOf(reports),
+                countTemps(instructions), countTemps(current), countAssigns(instructions), countAssigns(current)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+
+import java.util.List;
+
+/**
+ * Pasada de optimización sobre el TAC ya generado (ver TACOptimizer)
+ *
+ * Una pasada no modifica las instrucciones que recibe: devuelve una lista
+ * nueva y, para cada instrucción que cambia, una copia (TACInstruction.copy).
+ */
+public interface TACPass {
+
+    /**
+     * Nombre corto para el reporte
+     */
+    String name();
+
+    List<TACInstruction> run(List<TACInstruction> instructions);
+}
@@ -4,13 +4,14 @@ import com.fmd.CompiscriptParser;
 import com.fmd.CompiscriptBaseVisitor;
 import com.fmd.modules.Symbol;
 import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACOperand;
 import org.antlr.v4.runtime.tree.ParseTree;
-import org.apache.el.lang.ELSupport;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Visitor para STATEMENTS
@@ -42,6 +43,23 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         this.funcsVisitor = new TACFuncsVisitor(this, generator);
     }
 
+    /**
+     * Despacho de nodos; con profiler mide cada visit* (ver CompileProfiler)
+     */
+    @Override
+    public Void visit(ParseTree tree) {
+        CompileProfiler profiler = generator.getProfiler();
+        if (profiler == null) {
+            return super.visit(tree);
+        }
+        profiler.enterVisit();
+        try {
+            return super.visit(tree);
+        } finally {
+            profiler.exitVisit("TACStmtVisitor", tree);
+        }
+    }
+
 
     // STATEMENTS BÁSICOS
     /**
@@ -58,7 +76,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         Symbol varSym = generator.getSymbol(varName);
 
         if (varSym == null) {
-            System.err.println(varName + " is not a variable");
+            generator.reportError(ctx.getStart().getLine(), varName + " no es una variable");
             return null;
         }
 
@@ -74,13 +92,18 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
             }
         }
 
+        // Sin literal la forma del arreglo no se conoce (ver TACGenerator.recordArrayLayout)
+        if (ctx.initializer() == null || exprVisitor.getArrayLiteral(ctx.initializer().expression()) == null) {
+            generator.recordArrayLayout(varName, null);
+        }
+
         // Generar instrucciones TAC si tiene inicializador
         if (ctx.initializer() != null) {
             generator.setAssignment(true);
-            String value = exprVisitor.visit(ctx.initializer().expression());
+            TACOperand value = exprVisitor.visit(ctx.initializer().expression());
 
             // Evita instrucciones redundantes
-            if (value != null && !value.equals(varName)) {
+            if (value != null && !value.equals(TACOperand.name(varName))) {
                 TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
                 instr.setResult(varName);
                 instr.setArg1(value);
@@ -114,7 +137,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         if (ctx.Identifier() != null && ctx.expression().size() == 1) {
             // Asignación simple: x = expression
             String varName = ctx.Identifier().getText();
-            String value = exprVisitor.visit(ctx.expression(0));
+            TACOperand value = exprVisitor.visit(ctx.expression(0));
 
             TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
             instr.setResult(varName);
@@ -122,10 +145,10 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
             generator.addInstruction(instr);
             generator.freeTemp(value);
         } else if (ctx.expression().size() == 2) {
-            String result = exprVisitor.visit(ctx.expression(0));
-            result = result + "." + ctx.Identifier().getText();
+            TACOperand object = exprVisitor.visit(ctx.expression(0));
+            TACOperand result = TACOperand.field(object, ctx.Identifier().getText());
 
-            String rhs = exprVisitor.visit(ctx.expression(1));
+            TACOperand rhs = exprVisitor.visit(ctx.expression(1));
 
             // Generar TAC
             TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -150,10 +173,10 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
     public Void visitPrintStatement(CompiscriptParser.PrintStatementContext ctx) {
         // Evaluar la expresión a imprimir y guardar en un temporal
         generator.setAssignment(true);
-        String value = exprVisitor.visit(ctx.expression());
-        String temp = value;
+        TACOperand value = exprVisitor.visit(ctx.expression());
+        TACOperand temp = value;
 
-        if (!(value.startsWith("t") && Integer.parseInt(value.substring(1)) > 0)) {
+        if (!generator.isTemp(value)) {
             temp = generator.newTemp();
             // Asignar el valor de la expresión al temporal
             TACInstruction assignInstr = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -232,19 +255,30 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
 
         // 1. Evaluar condición
         TACExprVisitor exprVisitor = new TACExprVisitor(generator); // si necesitas el generator
-        String condition = exprVisitor.visit(ctx.expression());
+        TACOperand condition = null;
 
         // 2. Crear etiquetas
-        String elseLabel = generator.newLabel();
-        String endLabel = generator.newLabel();
+        TACOperand elseLabel;
+        TACOperand endLabel;
+
+        if (generator.isJumpingConditions()) {
+            // 3. Condición como saltos: si es falsa salta a elseLabel
+            elseLabel = generator.newLabel();
+            endLabel = generator.newLabel();
+            exprVisitor.jumpIf(ctx.expression(), false, elseLabel);
+        } else {
+            condition = exprVisitor.visit(ctx.expression());
+            elseLabel = generator.newLabel();
+            endLabel = generator.newLabel();
 
-        // 3. Salto condicional: if condition == false goto elseLabel
-        TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
-        ifGoto.setArg1(condition);
-        ifGoto.setArg2("0");
-        ifGoto.setRelop("==");
-        ifGoto.setLabel(elseLabel);
-        generator.addInstruction(ifGoto);
+            // 3. Salto condicional: if condition == false goto elseLabel
+            TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+            ifGoto.setArg1(condition);
+            ifGoto.setArg2("0");
+            ifGoto.setRelop("==");
+            ifGoto.setLabel(elseLabel);
+            generator.addInstruction(ifGoto);
+        }
 
         // 4. Procesar bloque THEN
         visit(ctx.block(0));
@@ -292,8 +326,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
     @Override
     public Void visitWhileStatement(CompiscriptParser.WhileStatementContext ctx) {
         // 1. Crear etiquetas (inicio y fin)
-        String startLabel = generator.newLabel();
-        String endLabel = generator.newLabel();
+        TACOperand startLabel = generator.newLabel();
+        TACOperand endLabel = generator.newLabel();
 
         // 2. Marcar inicio de loop para break/continue
         generator.enterLoop(endLabel, startLabel);
@@ -305,15 +339,21 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
 
         // 4. Evaluar condición
         TACExprVisitor exprVisitor = new TACExprVisitor(generator);
-        String condition = exprVisitor.visit(ctx.expression());
+        TACOperand condition = null;
+        if (generator.isJumpingConditions()) {
+            // 5. Condición como saltos: si es falsa salta a L2
+            exprVisitor.jumpIf(ctx.expression(), false, endLabel);
+        } else {
+            condition = exprVisitor.visit(ctx.expression());
 
-        // 5. Salto condicional: if condition == false goto L2
-        TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
-        ifGoto.setArg1(condition);
-        ifGoto.setArg2("0");
-        ifGoto.setRelop("==");
-        ifGoto.setLabel(endLabel);
-        generator.addInstruction(ifGoto);
+            // 5. Salto condicional: if condition == false goto L2
+            TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+            ifGoto.setArg1(condition);
+            ifGoto.setArg2("0");
+            ifGoto.setRelop("==");
+            ifGoto.setLabel(endLabel);
+            generator.addInstruction(ifGoto);
+        }
 
         // 6. Procesar cuerpo del while
         visit(ctx.block());
@@ -350,8 +390,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
     @Override
     public Void visitDoWhileStatement(CompiscriptParser.DoWhileStatementContext ctx) {
         // 1. Crear etiquetas (inicio y fin)
-        String startLabel = generator.newLabel();
-        String endLabel = generator.newLabel();
+        TACOperand startLabel = generator.newLabel();
+        TACOperand endLabel = generator.newLabel();
 
         // 2. Marcar inicio de loop para break/continue
         generator.enterLoop(endLabel, startLabel);
@@ -366,15 +406,21 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
 
         // 5. Evaluar condición
         TACExprVisitor exprVisitor = new TACExprVisitor(generator);
-        String condition = exprVisitor.visit(ctx.expression());
+        TACOperand condition = null;
+        if (generator.isJumpingConditions()) {
+            // 6. Condición como saltos: si es verdadera vuelve a startLabel
+            exprVisitor.jumpIf(ctx.expression(), true, startLabel);
+        } else {
+            condition = exprVisitor.visit(ctx.expression());
 
-        // 6. Generar salto: if condition != 0 goto startLabel
-        TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
-        ifGoto.setArg1(condition);
-        ifGoto.setArg2("0");
-        ifGoto.setRelop("!="); // true = cualquier valor distinto de 0
-        ifGoto.setLabel(startLabel);
-        generator.addInstruction(ifGoto);
+            // 6. Generar salto: if condition != 0 goto startLabel
+            TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+            ifGoto.setArg1(condition);
+            ifGoto.setArg2("0");
+            ifGoto.setRelop("!="); // true = cualquier valor distinto de 0
+            ifGoto.setLabel(startLabel);
+            generator.addInstruction(ifGoto);
+        }
 
         // 7. Colocar etiqueta fin (L2)
         TACInstruction endLblInstr = new TACInstruction(TACInstruction.OpType.LABEL);
@@ -415,8 +461,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         }
 
         // 2. Crear etiquetas (inicio y fin)
-        String startLabel = generator.newLabel();
-        String endLabel = generator.newLabel();
+        TACOperand startLabel = generator.newLabel();
+        TACOperand endLabel = generator.newLabel();
 
         // 3. Marcar inicio de loop
         generator.enterLoop(endLabel, startLabel);
@@ -425,10 +471,13 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         TACInstruction startLblInstr = new TACInstruction(TACInstruction.OpType.LABEL);
         startLblInstr.setLabel(startLabel);
         generator.addInstruction(startLblInstr);
-        String condition = "";
+        TACOperand condition = null;
 
         // 5. Evaluar condición si existe
-        if (ctx.expression(0) != null) {
+        if (ctx.expression(0) != null && generator.isJumpingConditions()) {
+            // 6. Condición como saltos: si es falsa salta a endLabel
+            new TACExprVisitor(generator).jumpIf(ctx.expression(0), false, endLabel);
+        } else if (ctx.expression(0) != null) {
             TACExprVisitor exprVisitor = new TACExprVisitor(generator);
             condition = exprVisitor.visit(ctx.expression(0));
 
@@ -493,7 +542,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         Symbol varSym = generator.getSymbol(varName);
 
         if (varSym == null) {
-            System.err.println(varName + " is not a variable");
+            generator.reportError(ctx.getStart().getLine(), varName + " no es una variable");
             return null;
         }
 
@@ -510,7 +559,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         }
 
         // Evaluar la expresión (llamar a exprVisitor)
-        String value = exprVisitor.visit(ctx.expression());
+        TACOperand value = exprVisitor.visit(ctx.expression());
 
         // Generar instrucción ASSIGN
         TACInstruction instr = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -545,8 +594,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         generator.setCurrentScopeLine(String.valueOf(ctx.block().start.getLine()));
 
         // Crear temporales para índice
-        String temp_index = generator.newTemp();
-        String temp_len = generator.newTemp();
+        TACOperand temp_index = generator.newTemp();
+        TACOperand temp_len = generator.newTemp();
         String itemName = ctx.Identifier().getText();
 
         // Inicializar índice = 0
@@ -556,8 +605,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         generator.addInstruction(indexInstr);
 
         // Obtener longitud de la colección
-        String listName = exprVisitor.visit(ctx.expression());
-        Symbol list = generator.getSymbol(listName);
+        TACOperand listName = exprVisitor.visit(ctx.expression());
+        Symbol list = generator.getSymbol(listName.toString());
         int listLen = (list.getDimensions() != null) ? list.getDimensions().get(0) : 0;
 
         TACInstruction lenInstr = new TACInstruction(TACInstruction.OpType.ASSIGN);
@@ -566,8 +615,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         generator.addInstruction(lenInstr);
 
         // Crear etiquetas
-        String loopLabel = generator.newLabel();
-        String loopEndLabel = generator.newLabel();
+        TACOperand loopLabel = generator.newLabel();
+        TACOperand loopEndLabel = generator.newLabel();
 
         // Marcar inicio de loop
         generator.enterLoop(temp_len, loopLabel);
@@ -576,28 +625,38 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         generator.addInstruction(loopInstr);
 
         // Crear loop mientras índice < longitud
-        TACInstruction condInstr = new TACInstruction(TACInstruction.OpType.BINARY_OP);
-        String cond_temp = generator.newTemp();
-        condInstr.setResult(cond_temp);
-        condInstr.setArg1(temp_index);
-        condInstr.setOperator("<");
-        condInstr.setArg2(temp_len);
-        generator.addInstruction(condInstr);
-
-        TACInstruction moveInstr = new TACInstruction(TACInstruction.OpType.IF_GOTO);
-        moveInstr.setArg1(cond_temp);
-        moveInstr.setRelop("==");
-        moveInstr.setArg2("0"); // FALSE
-        moveInstr.setLabel(loopEndLabel);
-        generator.addInstruction(moveInstr);
+        TACOperand cond_temp = null;
+        if (generator.isJumpingConditions()) {
+            // if índice >= longitud goto fin
+            TACInstruction moveInstr = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+            moveInstr.setArg1(temp_index);
+            moveInstr.setRelop(">=");
+            moveInstr.setArg2(temp_len);
+            moveInstr.setLabel(loopEndLabel);
+            generator.addInstruction(moveInstr);
+        } else {
+            TACInstruction condInstr = new TACInstruction(TACInstruction.OpType.BINARY_OP);
+            cond_temp = generator.newTemp();
+            condInstr.setResult(cond_temp);
+            condInstr.setArg1(temp_index);
+            condInstr.setOperator("<");
+            condInstr.setArg2(temp_len);
+            generator.addInstruction(condInstr);
+
+            TACInstruction moveInstr = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+            moveInstr.setArg1(cond_temp);
+            moveInstr.setRelop("==");
+            moveInstr.setArg2("0"); // FALSE
+            moveInstr.setLabel(loopEndLabel);
+            generator.addInstruction(moveInstr);
+        }
 
         //  Obtener elemento actual
-        String nameList = ctx.expression().getText();
-        String access_temp = generator.newTemp();
+        TACOperand access_temp = generator.newTemp();
 
         TACInstruction accessInstr = new TACInstruction(TACInstruction.OpType.ASSIGN);
         accessInstr.setResult(access_temp);
-        accessInstr.setArg1(nameList + "[" + temp_index + "]");
+        accessInstr.setArg1(TACOperand.element(listName, temp_index));
         generator.addInstruction(accessInstr);
 
         //  Asignar a variable iteradora
@@ -610,7 +669,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         visit(ctx.block()); // Revisar uso de item_name
 
         // Incrementar índice
-        String temp = generator.newTemp();
+        TACOperand temp = generator.newTemp();
         TACInstruction tempCounterInstr = new TACInstruction(TACInstruction.OpType.BINARY_OP);
         tempCounterInstr.setResult(temp);
         tempCounterInstr.setArg1(temp_index);
@@ -674,14 +733,17 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
      * L_default:
      *   print("otro")
      * L_end:
+     *
+     * Con generator.isSwitchTables() y case enteros constantes, las
+     * comparaciones se reemplazan por lowerSwitch (jump_table o árbol binario).
      */
     @Override
     public Void visitSwitchStatement(CompiscriptParser.SwitchStatementContext ctx) {
         TACExprVisitor exprVisitor = new TACExprVisitor(generator);
 
         // 1. Evaluar la expresión del switch y almacenarla en un temporal
-        String switchExpr = exprVisitor.visit(ctx.expression());
-        String switchTemp = generator.newTemp();
+        TACOperand switchExpr = exprVisitor.visit(ctx.expression());
+        TACOperand switchTemp = generator.newTemp();
         TACInstruction assignSwitch = new TACInstruction(TACInstruction.OpType.ASSIGN);
         assignSwitch.setResult(switchTemp);
         assignSwitch.setArg1(switchExpr);
@@ -689,20 +751,25 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
 
         // 2. Crear etiqueta de salida y registrar switch como contexto válido para break
         // Continue no tiene sentido en switch, por eso se pasa null
-        String endLabel = generator.newLabel();
+        TACOperand endLabel = generator.newLabel();
         generator.enterLoop(endLabel, null);
 
         // 3. Crear etiquetas para cada case
-        List<String> caseLabels = new ArrayList<>();
+        List<TACOperand> caseLabels = new ArrayList<>();
         for (int i = 0; i < ctx.switchCase().size(); i++) {
             caseLabels.add(generator.newLabel());
         }
         // Si existe default, crear su etiqueta; si no, usar endLabel
-        String defaultLabel = ctx.defaultCase() != null ? generator.newLabel() : endLabel;
-        String caseValue = "";
+        TACOperand defaultLabel = ctx.defaultCase() != null ? generator.newLabel() : endLabel;
+        TACOperand caseValue = null;
+        long[] constants = generator.isSwitchTables() ? caseConstants(ctx) : null;
+        if (constants != null) {
+            // 4-5. Despacho por tabla o árbol de comparaciones (incluye el salto al default)
+            lowerSwitch(switchTemp, constants, caseLabels, defaultLabel);
+        }
         // 4. Generar comparaciones y saltos condicionales para cada case
         // Se generan todas las comparaciones primero (optimización de saltos)
-        for (int i = 0; i < ctx.switchCase().size(); i++) {
+        for (int i = 0; constants == null && i < ctx.switchCase().size(); i++) {
             CompiscriptParser.SwitchCaseContext caseCtx = ctx.switchCase(i);
             caseValue = exprVisitor.visit(caseCtx.expression());
 
@@ -716,9 +783,11 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         }
 
         // 5. Si ningún case coincide, saltar a default (o al final si no hay default)
-        TACInstruction gotoDefault = new TACInstruction(TACInstruction.OpType.GOTO);
-        gotoDefault.setLabel(defaultLabel);
-        generator.addInstruction(gotoDefault);
+        if (constants == null) {
+            TACInstruction gotoDefault = new TACInstruction(TACInstruction.OpType.GOTO);
+            gotoDefault.setLabel(defaultLabel);
+            generator.addInstruction(gotoDefault);
+        }
 
         // 6. Generar código de cada case
         for (int i = 0; i < ctx.switchCase().size(); i++) {
@@ -774,6 +843,128 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         return null;
     }
 
+    // Despacho de switch con case constantes (generator.isSwitchTables())
+    private static final int MIN_TABLE_CASES = 4;      // menos case no justifican una tabla
+    private static final double MIN_TABLE_DENSITY = 0.4; // case / tamaño del rango
+    private static final int MAX_LINEAR_CASES = 3;     // hasta aquí se compara uno por uno
+
+    /**
+     * Valor de cada case si todos son literales enteros (null si alguno no lo es)
+     */
+    private static long[] caseConstants(CompiscriptParser.SwitchStatementContext ctx) {
+        long[] values = new long[ctx.switchCase().size()];
+        for (int i = 0; i < values.length; i++) {
+            String text = ctx.switchCase(i).expression().getText();
+            if (!text.matches("-?\\d{1,9}")) {
+                return null;
+            }
+            values[i] = Long.parseLong(text);
+        }
+        return values.length == 0 ? null : values;
+    }
+
+    /**
+     * Despacho de un switch con case constantes, sin evaluar cada case:
+     * 1. Los valores ordenados se agrupan en un barrido de izquierda a derecha:
+     *    cada grupo crece con el valor siguiente mientras la densidad (case /
+     *    tamaño del rango) sea de al menos MIN_TABLE_DENSITY; si tiene
+     *    MIN_TABLE_CASES o más case se despacha con
+     *       jump_table t [min..max] L1, L2, ... else Ldefault
+     *    (los huecos del rango van al default); si no, su primer valor va solo
+     *    y se intenta desde el siguiente. Un intento fallido recorre menos de
+     *    MIN_TABLE_CASES valores, así que agrupar es lineal en los case
+     * 2. Sobre los grupos, un árbol binario: if t >= inicio del grupo del medio
+     *    goto Lmayores, y cada mitad igual; con MAX_LINEAR_CASES valores
+     *    sueltos o menos se compara uno por uno (if t == v goto L)
+     * Un valor repetido conserva el primer case, como en la cadena lineal.
+     */
+    private void lowerSwitch(TACOperand switchTemp, long[] values, List<TACOperand> caseLabels, TACOperand defaultLabel) {
+        TreeMap<Long, TACOperand> cases = new TreeMap<>();
+        for (int i = 0; i < values.length; i++) {
+            cases.putIfAbsent(values[i], caseLabels.get(i));
+        }
+        long[] sorted = new long[cases.size()];
+        TACOperand[] labels = new TACOperand[cases.size()];
+        int n = 0;
+        for (Map.Entry<Long, TACOperand> entry : cases.entrySet()) {
+            sorted[n] = entry.getKey();
+            labels[n++] = entry.getValue();
+        }
+
+        // 1. Grupos: groups[g] = índice del primer valor; el grupo termina donde empieza el siguiente
+        List<Integer> groups = new ArrayList<>();
+        for (int i = 0; i < n; ) {
+            int end = i;
+            while (end + 1 < n && end + 2 - i >= MIN_TABLE_DENSITY * (sorted[end + 1] - sorted[i] + 1)) {
+                end++;
+            }
+            groups.add(i);
+            if (end - i + 1 >= MIN_TABLE_CASES) {
+                i = end + 1;
+            } else {
+                i++;
+            }
+        }
+        groups.add(n);
+
+        // 2. Árbol sobre los grupos
+        lowerGroups(switchTemp, sorted, labels, groups, 0, groups.size() - 2, defaultLabel);
+    }
+
+    /**
+     * Despacha los grupos first..last (índices en groups)
+     */
+    private void lowerGroups(TACOperand switchTemp, long[] values, TACOperand[] labels, List<Integer> groups,
+                             int first, int last, TACOperand defaultLabel) {
+        if (first == last && groups.get(last + 1) - groups.get(first) >= MIN_TABLE_CASES) {
+            int lo = groups.get(first);
+            int hi = groups.get(last + 1) - 1;
+            TACInstruction table = new TACInstruction(TACInstruction.OpType.JUMP_TABLE);
+            table.setArg1(switchTemp);
+            table.setArg2(TACOperand.integer(values[lo]));
+            table.setLabel(defaultLabel);
+            int next = lo;
+            for (long value = values[lo]; value <= values[hi]; value++) {
+                if (values[next] == value) {
+                    table.addParam(labels[next++]);
+                } else {
+                    table.addParam(defaultLabel);
+                }
+            }
+            generator.addInstruction(table);
+            return;
+        }
+        boolean allSingle = groups.get(last + 1) - groups.get(first) == last - first + 1;
+        if (allSingle && last - first + 1 <= MAX_LINEAR_CASES) {
+            for (int i = groups.get(first); i < groups.get(last + 1); i++) {
+                TACInstruction ifGoto = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+                ifGoto.setArg1(switchTemp);
+                ifGoto.setArg2(TACOperand.integer(values[i]));
+                ifGoto.setRelop("==");
+                ifGoto.setLabel(labels[i]);
+                generator.addInstruction(ifGoto);
+            }
+            TACInstruction gotoDefault = new TACInstruction(TACInstruction.OpType.GOTO);
+            gotoDefault.setLabel(defaultLabel);
+            generator.addInstruction(gotoDefault);
+            return;
+        }
+        int mid = first + (last - first + 1) / 2;
+        TACOperand upperLabel = generator.newLabel();
+        TACInstruction split = new TACInstruction(TACInstruction.OpType.IF_GOTO);
+        split.setArg1(switchTemp);
+        split.setArg2(TACOperand.integer(values[groups.get(mid)]));
+        split.setRelop(">=");
+        split.setLabel(upperLabel);
+        generator.addInstruction(split);
+        lowerGroups(switchTemp, values, labels, groups, first, mid - 1, defaultLabel);
+
+        TACInstruction upper = new TACInstruction(TACInstruction.OpType.LABEL);
+        upper.setLabel(upperLabel);
+        generator.addInstruction(upper);
+        lowerGroups(switchTemp, values, labels, groups, mid, last, defaultLabel);
+    }
+
 
     /**
      * Break statement:
@@ -785,7 +976,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
     @Override
     public Void visitBreakStatement(CompiscriptParser.BreakStatementContext ctx) {
         // 1. Obtener etiqueta de break actual
-        String breakLabel = generator.getCurrentBreakLabel();
+        TACOperand breakLabel = generator.getCurrentBreakLabel();
         // 2. Validar que estamos dentro de un loop o switch
         // 3. Generar goto a la etiqueta de salida
         TACInstruction gotoBreak = new TACInstruction(TACInstruction.OpType.GOTO);
@@ -805,7 +996,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
     @Override
     public Void visitContinueStatement(CompiscriptParser.ContinueStatementContext ctx) {
         // 1. Obtener etiqueta de continue actual
-        String continueLabel = generator.getCurrentContinueLabel();
+        TACOperand continueLabel = generator.getCurrentContinueLabel();
 
         // 2. Verificar que exista (si no, error)
         if (continueLabel != null) {
@@ -813,7 +1004,7 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
             gotoContinue.setLabel(continueLabel);
             generator.addInstruction(gotoContinue);
         } else {
-            System.err.println("ERROR: continue fuera de un loop");
+            generator.reportError(ctx.getStart().getLine(), "continue fuera de un loop");
         }
 
         return null;
@@ -837,8 +1028,8 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
     @Override
     public Void visitTryCatchStatement(CompiscriptParser.TryCatchStatementContext ctx) {
         // 1. Crear etiquetas
-        String catchLabel = generator.newLabel();
-        String endLabel = generator.newLabel();
+        TACOperand catchLabel = generator.newLabel();
+        TACOperand endLabel = generator.newLabel();
 
         // 2. Marcar inicio de región try (registrar handler)
         TACInstruction tryBegin = new TACInstruction(TACInstruction.OpType.TRY_BEGIN);
@@ -868,7 +1059,6 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         assignEx.setResult(catchVar);
         assignEx.setArg1("exception");  // Valor abstracto que el runtime provee
         generator.addInstruction(assignEx);
-        generator.freeTemp(catchVar);
 
         // 8. Procesar bloque catch
         visit(ctx.block(1));
@@ -899,10 +1089,9 @@ public class TACStmtVisitor extends CompiscriptBaseVisitor<Void> {
         generator.setCurrentScopeLine(String.valueOf(ctx.start.getLine()));
         Symbol classSym = generator.getSymbol(className);
 
-        // Obtener clase padre (si existe)
-        String parentName = null;
+        // Registrar clase padre (si existe): el TAC no la menciona
         if (ctx.Identifier(1) != null) {
-            parentName = ctx.Identifier(1).getText();
+            generator.recordSuperclass(className, ctx.Identifier(1).getText());
         }
         // Marcar inicio de clase:
         generator.enterClass(className);
@@ -0,0 +1,674 @@
+package com.fmd;
+
+import com.fmd.modules.ArrayLayout;
+import com.fmd.modules.TACInstruction;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.fmd.TACBytecode.*;
+
+/**
+ * Máquina virtual del TAC
+ *
+ * Ejecuta un TACBytecode (el TAC ya decodificado a enteros) con un ciclo de
+ * despacho sobre el opcode: las etiquetas ya son posiciones y los operandos
+ * slots, así que ejecutar no busca nombres ni compara strings. Sirve para
+ * comprobar que un nivel de TACOptimizer no cambia lo que imprime un
+ * programa y para medir cuántas instrucciones ejecuta (getSteps).
+ *
+ * - Cada llamada crea un frame con los slots de la función; el enlace
+ *   estático apunta al frame de la función que la contiene (closures)
+ * - Los enteros son de 32 bits como en ConstantFoldingPass; los booleanos
+ *   son 1 y 0. "+" con un string concatena
+ * - "new C(args)" crea el objeto con los campos de la clase, corre los
+ *   inicializadores de "Class C:" (antes los de sus superclases) y después
+ *   su método constructor. Los métodos y el constructor que C no define
+ *   se buscan en sus superclases (ver TACBytecode.ClassLayout)
+ * - Un error (división entre cero, índice fuera de rango, null, ...) salta
+ *   al catch del try que protege la instrucción (TACBytecode.handlers) o,
+ *   si no hay, al de la llamada en curso de cada caller, con el mensaje en
+ *   exception. Sin catch, run lanza RuntimeError
+ * - Un arreglo guarda sus elementos por filas como ArrayLayout, así que
+ *   "&m" y "[t]" de ArrayLoweringPass leen lo mismo que "m[i][j]"
+ */
+public class TACVirtualMachine {
+
+    /**
+     * Error del programa que no atrapó ningún try
+     */
+    public static class RuntimeError extends RuntimeException {
+        public RuntimeError(String message) {
+            super(message);
+        }
+    }
+
+    private final TACBytecode program;
+    private final int[] code;
+    private final int[] extra;
+    private final Object[] constants;
+
+    private Object[] globals;
+    private Object exception;
+    private final List<String> output = new ArrayList<>();
+    private PrintStream echo;
+    private long maxSteps = Long.MAX_VALUE;
+    private long steps;
+
+    public TACVirtualMachine(TACBytecode program) {
+        this.program = program;
+        this.code = program.code;
+        this.extra = program.extra;
+        this.constants = program.constants;
+    }
+
+    /**
+     * Decodifica y prepara el TAC de un generador (ver TACBytecode.decode)
+     */
+    public static TACVirtualMachine of(List<TACInstruction> instructions, TACGenerator generator) {
+        return new TACVirtualMachine(TACBytecode.decode(instructions, generator));
+    }
+
+    public TACBytecode getProgram() {
+        return program;
+    }
+
+    /**
+     * Además de guardarlo, escribe lo que imprime el programa en out
+     */
+    public void setEcho(PrintStream out) {
+        this.echo = out;
+    }
+
+    /**
+     * Instrucciones que puede ejecutar run antes de detenerse con IllegalStateException
+     */
+    public void setMaxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Líneas impresas por el último run, también si terminó con un error
+     */
+    public List<String> getOutput() {
+        return Collections.unmodifiableList(output);
+    }
+
+    /**
+     * Instrucciones ejecutadas por el último run
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Ejecuta el programa desde el inicio
+     *
+     * @return líneas impresas con print
+     * @throws RuntimeError si un error no lo atrapa ningún try
+     */
+    public List<String> run() {
+        output.clear();
+        exception = null;
+        steps = 0;
+        globals = new Object[program.globals.length];
+
+        Frame frame = new Frame(program.mainFrameSize, null, null, null, 0, NONE_OPERAND);
+        int pc = 0;
+        while (true) {
+            if (++steps > maxSteps) {
+                throw new IllegalStateException("Se alcanzó el límite de " + maxSteps + " instrucciones");
+            }
+            int at = pc * 4;
+            int x = code[at + 1];
+            int y = code[at + 2];
+            int z = code[at + 3];
+            pc++;
+            try {
+                switch (code[at]) {
+                    case MOVE -> set(frame, x, get(frame, y));
+                    case ADD -> set(frame, x, add(get(frame, y), get(frame, z)));
+                    case SUB -> set(frame, x, subtract(get(frame, y), get(frame, z)));
+                    case MUL -> set(frame, x, (long) (integer(get(frame, y)) * integer(get(frame, z))));
+                    case DIV -> set(frame, x, (long) (integer(get(frame, y)) / divisor(get(frame, z))));
+                    case MOD -> set(frame, x, (long) (integer(get(frame, y)) % divisor(get(frame, z))));
+                    case LT -> set(frame, x, bool(compare(get(frame, y), get(frame, z)) < 0));
+                    case LE -> set(frame, x, bool(compare(get(frame, y), get(frame, z)) <= 0));
+                    case GT -> set(frame, x, bool(compare(get(frame, y), get(frame, z)) > 0));
+                    case GE -> set(frame, x, bool(compare(get(frame, y), get(frame, z)) >= 0));
+                    case EQ -> set(frame, x, bool(same(get(frame, y), get(frame, z))));
+                    case NE -> set(frame, x, bool(!same(get(frame, y), get(frame, z))));
+                    case AND -> set(frame, x, bool(truthy(get(frame, y)) && truthy(get(frame, z))));
+                    case OR -> set(frame, x, bool(truthy(get(frame, y)) || truthy(get(frame, z))));
+                    case NEG -> set(frame, x, (long) -integer(get(frame, y)));
+                    case NOT -> set(frame, x, bool(!truthy(get(frame, y))));
+                    case ADDR -> set(frame, x, new Pointer(array(frame, y, z), 0));
+                    case LOAD_ELEM -> set(frame, x, loadElement(frame, get(frame, y), z));
+                    case STORE_ELEM -> storeElement(frame, x, y, get(frame, z));
+                    case LOAD_FIELD -> set(frame, x, object(get(frame, y)).get(z));
+                    case STORE_FIELD -> object(get(frame, x)).set(y, get(frame, z));
+                    case LOAD_MEM -> set(frame, x, pointer(get(frame, y)).load());
+                    case STORE_MEM -> pointer(get(frame, x)).store(get(frame, y));
+                    case GOTO -> pc = x;
+                    case IF_EQ -> pc = same(get(frame, x), get(frame, y)) ? z : pc;
+                    case IF_NE -> pc = !same(get(frame, x), get(frame, y)) ? z : pc;
+                    case IF_LT -> pc = compare(get(frame, x), get(frame, y)) < 0 ? z : pc;
+                    case IF_LE -> pc = compare(get(frame, x), get(frame, y)) <= 0 ? z : pc;
+                    case IF_GT -> pc = compare(get(frame, x), get(frame, y)) > 0 ? z : pc;
+                    case IF_GE -> pc = compare(get(frame, x), get(frame, y)) >= 0 ? z : pc;
+                    case JUMP_TABLE -> {
+                        long k = integer(get(frame, x)) - (long) y;
+                        int entries = extra[z];
+                        pc = k >= 0 && k < entries ? extra[z + 1 + (int) k] : extra[z + 1 + entries];
+                    }
+                    case CALL_FN -> {
+                        int entry = index(y);
+                        TACBytecode.Function fn = program.functions[program.closureFunction[entry]];
+                        frame = enter(fn, up(frame, program.closureHops[entry]), frame.self, frame, z, pc, x);
+                        pc = fn.entry();
+                    }
+                    case CALL_VALUE -> {
+                        if (!(get(frame, y) instanceof Closure closure)) {
+                            throw new RuntimeError("No es una función: " + format(get(frame, y)));
+                        }
+                        TACBytecode.Function fn = program.functions[closure.function];
+                        frame = enter(fn, closure.link, closure.self, frame, z, pc, x);
+                        pc = fn.entry();
+                    }
+                    case CALL_METHOD -> {
+                        ObjectValue self = object(get(frame, y));
+                        int name = extra[z];
+                        int method = name < self.layout.methods().length ? self.layout.methods()[name] : -1;
+                        if (method < 0) {
+                            throw new RuntimeError("Método desconocido: " + self.layout.name() + "."
+                                    + program.names[name]);
+                        }
+                        TACBytecode.Function fn = program.functions[method];
+                        frame = enter(fn, null, self, frame, z + 1, pc, x);
+                        pc = fn.entry();
+                    }
+                    case PRINT -> {
+                        StringBuilder line = new StringBuilder();
+                        for (int i = 0; i < extra[y]; i++) {
+                            line.append(i > 0 ? " " : "").append(format(get(frame, extra[y + 1 + i])));
+                        }
+                        print(line.toString());
+                        set(frame, x, null);
+                    }
+                    case NEW -> {
+                        if (y < 0) {
+                            throw new RuntimeError("Clase desconocida: " + constants[index(-1 - y)]);
+                        }
+                        TACBytecode.ClassLayout layout = program.classes[y];
+                        ObjectValue object = new ObjectValue(layout);
+                        set(frame, x, object);
+                        // Primero los inicializadores de campos (de la superclase más
+                        // lejana a la clase), al retornar el constructor
+                        Frame caller = frame;
+                        int returnPc = pc;
+                        if (layout.constructor() >= 0) {
+                            TACBytecode.Function constructor = program.functions[layout.constructor()];
+                            caller = enter(constructor, null, object, frame, z, pc, NONE_OPERAND);
+                            returnPc = constructor.entry();
+                        }
+                        for (TACBytecode.ClassLayout c = layout; c != null;
+                             c = c.superclass() >= 0 ? program.classes[c.superclass()] : null) {
+                            caller = new Frame(c.initFrameSize(), null, object, caller, returnPc, NONE_OPERAND);
+                            returnPc = c.initEntry();
+                        }
+                        frame = caller;
+                        pc = returnPc;
+                    }
+                    case RETURN, RETURN_NULL -> {
+                        Object value = code[at] == RETURN ? get(frame, x) : null;
+                        Frame caller = frame.caller;
+                        if (caller == null) {
+                            return Collections.unmodifiableList(new ArrayList<>(output));
+                        }
+                        set(caller, frame.returnDst, value);
+                        pc = frame.returnPc;
+                        frame = caller;
+                    }
+                    case TRY, TRY_END -> {
+                        // Cada instrucción ya sabe qué try la protege (ver TACBytecode.handlers)
+                    }
+                    case CHECK_INDEX -> checkIndex(integer(get(frame, x)), integer(get(frame, y)));
+                    case HALT -> {
+                        return Collections.unmodifiableList(new ArrayList<>(output));
+                    }
+                    default -> throw new IllegalStateException("Instrucción desconocida: " + code[at]);
+                }
+            } catch (RuntimeError | ClassCastException | NullPointerException e) {
+                // pc - 1 es la instrucción que falló; en un caller, la llamada en curso
+                int handler = program.handlers[pc - 1];
+                while (handler < 0 && frame.caller != null) {
+                    pc = frame.returnPc;
+                    frame = frame.caller;
+                    handler = program.handlers[pc - 1];
+                }
+                if (handler < 0) {
+                    throw e instanceof RuntimeError error ? error : new RuntimeError(message(e));
+                }
+                exception = message(e);
+                pc = code[handler * 4 + 1];
+            }
+        }
+    }
+
+    private static final int NONE_OPERAND = operand(NONE, 0);
+
+    private static String message(RuntimeException e) {
+        if (e instanceof RuntimeError) {
+            return e.getMessage();
+        }
+        return e instanceof NullPointerException ? "Acceso a null" : "Tipo inválido";
+    }
+
+    private void print(String line) {
+        output.add(line);
+        if (echo != null) {
+            echo.println(line);
+        }
+    }
+
+    // ---- Frames
+
+    private static final class Frame {
+        final Object[] slots;
+        final Frame link;
+        final ObjectValue self;
+        final Frame caller;
+        final int returnPc;
+        // Operando del caller que recibe el valor de return
+        final int returnDst;
+
+        Frame(int size, Frame link, ObjectValue self, Frame caller, int returnPc, int returnDst) {
+            this.slots = new Object[size];
+            this.link = link;
+            this.self = self;
+            this.caller = caller;
+            this.returnPc = returnPc;
+            this.returnDst = returnDst;
+        }
+    }
+
+    /**
+     * Frame de fn con los argumentos de la lista args (en extra) leídos en caller
+     */
+    private Frame enter(TACBytecode.Function fn, Frame link, ObjectValue self, Frame caller, int args, int returnPc,
+                        int returnDst) {
+        Frame frame = new Frame(fn.frameSize(), link, self, caller, returnPc, returnDst);
+        int[] params = fn.paramSlots();
+        int count = Math.min(extra[args], params.length);
+        for (int i = 0; i < count; i++) {
+            frame.slots[params[i]] = get(caller, extra[args + 1 + i]);
+        }
+        return frame;
+    }
+
+    // Frame hops enlaces estáticos hacia afuera (null si hops < 0)
+    private static Frame up(Frame frame, int hops) {
+        if (hops < 0) {
+            return null;
+        }
+        for (int i = 0; i < hops; i++) {
+            frame = frame.link;
+        }
+        return frame;
+    }
+
+    private Object get(Frame frame, int operand) {
+        int index = operand & 0xFFFFFF;
+        switch (operand >>> 24) {
+            case LOCAL: return frame.slots[index];
+            case GLOBAL: return globals[index];
+            case CONST: return constants[index];
+            case UPVAL: return up(frame, program.upvalHops[index]).slots[program.upvalSlots[index]];
+            case FIELD: return frame.self.fields[index];
+            case THIS: return frame.self;
+            case EXCEPTION: return exception;
+            case FUNC: return new Closure(program.closureFunction[index], up(frame, program.closureHops[index]),
+                    frame.self);
+            default: return null;
+        }
+    }
+
+    private void set(Frame frame, int operand, Object value) {
+        int index = operand & 0xFFFFFF;
+        switch (operand >>> 24) {
+            case LOCAL -> frame.slots[index] = value;
+            case GLOBAL -> globals[index] = value;
+            case UPVAL -> up(frame, program.upvalHops[index]).slots[program.upvalSlots[index]] = value;
+            case FIELD -> frame.self.fields[index] = value;
+            default -> {
+            }
+        }
+    }
+
+    // ---- Valores
+
+    /**
+     * Función con el frame de la función que la contiene
+     */
+    private record Closure(int function, Frame link, ObjectValue self) {
+    }
+
+    private static final class ObjectValue {
+        final TACBytecode.ClassLayout layout;
+        final Object[] fields;
+        // Campos que no declara la clase
+        Map<Integer, Object> others;
+
+        ObjectValue(TACBytecode.ClassLayout layout) {
+            this.layout = layout;
+            this.fields = new Object[layout.fields().length];
+        }
+
+        Object get(int name) {
+            int slot = name < layout.fieldSlots().length ? layout.fieldSlots()[name] : -1;
+            if (slot >= 0) {
+                return fields[slot];
+            }
+            return others == null ? null : others.get(name);
+        }
+
+        void set(int name, Object value) {
+            int slot = name < layout.fieldSlots().length ? layout.fieldSlots()[name] : -1;
+            if (slot >= 0) {
+                fields[slot] = value;
+                return;
+            }
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            others.put(name, value);
+        }
+    }
+
+    /**
+     * Arreglo: con forma (ArrayLayout) los elementos van por filas en data;
+     * sin forma crece al guardar y cada fila es otro ArrayValue
+     */
+    private static final class ArrayValue {
+        final ArrayLayout layout;
+        Object[] data;
+        int size;
+
+        ArrayValue(ArrayLayout layout) {
+            this.layout = layout;
+            int count = 1;
+            if (layout != null) {
+                for (int dimension : layout.dimensions()) {
+                    count *= dimension;
+                }
+            }
+            this.data = new Object[layout != null ? count : 4];
+            this.size = layout != null ? count : 0;
+        }
+
+        int elementSize() {
+            return layout != null ? layout.elementSize() : 4;
+        }
+    }
+
+    /**
+     * Fila de una matriz: los índices ya aplicados llegan a base (en elementos)
+     */
+    private record Row(ArrayValue array, int depth, int base) {
+    }
+
+    /**
+     * Dirección de ArrayLoweringPass: offset en bytes desde el primer elemento
+     */
+    private record Pointer(ArrayValue array, long offset) {
+
+        int element() {
+            int size = array.elementSize();
+            if (offset < 0 || offset % size != 0 || offset / size >= array.size) {
+                throw new RuntimeError("Dirección fuera del arreglo: " + offset);
+            }
+            return (int) (offset / size);
+        }
+
+        Object load() {
+            return array.data[element()];
+        }
+
+        void store(Object value) {
+            array.data[element()] = value;
+        }
+    }
+
+    /**
+     * Arreglo guardado en el operando; si es null se crea con la forma layout
+     */
+    private ArrayValue array(Frame frame, int operand, int layout) {
+        Object value = get(frame, operand);
+        if (value == null) {
+            ArrayValue created = new ArrayValue(layout >= 0 ? program.layouts[layout] : null);
+            set(frame, operand, created);
+            return created;
+        }
+        if (value instanceof Row row) {
+            throw new RuntimeError("Dirección de una fila: " + format(row));
+        }
+        return (ArrayValue) value;
+    }
+
+    // [forma + 1, cantidad, índices...]
+    private Object loadElement(Frame frame, Object value, int list) {
+        int count = extra[list + 1];
+        for (int i = 0; i < count; i++) {
+            value = element(value, integer(get(frame, extra[list + 2 + i])));
+        }
+        return value;
+    }
+
+    /**
+     * Guarda en base[i][j]...: el arreglo se crea si base es null y, sin
+     * forma conocida, también las filas que faltan
+     */
+    private void storeElement(Frame frame, int base, int list, Object value) {
+        int layout = extra[list] - 1;
+        int count = extra[list + 1];
+        Object target = get(frame, base);
+        if (target == null) {
+            target = new ArrayValue(layout >= 0 ? program.layouts[layout] : null);
+            set(frame, base, target);
+        }
+        for (int k = 0; k < count - 1; k++) {
+            int i = integer(get(frame, extra[list + 2 + k]));
+            Object next;
+            if (target instanceof ArrayValue array && array.layout == null) {
+                next = i >= 0 && i < array.size ? array.data[i] : null;
+                if (next == null) {
+                    next = new ArrayValue(null);
+                    put(array, i, next);
+                }
+            } else {
+                next = element(target, i);
+            }
+            target = next;
+        }
+        put(target, integer(get(frame, extra[list + 1 + count])), value);
+    }
+
+    private static void put(Object target, int i, Object value) {
+        if (target instanceof ArrayValue array && array.layout == null) {
+            if (i < 0) {
+                throw new RuntimeError("Índice fuera de rango: " + i);
+            }
+            if (i >= array.data.length) {
+                array.data = Arrays.copyOf(array.data, Math.max(i + 1, array.data.length * 2));
+            }
+            array.data[i] = value;
+            array.size = Math.max(array.size, i + 1);
+        } else if (target instanceof ArrayValue array && array.layout.rank() == 1) {
+            checkIndex(i, array.size);
+            array.data[i] = value;
+        } else if (target instanceof Row row && row.depth + 1 == row.array.layout.rank()) {
+            ArrayLayout layout = row.array.layout;
+            checkIndex(i, layout.dimensions().get(row.depth));
+            row.array.data[row.base + i] = value;
+        } else if (target instanceof ArrayValue || target instanceof Row) {
+            throw new RuntimeError("No se puede reemplazar una fila de " + format(target));
+        } else {
+            throw new RuntimeError(target == null ? "Acceso a null" : "No es un arreglo: " + format(target));
+        }
+    }
+
+    private Object element(Object value, int i) {
+        if (value instanceof ArrayValue array) {
+            if (array.layout == null || array.layout.rank() == 1) {
+                checkIndex(i, array.size);
+                return array.data[i];
+            }
+            return row(new Row(array, 0, 0), i);
+        }
+        if (value instanceof Row row) {
+            return row(row, i);
+        }
+        if (value == null) {
+            throw new RuntimeError("Acceso a null");
+        }
+        throw new RuntimeError("No es un arreglo: " + format(value));
+    }
+
+    private static Object row(Row row, int i) {
+        ArrayLayout layout = row.array.layout;
+        checkIndex(i, layout.dimensions().get(row.depth));
+        int base = row.base + i * layout.stride(row.depth) / layout.elementSize();
+        return row.depth + 1 == layout.rank() ? row.array.data[base] : new Row(row.array, row.depth + 1, base);
+    }
+
+    private static void checkIndex(int i, int size) {
+        if (i < 0 || i >= size) {
+            throw new RuntimeError("Índice fuera de rango: " + i);
+        }
+    }
+
+    private static Object add(Object a, Object b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            return (long) ((int) (long) x + (int) (long) y);
+        }
+        if (a instanceof String || b instanceof String) {
+            return format(a) + format(b);
+        }
+        if (a instanceof Pointer p && b instanceof Long n) {
+            return new Pointer(p.array, p.offset + n);
+        }
+        if (a instanceof Long n && b instanceof Pointer p) {
+            return new Pointer(p.array, p.offset + n);
+        }
+        throw new RuntimeError("No se puede sumar " + format(a) + " + " + format(b));
+    }
+
+    private static Object subtract(Object a, Object b) {
+        if (a instanceof Pointer p && b instanceof Long n) {
+            return new Pointer(p.array, p.offset - n);
+        }
+        return (long) (integer(a) - integer(b));
+    }
+
+    private static int integer(Object value) {
+        if (value instanceof Long n) {
+            return (int) (long) n;
+        }
+        throw new RuntimeError(value == null ? "Acceso a null" : "No es un entero: " + format(value));
+    }
+
+    private static int divisor(Object value) {
+        int y = integer(value);
+        if (y == 0) {
+            throw new RuntimeError("División entre cero");
+        }
+        return y;
+    }
+
+    private static int compare(Object a, Object b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            return Integer.compare((int) (long) x, (int) (long) y);
+        }
+        if (a instanceof String x && b instanceof String y) {
+            return x.compareTo(y);
+        }
+        if (a instanceof Pointer x && b instanceof Pointer y && x.array == y.array) {
+            return Long.compare(x.offset, y.offset);
+        }
+        throw new RuntimeError("No se puede comparar " + format(a) + " con " + format(b));
+    }
+
+    private static boolean same(Object a, Object b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            return (int) (long) x == (int) (long) y;
+        }
+        if (a instanceof String || a instanceof Pointer) {
+            return Objects.equals(a, b);
+        }
+        return a == b;
+    }
+
+    private static boolean truthy(Object value) {
+        return value instanceof Long n ? (int) (long) n != 0 : value != null;
+    }
+
+    private static Long bool(boolean value) {
+        return value ? 1L : 0L;
+    }
+
+    private static ObjectValue object(Object value) {
+        if (value instanceof ObjectValue object) {
+            return object;
+        }
+        throw new RuntimeError(value == null ? "Acceso a null" : "No es un objeto: " + format(value));
+    }
+
+    private static Pointer pointer(Object value) {
+        if (value instanceof Pointer pointer) {
+            return pointer;
+        }
+        throw new RuntimeError("No es una dirección: " + format(value));
+    }
+
+    /**
+     * Texto de un valor como lo muestra print
+     */
+    private static String format(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof ObjectValue object) {
+            return object.layout.name();
+        }
+        if (value instanceof Closure) {
+            return "function";
+        }
+        if (value instanceof ArrayValue array) {
+            if (array.layout != null && array.layout.rank() > 1) {
+                return format(new Row(array, 0, 0));
+            }
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < array.size; i++) {
+                sb.append(i > 0 ? ", " : "").append(format(array.data[i]));
+            }
+            return sb.append("]").toString();
+        }
+        if (value instanceof Row row) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < row.array.layout.dimensions().get(row.depth); i++) {
+                sb.append(i > 0 ? ", " : "").append(format(row(row, i)));
+            }
+            return sb.append("]").toString();
+        }
+        if (value instanceof Pointer pointer) {
+            return "&" + pointer.offset;
+        }
+        return value.toString();
+    }
+}
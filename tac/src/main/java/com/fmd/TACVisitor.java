@@ -1,10 +1,12 @@
 package com.fmd;
 
 import com.fmd.modules.Symbol;
+import com.fmd.modules.TACInstruction;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Visitor Coordinador Principal
@@ -14,7 +16,7 @@ import java.util.Map;
  * - Crea e inicializa el TACGenerator
  * - Crea e inicializa TACExprVisitor y TACStmtVisitor
  * - Coordina el recorrido del programa
- * - Imprime el TAC generado
+ * - Deja el TAC generado en el TACGenerator (Main se encarga de imprimirlo)
  *
  * FLUJO:
  * 1. Main llama a TACVisitor.visit(tree)
@@ -22,7 +24,10 @@ import java.util.Map;
  * 3. TACVisitor delega cada statement a stmtVisitor
  * 4. stmtVisitor usa exprVisitor cuando necesita evaluar expresiones
  * 5. Ambos visitors usan el mismo generator
- * 6. Al final, TACVisitor imprime todas las instrucciones
+ * 6. Al final, las instrucciones quedan en generator.getInstructions()
+ *
+ * Cada instancia es independiente (sin estado estático ni consola), por lo que
+ * se pueden compilar programas en paralelo con un TACVisitor por programa.
  */
 public class TACVisitor extends CompiscriptBaseVisitor<Void> {
 
@@ -44,6 +49,15 @@ public class TACVisitor extends CompiscriptBaseVisitor<Void> {
         this.stmtVisitor = new TACStmtVisitor(generator, exprVisitor);
     }
 
+    /**
+     * Constructor en modo streaming: cada instrucción se entrega a sink
+     * apenas se genera y no queda guardada en el generator
+     */
+    public TACVisitor(Map<String, SemanticVisitor.Entorno> scopeTable, Consumer<TACInstruction> sink) {
+        this(scopeTable);
+        generator.setInstructionSink(sink);
+    }
+
     /**
      * Punto de entrada: procesa el programa
      */
@@ -54,10 +68,8 @@ public class TACVisitor extends CompiscriptBaseVisitor<Void> {
             stmtVisitor.visit(stmt);
         }
 
-        // Imprimir resultados
-        System.out.println("TAC GENERADO\n");
-
-        generator.printInstructions();
+        // La impresión queda a cargo de quien llama (Main): el servidor no debe
+        // competir por la consola en cada petición
         return null;
     }
 
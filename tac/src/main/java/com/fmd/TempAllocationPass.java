@@ -0,0 +1,116 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Asignación de temporales por rangos de vida
+ *
+ * Para cada función (y para el código global) calcula el intervalo en que
+ * cada temporal está vivo sobre el orden de las instrucciones, y colorea los
+ * intervalos con el mínimo de temporales: los intervalos se recorren por
+ * inicio y cada uno toma el temporal libre más bajo; al cruzar el final de
+ * un intervalo su temporal vuelve a estar libre. En un grafo de intervalos
+ * ese recorrido usa exactamente el máximo de temporales vivos a la vez.
+ *
+ * POSICIONES: la instrucción i lee en 2i y escribe en 2i+1, así "t2 = t1 + 1"
+ * puede reutilizar t1 para t2. Un temporal vivo a la entrada de un bloque
+ * abarca desde su primera instrucción; vivo a la salida, hasta después de la
+ * última (ver Liveness). El intervalo es la envolvente de esos puntos.
+ *
+ * Cada función se numera desde t1: los temporales son locales a su marco.
+ * Pensada para el TAC con setRecycleTemps(false), donde cada temporal es
+ * nuevo; con el reciclaje por defecto también es correcta.
+ */
+public class TempAllocationPass implements TACPass {
+
+    @Override
+    public String name() {
+        return "temp-allocation";
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(instructions);
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            allocate(graph);
+        }
+        return cfg.toInstructions();
+    }
+
+    private static void allocate(ControlFlowGraph graph) {
+        Liveness liveness = Liveness.compute(graph);
+
+        // 1. Intervalos: temporal → {inicio, fin}
+        Map<Integer, int[]> intervals = new HashMap<>();
+        int index = 0;
+        for (BasicBlock block : graph.getBlocks()) {
+            int first = index;
+            for (int temp : liveness.liveIn(block)) {
+                extend(intervals, temp, 2 * first);
+            }
+            for (TACInstruction instr : block.getInstructions()) {
+                for (int temp : Liveness.reads(instr)) {
+                    extend(intervals, temp, 2 * index);
+                }
+                TACOperand written = instr.getWritten();
+                if (written != null && written.isTemp()) {
+                    extend(intervals, written.getId(), 2 * index + 1);
+                }
+                index++;
+            }
+            for (int temp : liveness.liveOut(block)) {
+                extend(intervals, temp, 2 * index);
+            }
+        }
+
+        // 2. Colorear por inicio; el temporal libre más bajo primero
+        List<Map.Entry<Integer, int[]>> order = new ArrayList<>(intervals.entrySet());
+        order.sort(Comparator.comparingInt((Map.Entry<Integer, int[]> e) -> e.getValue()[0])
+                .thenComparingInt(Map.Entry::getKey));
+        PriorityQueue<int[]> active = new PriorityQueue<>(Comparator.comparingInt(a -> a[0])); // {fin, slot}
+        PriorityQueue<Integer> free = new PriorityQueue<>();
+        int slots = 0;
+        Map<Integer, Integer> rename = new HashMap<>(intervals.size() * 2);
+        for (Map.Entry<Integer, int[]> entry : order) {
+            int start = entry.getValue()[0];
+            while (!active.isEmpty() && active.peek()[0] < start) {
+                free.add(active.poll()[1]);
+            }
+            int slot = free.isEmpty() ? ++slots : free.poll();
+            active.add(new int[] { entry.getValue()[1], slot });
+            rename.put(entry.getKey(), slot);
+        }
+
+        // 3. Renombrar
+        for (BasicBlock block : graph.getBlocks()) {
+            ListIterator<TACInstruction> it = block.getInstructions().listIterator();
+            while (it.hasNext()) {
+                TACInstruction instr = it.next();
+                TACInstruction renamed = instr.mapTemps(temp -> rename.getOrDefault(temp, temp));
+                if (renamed != instr) {
+                    it.set(renamed);
+                }
+            }
+        }
+    }
+
+    private static void extend(Map<Integer, int[]> intervals, int temp, int position) {
+        int[] interval = intervals.get(temp);
+        if (interval == null) {
+            intervals.put(temp, new int[] { position, position });
+        } else {
+            interval[0] = Math.min(interval[0], position);
+            interval[1] = Math.max(interval[1], position);
+        }
+    }
+}
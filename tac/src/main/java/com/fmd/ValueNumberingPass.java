@@ -0,0 +1,230 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Eliminación de subexpresiones comunes por numeración de valores local
+ *
+ * "a[i] + a[i]" o "p.x * p.x" generan dos cargas iguales, e "(i * 2) + (i * 2)"
+ * dos multiplicaciones. Por bloque básico, cada temporal, variable y literal
+ * recibe un número de valor; un ASSIGN de copia le pasa su número al destino.
+ * Las expresiones se identifican por operador y números de sus operandos
+ * (con los operandos ordenados si el operador es conmutativo), y las cargas
+ * "tN = a[tM]" / "tN = p.x" por su texto con los temporales reemplazados por
+ * su número. Si una expresión ya se calculó y algún temporal o variable
+ * todavía guarda ese valor, la instrucción se vuelve una copia de él
+ * ("t2 = a[i]" → "t2 = t1"), que CopyPropagationPass propaga y
+ * DeadCodeEliminationPass quita.
+ *
+ * Invalidación:
+ * - escribir un temporal o variable le da un número nuevo (las expresiones
+ *   que lo tenían siguen valiendo si otro operando guarda el mismo valor)
+ * - escribir una variable olvida las cargas que la nombran ("a[i]" si cambia i o a)
+ * - un store a un elemento o campo olvida todas las cargas (alias)
+ * - call, new y un store a un campo: olvidan además los valores de las variables
+ *
+ * Un operando que ya es un elemento o campo ("a[t1]" usado directamente) no
+ * se numera: cada lectura es un valor nuevo.
+ */
+public class ValueNumberingPass implements TACPass {
+
+    // Operadores con a op b == b op a ("+" no: también concatena strings)
+    private static final Set<String> COMMUTATIVE = Set.of("*", "==", "!=", "&&", "||");
+
+    @Override
+    public String name() {
+        return "value-numbering";
+    }
+
+    @Override
+    public List<TACInstruction> run(List<TACInstruction> instructions) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(instructions);
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            for (BasicBlock block : graph.getBlocks()) {
+                number(block.getInstructions());
+            }
+        }
+        return cfg.toInstructions();
+    }
+
+    /**
+     * Valores de un punto del bloque
+     */
+    private static final class Values {
+        int next;
+        // operando → número de valor que guarda
+        final Map<TACOperand, Integer> numbers = new HashMap<>();
+        // número → temporales y variables que lo guardan ahora, en orden de escritura
+        final Map<Integer, List<TACOperand>> holders = new HashMap<>();
+        // expresión → número de su resultado
+        final Map<String, Integer> expressions = new HashMap<>();
+        // carga → número de su resultado (se invalidan aparte)
+        final Map<String, Integer> loads = new HashMap<>();
+
+        int valueOf(TACOperand operand) {
+            if (ProgramNames.isMemory(operand)) {
+                return next++;
+            }
+            Integer number = numbers.get(operand);
+            if (number == null) {
+                number = next++;
+                numbers.put(operand, number);
+                if (holds(operand)) {
+                    holders.computeIfAbsent(number, n -> new ArrayList<>(2)).add(operand);
+                }
+            }
+            return number;
+        }
+
+        /**
+         * Temporal o variable que todavía guarda el valor (null si ninguno)
+         */
+        TACOperand holder(int number) {
+            List<TACOperand> list = holders.get(number);
+            return list == null || list.isEmpty() ? null : list.get(0);
+        }
+
+        /**
+         * dest pasa a guardar el valor number
+         */
+        void write(TACOperand dest, int number) {
+            forget(dest);
+            numbers.put(dest, number);
+            holders.computeIfAbsent(number, n -> new ArrayList<>(2)).add(dest);
+            if (CopyPropagationPass.isVariable(dest)) {
+                forgetLoadsNaming(dest.toString());
+            }
+        }
+
+        void forget(TACOperand dest) {
+            Integer old = numbers.remove(dest);
+            if (old != null) {
+                List<TACOperand> list = holders.get(old);
+                if (list != null) {
+                    list.remove(dest);
+                }
+            }
+        }
+
+        void forgetVariables() {
+            for (TACOperand operand : new ArrayList<>(numbers.keySet())) {
+                if (CopyPropagationPass.isVariable(operand)) {
+                    forget(operand);
+                }
+            }
+        }
+
+        private void forgetLoadsNaming(String variable) {
+            Iterator<String> keys = loads.keySet().iterator();
+            while (keys.hasNext()) {
+                if (names(keys.next(), variable)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    private static void number(List<TACInstruction> block) {
+        Values values = new Values();
+        for (int i = 0; i < block.size(); i++) {
+            TACInstruction instr = block.get(i);
+            OpType op = instr.getOp();
+            TACOperand written = instr.getWritten();
+
+            String key = null;
+            Map<String, Integer> table = values.expressions;
+            if (op == OpType.BINARY_OP) {
+                int left = values.valueOf(instr.getArg1Operand());
+                int right = values.valueOf(instr.getArg2Operand());
+                if (COMMUTATIVE.contains(instr.getOperator()) && right < left) {
+                    int swap = left;
+                    left = right;
+                    right = swap;
+                }
+                key = left + instr.getOperator() + right;
+            } else if (op == OpType.UNARY_OP) {
+                key = instr.getOperator() + values.valueOf(instr.getArg1Operand());
+            } else if (op == OpType.ASSIGN && ProgramNames.isMemory(instr.getArg1Operand())) {
+                // Los temporales del índice se reemplazan por su número de valor ("#N":
+                // no se confunde con una variable llamada "tN")
+                key = instr.getArg1Operand()
+                        .mapParts(part -> part.isTemp() ? TACOperand.name("#" + values.valueOf(part)) : part)
+                        .toString();
+                table = values.loads;
+            }
+
+            if (written != null) {
+                if (key != null) {
+                    Integer number = table.get(key);
+                    TACOperand holder = number == null ? null : values.holder(number);
+                    if (holder != null && holder.equals(written)) {
+                        // "x = a + b" cuando x ya guarda a + b
+                        block.remove(i--);
+                        continue;
+                    }
+                    if (holder != null) {
+                        TACInstruction copy = new TACInstruction(OpType.ASSIGN);
+                        copy.setResult(written);
+                        copy.setArg1(holder);
+                        block.set(i, copy);
+                        values.write(written, number);
+                        continue;
+                    }
+                    number = values.next++;
+                    table.put(key, number);
+                    values.write(written, number);
+                } else if (op == OpType.ASSIGN) {
+                    values.write(written, values.valueOf(instr.getArg1Operand()));
+                } else {
+                    values.write(written, values.next++);
+                }
+            }
+
+            if (op == OpType.CALL || op == OpType.ASSIGN_CALL || op == OpType.NEW) {
+                values.loads.clear();
+                values.forgetVariables();
+            } else if (instr.isStore()) {
+                values.loads.clear();
+                if (instr.getResultOperand().isField()) {
+                    // Un campo puede ser la variable de un método
+                    values.forgetVariables();
+                }
+            }
+        }
+    }
+
+    /**
+     * Temporal o variable: puede guardar un valor reutilizable
+     */
+    private static boolean holds(TACOperand operand) {
+        return operand.isTemp() || CopyPropagationPass.isVariable(operand);
+    }
+
+    /**
+     * true si el identificador aparece completo en el texto de una carga
+     */
+    private static boolean names(String text, String identifier) {
+        int from = 0;
+        int at;
+        while ((at = text.indexOf(identifier, from)) >= 0) {
+            int end = at + identifier.length();
+            boolean startsWord = at == 0 || !Character.isJavaIdentifierPart(text.charAt(at - 1));
+            boolean endsWord = end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end));
+            if (startsWord && endsWord) {
+                return true;
+            }
+            from = end;
+        }
+        return false;
+    }
+}
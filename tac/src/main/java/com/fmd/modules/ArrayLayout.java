@@ -0,0 +1,37 @@
+package com.fmd.modules;
+
+import java.util.List;
+
+/**
+ * Forma de un arreglo declarado con un literal: dimensiones y tamaño de cada
+ * elemento, los mismos que guarda su Symbol (getDimensions, getElementSize)
+ *
+ * Los elementos van por filas: m[i][j] de un arreglo [filas][columnas]
+ * está en &m + (i * columnas + j) * elementSize, donde &m es la dirección
+ * del primer elemento (ver ArrayLoweringPass).
+ */
+public record ArrayLayout(List<Integer> dimensions, int elementSize) {
+
+    public ArrayLayout {
+        dimensions = List.copyOf(dimensions);
+    }
+
+    /**
+     * Índices de un elemento: 1 para un arreglo, 2 para una matriz, ...
+     */
+    public int rank() {
+        return dimensions.size();
+    }
+
+    /**
+     * Bytes entre dos valores seguidos del índice depth: una fila completa
+     * para el primer índice de una matriz, un elemento para el último
+     */
+    public int stride(int depth) {
+        int stride = elementSize;
+        for (int d = depth + 1; d < dimensions.size(); d++) {
+            stride *= dimensions.get(d);
+        }
+        return stride;
+    }
+}
@@ -0,0 +1,107 @@
+package com.fmd.modules;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bloque básico de un ControlFlowGraph
+ *
+ * Secuencia de instrucciones que se ejecuta completa: solo se entra por la
+ * primera (una etiqueta o la instrucción siguiente a un salto) y solo se sale
+ * por la última. Las instrucciones del bloque pueden reemplazarse (pasadas de
+ * optimización); las aristas las mantiene el grafo.
+ *
+ * Aristas:
+ * - successors/predecessors incluyen las aristas normales y la excepcional
+ * - handler es el bloque del catch que recibe una excepción lanzada dentro
+ *   del bloque (null si el bloque no está dentro de un try)
+ */
+public class BasicBlock {
+
+    private int id;
+    private final List<TACInstruction> instructions;
+    private final List<BasicBlock> successors = new ArrayList<>(2);
+    private final List<BasicBlock> predecessors = new ArrayList<>(2);
+    private BasicBlock handler;
+    // Copia de successors para revisar duplicados en O(1); solo se crea con
+    // más de SUCCESSOR_SET_SIZE sucesores (un JUMP_TABLE), así que armar las
+    // aristas de un grafo sigue siendo lineal
+    private Set<BasicBlock> successorSet;
+    private static final int SUCCESSOR_SET_SIZE = 8;
+
+    public BasicBlock(int id, List<TACInstruction> instructions) {
+        this.id = id;
+        this.instructions = instructions;
+    }
+
+    /**
+     * Posición del bloque en el grafo (orden de las instrucciones)
+     */
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public List<TACInstruction> getInstructions() { return instructions; }
+    public List<BasicBlock> getSuccessors() { return successors; }
+    public List<BasicBlock> getPredecessors() { return predecessors; }
+    public BasicBlock getHandler() { return handler; }
+    public void setHandler(BasicBlock handler) { this.handler = handler; }
+
+    public boolean isEmpty() {
+        return instructions.isEmpty();
+    }
+
+    /**
+     * Primera instrucción (null si el bloque quedó vacío)
+     */
+    public TACInstruction first() {
+        return instructions.isEmpty() ? null : instructions.get(0);
+    }
+
+    /**
+     * Última instrucción (null si el bloque quedó vacío)
+     */
+    public TACInstruction last() {
+        return instructions.isEmpty() ? null : instructions.get(instructions.size() - 1);
+    }
+
+    /**
+     * Etiqueta con la que empieza el bloque (null si no empieza con LABEL)
+     */
+    public TACOperand getLabel() {
+        TACInstruction first = first();
+        return first != null && first.getOp() == TACInstruction.OpType.LABEL ? first.getLabelOperand() : null;
+    }
+
+    /**
+     * Agrega la arista this → to (una sola vez)
+     */
+    public void addSuccessor(BasicBlock to) {
+        if (successorSet != null ? !successorSet.add(to) : successors.contains(to)) {
+            return;
+        }
+        successors.add(to);
+        if (successorSet == null && successors.size() > SUCCESSOR_SET_SIZE) {
+            successorSet = new HashSet<>(successors);
+        }
+        to.predecessors.add(this);
+    }
+
+    /**
+     * Quita la arista this → to si existe
+     */
+    public void removeSuccessor(BasicBlock to) {
+        if (successors.remove(to)) {
+            if (successorSet != null) {
+                successorSet.remove(to);
+            }
+            to.predecessors.remove(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
@@ -1,17 +1,26 @@
 package com.fmd.modules;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
 
 /**
  * Representa una instrucción TAC (Three-Address Code)
+ *
+ * Los operandos se guardan como TACOperand (ver TACOperand y TACOperandPool)
+ * y el texto se arma al imprimir. Los setters de texto son para nombres y
+ * enteros (TACOperand.of): un temporal, una etiqueta o un acceso se pasa
+ * como operando.
  */
 public class TACInstruction {
 
     public enum OpType {
         ASSIGN,        // x = y
         BINARY_OP,     // x = y + z
-        UNARY_OP,      // x = -y
+        UNARY_OP,      // x = -y, x = &a (dirección del primer elemento de a, ver ArrayLoweringPass)
         LABEL,         // label:
         GOTO,          // goto label
         IF_GOTO,       // if x relop y goto label
@@ -25,38 +34,277 @@ public class TACInstruction {
         END_CLASS, // class ending
         LABEL_CLASS,
         LABEL_FUNCTION,
+        JUMP_TABLE,    // jump_table x [min..max] L1, L2, ... else Ldefault
+        PHI,           // x = phi(a, b, ...): un argumento por predecesor (solo en SSAForm)
+        BOUNDS_CHECK,  // bounds_check i, n: error si i < 0 o i >= n (ver ArrayLoweringPass)
     }
 
-    private OpType op;
-    private String result;      // variable temporal o destino
-    private String arg1;        // primer argumento
-    private String arg2;        // segundo argumento (para binarios)
-    private String operator;    // operador (+, -, *, /, %, etc.) 
-    private String relop;       // operador relacional (para if)
-    private String label;       // etiqueta (para goto/if)
-    private List<String> params; // parámetros de llamada
+    private final OpType op;
+    private TACOperand result;      // variable temporal o destino
+    private TACOperand arg1;        // primer argumento
+    private TACOperand arg2;        // segundo argumento (para binarios)
+    private String operator;        // operador (+, -, *, ...) o relop (<, ==, ...) de IF_GOTO
+    private TACOperand label;       // etiqueta (para goto/if) o nombre de función/clase
+    private TACOperand[] params;    // parámetros de llamada (null si no hay)
 
     public TACInstruction(OpType op) {
         this.op = op;
-        this.params = new ArrayList<>();
     }
 
-    // Getters y setters
+    // Getters y setters (texto); el texto es un nombre o un entero (TACOperand.of)
     public OpType getOp() { return op; }
-    public void setResult(String result) { this.result = result; }
-    public String getResult() { return result; }
-    public void setArg1(String arg1) { this.arg1 = arg1; }
-    public String getArg1() { return arg1; }
-    public void setArg2(String arg2) { this.arg2 = arg2; }
-    public String getArg2() { return arg2; }
-    public void setOperator(String operator) { this.operator = operator; }  
-    public String getOperator() { return operator; }                        
-    public void setRelop(String relop) { this.relop = relop; }
-    public String getRelop() { return relop; }
-    public void setLabel(String label) { this.label = label; }
-    public String getLabel() { return label; }
-    public void addParam(String param) { this.params.add(param); }
-    public List<String> getParams() { return params; }
+    public void setResult(String result) { this.result = TACOperand.of(result); }
+    public String getResult() { return text(result); }
+    public void setArg1(String arg1) { this.arg1 = TACOperand.of(arg1); }
+    public String getArg1() { return text(arg1); }
+    public void setArg2(String arg2) { this.arg2 = TACOperand.of(arg2); }
+    public String getArg2() { return text(arg2); }
+    public void setOperator(String operator) { this.operator = operator; }
+    public String getOperator() { return operator; }
+    public void setRelop(String relop) { this.operator = relop; }
+    public String getRelop() { return operator; }
+    public void setLabel(String label) { this.label = TACOperand.of(label); }
+    public String getLabel() { return text(label); }
+    public void addParam(String param) { addParam(TACOperand.of(param)); }
+
+    /**
+     * Parámetros como texto (lista de solo lectura, vacía si no hay)
+     */
+    public List<String> getParams() {
+        if (params == null) {
+            return Collections.emptyList();
+        }
+        String[] texts = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            texts[i] = text(params[i]);
+        }
+        return Arrays.asList(texts);
+    }
+
+    // Getters y setters (operandos)
+    public TACOperand getResultOperand() { return result; }
+    public void setResult(TACOperand result) { this.result = result; }
+    public TACOperand getArg1Operand() { return arg1; }
+    public void setArg1(TACOperand arg1) { this.arg1 = arg1; }
+    public TACOperand getArg2Operand() { return arg2; }
+    public void setArg2(TACOperand arg2) { this.arg2 = arg2; }
+    public TACOperand getLabelOperand() { return label; }
+    public void setLabel(TACOperand label) { this.label = label; }
+
+    public void addParam(TACOperand param) {
+        if (params == null) {
+            params = new TACOperand[] { param };
+        } else {
+            params = Arrays.copyOf(params, params.length + 1);
+            params[params.length - 1] = param;
+        }
+    }
+
+    /**
+     * Reemplaza el parámetro index (p. ej. un argumento de PHI)
+     */
+    public void setParam(int index, TACOperand param) {
+        params[index] = param;
+    }
+
+    /**
+     * Parámetros como operandos (lista de solo lectura, vacía si no hay)
+     */
+    public List<TACOperand> getParamOperands() {
+        return params == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(params));
+    }
+
+    /**
+     * Copia con los mismos operandos (son inmutables, se comparten)
+     */
+    public TACInstruction copy() {
+        TACInstruction copy = new TACInstruction(op);
+        copy.result = result;
+        copy.arg1 = arg1;
+        copy.arg2 = arg2;
+        copy.operator = operator;
+        copy.label = label;
+        copy.params = params == null ? null : params.clone();
+        return copy;
+    }
+
+    /**
+     * true si el destino es un elemento, un campo o una dirección ("a[t1] = x",
+     * "this.x = y", "[t7] = x"): la instrucción escribe memoria y no un
+     * temporal o variable
+     */
+    public boolean isStore() {
+        return result != null && result.isAccess();
+    }
+
+    /**
+     * Temporal o variable que escribe la instrucción (null si no escribe o si es un store)
+     */
+    public TACOperand getWritten() {
+        switch (op) {
+            case ASSIGN, BINARY_OP, UNARY_OP, ASSIGN_CALL, NEW, PHI:
+                return isStore() ? null : result;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Operandos que lee la instrucción: argumentos y parámetros, y el destino
+     * de un store (sus índices, p. ej. t1 en "a[t1] = x") y el objeto de una
+     * llamada a método. No incluye nombres de funciones, clases ni etiquetas.
+     */
+    public void forEachRead(Consumer<TACOperand> action) {
+        switch (op) {
+            case ASSIGN, BINARY_OP, UNARY_OP, IF_GOTO, RETURN, BOUNDS_CHECK:
+                if (arg1 != null) action.accept(arg1);
+                if (arg2 != null) action.accept(arg2);
+                break;
+            case JUMP_TABLE:
+                action.accept(arg1);
+                break;
+            case PHI:
+                for (TACOperand param : params) action.accept(param);
+                break;
+            case CALL, ASSIGN_CALL, NEW:
+                // Método de un objeto ("p.mover", "a[t1].f"): se lee el objeto
+                if (op != OpType.NEW && arg1 != null && arg1.isAccess()) {
+                    action.accept(arg1);
+                }
+                if (params != null) {
+                    for (TACOperand param : params) action.accept(param);
+                }
+                break;
+            default:
+                break;
+        }
+        if (isStore()) {
+            action.accept(result);
+        }
+    }
+
+    /**
+     * Etiquetas a las que puede saltar la instrucción: el destino de GOTO e
+     * IF_GOTO, el catch de TRY_BEGIN, y cada entrada y el default de JUMP_TABLE
+     */
+    public void forEachTarget(Consumer<TACOperand> action) {
+        switch (op) {
+            case GOTO, IF_GOTO, TRY_BEGIN:
+                action.accept(label);
+                break;
+            case JUMP_TABLE:
+                for (TACOperand target : params) action.accept(target);
+                action.accept(label);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Copia con cada operando leído (los de forEachRead) reemplazado por
+     * replace(operando); devuelve this si ningún operando cambia. El destino
+     * de un store y el objeto de un método también se pasan: replace debe
+     * devolver un NAME equivalente (p. ej. con sus temporales renombrados).
+     */
+    public TACInstruction mapReads(UnaryOperator<TACOperand> replace) {
+        TACOperand newResult = result;
+        TACOperand newArg1 = arg1;
+        TACOperand newArg2 = arg2;
+        TACOperand[] newParams = params;
+        switch (op) {
+            case ASSIGN, BINARY_OP, UNARY_OP, IF_GOTO, RETURN, BOUNDS_CHECK:
+                if (arg1 != null) newArg1 = replace.apply(arg1);
+                if (arg2 != null) newArg2 = replace.apply(arg2);
+                break;
+            case JUMP_TABLE:
+                newArg1 = replace.apply(arg1);
+                break;
+            case CALL, ASSIGN_CALL, NEW, PHI:
+                if (op != OpType.NEW && arg1 != null && arg1.isAccess()) {
+                    newArg1 = replace.apply(arg1);
+                }
+                if (params != null) {
+                    for (int i = 0; i < params.length; i++) {
+                        TACOperand param = replace.apply(params[i]);
+                        if (param != params[i]) {
+                            if (newParams == params) {
+                                newParams = params.clone();
+                            }
+                            newParams[i] = param;
+                        }
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        if (isStore()) {
+            newResult = replace.apply(result);
+        }
+        if (newResult == result && newArg1 == arg1 && newArg2 == arg2 && newParams == params) {
+            return this;
+        }
+        TACInstruction copy = copy();
+        copy.result = newResult;
+        copy.arg1 = newArg1;
+        copy.arg2 = newArg2;
+        copy.params = newParams;
+        return copy;
+    }
+
+    /**
+     * Copia con los temporales renombrados (ver TACOperand.mapTemps); devuelve
+     * this si ningún operando cambia
+     */
+    public TACInstruction mapTemps(IntUnaryOperator rename) {
+        TACOperand newResult = result == null ? null : result.mapTemps(rename);
+        TACOperand newArg1 = arg1 == null ? null : arg1.mapTemps(rename);
+        TACOperand newArg2 = arg2 == null ? null : arg2.mapTemps(rename);
+        boolean changed = newResult != result || newArg1 != arg1 || newArg2 != arg2;
+        TACOperand[] newParams = params;
+        if (params != null) {
+            for (int i = 0; i < params.length; i++) {
+                TACOperand param = params[i].mapTemps(rename);
+                if (param != params[i]) {
+                    if (newParams == params) {
+                        newParams = params.clone();
+                    }
+                    newParams[i] = param;
+                    changed = true;
+                }
+            }
+        }
+        if (!changed) {
+            return this;
+        }
+        TACInstruction copy = copy();
+        copy.result = newResult;
+        copy.arg1 = newArg1;
+        copy.arg2 = newArg2;
+        copy.params = newParams;
+        return copy;
+    }
+
+    /**
+     * Reemplaza cada operando por su instancia compartida del pool
+     */
+    public void intern(TACOperandPool pool) {
+        result = pool.intern(result);
+        arg1 = pool.intern(arg1);
+        arg2 = pool.intern(arg2);
+        label = pool.intern(label);
+        operator = pool.intern(operator);
+        if (params != null) {
+            for (int i = 0; i < params.length; i++) {
+                params[i] = pool.intern(params[i]);
+            }
+        }
+    }
+
+    private static String text(TACOperand operand) {
+        return operand == null ? null : operand.toString();
+    }
 
     @Override
     public String toString() {
@@ -72,13 +320,13 @@ public class TACInstruction {
             case GOTO:
                 return "goto " + label;
             case IF_GOTO:
-                return "if " + arg1 + " " + relop + " " + arg2 + " goto " + label;
+                return "if " + arg1 + " " + operator + " " + arg2 + " goto " + label;
             case CALL:
-                return "call " + arg1 + "(" + String.join(", ", params) + ")";
+                return "call " + arg1 + "(" + joinParams() + ")";
             case ASSIGN_CALL:
-                return result + " = call " + arg1 + "(" + String.join(", ", params) + ")";
+                return result + " = call " + arg1 + "(" + joinParams() + ")";
             case NEW:
-                return result + " = " + "new " + arg1 + "(" + String.join(", ", params) + ")";
+                return result + " = " + "new " + arg1 + "(" + joinParams() + ")";
             case RETURN:
                 return "return " + arg1;
             case END:
@@ -91,6 +339,14 @@ public class TACInstruction {
                     return "Function " + label + ":";
             case TRY_END:
                 return "try_end";
+            case JUMP_TABLE:
+                // arg2 es el valor de la primera entrada
+                return "jump_table " + arg1 + " [" + arg2 + ".." + (arg2.getValue() + params.length - 1) + "] "
+                        + joinParams() + " else " + label;
+            case PHI:
+                return result + " = phi(" + joinParams() + ")";
+            case BOUNDS_CHECK:
+                return "bounds_check " + arg1 + ", " + arg2;
 
                 case END_CLASS:
                     return "end Class " + label;
@@ -99,4 +355,18 @@ public class TACInstruction {
                 return "UNKNOWN";
         }
     }
-}
\ No newline at end of file
+
+    private String joinParams() {
+        if (params == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(params[i]);
+        }
+        return sb.toString();
+    }
+}
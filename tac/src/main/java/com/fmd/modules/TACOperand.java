@@ -0,0 +1,328 @@
+package com.fmd.modules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Operando de una instrucción TAC
+ *
+ * Tipos:
+ * - TEMP:  temporal tN, guarda solo N
+ * - LABEL: etiqueta LN, guarda solo N
+ * - INT:   literal entero (negativo solo si lo produjo un optimizador), guarda el valor
+ * - NAME:  cualquier otro operando: variables, funciones, clases, literales
+ *          string y accesos. Un acceso guarda sus partes como operandos:
+ *          elemento "a[t1][2]" (base e índices), campo "this.x" (objeto y
+ *          nombre) o dirección "[t7]" (un índice sin base)
+ *
+ * El tipo lo decide quien crea el operando (TACGenerator.newTemp y newLabel,
+ * los visitors, los pases), nunca el texto: una variable del programa
+ * llamada "t1" es un NAME aunque se imprima igual que el temporal t1, y en
+ * "v[t1]" el índice es uno u otro según cómo se armó el elemento.
+ *
+ * Los operandos son inmutables y se comparten: TACGenerator.addInstruction
+ * reemplaza los operandos de cada instrucción por su instancia en el pool
+ * del generador, así que un mismo temporal o nombre ocupa memoria una sola vez
+ * aunque aparezca en miles de instrucciones. El texto de TEMP, LABEL, INT y de
+ * los accesos se arma solo cuando se pide (al imprimir) y queda guardado en
+ * el operando.
+ */
+public final class TACOperand {
+
+    public enum Kind { TEMP, LABEL, INT, NAME }
+
+    // Temporales, etiquetas y enteros pequeños más comunes, compartidos por todos los generadores
+    private static final int CACHE_SIZE = 256;
+    private static final TACOperand[] TEMPS = new TACOperand[CACHE_SIZE];
+    private static final TACOperand[] LABELS = new TACOperand[CACHE_SIZE];
+    private static final TACOperand[] INTS = new TACOperand[CACHE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            TEMPS[i] = new TACOperand(Kind.TEMP, i, null, null, null, null);
+            LABELS[i] = new TACOperand(Kind.LABEL, i, null, null, null, null);
+            INTS[i] = new TACOperand(Kind.INT, i, null, null, null, null);
+        }
+    }
+
+    private final Kind kind;
+    private final long value;   // id de TEMP/LABEL o valor de INT
+    private String text;        // texto de NAME, o texto ya renderizado del resto
+
+    // Partes de un acceso (null en el resto): base[índices], base.field o [índices[0]]
+    private final TACOperand base;
+    private final TACOperand[] indices;
+    private final String field;
+
+    private TACOperand(Kind kind, long value, String text, TACOperand base, TACOperand[] indices, String field) {
+        this.kind = kind;
+        this.value = value;
+        this.text = text;
+        this.base = base;
+        this.indices = indices;
+        this.field = field;
+    }
+
+    public static TACOperand temp(int id) {
+        return id >= 0 && id < CACHE_SIZE ? TEMPS[id] : new TACOperand(Kind.TEMP, id, null, null, null, null);
+    }
+
+    public static TACOperand label(int id) {
+        return id >= 0 && id < CACHE_SIZE ? LABELS[id] : new TACOperand(Kind.LABEL, id, null, null, null, null);
+    }
+
+    public static TACOperand integer(long value) {
+        return value >= 0 && value < CACHE_SIZE ? INTS[(int) value] : new TACOperand(Kind.INT, value, null, null, null, null);
+    }
+
+    /**
+     * Nombre tal cual (variable, función, clase, literal string): no se
+     * interpreta, "t1" o "a[i]" son solo texto
+     */
+    public static TACOperand name(String text) {
+        return new TACOperand(Kind.NAME, 0, text, null, null, null);
+    }
+
+    /**
+     * Elemento base[i][j]...; si base ya es un elemento se le agregan los
+     * índices ("m[t1]" con t2 → "m[t1][t2]")
+     */
+    public static TACOperand element(TACOperand base, TACOperand... indices) {
+        if (indices.length == 0) {
+            throw new IllegalArgumentException("Elemento sin índices: " + base);
+        }
+        if (base.isElement()) {
+            TACOperand[] all = Arrays.copyOf(base.indices, base.indices.length + indices.length);
+            System.arraycopy(indices, 0, all, base.indices.length, indices.length);
+            return new TACOperand(Kind.NAME, 0, null, base.base, all, null);
+        }
+        return new TACOperand(Kind.NAME, 0, null, base, indices.clone(), null);
+    }
+
+    public static TACOperand element(TACOperand base, List<TACOperand> indices) {
+        return element(base, indices.toArray(new TACOperand[0]));
+    }
+
+    /**
+     * Campo o método object.name ("this.x", "p.mover")
+     */
+    public static TACOperand field(TACOperand object, String name) {
+        return new TACOperand(Kind.NAME, 0, null, object, null, name);
+    }
+
+    /**
+     * Contenido de una dirección: "[t7]" (ver ArrayLoweringPass)
+     */
+    public static TACOperand address(TACOperand address) {
+        return new TACOperand(Kind.NAME, 0, null, null, new TACOperand[] { address }, null);
+    }
+
+    /**
+     * Operando de un literal o nombre escrito como texto: "42" o "-42" → INT,
+     * otro → NAME (ver name). Nunca devuelve TEMP, LABEL ni un acceso.
+     * @return operando o null si text es null
+     */
+    public static TACOperand of(String text) {
+        if (text == null) {
+            return null;
+        }
+        int n = text.length();
+        if (n >= 1 && n <= 18 && isCanonicalNumber(text, 0)) {
+            return integer(Long.parseLong(text));
+        }
+        if (n >= 2 && n <= 19 && text.charAt(0) == '-' && text.charAt(1) != '0' && isCanonicalNumber(text, 1)) {
+            return integer(Long.parseLong(text));
+        }
+        return name(text);
+    }
+
+    /**
+     * Dígitos sin ceros a la izquierda desde from: así el texto se reconstruye igual
+     */
+    private static boolean isCanonicalNumber(String text, int from) {
+        if (from >= text.length() || (text.charAt(from) == '0' && text.length() - from > 1)) {
+            return false;
+        }
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Kind getKind() { return kind; }
+    public boolean isTemp() { return kind == Kind.TEMP; }
+    public boolean isLabel() { return kind == Kind.LABEL; }
+    public boolean isInt() { return kind == Kind.INT; }
+
+    /**
+     * Número del temporal o de la etiqueta
+     */
+    public int getId() { return (int) value; }
+
+    /**
+     * Valor del literal entero
+     */
+    public long getValue() { return value; }
+
+    /**
+     * true si es un elemento, un campo o una dirección
+     */
+    public boolean isAccess() { return base != null || indices != null; }
+
+    /**
+     * true si es un elemento "a[t1]" (con base)
+     */
+    public boolean isElement() { return base != null && indices != null; }
+
+    /**
+     * true si es un campo o método "obj.f"
+     */
+    public boolean isField() { return field != null; }
+
+    /**
+     * true si es una dirección "[t7]"
+     */
+    public boolean isAddress() { return base == null && indices != null; }
+
+    /**
+     * Arreglo de un elemento u objeto de un campo (null si no es uno de ellos)
+     */
+    public TACOperand getBase() { return base; }
+
+    /**
+     * Índices de un elemento, o la dirección de "[t7]" (vacía si no es uno de ellos)
+     */
+    public List<TACOperand> getIndices() {
+        return indices == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(indices));
+    }
+
+    /**
+     * Nombre del campo o método de "obj.f" (null si no es un campo)
+     */
+    public String getField() { return field; }
+
+    /**
+     * Temporales que lee este operando: él mismo si es TEMP, o los de las
+     * partes de un acceso (t1 en "a[t1]", t2 en "t2.x")
+     */
+    public void forEachTemp(IntConsumer action) {
+        if (kind == Kind.TEMP) {
+            action.accept((int) value);
+        } else if (isAccess()) {
+            forEachPart(part -> part.forEachTemp(action));
+        }
+    }
+
+    /**
+     * Mismo operando con cada temporal tN renombrado a t(rename(N)), también
+     * dentro de un acceso; devuelve this si no hay cambios
+     */
+    public TACOperand mapTemps(IntUnaryOperator rename) {
+        if (kind == Kind.TEMP) {
+            int id = rename.applyAsInt((int) value);
+            return id == value ? this : temp(id);
+        }
+        return isAccess() ? mapParts(part -> part.mapTemps(rename)) : this;
+    }
+
+    /**
+     * Partes de un acceso: la base o el objeto, y cada índice (el nombre de
+     * un campo no es un operando)
+     */
+    public void forEachPart(Consumer<TACOperand> action) {
+        if (base != null) {
+            action.accept(base);
+        }
+        if (indices != null) {
+            for (TACOperand index : indices) {
+                action.accept(index);
+            }
+        }
+    }
+
+    /**
+     * Mismo acceso con cada parte reemplazada por replace(parte); devuelve
+     * this si ninguna cambia (o si no es un acceso)
+     */
+    public TACOperand mapParts(UnaryOperator<TACOperand> replace) {
+        TACOperand newBase = base == null ? null : replace.apply(base);
+        TACOperand[] newIndices = indices;
+        if (indices != null) {
+            for (int i = 0; i < indices.length; i++) {
+                TACOperand index = replace.apply(indices[i]);
+                if (index != indices[i]) {
+                    if (newIndices == indices) {
+                        newIndices = indices.clone();
+                    }
+                    newIndices[i] = index;
+                }
+            }
+        }
+        if (newBase == base && newIndices == indices) {
+            return this;
+        }
+        return new TACOperand(Kind.NAME, 0, null, newBase, newIndices, field);
+    }
+
+    @Override
+    public String toString() {
+        String s = text;
+        if (s == null) {
+            switch (kind) {
+                case TEMP -> s = "t" + value;
+                case LABEL -> s = "L" + value;
+                case INT -> s = Long.toString(value);
+                default -> s = renderAccess();
+            }
+            text = s; // carrera benigna: todos los hilos calculan el mismo String inmutable
+        }
+        return s;
+    }
+
+    private String renderAccess() {
+        StringBuilder sb = new StringBuilder();
+        if (base != null) {
+            sb.append(base);
+        }
+        if (field != null) {
+            return sb.append('.').append(field).toString();
+        }
+        for (TACOperand index : indices) {
+            sb.append('[').append(index).append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TACOperand other) || kind != other.kind) {
+            return false;
+        }
+        if (kind != Kind.NAME) {
+            return value == other.value;
+        }
+        if (isAccess() || other.isAccess()) {
+            return Objects.equals(base, other.base) && Arrays.equals(indices, other.indices)
+                    && Objects.equals(field, other.field);
+        }
+        return text.equals(other.text);
+    }
+
+    // Dos accesos iguales se imprimen igual: el hash del texto sirve para ambos
+    @Override
+    public int hashCode() {
+        return kind == Kind.NAME ? toString().hashCode() : 31 * kind.ordinal() + Long.hashCode(value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.fmd.modules;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pool de operandos de un TACGenerator
+ *
+ * Cada operando distinto (temporal, etiqueta, entero o nombre) y cada
+ * operador quedan guardados una sola vez; las instrucciones apuntan a esas
+ * instancias; las partes de un acceso ("a[t1]") también salen del pool.
+ * No es thread-safe: se usa un pool por generador.
+ */
+public class TACOperandPool {
+
+    private final Map<TACOperand, TACOperand> operands = new HashMap<>();
+    private final Map<String, String> operators = new HashMap<>();
+
+    /**
+     * @return la instancia compartida equivalente a operand (o null)
+     */
+    public TACOperand intern(TACOperand operand) {
+        if (operand == null) {
+            return null;
+        }
+        TACOperand shared = operands.get(operand);
+        if (shared != null) {
+            return shared;
+        }
+        operand = operand.mapParts(this::intern);
+        shared = operands.putIfAbsent(operand, operand);
+        return shared != null ? shared : operand;
+    }
+
+    /**
+     * @return el String compartido equivalente a operator (o null)
+     */
+    public String intern(String operator) {
+        if (operator == null) {
+            return null;
+        }
+        String shared = operators.putIfAbsent(operator, operator);
+        return shared != null ? shared : operator;
+    }
+
+    /**
+     * Cantidad de operandos distintos guardados
+     */
+    public int size() {
+        return operands.size();
+    }
+}
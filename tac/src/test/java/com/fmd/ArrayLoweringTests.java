@@ -0,0 +1,197 @@
+package com.fmd;
+
+import com.fmd.modules.ArrayLayout;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de aritmética de direcciones y reducción de fuerza")
+public class ArrayLoweringTests {
+    TestInit testInit = new TestInit();
+
+    private static TACInstruction assign(String result, String value) {
+        TACInstruction instr = new TACInstruction(OpType.ASSIGN);
+        instr.setResult(TestInit.operand(result));
+        instr.setArg1(TestInit.operand(value));
+        return instr;
+    }
+
+    private static TACInstruction binary(String result, String left, String operator, String right) {
+        TACInstruction instr = new TACInstruction(OpType.BINARY_OP);
+        instr.setResult(TestInit.operand(result));
+        instr.setArg1(TestInit.operand(left));
+        instr.setOperator(operator);
+        instr.setArg2(TestInit.operand(right));
+        return instr;
+    }
+
+    private static List<String> text(List<TACInstruction> instructions) {
+        return instructions.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Pasos de una matriz por filas")
+    void testLayoutStrides() {
+        ArrayLayout layout = new ArrayLayout(List.of(2, 3), 4);
+        assertEquals(2, layout.rank());
+        assertEquals(12, layout.stride(0));
+        assertEquals(4, layout.stride(1));
+    }
+
+    @Test
+    @DisplayName("Filas, elementos e índices constantes como direcciones")
+    void testLowering() {
+        ArrayLoweringPass pass = new ArrayLoweringPass();
+        pass.setLayouts(Map.of("m", new ArrayLayout(List.of(2, 3), 4)));
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                assign("t1", "m[i]"),
+                assign("t2", "t1[j]"),
+                assign("m[1][2]", "t2")
+        ));
+        List<String> expected = Arrays.asList(
+                "t3 = &m",
+                "bounds_check i, 2",
+                "t4 = i * 12",
+                "t1 = t3 + t4",
+                "bounds_check j, 3",
+                "t6 = j * 4",
+                "t7 = t1 + t6",
+                "t2 = [t7]",
+                "t8 = &m",
+                "t9 = t8 + 20",
+                "[t9] = t2"
+        );
+        assertEquals(expected, text(pass.run(code)));
+    }
+
+    @Test
+    @DisplayName("Una fila que se pasa a una función queda como estaba")
+    void testEscapingRow() {
+        ArrayLoweringPass pass = new ArrayLoweringPass();
+        pass.setLayouts(Map.of("m", new ArrayLayout(List.of(2, 3), 4)));
+        TACInstruction call = new TACInstruction(OpType.CALL);
+        call.setArg1(TestInit.operand("f"));
+        call.addParam(TestInit.operand("t1"));
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                assign("t1", "m[i]"),
+                call,
+                assign("t2", "t1[j]")
+        ));
+        assertEquals(List.of("t1 = m[i]", "call f(t1)", "t2 = t1[j]"), text(pass.run(code)));
+    }
+
+    @Test
+    @DisplayName("El índice escalado de un ciclo se vuelve un puntero que avanza")
+    void testStrengthReduction() {
+        TACInstruction address = new TACInstruction(OpType.UNARY_OP);
+        address.setResult(TestInit.operand("t1"));
+        address.setOperator("&");
+        address.setArg1(TestInit.operand("a"));
+        TACInstruction exit = new TACInstruction(OpType.IF_GOTO);
+        exit.setArg1(TestInit.operand("j"));
+        exit.setRelop(">=");
+        exit.setArg2(TestInit.operand("n"));
+        exit.setLabel(TestInit.operand("L2"));
+        TACInstruction header = new TACInstruction(OpType.LABEL);
+        header.setLabel(TestInit.operand("L1"));
+        TACInstruction back = new TACInstruction(OpType.GOTO);
+        back.setLabel(TestInit.operand("L1"));
+        TACInstruction end = new TACInstruction(OpType.LABEL);
+        end.setLabel(TestInit.operand("L2"));
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                address,
+                assign("j", "0"),
+                header,
+                exit,
+                binary("t2", "j", "*", "4"),
+                binary("t3", "t1", "+", "t2"),
+                assign("t4", "[t3]"),
+                binary("s", "s", "+", "t4"),
+                binary("j", "j", "+", "1"),
+                back,
+                end
+        ));
+        List<String> expected = Arrays.asList(
+                "t1 = &a",
+                "j = 0",
+                "t6 = j * 4",
+                "t5 = t1 + t6",
+                "L1:",
+                "if j >= n goto L2",
+                "t2 = j * 4",
+                "t3 = t5",
+                "t4 = [t3]",
+                "s = s + t4",
+                "j = j + 1",
+                "t5 = t5 + 4",
+                "goto L1",
+                "L2:"
+        );
+        assertEquals(expected, text(new StrengthReductionPass().run(code)));
+    }
+
+    @Test
+    @DisplayName("-O4: recorrer una matriz por filas sin multiplicar en el ciclo interno")
+    void testMatrixTraversal() {
+        String code = """
+        let m: integer[][] = [[1, 2, 3], [4, 5, 6]];
+        let s: integer = 0;
+        let i: integer = 0;
+        while (i < 2) {
+            let j: integer = 0;
+            while (j < 3) {
+                s = s + m[i][j];
+                j = j + 1;
+            }
+            i = i + 1;
+        }
+        print(s);
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 4);
+        assertTrue(tac.stream().noneMatch(line -> line.contains("m[")), String.join("\n", tac));
+        assertTrue(tac.stream().anyMatch(line -> line.matches("\\[t\\d+] = 1")), String.join("\n", tac));
+
+        // El ciclo interno va de su etiqueta al avance del puntero
+        Pattern advance = Pattern.compile("(t\\d+) = \\1 \\+ 4");
+        int step = -1;
+        for (int k = 0; k < tac.size(); k++) {
+            if (advance.matcher(tac.get(k)).matches()) {
+                step = k;
+            }
+        }
+        assertTrue(step > 0, String.join("\n", tac));
+        int start = step;
+        while (!tac.get(start).endsWith(":")) {
+            start--;
+        }
+        List<String> inner = tac.subList(start, step + 1);
+        assertTrue(inner.stream().noneMatch(line -> line.contains(" * ")), String.join("\n", inner));
+        assertTrue(inner.stream().anyMatch(line -> line.matches("t\\d+ = \\[t\\d+]")), String.join("\n", inner));
+        assertTrue(tac.stream().anyMatch(line -> line.matches("(t\\d+) = \\1 \\+ 12")), String.join("\n", tac));
+    }
+
+    @Test
+    @DisplayName("-O4: un parámetro arreglo no tiene forma conocida y queda con índices")
+    void testParameterArray() {
+        String code = """
+        function first(v: integer[]): integer {
+            return v[0];
+        }
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 4);
+        assertTrue(tac.stream().anyMatch(line -> line.contains("v[")), String.join("\n", tac));
+        assertFalse(tac.stream().anyMatch(line -> line.contains("&v")));
+    }
+}
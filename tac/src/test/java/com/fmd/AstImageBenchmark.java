@@ -0,0 +1,144 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark de peticiones/segundo del pipeline de /compilar-tac con ambos
+ * generadores de imagen del AST:
+ * - python: el script additions/AstTreeGenerator.py (un proceso por petición)
+ * - jvm:    AstImageRenderer (en memoria)
+ *
+ * No es un test de JUnit; se ejecuta manualmente:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.fmd.AstImageBenchmark
+ *       -Dexec.args="src/main/java/com/fmd/program.cps 10 4"
+ *
+ * Argumentos: archivo fuente, segundos por modo, hilos concurrentes.
+ */
+public class AstImageBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String inputFile = args.length > 0 ? args[0] : "src/main/java/com/fmd/program.cps";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String code = Files.readString(Path.of(inputFile));
+
+        System.out.printf("Programa: %s (%d bytes), %d s por modo, %d hilos%n",
+                inputFile, code.length(), seconds, threads);
+
+        // El pipeline imprime el TAC en consola; se descarta para no medir la consola
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long python;
+        long jvm;
+        try {
+            run("jvm", code, seconds, 1, false);     // calentamiento del JIT
+            python = run("python", code, seconds, threads, true);
+            jvm = run("jvm", code, seconds, threads, true);
+        } finally {
+            System.setOut(console);
+        }
+        report("python", python, seconds);
+        report("jvm", jvm, seconds);
+    }
+
+    private static void report(String mode, long requests, int seconds) {
+        if (requests < 0) {
+            System.out.printf("%-7s no disponible (¿python o graphviz no instalados?)%n", mode);
+            return;
+        }
+        System.out.printf("%-7s %8.1f peticiones/s (%d en %d s)%n",
+                mode, (double) requests / seconds, requests, seconds);
+    }
+
+    /**
+     * Ejecuta el pipeline en bucle desde varios hilos durante el tiempo indicado
+     * @return peticiones completadas, o -1 si el modo falló
+     */
+    private static long run(String mode, String code, int seconds, int threads, boolean measured)
+            throws Exception {
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        if (compile(mode, code) == null) {
+                            throw new IllegalStateException("modo " + mode + " sin imagen");
+                        }
+                        completed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (Exception e) {
+            if (measured) {
+                System.err.println("[" + mode + "] " + e.getMessage());
+            }
+            return -1;
+        } finally {
+            pool.shutdownNow();
+        }
+        return completed.get();
+    }
+
+    /**
+     * Reproduce el trabajo de TACController.analizar para una petición
+     */
+    private static String compile(String mode, String code) throws Exception {
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
+        CompiscriptParser parser = new CompiscriptParser(new CommonTokenStream(lexer));
+        ParseTree tree = parser.program();
+
+        SemanticVisitor semantic = new SemanticVisitor();
+        semantic.visit(tree);
+
+        String image = mode.equals("python")
+                ? pythonImage(tree.toStringTree(parser))
+                : AstImageRenderer.renderBase64(tree, parser);
+
+        if (semantic.getErrores().isEmpty()) {
+            new TACVisitor(semantic.getExistingScopes()).visit(tree);
+        }
+        return image;
+    }
+
+    /**
+     * Implementación anterior de TACController.generarImagen
+     */
+    private static String pythonImage(String treeString) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder("python", Paths.get("additions", "AstTreeGenerator.py").toString());
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process p = pb.start();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(p.getOutputStream()))) {
+            writer.write(treeString);
+            writer.newLine();
+        }
+        if (p.waitFor() != 0) {
+            return null;
+        }
+        return Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get("ast_tree.png")));
+    }
+}
@@ -0,0 +1,69 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests para la imagen del AST")
+public class AstImageTests {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private byte[] render(String code) throws Exception {
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
+        CompiscriptParser parser = new CompiscriptParser(new CommonTokenStream(lexer));
+        ParseTree tree = parser.program();
+        return AstImageRenderer.renderPng(tree, parser);
+    }
+
+    private void assertPng(byte[] bytes) {
+        assertTrue(bytes.length > PNG_SIGNATURE.length);
+        byte[] header = new byte[PNG_SIGNATURE.length];
+        System.arraycopy(bytes, 0, header, 0, header.length);
+        assertArrayEquals(PNG_SIGNATURE, header);
+    }
+
+    @Test
+    void testSimpleProgram() throws Exception {
+        assertPng(render("let x: integer = 2 * 3 + 4;"));
+    }
+
+    @Test
+    void testEmptyProgram() throws Exception {
+        assertPng(render(""));
+    }
+
+    @Test
+    void testBase64() {
+        String code = """
+        function suma(a: integer, b: integer): integer {
+            return a + b;
+        }
+        print(suma(1, 2));
+        """;
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
+        CompiscriptParser parser = new CompiscriptParser(new CommonTokenStream(lexer));
+        ParseTree tree = parser.program();
+
+        String base64 = AstImageRenderer.renderBase64(tree, parser);
+        assertNotNull(base64);
+        assertPng(Base64.getDecoder().decode(base64));
+    }
+
+    @Test
+    void testLargeProgramIsScaled() throws Exception {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            code.append("let v").append(i).append(": integer = ").append(i).append(" + 1;\n");
+        }
+        assertPng(render(code.toString()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de la instrumentación del pipeline")
+public class CompileProfilerTests {
+
+    private static final String CODE = """
+            function suma(a: integer, b: integer): integer {
+                return a + b;
+            }
+            let x: integer = suma(1, 2) * 3;
+            if (x > 5) { print(x); }
+            """;
+
+    @Test
+    @DisplayName("Se miden todas las fases y los hotspots sin cambiar el TAC")
+    void testPhasesAndHotspots() {
+        CompileProfiler profiler = new CompileProfiler(true);
+
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(CODE));
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        profiler.phase(CompileProfiler.Phase.LEX, tokens::fill);
+        CompiscriptParser parser = new CompiscriptParser(tokens);
+        ParseTree tree = profiler.phase(CompileProfiler.Phase.PARSE, parser::program);
+
+        SemanticVisitor semantic = new SemanticVisitor();
+        profiler.phase(CompileProfiler.Phase.SEMANTIC, () -> semantic.visit(tree));
+
+        TACVisitor tac = new TACVisitor(semantic.getExistingScopes());
+        tac.getGenerator().setProfiler(profiler);
+        profiler.phase(CompileProfiler.Phase.TAC, () -> tac.visit(tree));
+
+        assertEquals(CompileProfiler.Phase.values().length, profiler.getPhases().size());
+        for (CompileProfiler.PhaseStats stats : profiler.getPhases().values()) {
+            assertTrue(stats.wallNanos() >= 0);
+        }
+
+        List<CompileProfiler.Hotspot> hotspots = profiler.getHotspots();
+        assertFalse(hotspots.isEmpty());
+        assertTrue(hotspots.stream().anyMatch(h -> h.method().equals("TACFuncsVisitor.visitFunctionDeclaration")));
+        for (CompileProfiler.Hotspot h : hotspots) {
+            assertTrue(h.selfNanos() <= h.totalNanos(), h.method());
+        }
+
+        List<String> expected = new TestInit().generateTAC(CODE);
+        List<String> actual = tac.getGenerator().getInstructions().stream().map(Object::toString).toList();
+        assertEquals(expected, actual);
+    }
+}
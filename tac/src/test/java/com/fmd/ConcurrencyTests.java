@@ -0,0 +1,78 @@
+package com.fmd;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Tests de compilación concurrente")
+public class ConcurrencyTests {
+
+    private static final List<String> PROGRAMS = List.of(
+            """
+            let x: integer = 2 * 3 + 4;
+            print(x);
+            """,
+            """
+            function suma(a: integer, b: integer): integer {
+                return a + b;
+            }
+            let r: integer = suma(1, 2);
+            """,
+            """
+            let i: integer = 0;
+            while (i < 10) {
+                if (i % 2 == 0) { print(i); } else { print(0); }
+                i = i + 1;
+            }
+            """,
+            """
+            var matrix: integer[][] = [[1,2,3],[4,5,6]];
+            print(matrix[1][2]);
+            """,
+            """
+            class Counter {
+                let value: integer = 0;
+                function inc() {
+                    this.value = this.value + 1;
+                }
+            }
+            """
+    );
+
+    /**
+     * Compilar el mismo conjunto de programas desde muchos hilos debe dar
+     * exactamente el mismo TAC que compilarlos uno por uno: el pipeline no
+     * comparte estado mutable entre instancias.
+     */
+    @Test
+    void testParallelMatchesSequential() throws Exception {
+        List<List<String>> expected = new ArrayList<>();
+        for (String program : PROGRAMS) {
+            expected.add(new TestInit().generateTAC(program));
+        }
+
+        int threads = 8;
+        int rounds = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int r = 0; r < rounds; r++) {
+                for (String program : PROGRAMS) {
+                    futures.add(pool.submit(() -> new TestInit().generateTAC(program)));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expected.get(i % PROGRAMS.size()), futures.get(i).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
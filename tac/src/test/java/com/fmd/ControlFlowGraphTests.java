@@ -0,0 +1,191 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de ControlFlowGraph")
+public class ControlFlowGraphTests {
+    TestInit testInit = new TestInit();
+
+    private ControlFlowGraph build(String code) {
+        testInit.generateTAC(code);
+        return ControlFlowGraph.build(testInit.visitor_tac.getGenerator().getInstructions());
+    }
+
+    private static BasicBlock block(ControlFlowGraph graph, String label) {
+        return graph.getBlock(TestInit.operand(label));
+    }
+
+    @Test
+    @DisplayName("if/else forma un diamante")
+    void testIfElse() {
+        ControlFlowGraph cfg = build("""
+        let x: integer = 1;
+        if (x > 0) {
+            x = 2;
+        } else {
+            x = 3;
+        }
+        print(x);
+        """);
+        // B0: condición, B1: then, B2: L1 (else), B3: L2 (fin)
+        List<BasicBlock> blocks = cfg.getBlocks();
+        assertEquals(4, blocks.size());
+        BasicBlock cond = blocks.get(0);
+        BasicBlock elseBlock = block(cfg, "L1");
+        BasicBlock join = block(cfg, "L2");
+        assertEquals(List.of(elseBlock, blocks.get(1)), cond.getSuccessors());
+        assertEquals(List.of(join), blocks.get(1).getSuccessors());
+        assertEquals(List.of(join), elseBlock.getSuccessors());
+        assertEquals(2, join.getPredecessors().size());
+        assertTrue(join.getSuccessors().isEmpty());
+    }
+
+    @Test
+    @DisplayName("while tiene una arista de regreso a la condición")
+    void testWhileBackEdge() {
+        ControlFlowGraph cfg = build("""
+        let i: integer = 0;
+        while (i < 3) {
+            i = i + 1;
+        }
+        """);
+        BasicBlock header = block(cfg, "L1");
+        BasicBlock exit = block(cfg, "L2");
+        BasicBlock body = cfg.getBlocks().get(header.getId() + 1);
+        assertEquals(List.of(exit, body), header.getSuccessors());
+        assertEquals(List.of(header), body.getSuccessors());
+        assertTrue(header.getPredecessors().contains(body));
+    }
+
+    @Test
+    @DisplayName("Los bloques dentro de un try tienen arista excepcional al catch más interno")
+    void testExceptionalEdges() {
+        ControlFlowGraph cfg = build("""
+        function f(a: integer): integer {
+            let r: integer = 0;
+            try {
+                r = a;
+                try {
+                    r = r / 0;
+                } catch (e2) {
+                    r = 1;
+                }
+            } catch (e) {
+                r = 2;
+            }
+            return r;
+        }
+        """);
+        ControlFlowGraph f = cfg.getFunctions().get(0);
+        assertEquals("f", f.getName());
+        BasicBlock outerCatch = block(f, "L1");
+        BasicBlock innerCatch = block(f, "L3");
+
+        // El bloque con try_begin L1 no está protegido
+        BasicBlock entry = f.getEntry();
+        assertNull(entry.getHandler());
+        // "r = a; try_begin L3" está en el try externo
+        BasicBlock outerBody = f.getBlocks().get(1);
+        assertSame(outerCatch, outerBody.getHandler());
+        // "r = r / 0" está en el try interno
+        BasicBlock innerBody = f.getBlocks().get(2);
+        assertSame(innerCatch, innerBody.getHandler());
+        assertTrue(innerBody.getSuccessors().contains(innerCatch));
+        assertTrue(innerCatch.getPredecessors().contains(innerBody));
+        // El catch interno sigue dentro del try externo
+        assertSame(outerCatch, innerCatch.getHandler());
+        // El catch externo ya no está protegido
+        assertNull(outerCatch.getHandler());
+    }
+
+    @Test
+    @DisplayName("Cada función es un grafo propio y la lista plana se reconstruye igual")
+    void testFunctionsAndRoundTrip() throws Exception {
+        String code = Files.readString(Path.of("src/main/java/com/fmd/program.cps"));
+        testInit.generateTAC(code);
+        List<TACInstruction> original = testInit.visitor_tac.getGenerator().getInstructions();
+        ControlFlowGraph cfg = ControlFlowGraph.build(original);
+
+        List<String> names = cfg.allGraphs().stream().map(ControlFlowGraph::getName).toList();
+        assertEquals(java.util.Arrays.asList(null, "makeAdder", "constructor", "speak"), names);
+        for (ControlFlowGraph function : cfg.getFunctions()) {
+            assertEquals(TACInstruction.OpType.LABEL_FUNCTION, function.getEntry().first().getOp());
+            assertTrue(function.getBlocks().get(function.getBlocks().size() - 1).getSuccessors().isEmpty());
+        }
+        assertEquals(original, cfg.toInstructions());
+    }
+
+    @Test
+    @DisplayName("Quitar bloques conserva las funciones ancladas")
+    void testRemoveBlocksKeepsNested() {
+        ControlFlowGraph cfg = build("""
+        let x: integer = 1;
+        function f(): integer {
+            return 1;
+        }
+        x = 2;
+        """);
+        assertEquals(2, cfg.getBlocks().size());
+        cfg.removeBlocks(block -> block.getId() == 1);
+        List<String> tac = cfg.toInstructions().stream().map(Object::toString).toList();
+        assertEquals(List.of("t1 = 1", "x = t1", "Function f:", "t1 = 1", "return t1", "end f"), tac);
+    }
+
+    @Test
+    @DisplayName("Una arista repetida se agrega una vez, también con muchos sucesores")
+    void testDuplicateSuccessors() {
+        BasicBlock from = new BasicBlock(0, new ArrayList<>());
+        List<BasicBlock> targets = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            targets.add(new BasicBlock(i, new ArrayList<>()));
+        }
+        for (int round = 0; round < 2; round++) {
+            targets.forEach(from::addSuccessor);
+        }
+        assertEquals(targets, from.getSuccessors());
+        for (BasicBlock target : targets) {
+            assertEquals(List.of(from), target.getPredecessors());
+        }
+
+        BasicBlock removed = targets.get(15);
+        from.removeSuccessor(removed);
+        assertTrue(removed.getPredecessors().isEmpty());
+        from.addSuccessor(removed);
+        assertEquals(20, from.getSuccessors().size());
+        assertEquals(List.of(from), removed.getPredecessors());
+    }
+
+    @Test
+    @DisplayName("Programas sintéticos grandes: reconstrucción exacta")
+    void testLargeSynthetic() {
+        String code = new SyntheticProgramGenerator(7).generate(512 * 1024);
+        testInit.generateTAC(code);
+        List<TACInstruction> original = testInit.visitor_tac.getGenerator().getInstructions();
+        ControlFlowGraph cfg = ControlFlowGraph.build(original);
+
+        int total = 0;
+        for (ControlFlowGraph graph : cfg.allGraphs()) {
+            total += graph.instructionCount();
+            for (BasicBlock block : graph.getBlocks()) {
+                for (BasicBlock succ : block.getSuccessors()) {
+                    assertTrue(succ.getPredecessors().contains(block));
+                }
+            }
+        }
+        assertEquals(original.size(), total);
+        assertEquals(original, cfg.toInstructions());
+    }
+}
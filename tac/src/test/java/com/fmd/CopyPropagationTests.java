@@ -0,0 +1,94 @@
+package com.fmd;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de propagación de copias")
+public class CopyPropagationTests {
+    TestInit testInit = new TestInit();
+
+    @Test
+    @DisplayName("Declaraciones, print y llamadas sin copias intermedias")
+    void testDeclarationsAndCalls() {
+        String code = """
+        function g(n: integer): integer { let r: integer = n * n + 1; return r; }
+        let nombre: string = "hola";
+        print(nombre);
+        let z: integer = g(3);
+        print(z);
+        """;
+        List<String> expected = Arrays.asList(
+                "Function g:",
+                "t1 = n * n",
+                "r = t1 + 1",
+                "return r",
+                "end g",
+                "nombre = \"hola\"",
+                "call print(\"hola\")",
+                "z = call g(3)",
+                "call print(z)"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("Una llamada invalida las copias de variables")
+    void testCallKillsVariableCopies() {
+        String code = """
+        let x: integer = 1;
+        function f(): void { x = 5; }
+        let y: integer = x;
+        f();
+        print(y);
+        print(x);
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        int call = optimized.indexOf("call f()");
+        assertTrue(call > 0, optimized.toString());
+        // y se lee después de la llamada: no puede reemplazarse por x
+        assertTrue(optimized.subList(call, optimized.size()).contains("call print(y)"), optimized.toString());
+        assertTrue(optimized.subList(call, optimized.size()).contains("call print(x)"), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("Cada escritura invalida las copias que dependen de ella")
+    void testRedefinitionKillsCopies() {
+        String code = """
+        let a: integer = 1;
+        let b: integer = a;
+        a = 2;
+        print(b);
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertTrue(optimized.contains("call print(b)") || optimized.contains("call print(1)"), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("-O2 elimina la mayoría de los ASSIGN de los programas de ejemplo")
+    void testAssignReduction() throws IOException {
+        for (String program : List.of("program", "expresiones", "clases")) {
+            String code = resource("/warmup/" + program + ".cps");
+            testInit.optimizeTAC(code, 1);
+            int folded = testInit.report.assignsAfter();
+            testInit.optimizeTAC(code, 2);
+            TACOptimizer.Report report = testInit.report;
+            assertTrue(report.assignsAfter() < folded, program + ": " + report);
+            assertTrue(report.assignsAfter() * 3 < report.assignsBefore() * 2, program + ": " + report);
+        }
+    }
+
+    private static String resource(String path) throws IOException {
+        try (InputStream in = CopyPropagationTests.class.getResourceAsStream(path)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
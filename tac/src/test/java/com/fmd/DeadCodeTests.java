@@ -0,0 +1,119 @@
+package com.fmd;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de eliminación de código muerto")
+public class DeadCodeTests {
+    TestInit testInit = new TestInit();
+
+    @Test
+    @DisplayName("El código después de return desaparece pero la función sigue cerrada")
+    void testCodeAfterReturn() {
+        String code = """
+        function f(n: integer): integer {
+            return n;
+            print("muerto");
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "return n",
+                "end f"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("Rama constante: se quitan el bloque, el goto a la siguiente y la etiqueta")
+    void testConstantBranch() {
+        String code = """
+        let x: integer = 0;
+        if (1 > 2) {
+            x = 1;
+        } else {
+            x = 2;
+        }
+        print(x);
+        """;
+        List<String> expected = Arrays.asList(
+                "x = 0",
+                "x = 2",
+                "call print(x)"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("Temporales que nadie lee; la llamada se conserva sin resultado")
+    void testDeadTemps() {
+        String code = """
+        function g(n: integer): integer { return n; }
+        let y: integer = 0;
+        y;
+        g(3);
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertTrue(optimized.contains("call g(3)"), optimized.toString());
+        assertFalse(optimized.stream().anyMatch(line -> line.matches("t\\d+ = (y|call .*)")), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("Una carga muerta que puede fallar se conserva")
+    void testDeadLoads() {
+        String code = """
+        let v: integer[] = [1, 2, 3];
+        try {
+            v[5];
+        } catch (e) {
+            print("fuera de rango");
+        }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertTrue(optimized.stream().anyMatch(line -> line.matches("t\\d+ = v\\[.*\\]")), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("try_end de un try alcanzable se conserva aunque siga a un return")
+    void testTryAfterReturn() {
+        String code = """
+        function f(n: integer): integer {
+            try { return n; } catch (e) { print(e); }
+            return 0;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "try_begin L1",
+                "return n",
+                "try_end",
+                "L1:",
+                "e = exception",
+                "call print(e)",
+                "return 0",
+                "end f"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("Después de un ciclo infinito solo quedan las clases")
+    void testInfiniteLoop() {
+        String code = """
+        while (true) { print("a"); }
+        print("nunca");
+        class A { var x: integer; function get(): integer { return this.x; } }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertFalse(optimized.contains("t1 = \"nunca\""), optimized.toString());
+        assertTrue(optimized.containsAll(List.of("Class A:", "Function get:", "end get", "end Class A")));
+        assertTrue(testInit.report.after() < testInit.report.before());
+    }
+}
@@ -0,0 +1,130 @@
+package com.fmd;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de condiciones como saltos")
+public class JumpingCodeTests {
+    TestInit testInit = new TestInit();
+
+    private List<String> jumping(String code) {
+        return testInit.generateTAC(code, generator -> generator.setJumpingConditions(true));
+    }
+
+    @Test
+    @DisplayName("La comparación de un while es un IF_GOTO con el operador negado")
+    void testWhileComparison() {
+        String code = """
+        let i: integer = 0;
+        while (i < 10) {
+            i = i + 1;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "t1 = 0",
+                "i = t1",
+                "L1:",
+                "t1 = 10",
+                "if i >= t1 goto L2",
+                "t1 = 1",
+                "t2 = i + t1",
+                "i = t2",
+                "goto L1",
+                "L2:"
+        );
+        assertEquals(expected, jumping(code));
+    }
+
+    @Test
+    @DisplayName("&& y || con varios operandos son solo saltos")
+    void testShortCircuit() {
+        String code = """
+        function f(a: integer, b: integer): void {
+            if (a < b && b < 5 && a != 0 || !(b == 2)) {
+                print("si");
+            }
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "if a >= b goto L4",
+                "if b >= 5 goto L4",
+                "if a != 0 goto L3",
+                "L4:",
+                "if b == 2 goto L1",
+                "L3:",
+                "call print(\"si\")",
+                "L1:",
+                "end f"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("do-while salta al inicio cuando la condición es verdadera")
+    void testDoWhile() {
+        String code = """
+        function f(c: integer, ok: boolean): void {
+            do {
+                c = c - 1;
+            } while (c > 0 && ok);
+        }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertTrue(optimized.containsAll(List.of("if c <= 0 goto L3", "if ok != 0 goto L1")), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("Un booleano como valor se materializa con los mismos saltos")
+    void testMaterializedBoolean() {
+        String code = """
+        function g(s: integer): integer {
+            let b: boolean = s > 3 && s < 100 || s == 2;
+            let c: integer = b ? s + 1 : s - 1;
+            return c;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function g:",
+                "t1 = 0",
+                "if s <= 3 goto L3",
+                "if s < 100 goto L2",
+                "L3:",
+                "if s != 2 goto L1",
+                "L2:",
+                "t1 = 1",
+                "L1:",
+                "b = t1",
+                "if t1 == 0 goto L4",
+                "t1 = s + 1",
+                "goto L5",
+                "L4:",
+                "t1 = s - 1",
+                "L5:",
+                "c = t1",
+                "return t1",
+                "end g"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("Un bucle con condición compuesta usa menos instrucciones")
+    void testFewerInstructions() {
+        String code = """
+        let n: integer = 0;
+        for (let k: integer = 0; k < 100; k = k + 1) {
+            if (k % 2 == 0 && k > 10) { n = n + 1; }
+        }
+        """;
+        int materialized = testInit.generateTAC(code).size();
+        int jumps = jumping(code).size();
+        assertTrue(jumps < materialized, jumps + " >= " + materialized);
+    }
+}
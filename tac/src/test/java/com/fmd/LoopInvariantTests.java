@@ -0,0 +1,185 @@
+package com.fmd;
+
+import com.fmd.NaturalLoops.Loop;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de código invariante en ciclos")
+public class LoopInvariantTests {
+    TestInit testInit = new TestInit();
+
+    @Test
+    @DisplayName("Ciclos naturales: encabezados, latches y anidamiento")
+    void testNaturalLoops() {
+        String code = """
+        function f(n: integer): integer {
+            let s: integer = 0;
+            let i: integer = 0;
+            while (i < n) {
+                let j: integer = 0;
+                do { s = s + j; j = j + 1; } while (j < i);
+                i = i + 1;
+            }
+            return s;
+        }
+        """;
+        testInit.generateTAC(code);
+        ControlFlowGraph f = ControlFlowGraph.build(testInit.visitor_tac.getGenerator().getInstructions())
+                .getFunctions().get(0);
+        DominatorTree dominators = DominatorTree.compute(f);
+        List<Loop> loops = NaturalLoops.find(f, dominators).getLoops();
+        assertEquals(2, loops.size());
+        Loop inner = loops.get(0);
+        Loop outer = loops.get(1);
+        assertSame(outer, inner.getParent());
+        assertNull(outer.getParent());
+        assertEquals(2, inner.getDepth());
+        assertTrue(outer.contains(inner.getHeader()));
+        assertEquals(List.of(outer.getHeader()), outer.getExiting());
+        assertEquals(1, inner.getLatches().size());
+        assertTrue(inner.getExiting().contains(inner.getLatches().get(0)));
+    }
+
+    @Test
+    @DisplayName("for y do-while: la condición y el cuerpo invariantes van antes del ciclo")
+    void testForAndDoWhile() {
+        String code = """
+        function f(n: integer): integer {
+            let s: integer = 0;
+            let k: integer = 0;
+            for (k = 0; k < n * 2; k = k + 1) {
+                s = s + (n + 1);
+            }
+            do { s = s - n * 3; k = k - 1; } while (k > n - 5);
+            return s;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "s = 0",
+                "k = 0",
+                "k = 0",
+                "t6 = n * 2",
+                "t7 = n + 1",
+                "L1:",
+                "if k >= t6 goto L2",
+                "s = s + t7",
+                "k = k + 1",
+                "goto L1",
+                "L2:",
+                "t3 = n * 3",
+                "t1 = n - 5",
+                "L3:",
+                "s = s - t3",
+                "k = k - 1",
+                "if k > t1 goto L3",
+                "return s",
+                "end f"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("La fila m[i] sale del ciclo interno detrás de una guarda con la condición")
+    void testRowHoistedWithGuard() {
+        String code = """
+        let m: integer[][] = [[1, 2], [3, 4]];
+        let i: integer = 0;
+        while (i < 2) {
+            let j: integer = 0;
+            while (j < 2) {
+                print(m[i][j]);
+                j = j + 1;
+            }
+            i = i + 1;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "L1:",
+                "if i >= 2 goto L2",
+                "j = 0",
+                "if j >= 2 goto L4",
+                "t5 = m[i]",
+                "L3:",
+                "if j >= 2 goto L4",
+                "t2 = t5[j]",
+                "call print(t2)",
+                "j = j + 1",
+                "goto L3",
+                "L4:",
+                "i = i + 1",
+                "goto L1",
+                "L2:"
+        );
+        List<String> tac = testInit.optimizeTAC(code, 2);
+        assertEquals(expected, tac.subList(tac.indexOf("L1:"), tac.size()));
+    }
+
+    @Test
+    @DisplayName("Lo que puede fallar no se adelanta a un print, y una carga no sale si el ciclo escribe memoria")
+    void testFaultingStaysInside() {
+        String code = """
+        function f(n: integer, a: integer[]): integer {
+            let s: integer = 0;
+            let i: integer = 0;
+            while (i < n) {
+                print(i);
+                s = s + 100 / n;
+                a[i] = a[0];
+                i = i + 1;
+            }
+            return s;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "s = 0",
+                "i = 0",
+                "t3 = 0",
+                "L1:",
+                "if i >= n goto L2",
+                "call print(i)",
+                "t2 = 100 / n",
+                "s = s + t2",
+                "t2 = a[t3]",
+                "a[i] = t2",
+                "i = i + 1",
+                "goto L1",
+                "L2:",
+                "return s",
+                "end f"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    @Test
+    @DisplayName("Una variable global no es invariante si el ciclo llama a una función")
+    void testCallsKillGlobals() {
+        String code = """
+        let g: integer = 1;
+        function bump(): void { g = g + 1; }
+        function f(n: integer): integer {
+            let s: integer = 0;
+            let i: integer = 0;
+            while (i < n) {
+                s = s + g * 2 + n * 2;
+                bump();
+                i = i + 1;
+            }
+            return s;
+        }
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 2);
+        int header = tac.indexOf("L1:");
+        assertTrue(tac.stream().anyMatch(l -> l.endsWith("= g * 2") && tac.indexOf(l) > header), tac.toString());
+        assertTrue(tac.stream().anyMatch(l -> l.endsWith("= n * 2") && tac.indexOf(l) < header), tac.toString());
+    }
+}
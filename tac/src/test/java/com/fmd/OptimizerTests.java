@@ -0,0 +1,120 @@
+package com.fmd;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de TACOptimizer")
+public class OptimizerTests {
+    TestInit testInit = new TestInit();
+
+    @Test
+    @DisplayName("-O0 deja el TAC igual")
+    void testLevelZero() {
+        String code = "let x: integer = 2 * 3 + 4;";
+        assertEquals(testInit.generateTAC(code), testInit.optimizeTAC(code, 0));
+        assertEquals(testInit.report.before(), testInit.report.after());
+    }
+
+    @Test
+    @DisplayName("Plegado de aritmética entera")
+    void testFoldArithmetic() {
+        String code = "let x: integer = 2 * 3 + 4;";
+        assertEquals(List.of("x = 10"), testInit.optimizeTAC(code, 1));
+        assertEquals(6, testInit.report.before());
+        assertEquals(1, testInit.report.after());
+    }
+
+    @Test
+    @DisplayName("Propagación a través de variables y cadenas de ASSIGN")
+    void testPropagateThroughVariables() {
+        String code = """
+        const K: integer = 7;
+        let y: integer = K * 2;
+        let b: boolean = !(y < 10);
+        print(y);
+        """;
+        List<String> expected = Arrays.asList(
+                "K = 7",
+                "y = 14",
+                "b = 1",
+                "call print(14)"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 1));
+    }
+
+    @Test
+    @DisplayName("IF_GOTO constante se vuelve GOTO o desaparece")
+    void testResolveConstantBranches() {
+        String code = """
+        let x: integer = 0;
+        if (1 < 2) {
+            x = 1;
+        } else {
+            x = 2;
+        }
+        while (false) {
+            x = x + 1;
+        }
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 1);
+        // if (1 < 2): el salto al else nunca se toma
+        assertEquals("x = 1", tac.get(4));
+        assertEquals("goto L2", tac.get(5));
+        // while (false): siempre sale del ciclo
+        assertEquals(Arrays.asList("L3:", "t3 = 0", "goto L4"), tac.subList(10, 13));
+        assertFalse(tac.stream().anyMatch(line -> line.startsWith("if ")), String.join("\n", tac));
+    }
+
+    @Test
+    @DisplayName("Lo conocido se olvida en las etiquetas")
+    void testLabelsResetKnowledge() {
+        String code = """
+        let x: integer = 5;
+        while (x > 0) {
+            x = x - 1;
+        }
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 1);
+        assertTrue(tac.contains("x = 5"), String.join("\n", tac));
+        assertTrue(tac.contains("t2 = x > 0"), String.join("\n", tac));
+        assertTrue(tac.contains("t3 = x - 1"), String.join("\n", tac));
+    }
+
+    @Test
+    @DisplayName("La división por cero no se pliega")
+    void testDivisionByZeroKept() {
+        List<String> tac = testInit.optimizeTAC("let z: integer = 10 / 0;", 1);
+        assertTrue(tac.stream().anyMatch(line -> line.contains(" / ")), String.join("\n", tac));
+    }
+
+    @Test
+    @DisplayName("Cargas de temporales leídas por un store se conservan")
+    void testIndexedStoreKeepsTemps() {
+        String code = """
+        let a: integer[] = [1, 2, 3];
+        let i: integer = 1;
+        a[i] = 3 * 3;
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 1);
+        assertTrue(tac.contains("a[0] = 1"), String.join("\n", tac));
+        assertEquals("a[i] = 9", tac.get(tac.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Programas sintéticos: menos instrucciones y ningún IF_GOTO entre constantes")
+    void testSyntheticPrograms() {
+        for (long seed = 1; seed <= 3; seed++) {
+            String code = new SyntheticProgramGenerator(seed).generate(16 * 1024);
+            List<String> tac = testInit.optimizeTAC(code, 1);
+            assertTrue(testInit.report.after() < testInit.report.before());
+            assertFalse(tac.stream().anyMatch(line -> line.matches("if -?\\d+ \\S+ -?\\d+ goto L\\d+")));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests del parseo en dos etapas (SLL → LL)")
+public class ParsingTests {
+
+    private static String llTree(String code) {
+        CompiscriptParser parser = new CompiscriptParser(
+                new CommonTokenStream(new CompiscriptLexer(CharStreams.fromString(code))));
+        ParseTree tree = parser.program();
+        return tree.toStringTree(parser);
+    }
+
+    @Test
+    @DisplayName("SLL produce el mismo árbol que LL en programas válidos")
+    void testSameTreeAsLL() {
+        String[] corpus = {
+                new SyntheticProgramGenerator(1).weights(4, 0, 2, 2, 2).generate(16 * 1024),
+                new SyntheticProgramGenerator(2).weights(4, 0, 2, 2, 2).nestingDepth(6).switchWidth(32).generate(16 * 1024),
+        };
+        for (String code : corpus) {
+            CompiscriptParsing.Result result = CompiscriptParsing.parse(code);
+            assertFalse(result.fallback());
+            assertEquals(llTree(code), result.tree().toStringTree(result.parser()));
+        }
+    }
+
+    @Test
+    @DisplayName("Las asignaciones a propiedades van directo a LL")
+    void testPropertyAssignmentUsesLL() throws Exception {
+        String[] corpus = {
+                Files.readString(Path.of("src/main/java/com/fmd/program.cps")),
+                new SyntheticProgramGenerator(3).generate(16 * 1024),
+        };
+        for (String code : corpus) {
+            CompiscriptParsing.Result result = CompiscriptParsing.parse(code);
+            assertTrue(result.fallback());
+            assertEquals(0, result.syntaxErrors());
+            assertEquals(llTree(code), result.tree().toStringTree(result.parser()));
+        }
+    }
+
+    @Test
+    @DisplayName("Un error de sintaxis pasa a LL y se reporta")
+    void testSyntaxErrorFallsBack() {
+        long before = CompiscriptParsing.stats().fallbacks();
+
+        CompiscriptParsing.Result result = CompiscriptParsing.parse("let x: integer = ;");
+
+        assertTrue(result.fallback());
+        assertTrue(result.syntaxErrors() > 0);
+        assertTrue(CompiscriptParsing.stats().fallbacks() > before);
+    }
+
+    @Test
+    @DisplayName("Los errores de sintaxis se juntan en el resultado, no en stderr")
+    void testSyntaxErrorsCollected() {
+        PrintStream stderr = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        CompiscriptParsing.Result result;
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            result = CompiscriptParsing.parse("let x: integer = ;\nlet y: integer = 2 # 3;");
+        } finally {
+            System.setErr(stderr);
+        }
+
+        assertEquals(0, captured.size(), captured.toString(StandardCharsets.UTF_8));
+        assertEquals(result.syntaxErrors(), result.syntaxMessages().size());
+        assertTrue(result.syntaxMessages().get(0).startsWith("línea 1:"), result.syntaxMessages().toString());
+        assertTrue(result.syntaxMessages().stream().anyMatch(m -> m.startsWith("línea 2:")),
+                result.syntaxMessages().toString());
+    }
+
+    @Test
+    @DisplayName("El corpus de calentamiento no tiene errores de sintaxis")
+    void testWarmupCorpus() throws Exception {
+        for (String name : new String[] { "program.cps", "expresiones.cps", "clases.cps" }) {
+            try (InputStream in = getClass().getResourceAsStream("/warmup/" + name)) {
+                assertNotNull(in, name);
+                CompiscriptParsing.Result result = CompiscriptParsing.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                assertEquals(0, result.syntaxErrors(), name);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Después del calentamiento el corpus ya no agrega estados DFA")
+    void testWarmupFillsDFA() {
+        CompiscriptParsing.warmUp();
+        CompiscriptParsing.Warmup again = CompiscriptParsing.warmUp();
+
+        assertEquals(again.dfaStatesBefore(), again.dfaStatesAfter());
+        CompiscriptParsing.PredictionStats stats = CompiscriptParsing.predictionStats();
+        assertTrue(stats.parserDfaStates() >= again.dfaStatesAfter());
+        assertTrue(stats.lexerDfaStates() > 0);
+        assertFalse(stats.topDecisions().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Los parsers del pool se reutilizan sin arrastrar estado")
+    void testPoolReuse() {
+        CompiscriptParsing.Result bad = CompiscriptParsing.parse("let x: integer = ;");
+        long created = CompiscriptParsing.predictionStats().pool().created();
+
+        String code = new SyntheticProgramGenerator(4).generate(8 * 1024);
+        for (int i = 0; i < 5; i++) {
+            CompiscriptParsing.Result result = CompiscriptParsing.parse(code);
+            assertEquals(0, result.syntaxErrors());
+            assertEquals(llTree(code), result.tree().toStringTree(result.parser()));
+        }
+
+        assertTrue(bad.syntaxErrors() > 0);
+        assertEquals(created, CompiscriptParsing.predictionStats().pool().created());
+    }
+}
@@ -0,0 +1,213 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de la optimización de mirilla")
+public class PeepholeTests {
+    TestInit testInit = new TestInit();
+
+    private static TACInstruction jump(String label) {
+        TACInstruction instr = new TACInstruction(OpType.GOTO);
+        instr.setLabel(TestInit.operand(label));
+        return instr;
+    }
+
+    private static TACInstruction label(String label) {
+        TACInstruction instr = new TACInstruction(OpType.LABEL);
+        instr.setLabel(TestInit.operand(label));
+        return instr;
+    }
+
+    private static TACInstruction branch(String left, String relop, String right, String label) {
+        TACInstruction instr = new TACInstruction(OpType.IF_GOTO);
+        instr.setArg1(TestInit.operand(left));
+        instr.setRelop(relop);
+        instr.setArg2(TestInit.operand(right));
+        instr.setLabel(TestInit.operand(label));
+        return instr;
+    }
+
+    private static TACInstruction assign(String result, String value) {
+        TACInstruction instr = new TACInstruction(OpType.ASSIGN);
+        instr.setResult(TestInit.operand(result));
+        instr.setArg1(TestInit.operand(value));
+        return instr;
+    }
+
+    private static List<String> text(List<TACInstruction> instructions) {
+        return instructions.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Un salto a un goto va directo al destino final")
+    void testJumpThreading() {
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                branch("a", "<", "b", "L1"),
+                assign("x", "1"),
+                jump("L2"),
+                label("L1"),
+                jump("L3"),
+                label("L2"),
+                assign("y", "2"),
+                label("L3"),
+                assign("z", "3")
+        ));
+        List<String> expected = Arrays.asList(
+                "if a < b goto L3",
+                "x = 1",
+                "y = 2",
+                "L3:",
+                "z = 3"
+        );
+        PeepholePass pass = new PeepholePass();
+        assertEquals(expected, text(pass.run(code)));
+        assertEquals(1, pass.getApplied().get("jump-threading"));
+    }
+
+    @Test
+    @DisplayName("if sobre un goto se invierte")
+    void testInvertedBranch() {
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                branch("t1", "==", "1", "L1"),
+                jump("L2"),
+                label("L1"),
+                assign("x", "1"),
+                label("L2")
+        ));
+        assertEquals(List.of("if t1 != 1 goto L2", "x = 1", "L2:"), text(new PeepholePass().run(code)));
+    }
+
+    @Test
+    @DisplayName("Etiquetas seguidas: los saltos van a la primera y las demás se quitan")
+    void testRedundantLabels() {
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                branch("a", "<", "b", "L1"),
+                assign("x", "1"),
+                branch("a", ">", "b", "L2"),
+                assign("y", "2"),
+                label("L1"),
+                label("L2"),
+                assign("z", "3")
+        ));
+        List<String> expected = Arrays.asList(
+                "if a < b goto L1",
+                "x = 1",
+                "if a > b goto L1",
+                "y = 2",
+                "L1:",
+                "z = 3"
+        );
+        assertEquals(expected, text(new PeepholePass().run(code)));
+    }
+
+    @Test
+    @DisplayName("Lo que sigue a un goto sin etiqueta se quita; las marcas de estructura no")
+    void testUnreachableAfterJump() {
+        TACInstruction tryEnd = new TACInstruction(OpType.TRY_END);
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                label("L1"),
+                assign("x", "1"),
+                jump("L2"),
+                jump("L2"),
+                assign("x", "2"),
+                tryEnd,
+                label("L2"),
+                assign("y", "3")
+        ));
+        assertEquals(List.of("x = 1", "goto L2", "try_end", "L2:", "y = 3"),
+                text(new PeepholePass().run(code)));
+    }
+
+    @Test
+    @DisplayName("Un ciclo de gotos no se sigue")
+    void testGotoCycle() {
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                label("L1"),
+                jump("L2"),
+                label("L2"),
+                jump("L1")
+        ));
+        List<String> result = text(new PeepholePass().run(code));
+        assertTrue(result.contains("goto L1") || result.contains("goto L2"), result.toString());
+    }
+
+    @Test
+    @DisplayName("Ternario sin condiciones como saltos: el if sobre el goto desaparece")
+    void testTernary() {
+        String code = """
+        let x: integer = 5;
+        let y: integer = x > 3 ? 1 : 2;
+        print(y);
+        """;
+        testInit.generateTAC(code);
+        List<TACInstruction> generated = testInit.visitor_tac.getGenerator().getInstructions();
+        List<String> before = text(generated);
+        List<String> after = text(new PeepholePass().run(generated));
+
+        assertTrue(before.stream().anyMatch(line -> line.matches("if t\\d+ == 1 goto L\\d+")), before.toString());
+        assertTrue(after.stream().anyMatch(line -> line.matches("if t\\d+ != 1 goto L\\d+")), after.toString());
+        assertTrue(after.size() < before.size());
+        // Ningún goto seguido de su propia etiqueta ni etiquetas sin uso
+        for (int i = 0; i + 1 < after.size(); i++) {
+            if (after.get(i).startsWith("goto ")) {
+                assertFalse(after.get(i + 1).equals(after.get(i).substring(5) + ":"), after.toString());
+            }
+        }
+        assertEquals(before.stream().filter(line -> line.startsWith("call ")).collect(Collectors.toList()),
+                after.stream().filter(line -> line.startsWith("call ")).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Reglas propias: la mirilla acepta cualquier lista de reglas")
+    void testCustomRule() {
+        // x = x no hace nada
+        PeepholeRule selfCopy = new PeepholeRule("self-copy", List.of(EnumSet.of(OpType.ASSIGN)),
+                (window, context) -> window.get(0).getResult().equals(window.get(0).getArg1()) ? List.of() : null);
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                assign("x", "x"),
+                assign("y", "x"),
+                assign("y", "y")
+        ));
+        PeepholePass pass = new PeepholePass(List.of(selfCopy));
+        assertEquals(List.of("y = x"), text(pass.run(code)));
+        assertEquals(2, pass.getApplied().get("self-copy"));
+    }
+
+    @Test
+    @DisplayName("-O4 aplica la mirilla después del código muerto")
+    void testLevelFour() {
+        String code = """
+        function f(n: integer): integer {
+            let s: integer = 0;
+            let i: integer = 0;
+            while (i < n) {
+                if (i > 2) {
+                    s = s + i;
+                }
+                i = i + 1;
+            }
+            return s;
+        }
+        """;
+        List<String> tac = testInit.optimizeTAC(code, 4);
+        assertTrue(testInit.report.passes().stream().anyMatch(pass -> pass.pass().equals("peephole")));
+        for (int i = 0; i + 1 < tac.size(); i++) {
+            if (tac.get(i).startsWith("goto ")) {
+                assertFalse(tac.get(i + 1).equals(tac.get(i).substring(5) + ":"), tac.toString());
+            }
+        }
+    }
+}
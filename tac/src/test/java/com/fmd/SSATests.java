@@ -0,0 +1,255 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de la forma SSA")
+public class SSATests {
+    TestInit testInit = new TestInit();
+
+    private static final String LOOPS = """
+    let total: integer = 0;
+    function f(n: integer): integer {
+        let i: integer = 0;
+        let s: integer = 0;
+        while (i < n) {
+            if (i % 2 == 0) { s = s + i; } else { s = s - 1; }
+            i = i + 1;
+        }
+        total = s;
+        return s;
+    }
+    let k: integer = 0;
+    for (k = 0; k < 3; k = k + 1) { print(f(k)); }
+    """;
+
+    private static final String SWAP = """
+    function h(a: integer, b: integer, n: integer): integer {
+        let x: integer = a;
+        let y: integer = b;
+        let k: integer = 0;
+        while (k < n) {
+            let tmp: integer = x;
+            x = y;
+            y = tmp;
+            k = k + 1;
+        }
+        return x - y;
+    }
+    """;
+
+    private static List<String> text(List<TACInstruction> instructions) {
+        return instructions.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    private static List<String> text(ControlFlowGraph graph) {
+        return graph.getBlocks().stream()
+                .flatMap(block -> block.getInstructions().stream())
+                .map(Object::toString)
+                .collect(Collectors.toList());
+    }
+
+    private List<SSAForm> build(ControlFlowGraph cfg) {
+        return SSAForm.build(cfg, testInit.visitor_tac.getGenerator().getGlobalNames());
+    }
+
+    /**
+     * Propagación de copias en SSA: sin invalidaciones, cada uso de una
+     * versión copiada se reemplaza por su fuente
+     */
+    private static void propagateCopies(SSAForm form) {
+        Map<TACOperand, TACOperand> copies = new HashMap<>();
+        for (BasicBlock block : form.getGraph().getBlocks()) {
+            for (TACInstruction instr : block.getInstructions()) {
+                TACOperand src = instr.getArg1Operand();
+                if (instr.getOp() == OpType.ASSIGN && form.getOriginal(instr.getResultOperand()) != null
+                        && (src.isInt() || form.getOriginal(src) != null)) {
+                    copies.put(instr.getResultOperand(), src);
+                }
+            }
+        }
+        for (BasicBlock block : form.getGraph().getBlocks()) {
+            List<TACInstruction> instructions = block.getInstructions();
+            instructions.removeIf(instr -> instr.getOp() == OpType.ASSIGN && copies.containsKey(instr.getResultOperand()));
+            instructions.replaceAll(instr -> instr.mapReads(operand -> {
+                while (copies.containsKey(operand)) {
+                    operand = copies.get(operand);
+                }
+                return operand;
+            }));
+        }
+    }
+
+    @Test
+    @DisplayName("Cada versión se define una sola vez y los ciclos tienen phi")
+    void testSingleAssignment() {
+        testInit.generateTAC(LOOPS);
+        ControlFlowGraph cfg = ControlFlowGraph.build(testInit.visitor_tac.getGenerator().getInstructions());
+        List<SSAForm> forms = build(cfg);
+
+        for (SSAForm form : forms) {
+            Set<TACOperand> defined = new HashSet<>();
+            for (BasicBlock block : form.getGraph().getBlocks()) {
+                for (TACInstruction instr : block.getInstructions()) {
+                    TACOperand written = instr.getWritten();
+                    if (written != null && form.getOriginal(written) != null) {
+                        assertTrue(defined.add(written), "definido dos veces: " + written);
+                        assertSame(instr, form.getDefinition(written));
+                    }
+                }
+            }
+        }
+
+        SSAForm f = forms.get(1);
+        List<String> code = text(f.getGraph());
+        BasicBlock header = f.getGraph().getBlock(TACOperand.label(1));
+        List<String> phis = header.getInstructions().stream()
+                .filter(instr -> instr.getOp() == OpType.PHI)
+                .map(Object::toString)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("i$2 = phi(i$1, i$3)", "s$2 = phi(s$1, s$5)"), phis, code.toString());
+        // La global total y el parámetro n no se renombran
+        assertTrue(code.contains("total = s$2"), code.toString());
+        assertTrue(code.stream().anyMatch(line -> line.endsWith("= i$2 < n")), code.toString());
+    }
+
+    @Test
+    @DisplayName("Entrar y salir de SSA sin cambios devuelve el mismo TAC")
+    void testRoundTrip() {
+        for (String code : List.of(LOOPS, SWAP)) {
+            for (int level = 0; level <= TACOptimizer.MAX_LEVEL; level++) {
+                List<String> original = testInit.optimizeTAC(code, level);
+                ControlFlowGraph cfg = ControlFlowGraph.build(testInit.optimized);
+                List<SSAForm> forms = build(cfg);
+                forms.forEach(SSAForm::destruct);
+                assertEquals(original, text(cfg.toInstructions()), "nivel " + level);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Un nombre escrito dentro de un try no se renombra")
+    void testTryNotRenamed() {
+        String code = """
+        function g(a: integer, b: integer): integer {
+            let x: integer = a;
+            let y: integer = 0;
+            try {
+                x = x / b;
+            } catch (e) {
+                y = 1;
+            }
+            return x + y;
+        }
+        """;
+        testInit.optimizeTAC(code, 2);
+        ControlFlowGraph cfg = ControlFlowGraph.build(testInit.optimized);
+        SSAForm g = build(cfg).get(1);
+        assertFalse(g.isRenamed(TACOperand.of("x")));
+        assertTrue(g.isRenamed(TACOperand.of("y")));
+    }
+
+    @Test
+    @DisplayName("Copias propagadas en SSA: el intercambio usa un temporal al salir")
+    void testSwapAfterCopyPropagation() {
+        testInit.optimizeTAC(SWAP, 2);
+        ControlFlowGraph cfg = ControlFlowGraph.build(testInit.optimized);
+        List<SSAForm> forms = build(cfg);
+        forms.forEach(SSATests::propagateCopies);
+        List<String> ssa = text(forms.get(1).getGraph());
+        assertTrue(ssa.contains("x$2 = phi(x$1, y$2)"), ssa.toString());
+        assertTrue(ssa.contains("y$2 = phi(y$1, x$2)"), ssa.toString());
+
+        forms.forEach(SSAForm::destruct);
+        List<String> expected = Arrays.asList(
+                "Function h:",
+                "x = a",
+                "y = b",
+                "k = 0",
+                "L1:",
+                "if k >= n goto L2",
+                "k = k + 1",
+                "t4 = x",
+                "x = y",
+                "y = t4",
+                "goto L1",
+                "L2:",
+                "t2 = x - y",
+                "return t2",
+                "end h"
+        );
+        assertEquals(expected, text(cfg.toInstructions()));
+    }
+
+    @Test
+    @DisplayName("Arista crítica: las copias van en un bloque nuevo antes del destino")
+    void testCriticalEdge() {
+        String code = """
+        function h(n: integer): integer {
+            let x: integer = 0;
+            let y: integer = 0;
+            do {
+                y = x;
+                x = x + 1;
+            } while (x < n);
+            return y;
+        }
+        """;
+        testInit.optimizeTAC(code, 2);
+        ControlFlowGraph cfg = ControlFlowGraph.build(testInit.optimized);
+        List<SSAForm> forms = build(cfg);
+        forms.forEach(SSATests::propagateCopies);
+        forms.forEach(SSAForm::destruct);
+        // x$2 sigue vivo después de x$3 = x$2 + 1: no pueden compartir nombre
+        List<String> expected = Arrays.asList(
+                "Function h:",
+                "x = 0",
+                "goto L1",
+                "L2:",
+                "x = t1",
+                "L1:",
+                "t1 = x + 1",
+                "if t1 < n goto L2",
+                "return x",
+                "end h"
+        );
+        assertEquals(expected, text(cfg.toInstructions()));
+    }
+
+    @Test
+    @DisplayName("Dominadores y frontera de dominancia de un ciclo con if")
+    void testDominators() {
+        testInit.generateTAC(LOOPS);
+        ControlFlowGraph f = ControlFlowGraph.build(testInit.visitor_tac.getGenerator().getInstructions())
+                .getFunctions().get(0);
+        DominatorTree tree = DominatorTree.compute(f);
+        BasicBlock header = f.getBlock(TACOperand.label(1));
+        BasicBlock exit = f.getBlock(TACOperand.label(2));
+        for (BasicBlock block : tree.getReversePostorder()) {
+            assertTrue(tree.dominates(f.getEntry(), block), block.toString());
+        }
+        assertSame(header, tree.getIdom(exit));
+        // Los dos brazos del if tienen la unión en su frontera; la unión, el encabezado
+        BasicBlock join = f.getBlock(TACOperand.label(4));
+        assertTrue(tree.getFrontier(join).contains(header), tree.getFrontier(join).toString());
+        assertTrue(tree.getFrontier(header).contains(header));
+        assertFalse(tree.dominates(join, header));
+    }
+}
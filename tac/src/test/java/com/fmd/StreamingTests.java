@@ -0,0 +1,62 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de generación de TAC en modo streaming")
+public class StreamingTests {
+
+    private static List<String> generateStreaming(String code, List<String> out) {
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
+        CompiscriptParser parser = new CompiscriptParser(new CommonTokenStream(lexer));
+        ParseTree tree = parser.program();
+
+        SemanticVisitor visitor = new SemanticVisitor();
+        visitor.visit(tree);
+
+        TACVisitor visitor_tac = new TACVisitor(visitor.getExistingScopes(), instr -> out.add(instr.toString()));
+        visitor_tac.visit(tree);
+
+        assertTrue(visitor_tac.getGenerator().getInstructions().isEmpty());
+        assertEquals(out.size(), visitor_tac.getGenerator().getInstructionCount());
+        return out;
+    }
+
+    @Test
+    @DisplayName("El sink recibe las mismas instrucciones y en el mismo orden")
+    void testStreamingMatchesList() {
+        String code = """
+            class Animal {
+                let name: string;
+                function constructor(name: string) { this.name = name; }
+                function speak(): string { return this.name + " hace ruido"; }
+            }
+            function fact(n: integer): integer {
+                if (n <= 1) { return 1; }
+                return n * fact(n - 1);
+            }
+            let a: Animal = new Animal("Rex");
+            let r: integer = fact(5);
+            let arr: integer[] = [1, 2, 3];
+            for (let i: integer = 0; i < 3; i = i + 1) {
+                if (arr[i] == 2 && r > 0) { continue; }
+                print(arr[i]);
+            }
+            try { print(arr[5]); } catch (e) { print("error"); }
+            """;
+
+        List<String> expected = new TestInit().generateTAC(code);
+        List<String> streamed = generateStreaming(code, new ArrayList<>());
+
+        assertEquals(expected, streamed);
+    }
+}
@@ -0,0 +1,135 @@
+package com.fmd;
+
+import com.fmd.modules.BasicBlock;
+import com.fmd.modules.TACInstruction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de despacho de switch con tablas")
+public class SwitchTableTests {
+    TestInit testInit = new TestInit();
+
+    private List<String> tables(String code) {
+        return testInit.generateTAC(code, generator -> generator.setSwitchTables(true));
+    }
+
+    private static String switchOf(int... values) {
+        StringBuilder sb = new StringBuilder("function f(x: integer): integer {\n let s: integer = 0;\n switch (x) {\n");
+        for (int value : values) {
+            sb.append("  case ").append(value).append(": s = ").append(value).append(";\n");
+        }
+        sb.append("  default: s = -1;\n }\n return s;\n}\n");
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Case densos: una sola jump_table, los huecos van al default")
+    void testDenseSwitch() {
+        List<String> tac = tables(switchOf(3, 4, 6, 7, 5, 9));
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "t1 = 0",
+                "s = t1",
+                "t1 = x",
+                "jump_table t1 [3..9] L2, L3, L6, L4, L5, L8, L7 else L8",
+                "L2:"
+        );
+        assertEquals(expected, tac.subList(0, expected.size()));
+        assertFalse(tac.stream().anyMatch(line -> line.startsWith("if t1 ==")), tac.toString());
+    }
+
+    @Test
+    @DisplayName("Case dispersos: árbol de comparaciones con O(log n) saltos")
+    void testSparseSwitch() {
+        List<String> tac = tables(switchOf(10, 200, 3000, 40000, 500000, 6000000, 70000000));
+        List<String> expected = Arrays.asList(
+                "t1 = x",
+                "if t1 >= 40000 goto L10"
+        );
+        int start = tac.indexOf("t1 = x");
+        assertEquals(expected, tac.subList(start, start + expected.size()));
+        assertTrue(tac.stream().noneMatch(line -> line.startsWith("jump_table")), tac.toString());
+        assertTrue(tac.stream().filter(line -> line.startsWith("if t1")).count() <= 9, tac.toString());
+    }
+
+    @Test
+    @DisplayName("Rangos densos dentro de un switch disperso tienen su propia tabla")
+    void testMixedSwitch() {
+        List<String> tac = tables(switchOf(1, 2, 3, 4, 5, 100, 1000, 1001, 1002, 1003));
+        assertEquals(2, tac.stream().filter(line -> line.startsWith("jump_table")).count(), tac.toString());
+        assertTrue(tac.contains("jump_table t1 [1..5] L2, L3, L4, L5, L6 else L12"), tac.toString());
+        assertTrue(tac.contains("jump_table t1 [1000..1003] L8, L9, L10, L11 else L12"), tac.toString());
+    }
+
+    @Test
+    @DisplayName("Un switch grande con densidad suficiente es una sola tabla")
+    void testLargeSwitch() {
+        int[] values = new int[2000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 2 * i;
+        }
+        List<String> tac = tables(switchOf(values));
+        List<String> tables = tac.stream().filter(line -> line.startsWith("jump_table")).toList();
+        assertEquals(1, tables.size());
+        assertTrue(tables.get(0).startsWith("jump_table t1 [0..3998] "), tables.get(0).substring(0, 40));
+        assertTrue(tac.stream().noneMatch(line -> line.startsWith("if t1")));
+    }
+
+    @Test
+    @DisplayName("Case no constantes conservan la cadena de comparaciones")
+    void testNonConstantCases() {
+        String code = """
+        function f(x: integer, y: integer): integer {
+            switch (x) {
+                case y: return 1;
+                case 2: return 2;
+                case 3: return 3;
+                case 4: return 4;
+            }
+            return 0;
+        }
+        """;
+        List<String> tac = tables(code);
+        assertTrue(tac.contains("if t1 == y goto L2"), tac.toString());
+        assertTrue(tac.stream().noneMatch(line -> line.startsWith("jump_table")), tac.toString());
+    }
+
+    @Test
+    @DisplayName("El grafo tiene una arista por cada destino de la tabla")
+    void testJumpTableEdges() {
+        tables(switchOf(1, 2, 3, 4));
+        ControlFlowGraph cfg = ControlFlowGraph.build(testInit.visitor_tac.getGenerator().getInstructions());
+        ControlFlowGraph f = cfg.getFunctions().get(0);
+        BasicBlock dispatch = f.getBlocks().stream()
+                .filter(block -> block.last().getOp() == TACInstruction.OpType.JUMP_TABLE)
+                .findFirst().orElseThrow();
+        // 4 case + default
+        assertEquals(5, dispatch.getSuccessors().size());
+    }
+
+    @Test
+    @DisplayName("-O2 resuelve una tabla con índice constante")
+    void testConstantIndex() {
+        String code = """
+        let s: integer = 0;
+        switch (3) {
+            case 1: s = 1;
+            case 2: s = 2;
+            case 3: s = 3;
+            case 4: s = 4;
+        }
+        print(s);
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertTrue(optimized.stream().noneMatch(line -> line.startsWith("jump_table")), optimized.toString());
+        assertTrue(optimized.contains("s = 3"), optimized.toString());
+        assertFalse(optimized.contains("s = 1"), optimized.toString());
+    }
+}
@@ -0,0 +1,82 @@
+package com.fmd;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests del generador de programas sintéticos")
+public class SyntheticProgramTests {
+
+    @Test
+    @DisplayName("La misma semilla produce el mismo programa")
+    void testSeedIsReproducible() {
+        String a = new SyntheticProgramGenerator(7).generate(8 * 1024);
+        String b = new SyntheticProgramGenerator(7).generate(8 * 1024);
+        String c = new SyntheticProgramGenerator(8).generate(8 * 1024);
+
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+        assertTrue(a.length() >= 8 * 1024);
+    }
+
+    @Test
+    @DisplayName("Los programas generados compilan sin errores hasta TAC")
+    void testGeneratedProgramsCompile() {
+        for (long seed = 0; seed < 20; seed++) {
+            String code = new SyntheticProgramGenerator(seed)
+                    .nestingDepth(4)
+                    .switchWidth(16)
+                    .expressionLength(12)
+                    .generate(16 * 1024);
+            assertCompiles(code);
+        }
+    }
+
+    @Test
+    @DisplayName("Cada construcción se puede generar por separado")
+    void testSingleConstructs() {
+        int[][] weights = {
+                {1, 0, 0, 0, 0},
+                {0, 1, 0, 0, 0},
+                {0, 0, 1, 0, 0},
+                {0, 0, 0, 1, 0},
+                {0, 0, 0, 0, 1},
+        };
+        for (int[] w : weights) {
+            String code = new SyntheticProgramGenerator(3)
+                    .weights(w[0], w[1], w[2], w[3], w[4])
+                    .nestingDepth(6)
+                    .switchWidth(100)
+                    .classFields(10)
+                    .arrayLength(500)
+                    .expressionLength(50)
+                    .generate(32 * 1024);
+            assertCompiles(code);
+        }
+    }
+
+    private static void assertCompiles(String code) {
+        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
+        CompiscriptParser parser = new CompiscriptParser(new CommonTokenStream(lexer));
+        ParseTree tree = parser.program();
+        assertEquals(0, parser.getNumberOfSyntaxErrors(), code);
+
+        SemanticVisitor semantic = new SemanticVisitor();
+        semantic.visit(tree);
+        assertTrue(semantic.getErrores().isEmpty(), () -> semantic.getErrores() + "\n" + code);
+
+        TACVisitor tac = new TACVisitor(semantic.getExistingScopes());
+        tac.visit(tree);
+        List<?> instructions = tac.getGenerator().getInstructions();
+        assertFalse(instructions.isEmpty());
+    }
+}
@@ -0,0 +1,152 @@
+package com.fmd;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga de /compilar-tac con concurrencia creciente.
+ *
+ * Mantiene N peticiones en vuelo (lazo cerrado, sin un hilo por petición) y
+ * reporta throughput y latencias p50/p99 por nivel. Cada petición agrega un
+ * comentario distinto al programa para no medir la caché de compilaciones.
+ *
+ * No es un test de JUnit; con el servidor levantado se ejecuta:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.fmd.TACLoadHarness
+ *       -Dexec.args="http://localhost:8080 src/main/java/com/fmd/program.cps 10 1,8,64,256,1024"
+ *
+ * Argumentos: URL base, archivo fuente, segundos por nivel, niveles de concurrencia.
+ */
+public class TACLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String inputFile = args.length > 1 ? args[1] : "src/main/java/com/fmd/program.cps";
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int[] levels = Arrays.stream((args.length > 3 ? args[3] : "1,8,64,256,1024").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+
+        String code = Files.readString(Path.of(inputFile));
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI uri = URI.create(baseUrl + "/compilar-tac");
+
+        System.out.printf("%-12s %10s %10s %10s %10s %8s%n",
+                "concurrencia", "req/s", "p50 (ms)", "p99 (ms)", "max (ms)", "errores");
+        for (int level : levels) {
+            run(client, uri, code, level, seconds);
+        }
+    }
+
+    private static void run(HttpClient client, URI uri, String code, int concurrency, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong sequence = new AtomicLong();
+
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = loop(client, uri, code, deadline, latencies, errors, sequence);
+        }
+        CompletableFuture.allOf(workers).join();
+
+        long[] sorted = latencies.sorted();
+        System.out.printf("%-12d %10.1f %10.2f %10.2f %10.2f %8d%n",
+                concurrency,
+                (double) sorted.length / seconds,
+                percentile(sorted, 0.50) / 1e6,
+                percentile(sorted, 0.99) / 1e6,
+                sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0.0,
+                errors.get());
+    }
+
+    /**
+     * Un "usuario": envía una petición, espera la respuesta y repite hasta el plazo
+     */
+    private static CompletableFuture<Void> loop(HttpClient client, URI uri, String code, long deadline,
+                                                LatencyRecorder latencies, AtomicInteger errors,
+                                                AtomicLong sequence) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String program = code + "\n// " + sequence.incrementAndGet();
+        String body = "{\"codigo\": " + jsonString(program) + ", \"astImage\": \"none\"}";
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.record(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, uri, code, deadline, latencies, errors, sequence));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Latencias en nanosegundos; crece como un arreglo dinámico
+     */
+    private static final class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.fmd;
+
+import com.fmd.modules.TACOperand;
+import com.fmd.modules.TACOperand.Kind;
+import com.fmd.modules.TACOperandPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de los operandos del TAC")
+public class TACOperandTests {
+
+    @Test
+    @DisplayName("El tipo lo decide quien crea el operando, no el texto")
+    void testClassification() {
+        assertEquals(Kind.TEMP, TACOperand.temp(1).getKind());
+        assertEquals(Kind.LABEL, TACOperand.label(2).getKind());
+        assertEquals(Kind.INT, TACOperand.integer(7).getKind());
+
+        // of() solo reconoce enteros; todo lo demás es un nombre
+        assertEquals(Kind.NAME, TACOperand.of("t1").getKind());
+        assertEquals(Kind.NAME, TACOperand.of("L2").getKind());
+        assertEquals(Kind.NAME, TACOperand.of("a[t1]").getKind());
+        assertFalse(TACOperand.of("a[t1]").isAccess());
+        assertEquals(Kind.INT, TACOperand.of("42").getKind());
+        assertEquals(-3, TACOperand.of("-3").getValue());
+        assertEquals(Kind.NAME, TACOperand.of("007").getKind());
+        assertEquals(Kind.NAME, TACOperand.of("-0").getKind());
+        assertEquals(Kind.NAME, TACOperand.of("\"hola\"").getKind());
+    }
+
+    @Test
+    @DisplayName("Un nombre que se imprime como temporal no es el temporal")
+    void testEquality() {
+        TACOperand a = TACOperand.name("a");
+        assertEquals("t1", TACOperand.name("t1").toString());
+        assertNotEquals(TACOperand.temp(1), TACOperand.name("t1"));
+        assertNotEquals(TACOperand.label(2), TACOperand.of("L2"));
+        assertEquals(TACOperand.integer(42), TACOperand.of("42"));
+
+        TACOperand byTemp = TACOperand.element(a, TACOperand.temp(1));
+        TACOperand byName = TACOperand.element(a, TACOperand.name("t1"));
+        assertEquals(byTemp.toString(), byName.toString());
+        assertNotEquals(byTemp, byName);
+        assertEquals(byTemp, TACOperand.element(TACOperand.name("a"), TACOperand.temp(1)));
+        assertNotEquals(TACOperand.field(a, "x"), TACOperand.name("a.x"));
+    }
+
+    @Test
+    @DisplayName("El texto se arma al imprimir, a partir de las partes")
+    void testRendering() {
+        TACOperand m = TACOperand.name("m");
+        assertEquals("t3", TACOperand.temp(3).toString());
+        assertEquals("L2", TACOperand.label(2).toString());
+        assertEquals("-5", TACOperand.integer(-5).toString());
+        assertEquals("m[t1][2]", TACOperand.element(m, TACOperand.temp(1), TACOperand.integer(2)).toString());
+        assertEquals("this.x", TACOperand.field(TACOperand.name("this"), "x").toString());
+        assertEquals("[t7]", TACOperand.address(TACOperand.temp(7)).toString());
+
+        // Un elemento de un elemento agrega los índices en vez de anidarse
+        TACOperand row = TACOperand.element(m, TACOperand.temp(1));
+        TACOperand cell = TACOperand.element(row, TACOperand.temp(2));
+        assertSame(m, cell.getBase());
+        assertEquals(List.of(TACOperand.temp(1), TACOperand.temp(2)), cell.getIndices());
+        assertEquals("m[t1][t2]", cell.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> TACOperand.element(m));
+    }
+
+    @Test
+    @DisplayName("Los temporales de un acceso se recorren y renombran; un nombre t1 no")
+    void testTempsInAccess() {
+        TACOperand access = TACOperand.element(TACOperand.name("a"), TACOperand.temp(4), TACOperand.name("t1"));
+        List<Integer> temps = new ArrayList<>();
+        access.forEachTemp(temps::add);
+        assertEquals(List.of(4), temps);
+
+        assertEquals("a[t9][t1]", access.mapTemps(id -> id + 5).toString());
+        assertSame(access, access.mapTemps(id -> id));
+
+        TACOperand method = TACOperand.field(TACOperand.temp(2), "mover");
+        assertEquals("t3.mover", method.mapTemps(id -> 3).toString());
+        assertTrue(method.mapTemps(id -> 3).isField());
+    }
+
+    @Test
+    @DisplayName("El pool comparte operandos iguales y las partes de los accesos")
+    void testPooling() {
+        TACOperandPool pool = new TACOperandPool();
+        TACOperand x = pool.intern(TACOperand.name("x"));
+        assertSame(x, pool.intern(TACOperand.name("x")));
+        assertSame(pool.intern(TACOperand.temp(300)), pool.intern(TACOperand.temp(300)));
+        assertEquals(2, pool.size());
+
+        TACOperand element = pool.intern(TACOperand.element(TACOperand.name("x"), TACOperand.temp(300)));
+        assertSame(x, element.getBase());
+        assertSame(pool.intern(TACOperand.temp(300)), element.getIndices().get(0));
+        assertSame(element, pool.intern(TACOperand.element(TACOperand.name("x"), TACOperand.temp(300))));
+        assertEquals(3, pool.size());
+
+        // Mismo texto, distinto tipo: no se comparten
+        assertNotEquals(pool.intern(TACOperand.temp(1)), pool.intern(TACOperand.name("t1")));
+        assertEquals(5, pool.size());
+        assertSame(pool.intern("+"), pool.intern(new String("+")));
+    }
+}
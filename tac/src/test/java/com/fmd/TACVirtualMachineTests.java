@@ -0,0 +1,364 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import com.fmd.modules.TACOperand.Kind;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de la máquina virtual del TAC")
+public class TACVirtualMachineTests {
+    TestInit testInit = new TestInit();
+
+    private static final String FACTORIAL = """
+        function fact(n: integer): integer {
+            if (n <= 1) {
+                return 1;
+            }
+            return n * fact(n - 1);
+        }
+        let i: integer = 1;
+        while (i <= 5) {
+            print(fact(i));
+            i = i + 1;
+        }
+        """;
+
+    private static final String CLOSURES = """
+        function counter() {
+            let count: integer = 0;
+            function inc() {
+                count = count + 1;
+                return count;
+            }
+            return inc;
+        }
+        let c = counter();
+        c();
+        print(c());
+        let d = counter();
+        print(d());
+
+        function makeAdder(x: integer) {
+            function add(y: integer): integer {
+                return x + y;
+            }
+            return add;
+        }
+        let add5 = makeAdder(5);
+        print(add5(3));
+        """;
+
+    private static final String CLASSES = """
+        class Punto {
+            let x: integer;
+            let y: integer;
+
+            function constructor(x: integer, y: integer) {
+                this.x = x;
+                this.y = y;
+            }
+
+            function mover(dx: integer, dy: integer) {
+                this.x = this.x + dx;
+                this.y = this.y + dy;
+            }
+
+            function distancia(): integer {
+                return this.x * this.x + this.y * this.y;
+            }
+        }
+        class Animal {
+            let name: string = "hugo";
+
+            function speak(): string {
+                return name + " hace ruido";
+            }
+        }
+        let p: Punto = new Punto(1, 2);
+        p.mover(2, 2);
+        print(p.distancia());
+        print(p.x);
+        let a: Animal = new Animal();
+        print(a.speak());
+        """;
+
+    private static final String INHERITANCE = """
+        class Animal {
+            let name: string;
+
+            function constructor(name: string) {
+                this.name = name;
+            }
+
+            function speak(): string {
+                return this.name + " hace ruido";
+            }
+
+            function describe(): string {
+                return "soy " + this.name;
+            }
+        }
+        class Perro : Animal {
+            let patas: integer = 4;
+
+            function speak(): string {
+                return this.name + " ladra";
+            }
+
+            function info(): string {
+                return this.describe() + " con " + this.patas + " patas";
+            }
+        }
+        let a: Animal = new Animal("gato");
+        let p: Perro = new Perro("rex");
+        print(a.speak());
+        print(p.speak());
+        print(p.describe());
+        print(p.info());
+        print(p.name);
+        """;
+
+    private static final String EXCEPTIONS = """
+        function dividir(a: integer, b: integer): integer {
+            return a / b;
+        }
+        try {
+            print(dividir(10, 2));
+            print(dividir(1, 0));
+            print("no llega");
+        } catch (err) {
+            print("error: " + err);
+        }
+        let v: integer[] = [1, 2, 3];
+        try {
+            print(v[5]);
+        } catch (e) {
+            print("fuera de rango");
+        }
+        print("fin");
+        """;
+
+    private static final String MATRIX = """
+        let m: integer[][] = [[1, 2, 3], [4, 5, 6]];
+        let s: integer = 0;
+        let i: integer = 0;
+        while (i < 2) {
+            let j: integer = 0;
+            while (j < 3) {
+                s = s + m[i][j];
+                j = j + 1;
+            }
+            i = i + 1;
+        }
+        print(s);
+        """;
+
+    private static final String MATRIX_BOUNDS = """
+        let m: integer[][] = [[1, 2, 3], [4, 5, 6]];
+        let k: integer = 5;
+        try {
+            print(m[0][k]);
+        } catch (e) {
+            print("error: " + e);
+        }
+        try {
+            print(m[k][0]);
+        } catch (e) {
+            print("error: " + e);
+        }
+        print(m[1][2]);
+        """;
+
+    private static final String TAC_NAMES = """
+        function t4(t5: integer): integer {
+            return t5 * 2;
+        }
+        let t1: integer = 5;
+        let L2: integer = 0;
+        let t3: integer = 1;
+        let v: integer[] = [1, 2, 3];
+        while (L2 < 3) {
+            t1 = t1 + v[t3];
+            L2 = L2 + 1;
+        }
+        print(t1);
+        print(t4(t1));
+        """;
+
+    private TACVirtualMachine machine(String code) {
+        testInit.generateTAC(code);
+        TACGenerator generator = testInit.visitor_tac.getGenerator();
+        return TACVirtualMachine.of(generator.getInstructions(), generator);
+    }
+
+    private TACVirtualMachine optimized(String code, int level) {
+        testInit.optimizeTAC(code, level);
+        return TACVirtualMachine.of(testInit.optimized, testInit.visitor_tac.getGenerator());
+    }
+
+    @Test
+    @DisplayName("Aritmética de 32 bits, concatenación y print")
+    void testArithmetic() {
+        String code = """
+        let a: integer = 7;
+        let b: integer = 3;
+        print(a + b * 2);
+        print(a / b);
+        print(a % b);
+        print("a = " + a);
+        """;
+        assertEquals(List.of("13", "2", "1", "a = 7"), machine(code).run());
+    }
+
+    @Test
+    @DisplayName("Ciclos y recursión: cada llamada tiene su frame")
+    void testRecursion() {
+        assertEquals(List.of("1", "2", "6", "24", "120"), machine(FACTORIAL).run());
+    }
+
+    @Test
+    @DisplayName("Closures: la función anidada usa el frame de la que la creó")
+    void testClosures() {
+        assertEquals(List.of("2", "1", "8"), machine(CLOSURES).run());
+    }
+
+    @Test
+    @DisplayName("new corre los inicializadores y el constructor; métodos con y sin this")
+    void testClasses() {
+        assertEquals(List.of("25", "3", "hugo hace ruido"), machine(CLASSES).run());
+    }
+
+    @Test
+    @DisplayName("Herencia: constructor, métodos y campos de la superclase; un método redefinido la tapa")
+    void testInheritance() {
+        assertEquals(List.of("gato hace ruido", "rex ladra", "soy rex", "soy rex con 4 patas", "rex"),
+                machine(INHERITANCE).run());
+    }
+
+    @Test
+    @DisplayName("Un error salta al catch aunque ocurra dentro de una llamada")
+    void testExceptions() {
+        assertEquals(List.of("5", "error: División entre cero", "fuera de rango", "fin"),
+                machine(EXCEPTIONS).run());
+    }
+
+    @Test
+    @DisplayName("Un error sin try detiene la ejecución con lo impreso hasta ahí")
+    void testUncaughtError() {
+        String code = """
+        let z: integer = 0;
+        print("antes");
+        print(10 / z);
+        print("después");
+        """;
+        TACVirtualMachine vm = machine(code);
+        TACVirtualMachine.RuntimeError error = assertThrows(TACVirtualMachine.RuntimeError.class, vm::run);
+        assertEquals("División entre cero", error.getMessage());
+        assertEquals(List.of("antes"), vm.getOutput());
+    }
+
+    @Test
+    @DisplayName("Un continue o break que sale de un try no deja su catch activo")
+    void testJumpOutOfTry() {
+        String code = """
+        let i: integer = 0;
+        while (i < 5) {
+            i = i + 1;
+            try {
+                if (i == 1) {
+                    continue;
+                }
+                if (i == 3) {
+                    break;
+                }
+                print(i);
+            } catch (e) {
+                print("catch: " + e);
+            }
+        }
+        let z: integer = 0;
+        print(i);
+        print(10 / z);
+        """;
+        TACVirtualMachine vm = machine(code);
+        TACVirtualMachine.RuntimeError error = assertThrows(TACVirtualMachine.RuntimeError.class, vm::run);
+        assertEquals("División entre cero", error.getMessage());
+        assertEquals(List.of("2", "3"), vm.getOutput());
+    }
+
+    @Test
+    @DisplayName("Límite de instrucciones para un ciclo que no termina")
+    void testMaxSteps() {
+        String code = """
+        let i: integer = 0;
+        while (i >= 0) {
+            i = 1;
+        }
+        """;
+        TACVirtualMachine vm = machine(code);
+        vm.setMaxSteps(1000);
+        assertThrows(IllegalStateException.class, vm::run);
+    }
+
+    @Test
+    @DisplayName("phi no se ejecuta")
+    void testPhiRejected() {
+        TACInstruction phi = new TACInstruction(OpType.PHI);
+        phi.setResult("x");
+        phi.addParam("a");
+        phi.addParam("b");
+        testInit.generateTAC("let a: integer = 1;");
+        assertThrows(IllegalArgumentException.class,
+                () -> TACBytecode.decode(List.of(phi), testInit.visitor_tac.getGenerator()));
+    }
+
+    @Test
+    @DisplayName("Matrices: con índices y con direcciones de -O4 se suma lo mismo")
+    void testMatrix() {
+        TACVirtualMachine plain = machine(MATRIX);
+        assertEquals(List.of("21"), plain.run());
+
+        TACVirtualMachine lowered = optimized(MATRIX, TACOptimizer.MAX_LEVEL);
+        assertTrue(testInit.optimized.stream().noneMatch(instr -> instr.toString().contains("m[")));
+        assertEquals(List.of("21"), lowered.run());
+        assertTrue(lowered.getSteps() < plain.getSteps(), lowered.getSteps() + " >= " + plain.getSteps());
+    }
+
+    @Test
+    @DisplayName("Variables llamadas como temporales o etiquetas (t1, L2) no se confunden con ellos")
+    void testTacShapedNames() {
+        testInit.generateTAC(TAC_NAMES);
+        List<TACInstruction> tac = testInit.visitor_tac.getGenerator().getInstructions();
+        String listing = String.join("\n", tac.stream().map(Object::toString).toList());
+        // "t1 = t…": el destino es la variable t1 y el origen un temporal
+        assertTrue(tac.stream().anyMatch(instr -> instr.toString().startsWith("t1 = t")
+                && instr.getResultOperand().getKind() == Kind.NAME
+                && instr.getArg1Operand() != null && instr.getArg1Operand().isTemp()), listing);
+        // "v[t3]": el índice es la variable t3
+        assertTrue(tac.stream().map(TACInstruction::getArg1Operand).anyMatch(arg -> arg != null
+                && arg.isElement() && arg.toString().equals("v[t3]")
+                && arg.getIndices().get(0).getKind() == Kind.NAME), listing);
+
+        for (int level = 0; level <= TACOptimizer.MAX_LEVEL; level++) {
+            assertEquals(List.of("11", "22"), optimized(TAC_NAMES, level).run(), "-O" + level);
+        }
+    }
+
+    @Test
+    @DisplayName("Cada nivel de optimización imprime lo mismo que el TAC sin optimizar")
+    void testOptimizationLevels() {
+        for (String code : List.of(FACTORIAL, CLOSURES, CLASSES, INHERITANCE, EXCEPTIONS, MATRIX, MATRIX_BOUNDS)) {
+            List<String> expected = machine(code).run();
+            for (int level = 1; level <= TACOptimizer.MAX_LEVEL; level++) {
+                assertEquals(expected, optimized(code, level).run(), "-O" + level + "\n" + code);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests de asignación de temporales")
+public class TempAllocationTests {
+    TestInit testInit = new TestInit();
+
+    @Test
+    @DisplayName("Variables que empiezan con t no se confunden con temporales")
+    void testVariablesStartingWithT() {
+        String code = """
+        let tabla: integer = 5;
+        let t: integer = 2;
+        function g(n: integer): integer { return n; }
+        print(tabla);
+        print(g(t) + g(tabla));
+        """;
+        List<String> expected = Arrays.asList(
+                "t1 = 5",
+                "tabla = t1",
+                "t1 = 2",
+                "t = t1",
+                "Function g:",
+                "return n",
+                "end g",
+                "t1 = tabla",
+                "call print(t1)",
+                "t2 = t",
+                "t1 = call g(t2)",
+                "t3 = tabla",
+                "t2 = call g(t3)",
+                "t3 = t1 + t2",
+                "call print(t3)"
+        );
+        assertEquals(expected, testInit.generateTAC(code));
+    }
+
+    @Test
+    @DisplayName("Sin reciclar, cada temporal se escribe una sola vez")
+    void testFreshTemps() {
+        String code = """
+        let x: integer = 1 + 2 * 3;
+        let y: integer = x * x - 4;
+        print(x + y);
+        """;
+        List<String> tac = testInit.generateTAC(code, false);
+        Set<String> written = new HashSet<>();
+        for (TACInstruction instr : testInit.visitor_tac.getGenerator().getInstructions()) {
+            if (instr.getWritten() != null && instr.getWritten().isTemp()) {
+                assertTrue(written.add(instr.getResult()), "temporal repetido en " + tac);
+            }
+        }
+        assertEquals(9, written.size());
+    }
+
+    @Test
+    @DisplayName("-O3 reparte los temporales de foreach, && y ternario")
+    void testCrossBlockTemps() {
+        String code = """
+        let a: integer[] = [1, 2, 3];
+        let s: integer = 0;
+        foreach (x in a) { s = s + x * 2; }
+        let b: boolean = s > 3 && s < 100;
+        let c: integer = b ? s + 1 : s - 1;
+        """;
+        List<String> expected = Arrays.asList(
+                "a[0] = 1",
+                "a[1] = 2",
+                "a[2] = 3",
+                "s = 0",
+                "t1 = 0",
+                "t2 = 3",
+                "L1:",
+                "if t1 >= t2 goto L2",
+                "x = a[t1]",
+                "t3 = x * 2",
+                "s = s + t3",
+                "t1 = t1 + 1",
+                "goto L1",
+                "L2:",
+                "t1 = 0",
+                "if s <= 3 goto L3",
+                "if s >= 100 goto L3",
+                "t1 = 1",
+                "L3:",
+                "b = t1",
+                "if t1 == 0 goto L4",
+                "t1 = s + 1",
+                "goto L5",
+                "L4:",
+                "t1 = s - 1",
+                "L5:",
+                "c = t1"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 3));
+        assertEquals(3, testInit.report.tempsAfter());
+    }
+
+    @Test
+    @DisplayName("Cada función numera sus temporales desde t1")
+    void testTempsPerFunction() {
+        String code = """
+        function f(n: integer): integer { let r: integer = n * n + n * 3; return r; }
+        let z: integer = f(2) + f(3);
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 3);
+        int start = optimized.indexOf("Function f:");
+        assertEquals("t1 = n * n", optimized.get(start + 1));
+        assertTrue(optimized.contains("r = t1 + t2"), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("En programas sintéticos -O3 no usa más temporales que el reciclaje y no deja lecturas sin definir")
+    void testSyntheticPrograms() {
+        for (long seed = 0; seed < 10; seed++) {
+            String code = new SyntheticProgramGenerator(seed).generate(16 * 1024);
+            testInit.optimizeTAC(code, 1);
+            int recycled = testInit.report.tempsAfter();
+            testInit.optimizeTAC(code, 3);
+            TACOptimizer.Report report = testInit.report;
+            assertTrue(report.tempsAfter() <= recycled, "semilla " + seed + ": " + report);
+
+            List<TACInstruction> allocated = new TempAllocationPass()
+                    .run(new ConstantFoldingPass().run(testInit.visitor_tac.getGenerator().getInstructions()));
+            for (ControlFlowGraph graph : ControlFlowGraph.build(allocated).allGraphs()) {
+                Liveness liveness = Liveness.compute(graph);
+                assertTrue(liveness.liveIn(graph.getEntry()).isEmpty(), "semilla " + seed);
+            }
+        }
+    }
+}
@@ -1,20 +1,70 @@
 package com.fmd;
 
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACOperand;
+
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TestInit {
     public TACVisitor visitor_tac;
+
+    /**
+     * Operando escrito como en el listado del TAC, para armar instrucciones
+     * a mano: en los tests "tN" y "LN" son siempre un temporal y una
+     * etiqueta, "a[t1][2]", "[t7]" y "p.x" son accesos con esas partes, y el
+     * resto un entero o un nombre (TACOperand.of)
+     */
+    public static TACOperand operand(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.matches("[tL][1-9]\\d*")) {
+            int id = Integer.parseInt(text.substring(1));
+            return text.charAt(0) == 't' ? TACOperand.temp(id) : TACOperand.label(id);
+        }
+        if (text.startsWith("\"")) {
+            return TACOperand.name(text);
+        }
+        if (text.endsWith("]")) {
+            // Último índice: su '[' es el que cierra la cuenta de corchetes
+            int depth = 0;
+            int open = text.length() - 1;
+            for (; open > 0; open--) {
+                char c = text.charAt(open);
+                if (c == ']') {
+                    depth++;
+                } else if (c == '[' && --depth == 0) {
+                    break;
+                }
+            }
+            TACOperand index = operand(text.substring(open + 1, text.length() - 1));
+            return open == 0 ? TACOperand.address(index) : TACOperand.element(operand(text.substring(0, open)), index);
+        }
+        int dot = text.lastIndexOf('.');
+        if (dot > 0 && !text.matches("-?\\d+\\.\\d+")) {
+            return TACOperand.field(operand(text.substring(0, dot)), text.substring(dot + 1));
+        }
+        return TACOperand.of(text);
+    }
+
     public List<String> generateTAC(String code) {
+        return generateTAC(code, true);
+    }
+
+    public List<String> generateTAC(String code, boolean recycleTemps) {
+        return generateTAC(code, generator -> generator.setRecycleTemps(recycleTemps));
+    }
+
+    /**
+     * @param setup opciones del generador antes de visitar (p. ej. setJumpingConditions)
+     */
+    public List<String> generateTAC(String code, Consumer<TACGenerator> setup) {
         // Lexer y parser
-        CompiscriptLexer lexer = new CompiscriptLexer(CharStreams.fromString(code));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        CompiscriptParser parser = new CompiscriptParser(tokens);
-        ParseTree tree = parser.program();
+        ParseTree tree = CompiscriptParsing.parse(code).tree();
 
         // Semántico
         SemanticVisitor visitor = new SemanticVisitor();
@@ -22,6 +72,7 @@ public class TestInit {
 
         // Generación TAC
         visitor_tac = new TACVisitor(visitor.getExistingScopes());
+        setup.accept(visitor_tac.getGenerator());
         visitor_tac.visit(tree);
 
         // Retornar TAC como lista de strings
@@ -29,4 +80,17 @@ public class TestInit {
                 .map(Object::toString)
                 .collect(Collectors.toList());
     }
+
+    public TACOptimizer.Report report;
+    public List<TACInstruction> optimized;
+    public List<String> optimizeTAC(String code, int level) {
+        TACOptimizer optimizer = new TACOptimizer(level);
+        generateTAC(code, optimizer::configure);
+        TACOptimizer.Result result = optimizer.optimize(visitor_tac.getGenerator().getInstructions());
+        report = result.report();
+        optimized = result.instructions();
+        return result.instructions().stream()
+                .map(Object::toString)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,139 @@
+package com.fmd;
+
+import com.fmd.modules.TACInstruction;
+import com.fmd.modules.TACInstruction.OpType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Tests de subexpresiones comunes (numeración de valores)")
+public class ValueNumberingTests {
+    TestInit testInit = new TestInit();
+
+    private static long count(List<String> tac, String line) {
+        return tac.stream().filter(line::equals).count();
+    }
+
+    @Test
+    @DisplayName("Cargas y expresiones repetidas se calculan una vez")
+    void testRepeatedExpressions() {
+        String code = """
+        function f(a: integer[], i: integer): integer {
+            let s: integer = a[i] + a[i];
+            let r: integer = (i * 2) + (2 * i);
+            return s + r;
+        }
+        """;
+        List<String> expected = Arrays.asList(
+                "Function f:",
+                "t1 = a[i]",
+                "s = t1 + t1",
+                "t2 = i * 2",
+                "r = t2 + t2",
+                "t3 = s + r",
+                "return t3",
+                "end f"
+        );
+        assertEquals(expected, testInit.optimizeTAC(code, 2));
+    }
+
+    private static TACInstruction binary(String result, String left, String operator, String right) {
+        TACInstruction instr = new TACInstruction(OpType.BINARY_OP);
+        instr.setResult(TestInit.operand(result));
+        instr.setArg1(TestInit.operand(left));
+        instr.setOperator(operator);
+        instr.setArg2(TestInit.operand(right));
+        return instr;
+    }
+
+    @Test
+    @DisplayName("Un literal con punto no es una carga: se numera y un store no lo invalida")
+    void testDecimalLiteral() {
+        TACInstruction store = new TACInstruction(OpType.ASSIGN);
+        store.setResult(TestInit.operand("a[0]"));
+        store.setArg1(TestInit.operand("1"));
+        List<TACInstruction> code = new ArrayList<>(List.of(
+                binary("t1", "x", "*", "3.14"),
+                store,
+                binary("t2", "x", "*", "3.14")
+        ));
+        List<String> optimized = new ValueNumberingPass().run(code).stream()
+                .map(Object::toString)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("t1 = x * 3.14", "a[0] = 1", "t2 = t1"), optimized);
+    }
+
+    @Test
+    @DisplayName("Un store a un elemento invalida las cargas")
+    void testStoreKillsLoads() {
+        String code = """
+        function f(a: integer[], b: integer[], i: integer): integer {
+            let x: integer = a[i];
+            b[0] = 7;
+            let y: integer = a[i];
+            return x + y;
+        }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        // b puede ser el mismo arreglo que a
+        assertEquals(2, optimized.stream().filter(line -> line.endsWith("= a[i]")).count(), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("Escribir una variable invalida las expresiones que la usan")
+    void testVariableWrite() {
+        String code = """
+        function f(a: integer[], i: integer): integer {
+            let x: integer = a[i] + i * 3;
+            i = i + 1;
+            let y: integer = a[i] + i * 3;
+            return x + y;
+        }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertEquals(2, optimized.stream().filter(line -> line.endsWith("= a[i]")).count(), optimized.toString());
+        assertEquals(2, optimized.stream().filter(line -> line.endsWith("= i * 3")).count(), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("Una llamada invalida cargas de campos y valores de variables")
+    void testCallKillsValues() {
+        String code = """
+        let g: integer = 1;
+        function h(): void { g = g + 1; }
+        function f(p: integer[]): integer {
+            let x: integer = p[0] + g * 2;
+            h();
+            let y: integer = p[0] + g * 2;
+            return x + y;
+        }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        assertEquals(2, optimized.stream().filter(line -> line.contains("= p[")).count(), optimized.toString());
+        assertEquals(2, optimized.stream().filter(line -> line.endsWith("= g * 2")).count(), optimized.toString());
+    }
+
+    @Test
+    @DisplayName("Un valor se reutiliza mientras algún operando lo guarde")
+    void testHolderOverwritten() {
+        String code = """
+        function f(a: integer, b: integer): integer {
+            let x: integer = a - b;
+            let y: integer = x;
+            x = 0;
+            let z: integer = a - b;
+            return x + y + z;
+        }
+        """;
+        List<String> optimized = testInit.optimizeTAC(code, 2);
+        // x ya no guarda a - b, pero y sí
+        assertEquals(1, count(optimized, "t1 = a - b"), optimized.toString());
+        assertEquals(1, count(optimized, "z = t1"), optimized.toString());
+    }
+}